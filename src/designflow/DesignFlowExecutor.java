@@ -0,0 +1,143 @@
+package designflow;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Executor for the stages of the design flow which process every deployment
+ * solution independently, like the placement and the scheduling.
+ *
+ * Every task builds its own solver, and therefore uses its own Z3 context, so the
+ * tasks can run on several workers at the same time. The time budget of a stage
+ * is the total time out of one exploration multiplied by the number of tasks,
+ * which is the most that a sequential run would take. This budget is shared by the
+ * workers : a task gets the total time out, or its fair share of the remaining
+ * budget if that is smaller. With a single worker the tasks run one after the other
+ * with the total time out each, as before.
+ *
+ * @author Pranav Tendulkar
+ *
+ */
+public class DesignFlowExecutor
+{
+	/**
+	 * Work on a single deployment solution.
+	 */
+	public interface Task
+	{
+		/**
+		 * Process a deployment solution.
+		 *
+		 * @param index index of the deployment solution
+		 * @param totalTimeOutInSeconds total time out of the exploration of this solution, 0 for no time out
+		 */
+		void run (int index, int totalTimeOutInSeconds);
+	}
+
+	/**
+	 * Number of workers.
+	 */
+	private final int numWorkers;
+
+	/**
+	 * Build an executor for the design flow.
+	 *
+	 * @param numWorkers number of deployment solutions processed at the same time
+	 */
+	public DesignFlowExecutor (int numWorkers)
+	{
+		this.numWorkers = Math.max (1, numWorkers);
+	}
+
+	/**
+	 * Process all the deployment solutions and wait until they are finished.
+	 *
+	 * @param numTasks number of deployment solutions
+	 * @param totalTimeOutInSeconds total time out of the exploration of one solution, 0 for no time out
+	 * @param task work to do for every solution
+	 */
+	public void execute (final int numTasks, final int totalTimeOutInSeconds, final Task task)
+	{
+		if (numWorkers == 1 || numTasks <= 1)
+		{
+			for (int i=0;i<numTasks;i++)
+				task.run (i, totalTimeOutInSeconds);
+			return;
+		}
+
+		final int workers = Math.min (numWorkers, numTasks);
+		final long deadline = System.currentTimeMillis () +
+				(1000L * totalTimeOutInSeconds * numTasks) / workers;
+		final int nextTask[] = new int[] { 0 };
+		final List<Throwable> errors = Collections.synchronizedList (new ArrayList<Throwable>());
+
+		ExecutorService executor = Executors.newFixedThreadPool (workers);
+		for (int w=0;w<workers;w++)
+		{
+			executor.submit (new Runnable ()
+			{
+				@Override
+				public void run ()
+				{
+					while (errors.isEmpty ())
+					{
+						int index, timeOut;
+						synchronized (nextTask)
+						{
+							if (nextTask[0] == numTasks)
+								return;
+							index = nextTask[0]++;
+							timeOut = getTimeOut (totalTimeOutInSeconds, deadline, workers, numTasks - index);
+						}
+
+						try
+						{
+							task.run (index, timeOut);
+						} catch (Throwable e)
+						{
+							errors.add (e);
+						}
+					}
+				}
+			});
+		}
+
+		executor.shutdown ();
+		try
+		{
+			while (executor.awaitTermination (1, TimeUnit.MINUTES) == false);
+		} catch (InterruptedException e)
+		{
+			executor.shutdownNow ();
+			Thread.currentThread ().interrupt ();
+			throw new RuntimeException ("Design flow stage was interrupted.");
+		}
+
+		if (errors.isEmpty () == false)
+		{
+			Throwable error = errors.get (0);
+			if (error instanceof RuntimeException)
+				throw (RuntimeException) error;
+			throw new RuntimeException (error);
+		}
+	}
+
+	/**
+	 * Time out of a task which starts now.
+	 *
+	 * @param totalTimeOutInSeconds total time out of the exploration of one solution, 0 for no time out
+	 * @param deadline end of the time budget of the stage in milliseconds
+	 * @param workers number of workers of the stage
+	 * @param remainingTasks number of tasks which are not started, including this one
+	 * @return time out of the task in seconds
+	 */
+	private static int getTimeOut (int totalTimeOutInSeconds, long deadline, int workers, int remainingTasks)
+	{
+		if (totalTimeOutInSeconds <= 0)
+			return totalTimeOutInSeconds;
+
+		long remaining = Math.max (0, deadline - System.currentTimeMillis ());
+		long fairShare = Math.min (remaining, (remaining * workers) / remainingTasks);
+		return (int) Math.max (1, Math.min (totalTimeOutInSeconds, (fairShare + 500) / 1000));
+	}
+}
@@ -19,6 +19,7 @@ import platform.model.*;
 import solver.distributedMemory.constraints.SchedulingConstraints;
 import solver.distributedMemory.partitioning.PartitionSolverSDF;
 import solver.distributedMemory.placement.GenericPlacementSolver;
+import solver.Z3ContextPool;
 import solver.distributedMemory.scheduling.ClusterMutExclNonPipelined;
 import spdfcore.*;
 import spdfcore.stanalys.*;
@@ -185,147 +186,202 @@ public class NonPipelinedScheduling
 
 	/**
 	 * Perform the scheduling step of the design flow.
+	 * The deployment solutions are scheduled by the workers of the design flow in parallel.
 	 */
 	public void performApplicationScheduling()
 	{
-		NonPipelinedScheduleXml generateXml = new NonPipelinedScheduleXml();
-		List<DesignFlowSolution> newSolutionList = new ArrayList<DesignFlowSolution>();
 		// We have the placement now. 
 		// We should perform scheduling and buffer-sizing.
-		// int i = 2;
+		final List<List<DesignFlowSolution>> newSolutions = new ArrayList<List<DesignFlowSolution>>();
 		for(int i=0;i<deploymentSolutions.size();i++)
+			newSolutions.add(null);
+		
+		DesignFlowExecutor executor = new DesignFlowExecutor(processedArgs.designFlowWorkers);
+		executor.execute(deploymentSolutions.size(), processedArgs.totalTimeOutInSeconds, new DesignFlowExecutor.Task()
 		{
-			System.out.println("Exploring Schedule : " + i);
-			String schedResultsDirectory = processedArgs.outputDirectory.concat("scheduling/schedule_");
-			schedResultsDirectory += (Integer.toString(i) + "/");
-			
-			// Create the output Directory first if it doesn't exist
-			File dir = new File (schedResultsDirectory);
-			dir.mkdirs ();
-
-			DesignFlowSolution designFlowSolution = deploymentSolutions.get(i);			
-			SchedulingConstraints schedConstraints = designFlowSolution.getMapping().getSchedulingConstraints();
-
-			Graph partitionAwareGraph = designFlowSolution.getpartitionAwareGraph();
-			Solutions partitionGraphSolutions = designFlowSolution.getPartitionAwareGraphSolutions();
-
-			// Now we have constraints on where actors can be allocated. Let us do the scheduling !
-			ClusterMutExclNonPipelined schedulingSolver = new ClusterMutExclNonPipelined(graph, hsdfGraph, graphSolutions, 
-					partitionAwareGraph, designFlowSolution.getPartitionAwareHsdf(), partitionGraphSolutions, 
-					platform, schedResultsDirectory, schedConstraints);
-			schedulingSolver.graphSymmetry = true;
-			schedulingSolver.processorSymmetry = true;
-			boolean oneDimExploration = false;
-
-			// We do a latency minimization.
-			if(oneDimExploration == true)
+			@Override
+			public void run(int index, int totalTimeOutInSeconds)
 			{
-				schedulingSolver.bufferAnalysis = false;
-				schedulingSolver.assertNonPipelineConstraints();
-				schedulingSolver.pushContext();
-				schedulingSolver.generateSatCode(schedResultsDirectory + "scheduling.z3");
+				List<DesignFlowSolution> solutions = performSolutionScheduling(index, totalTimeOutInSeconds);
+				synchronized (newSolutions) { newSolutions.set(index, solutions); }
+			}
+		});
 
-				LatencyParams latencyParams = new LatencyParams (designFlowSolution.getpartitionAwareGraph(), partitionGraphSolutions);
-				latencyParams.setSolver(schedulingSolver);
+		List<DesignFlowSolution> newSolutionList = new ArrayList<DesignFlowSolution>();
+		for(List<DesignFlowSolution> solutions : newSolutions)
+			newSolutionList.addAll(solutions);
+		
+		deploymentSolutions.clear();
+		deploymentSolutions.addAll(newSolutionList);
+	}
+	
+	/**
+	 * Perform the scheduling of one deployment solution.
+	 * 
+	 * @param i index of the deployment solution
+	 * @param totalTimeOutInSeconds total time out of the exploration
+	 * @return scheduled solutions
+	 */
+	private List<DesignFlowSolution> performSolutionScheduling(int i, int totalTimeOutInSeconds)
+	{
+		NonPipelinedScheduleXml generateXml = new NonPipelinedScheduleXml();
+		List<DesignFlowSolution> newSolutionList = new ArrayList<DesignFlowSolution>();
+		
+		System.out.println("Exploring Schedule : " + i);
+		String schedResultsDirectory = processedArgs.outputDirectory.concat("scheduling/schedule_");
+		schedResultsDirectory += (Integer.toString(i) + "/");
+		
+		// Create the output Directory first if it doesn't exist
+		File dir = new File (schedResultsDirectory);
+		dir.mkdirs ();
+
+		DesignFlowSolution designFlowSolution = deploymentSolutions.get(i);			
+		SchedulingConstraints schedConstraints = designFlowSolution.getMapping().getSchedulingConstraints();
+
+		Graph partitionAwareGraph = designFlowSolution.getpartitionAwareGraph();
+		Solutions partitionGraphSolutions = designFlowSolution.getPartitionAwareGraphSolutions();
+
+		// Now we have constraints on where actors can be allocated. Let us do the scheduling !
+		ClusterMutExclNonPipelined schedulingSolver = new ClusterMutExclNonPipelined(graph, hsdfGraph, graphSolutions, 
+				partitionAwareGraph, designFlowSolution.getPartitionAwareHsdf(), partitionGraphSolutions, 
+				platform, schedResultsDirectory, schedConstraints);
+		schedulingSolver.graphSymmetry = true;
+		schedulingSolver.processorSymmetry = true;
+		schedulingSolver.clusterDecomposition = processedArgs.clusterDecomposition;
+		schedulingSolver.decompositionRounds = processedArgs.decompositionRounds;
+		boolean oneDimExploration = false;
+
+		// We do a latency minimization.
+		if(oneDimExploration == true)
+		{
+			schedulingSolver.bufferAnalysis = false;
+			schedulingSolver.assertNonPipelineConstraints();
+			schedulingSolver.pushContext();
+			schedulingSolver.generateSatCode(schedResultsDirectory + "scheduling.z3");
 
-				BinarySearchOneDim oneDimExplorer = new BinarySearchOneDim (
-						schedResultsDirectory,
-						processedArgs.timeOutPerQueryInSeconds, 
-						processedArgs.totalTimeOutInSeconds, latencyParams);
-				oneDimExplorer.explore();
-				// singleExploration.readExploredPoints(outputDirectory);
+			LatencyParams latencyParams = new LatencyParams (designFlowSolution.getpartitionAwareGraph(), partitionGraphSolutions);
+			latencyParams.setSolver(schedulingSolver);
 
-				Map<String,String> model = oneDimExplorer.getLeastSatPointModel();
-				designFlowSolution.setSchedule(schedulingSolver.modelToSchedule(model, designFlowSolution));
+			BinarySearchOneDim oneDimExplorer = new BinarySearchOneDim (
+					schedResultsDirectory,
+					processedArgs.timeOutPerQueryInSeconds, 
+					totalTimeOutInSeconds, latencyParams);
+			oneDimExplorer.explore();
+			// singleExploration.readExploredPoints(outputDirectory);
 
-				// Generate the XML.
-				generateXml.generateSolutionXml(schedResultsDirectory+"solution.xml", graph, graphSolutions, platform, designFlowSolution);
+			Map<String,String> model = oneDimExplorer.getLeastSatPointModel();
+			designFlowSolution.setSchedule(schedulingSolver.modelToSchedule(model, designFlowSolution));
 
-				// Generate the Gantt Chart
-				schedulingSolver.modelToGantt(model, schedResultsDirectory+"solution.pdf");
+			// Generate the XML.
+			generateXml.generateSolutionXml(schedResultsDirectory+"solution.xml", graph, graphSolutions, platform, designFlowSolution);
 
-				newSolutionList.add(designFlowSolution);				
-			}
-			else
-			{
-				schedulingSolver.bufferAnalysis = true;
-				schedulingSolver.assertNonPipelineConstraints();
-				schedulingSolver.pushContext();
-				schedulingSolver.generateSatCode(schedResultsDirectory + "scheduling.z3");
-
-				// We do a latency-buffer size exploration.
-				LatBuffParams explorationParams = new LatBuffParams (designFlowSolution.getpartitionAwareGraph(), partitionGraphSolutions);
-				updateLatBuffExplParams(partitionAwareGraph, explorationParams, schedConstraints);				
-				explorationParams.setSolver(schedulingSolver);
-
-				GridBasedExploration paretoExplore = new GridBasedExploration (schedResultsDirectory, processedArgs.timeOutPerQueryInSeconds, 
-						processedArgs.totalTimeOutInSeconds, explorationParams);
-
-				// TODO: a temporary hack. instead of performing exploration everytime, read old results.
-				// paretoExplore.readExploredPoints(outputDirectory);
-				paretoExplore.explore ();
-
-				int solutionCount = 0;
-				for(Map<String,String> model : paretoExplore.getParetoModels())
-				{
-					DesignFlowSolution newSolution = new DesignFlowSolution(designFlowSolution);
-					newSolution.setSchedule(schedulingSolver.modelToSchedule(model, newSolution));
-					newSolutionList.add(newSolution);
-
-					String xmlOutputDir = schedResultsDirectory + "solution_" + Integer.toString(solutionCount++) + "/";
-
-					// Create the output Directory first if it doesn't exist
-					File directory = new File (xmlOutputDir);
-					directory.mkdirs ();
-
-					// Generate the XML.
-					generateXml.generateSolutionXml(xmlOutputDir+"solution.xml", graph, graphSolutions, platform, newSolution);
-
-					// Generate the Gantt Chart
-					schedulingSolver.modelToGantt(model, xmlOutputDir+"solution.pdf");
-				}				
-			}			
+			// Generate the Gantt Chart
+			schedulingSolver.modelToGantt(model, schedResultsDirectory+"solution.pdf");
+
+			newSolutionList.add(designFlowSolution);				
 		}
+		else
+		{
+			schedulingSolver.bufferAnalysis = true;
+			schedulingSolver.assertNonPipelineConstraints();
+			schedulingSolver.pushContext();
+			schedulingSolver.generateSatCode(schedResultsDirectory + "scheduling.z3");
 
-		deploymentSolutions.clear();
-		deploymentSolutions.addAll(newSolutionList);
+			// We do a latency-buffer size exploration.
+			LatBuffParams explorationParams = new LatBuffParams (designFlowSolution.getpartitionAwareGraph(), partitionGraphSolutions);
+			updateLatBuffExplParams(partitionAwareGraph, explorationParams, schedConstraints);				
+			explorationParams.setSolver(schedulingSolver);
+
+			GridBasedExploration paretoExplore = new GridBasedExploration (schedResultsDirectory, processedArgs.timeOutPerQueryInSeconds, 
+					totalTimeOutInSeconds, explorationParams);
+
+			// TODO: a temporary hack. instead of performing exploration everytime, read old results.
+			// paretoExplore.readExploredPoints(outputDirectory);
+			paretoExplore.explore ();
+
+			int solutionCount = 0;
+			for(Map<String,String> model : paretoExplore.getParetoModels())
+			{
+				DesignFlowSolution newSolution = new DesignFlowSolution(designFlowSolution);
+				newSolution.setSchedule(schedulingSolver.modelToSchedule(model, newSolution));
+				newSolutionList.add(newSolution);
+
+				String xmlOutputDir = schedResultsDirectory + "solution_" + Integer.toString(solutionCount++) + "/";
+
+				// Create the output Directory first if it doesn't exist
+				File directory = new File (xmlOutputDir);
+				directory.mkdirs ();
+
+				// Generate the XML.
+				generateXml.generateSolutionXml(xmlOutputDir+"solution.xml", graph, graphSolutions, platform, newSolution);
+
+				// Generate the Gantt Chart
+				schedulingSolver.modelToGantt(model, xmlOutputDir+"solution.pdf");
+			}				
+		}
+		
+		// Release the Z3 context of the solver for the next solution.
+		schedulingSolver.close();
+		Z3ContextPool.printMemoryReport("Scheduling " + i);
+		
+		return newSolutionList;
 	}
 
 	/**
 	 * Perform the placement step of the design flow.
+	 * The deployment solutions are placed by the workers of the design flow in parallel.
 	 */
 	public void performApplicationPlacement()
 	{
-		for(int i=0;i<deploymentSolutions.size();i++)
+		DesignFlowExecutor executor = new DesignFlowExecutor(processedArgs.designFlowWorkers);
+		executor.execute(deploymentSolutions.size(), processedArgs.totalTimeOutInSeconds, new DesignFlowExecutor.Task()
 		{
-			DesignFlowSolution designFlowSolution = deploymentSolutions.get(i);
-			Partition partition = designFlowSolution.getPartition();
-			String placementResultDirectory = processedArgs.outputDirectory.concat("placement/partition_");
-			placementResultDirectory += (Integer.toString(i) + "/");
-			
-			// Create the output Directory first if it doesn't exist
-	        File directory = new File (placementResultDirectory);
-	        directory.mkdirs ();
-			
-			GenericPlacementSolver placementSolver = new GenericPlacementSolver(partition, platform);
-			placementSolver.generatePlacementConstraints();			
-			placementSolver.generateSatCode(placementResultDirectory + "placement.z3");
-			placementSolver.pushContext();
-
-			CommCostParams params = new CommCostParams (graph, graphSolutions, platform);
-			params.setSolver(placementSolver);
-
-			BinarySearchOneDim oneDimExplorer = new BinarySearchOneDim (placementResultDirectory, 
-					processedArgs.timeOutPerQueryInSeconds, 
-					processedArgs.totalTimeOutInSeconds, params);            
-			// Note: a temporary hack. instead of performing exploration everytime, read old results.
-			// oneDimExplorer.readExploredPoints(placementResultDirectory);
-			oneDimExplorer.explore ();
-
-			Map<String, String> model = oneDimExplorer.getLeastSatPointModel ();
-			designFlowSolution.setMapping(placementSolver.modelToMapping(model, designFlowSolution));
-			designFlowSolution.getMapping().resolveDmaTaskExecutionTime();
-		}		
+			@Override
+			public void run(int index, int totalTimeOutInSeconds)
+			{
+				performSolutionPlacement(index, totalTimeOutInSeconds);
+			}
+		});
+	}
+	
+	/**
+	 * Perform the placement of one deployment solution.
+	 * 
+	 * @param i index of the deployment solution
+	 * @param totalTimeOutInSeconds total time out of the exploration
+	 */
+	private void performSolutionPlacement(int i, int totalTimeOutInSeconds)
+	{
+		DesignFlowSolution designFlowSolution = deploymentSolutions.get(i);
+		Partition partition = designFlowSolution.getPartition();
+		String placementResultDirectory = processedArgs.outputDirectory.concat("placement/partition_");
+		placementResultDirectory += (Integer.toString(i) + "/");
+		
+		// Create the output Directory first if it doesn't exist
+        File directory = new File (placementResultDirectory);
+        directory.mkdirs ();
+		
+		GenericPlacementSolver placementSolver = new GenericPlacementSolver(partition, platform);
+		placementSolver.generatePlacementConstraints();			
+		placementSolver.generateSatCode(placementResultDirectory + "placement.z3");
+		placementSolver.pushContext();
+
+		CommCostParams params = new CommCostParams (graph, graphSolutions, platform);
+		params.setSolver(placementSolver);
+
+		BinarySearchOneDim oneDimExplorer = new BinarySearchOneDim (placementResultDirectory, 
+				processedArgs.timeOutPerQueryInSeconds, 
+				totalTimeOutInSeconds, params);            
+		// Note: a temporary hack. instead of performing exploration everytime, read old results.
+		// oneDimExplorer.readExploredPoints(placementResultDirectory);
+		oneDimExplorer.explore ();
+
+		Map<String, String> model = oneDimExplorer.getLeastSatPointModel ();
+		designFlowSolution.setMapping(placementSolver.modelToMapping(model, designFlowSolution));
+		designFlowSolution.getMapping().resolveDmaTaskExecutionTime();
+		
+		placementSolver.close();
+		Z3ContextPool.printMemoryReport("Placement " + i);
 	}
 
 	/**
@@ -378,5 +434,8 @@ public class NonPipelinedScheduling
 
 			deploymentSolutions.add(designFlowSolution);
 		}
+		
+		partitionSolver.close();
+		Z3ContextPool.printMemoryReport("Partitioning");
 	}
 }
@@ -14,6 +14,7 @@ import exploration.paretoExploration.gridexploration.GridBasedExploration;
 import graphanalysis.TransformSDFtoHSDF;
 import platform.kalray.scheduleXML.NonPipelinedScheduleXml;
 import platform.model.*;
+import solver.Z3ContextPool;
 import solver.distributedMemory.constraints.SchedulingConstraints;
 import solver.distributedMemory.partitioning.PartitionSolverSDF;
 import solver.distributedMemory.placement.GenericPlacementSolver;
@@ -102,103 +103,156 @@ public class PipelinedScheduling
 	
 	/**
 	 * Perform the scheduling step of the design flow. 
+	 * The deployment solutions are scheduled by the workers of the design flow in parallel.
 	 */
 	public void performApplicationScheduling()
 	{
-		NonPipelinedScheduleXml generateXml = new NonPipelinedScheduleXml();
-		List<DesignFlowSolution> newSolutionList = new ArrayList<DesignFlowSolution>();
 		// We have the placement now. 
 		// We should perform scheduling and buffer-sizing.
-		// int i = 2;
+		final List<List<DesignFlowSolution>> newSolutions = new ArrayList<List<DesignFlowSolution>>();
 		for(int i=0;i<deploymentSolutions.size();i++)
+			newSolutions.add(null);
+		
+		DesignFlowExecutor executor = new DesignFlowExecutor(processedArgs.designFlowWorkers);
+		executor.execute(deploymentSolutions.size(), processedArgs.totalTimeOutInSeconds, new DesignFlowExecutor.Task()
+		{
+			@Override
+			public void run(int index, int totalTimeOutInSeconds)
+			{
+				List<DesignFlowSolution> solutions = performSolutionScheduling(index, totalTimeOutInSeconds);
+				synchronized (newSolutions) { newSolutions.set(index, solutions); }
+			}
+		});
+		
+		List<DesignFlowSolution> newSolutionList = new ArrayList<DesignFlowSolution>();
+		for(List<DesignFlowSolution> solutions : newSolutions)
+			newSolutionList.addAll(solutions);
+		
+		deploymentSolutions.clear();
+		deploymentSolutions.addAll(newSolutionList);
+	}
+	
+	/**
+	 * Perform the scheduling of one deployment solution.
+	 * 
+	 * @param i index of the deployment solution
+	 * @param totalTimeOutInSeconds total time out of the exploration
+	 * @return scheduled solutions
+	 */
+	private List<DesignFlowSolution> performSolutionScheduling(int i, int totalTimeOutInSeconds)
+	{
+		NonPipelinedScheduleXml generateXml = new NonPipelinedScheduleXml();
+		List<DesignFlowSolution> newSolutionList = new ArrayList<DesignFlowSolution>();
+		
+		System.out.println("Exploring Schedule : " + i);
+		String outputDirectory = processedArgs.outputDirectory.concat("scheduling/schedule_");
+		outputDirectory += (Integer.toString(i) + "/");
+		
+		DesignFlowSolution designFlowSolution = deploymentSolutions.get(i);			
+		SchedulingConstraints schedConstraints = designFlowSolution.getMapping().getSchedulingConstraints();
+		
+		Graph partitionAwareGraph = designFlowSolution.getpartitionAwareGraph();
+		Solutions partitionGraphSolutions = designFlowSolution.getPartitionAwareGraphSolutions();
+		
+		// Now we have constraints on where actors can be allocated. Let us do the scheduling !
+		ClusterMutExclPipelined schedulingSolver = new ClusterMutExclPipelined(graph, hsdfGraph, graphSolutions, 
+				partitionAwareGraph, designFlowSolution.getPartitionAwareHsdf(), partitionGraphSolutions, 
+				platform, schedConstraints);
+		schedulingSolver.graphSymmetry = true;
+		schedulingSolver.processorSymmetry = true;
+		
+		boolean oneDimExploration = true;
+		
+		// We do a latency minimization.
+		if(oneDimExploration == true)
 		{
-			System.out.println("Exploring Schedule : " + i);
-			String outputDirectory = processedArgs.outputDirectory.concat("scheduling/schedule_");
-			outputDirectory += (Integer.toString(i) + "/");
+			schedulingSolver.bufferAnalysis = false;
+			schedulingSolver.assertPipelineConstraints();
+			schedulingSolver.pushContext();
+			schedulingSolver.generateSatCode(outputDirectory + "scheduling.z3");
 			
-			DesignFlowSolution designFlowSolution = deploymentSolutions.get(i);			
-			SchedulingConstraints schedConstraints = designFlowSolution.getMapping().getSchedulingConstraints();
+			PeriodParams periodParams = new PeriodParams (designFlowSolution.getpartitionAwareGraph(), partitionGraphSolutions);
+			periodParams.setSolver(schedulingSolver);
 			
-			Graph partitionAwareGraph = designFlowSolution.getpartitionAwareGraph();
-			Solutions partitionGraphSolutions = designFlowSolution.getPartitionAwareGraphSolutions();
+			BinarySearchOneDim oneDimExplorer = new BinarySearchOneDim (
+								outputDirectory,
+								processedArgs.timeOutPerQueryInSeconds, 
+								totalTimeOutInSeconds, periodParams);
+			oneDimExplorer.explore();
+			// singleExploration.readExploredPoints(outputDirectory);
 			
-			// Now we have constraints on where actors can be allocated. Let us do the scheduling !
-			ClusterMutExclPipelined schedulingSolver = new ClusterMutExclPipelined(graph, hsdfGraph, graphSolutions, 
-					partitionAwareGraph, designFlowSolution.getPartitionAwareHsdf(), partitionGraphSolutions, 
-					platform, schedConstraints);
-			schedulingSolver.graphSymmetry = true;
-			schedulingSolver.processorSymmetry = true;
+			Map<String,String> model = oneDimExplorer.getLeastSatPointModel();
+			designFlowSolution.setSchedule(schedulingSolver.modelToSchedule(model, designFlowSolution));
 			
-			boolean oneDimExploration = true;
+			// Generate the XML.
+			generateXml.generateSolutionXml(outputDirectory+"solution.xml", graph, graphSolutions, platform, designFlowSolution);
 			
-			// We do a latency minimization.
-			if(oneDimExploration == true)
-			{
-				schedulingSolver.bufferAnalysis = false;
-				schedulingSolver.assertPipelineConstraints();
-				schedulingSolver.pushContext();
-				schedulingSolver.generateSatCode(outputDirectory + "scheduling.z3");
-				
-				PeriodParams periodParams = new PeriodParams (designFlowSolution.getpartitionAwareGraph(), partitionGraphSolutions);
-				periodParams.setSolver(schedulingSolver);
-				
-				BinarySearchOneDim oneDimExplorer = new BinarySearchOneDim (
-									outputDirectory,
-									processedArgs.timeOutPerQueryInSeconds, 
-									processedArgs.totalTimeOutInSeconds, periodParams);
-				oneDimExplorer.explore();
-				// singleExploration.readExploredPoints(outputDirectory);
-				
-				Map<String,String> model = oneDimExplorer.getLeastSatPointModel();
-				designFlowSolution.setSchedule(schedulingSolver.modelToSchedule(model, designFlowSolution));
-				
-				// Generate the XML.
-				generateXml.generateSolutionXml(outputDirectory+"solution.xml", graph, graphSolutions, platform, designFlowSolution);
-				
-				// Generate the Gantt Chart
-				schedulingSolver.modelToGantt(model, outputDirectory+"solution.pdf");
-				
-				newSolutionList.add(designFlowSolution);				
-			}
-			else
-			{
-			}			
+			// Generate the Gantt Chart
+			schedulingSolver.modelToGantt(model, outputDirectory+"solution.pdf");
+			
+			newSolutionList.add(designFlowSolution);				
+		}
+		else
+		{
 		}
 		
-		deploymentSolutions.clear();
-		deploymentSolutions.addAll(newSolutionList);
+		// Release the Z3 context of the solver for the next solution.
+		schedulingSolver.close();
+		Z3ContextPool.printMemoryReport("Scheduling " + i);
+		
+		return newSolutionList;
 	}
 	
 	/**
 	 * Perform the placement step of the design flow.
+	 * The deployment solutions are placed by the workers of the design flow in parallel.
 	 */
 	public void performApplicationPlacement()
 	{
-		for(int i=0;i<deploymentSolutions.size();i++)
+		DesignFlowExecutor executor = new DesignFlowExecutor(processedArgs.designFlowWorkers);
+		executor.execute(deploymentSolutions.size(), processedArgs.totalTimeOutInSeconds, new DesignFlowExecutor.Task()
 		{
-			DesignFlowSolution designFlowSolution = deploymentSolutions.get(i);
-			Partition partition = designFlowSolution.getPartition();
-			String outputDirectory = processedArgs.outputDirectory.concat("placement/partition_");
-			outputDirectory += (Integer.toString(i) + "/");
-			GenericPlacementSolver placementSolver = new GenericPlacementSolver(partition, platform);
-			placementSolver.generatePlacementConstraints();
-			placementSolver.pushContext();
-			placementSolver.generateSatCode(outputDirectory + "placement.z3");
-			
-			CommCostParams params = new CommCostParams (graph, graphSolutions, platform);
-			params.setSolver(placementSolver);
-			
-            BinarySearchOneDim explorer = new BinarySearchOneDim (outputDirectory, 
-                    processedArgs.timeOutPerQueryInSeconds, 
-                    processedArgs.totalTimeOutInSeconds, params);            
-            // TODO: a temporary hack. instead of performing exploration everytime, read old results.
-            // explorer.readExploredPoints(outputDirectory);
-            explorer.explore ();
-            
-            Map<String, String> model = explorer.getLeastSatPointModel ();
-            designFlowSolution.setMapping(placementSolver.modelToMapping(model, designFlowSolution));
-            designFlowSolution.getMapping().resolveDmaTaskExecutionTime();
-		}		
+			@Override
+			public void run(int index, int totalTimeOutInSeconds)
+			{
+				performSolutionPlacement(index, totalTimeOutInSeconds);
+			}
+		});
+	}
+	
+	/**
+	 * Perform the placement of one deployment solution.
+	 * 
+	 * @param i index of the deployment solution
+	 * @param totalTimeOutInSeconds total time out of the exploration
+	 */
+	private void performSolutionPlacement(int i, int totalTimeOutInSeconds)
+	{
+		DesignFlowSolution designFlowSolution = deploymentSolutions.get(i);
+		Partition partition = designFlowSolution.getPartition();
+		String outputDirectory = processedArgs.outputDirectory.concat("placement/partition_");
+		outputDirectory += (Integer.toString(i) + "/");
+		GenericPlacementSolver placementSolver = new GenericPlacementSolver(partition, platform);
+		placementSolver.generatePlacementConstraints();
+		placementSolver.pushContext();
+		placementSolver.generateSatCode(outputDirectory + "placement.z3");
+		
+		CommCostParams params = new CommCostParams (graph, graphSolutions, platform);
+		params.setSolver(placementSolver);
+		
+        BinarySearchOneDim explorer = new BinarySearchOneDim (outputDirectory, 
+                processedArgs.timeOutPerQueryInSeconds, 
+                totalTimeOutInSeconds, params);            
+        // TODO: a temporary hack. instead of performing exploration everytime, read old results.
+        // explorer.readExploredPoints(outputDirectory);
+        explorer.explore ();
+        
+        Map<String, String> model = explorer.getLeastSatPointModel ();
+        designFlowSolution.setMapping(placementSolver.modelToMapping(model, designFlowSolution));
+        designFlowSolution.getMapping().resolveDmaTaskExecutionTime();
+        
+        placementSolver.close();
+        Z3ContextPool.printMemoryReport("Placement " + i);
 	}
 	
 	/**
@@ -249,5 +303,8 @@ public class PipelinedScheduling
 			
 			deploymentSolutions.add(designFlowSolution);
 		}
+		
+		partitionSolver.close();
+		Z3ContextPool.printMemoryReport("Partitioning");
 	}
 }
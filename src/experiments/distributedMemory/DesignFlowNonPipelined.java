@@ -7,6 +7,7 @@ import input.*;
 import designflow.NonPipelinedScheduling;
 import platform.model.*;
 import graphanalysis.TransformSDFtoHSDF;
+import solver.Z3ContextPool;
 import spdfcore.*;
 
 /**
@@ -26,6 +27,10 @@ public class DesignFlowNonPipelined
 	{
 		CommandLineArgs processedArgs = new CommandLineArgs (args);
 		
+		// Every stage releases its solvers, so that the native memory does not grow.
+		Z3ContextPool.setMaxContexts (processedArgs.maxSolverContexts);
+		Z3ContextPool.setMaxIdleContexts (processedArgs.idleSolverContexts);
+		
 		// Create the output Directory first if it doesn't exist
         File directory = new File (processedArgs.outputDirectory);
         directory.mkdirs ();
@@ -5,6 +5,7 @@ import designflow.PipelinedScheduling;
 import output.DotGraph;
 import platform.model.*;
 import graphanalysis.TransformSDFtoHSDF;
+import solver.Z3ContextPool;
 import spdfcore.*;
 
 /**
@@ -25,6 +26,10 @@ public class DesignFlowPipelined
 		// String rootDir = "outputFiles/JpegDecoder/designFlow/";
 		CommandLineArgs processedArgs = new CommandLineArgs (args);
 		
+		// Every stage releases its solvers, so that the native memory does not grow.
+		Z3ContextPool.setMaxContexts (processedArgs.maxSolverContexts);
+		Z3ContextPool.setMaxIdleContexts (processedArgs.idleSolverContexts);
+		
         // Create the output Directory first if it doesn't exist
         File directory = new File (processedArgs.outputDirectory);
         directory.mkdirs ();
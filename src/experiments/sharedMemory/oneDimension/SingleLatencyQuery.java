@@ -1,7 +1,9 @@
 package experiments.sharedMemory.oneDimension;
 import exploration.oneDimensionExploration.BinarySearchOneDim;
+import exploration.oneDimensionExploration.ObjectiveMinimization;
 import exploration.parameters.oneDimension.LatencyParams;
 import graphanalysis.*;
+import graphanalysis.scheduling.SchedulingPortfolio;
 
 import input.ParseApplicationGraph;
 import input.CommandLineArgs;
@@ -74,9 +76,13 @@ public class SingleLatencyQuery
 			satSolver.bufferAnalysisWithFunctions = processedArgs.bufferAnalysisWithFunctions; 
 			satSolver.leftEdgeAlgorithm = processedArgs.leftEdge;
 			satSolver.mutualExclusionGraphAnalysis = processedArgs.mutualExclusionGraphAnalysis;
+			satSolver.orderVariableMutualExclusion = processedArgs.mutualExclusionOrderVariables;
+			satSolver.orderTransitivityCuts = processedArgs.orderTransitivity;
+			satSolver.cumulativeProcessorConstraint = processedArgs.cumulativeProcessors;
 	
 			satSolver.assertNonPipelineConstraints ();
 			satSolver.generateProcessorConstraint (processedArgs.processorConstraint);
+			satSolver.setIncrementalQueries (processedArgs.incrementalQueries);
 			satSolver.pushContext ();
 			satSolver.generateSatCode (processedArgs.outputDirectory  + "scheduling.z3");
 			
@@ -94,6 +100,7 @@ public class SingleLatencyQuery
 
 			satSolver.assertNonPipelineConstraints ();
 			satSolver.generateProcessorConstraint (processedArgs.processorConstraint);
+			satSolver.setIncrementalQueries (processedArgs.incrementalQueries);
 			satSolver.pushContext ();
 			satSolver.generateSatCode (processedArgs.outputDirectory  + "scheduling.z3");
 			
@@ -103,9 +110,31 @@ public class SingleLatencyQuery
 		else
 			throw new RuntimeException ("Unknown Solve Type !!");		
 		
-		BinarySearchOneDim oneDimExplorer = new BinarySearchOneDim (processedArgs.outputDirectory, 
-				processedArgs.timeOutPerQueryInSeconds, 
-				processedArgs.totalTimeOutInSeconds, params);
-		oneDimExplorer.explore ();
+		// The best heuristic schedule on these processors is an upper bound on the latency.
+		if (processedArgs.heuristicBounds == true && processedArgs.processorConstraint > 0)
+		{
+			SchedulingPortfolio portfolio = new SchedulingPortfolio (g);
+			portfolio.run (processedArgs.processorConstraint);
+			int maxLatency = portfolio.getBestLatency (processedArgs.processorConstraint);
+			if (maxLatency < params.getUpperBounds ()[0])
+				params.setUpperBound (0, maxLatency);
+			System.out.println ("Heuristic Bounds :: Latency " + params.getUpperBounds ()[0] 
+					+ " by " + portfolio.getBestHeuristic (processedArgs.processorConstraint));
+		}
+		
+		if (processedArgs.objectiveSearch == true)
+		{
+			ObjectiveMinimization oneDimExplorer = new ObjectiveMinimization (processedArgs.outputDirectory, 
+					processedArgs.timeOutPerQueryInSeconds, 
+					processedArgs.totalTimeOutInSeconds, params);
+			oneDimExplorer.explore ();
+		}
+		else
+		{
+			BinarySearchOneDim oneDimExplorer = new BinarySearchOneDim (processedArgs.outputDirectory, 
+					processedArgs.timeOutPerQueryInSeconds, 
+					processedArgs.totalTimeOutInSeconds, params);
+			oneDimExplorer.explore ();
+		}
 	}
 }
@@ -1,7 +1,10 @@
 package experiments.sharedMemory.oneDimension;
+import exploration.ExplorationParameters;
 import exploration.oneDimensionExploration.BinarySearchOneDim;
+import exploration.oneDimensionExploration.ObjectiveMinimization;
 import exploration.parameters.oneDimension.*;
 import graphanalysis.*;
+import graphanalysis.scheduling.SchedulingPortfolio;
 
 import input.ParseApplicationGraph;
 import input.CommandLineArgs;
@@ -26,6 +29,57 @@ import spdfcore.stanalys.*;
 public class SinglePeriodQuery 
 {
 	
+	/**
+	 * Minimize the period with the binary search or the objective search.
+	 * 
+	 * @param processedArgs command line arguments
+	 * @param params exploration parameters with the solver
+	 */
+	private static void explore (CommandLineArgs processedArgs, ExplorationParameters params)
+	{
+		if (processedArgs.objectiveSearch == true)
+		{
+			ObjectiveMinimization oneDimExplorer = new ObjectiveMinimization (processedArgs.outputDirectory, 
+					processedArgs.timeOutPerQueryInSeconds, 
+					processedArgs.totalTimeOutInSeconds, params);
+			oneDimExplorer.explore ();
+		}
+		else
+		{
+			BinarySearchOneDim oneDimExplorer = new BinarySearchOneDim (processedArgs.outputDirectory, 
+					processedArgs.timeOutPerQueryInSeconds, 
+					processedArgs.totalTimeOutInSeconds, params);
+			oneDimExplorer.explore ();
+		}
+	}
+	
+	/**
+	 * Tighten the period upper bound with the best heuristic schedule on the
+	 * processors. This schedule repeated every latency time units is a pipelined
+	 * schedule with the same period and latency, hence it is a bound only if it
+	 * also satisfies the latency constraint.
+	 * 
+	 * @param processedArgs command line arguments
+	 * @param g application graph
+	 * @param latencyConstraint latency constraint of the pipelined schedule
+	 * @param params exploration parameters with the period as dimension
+	 */
+	private static void setHeuristicBounds (CommandLineArgs processedArgs, Graph g, int latencyConstraint, ExplorationParameters params)
+	{
+		if (processedArgs.heuristicBounds == false || processedArgs.processorConstraint <= 0)
+			return;
+		
+		SchedulingPortfolio portfolio = new SchedulingPortfolio (g);
+		portfolio.run (processedArgs.processorConstraint);
+		
+		int maxPeriod = portfolio.getPeriodUpperBound (processedArgs.processorConstraint);
+		if (maxPeriod <= latencyConstraint && maxPeriod < params.getUpperBounds ()[0])
+			params.setUpperBound (0, maxPeriod);
+		
+		System.out.println ("Heuristic Bounds :: Period " + params.getUpperBounds ()[0] 
+				+ " by " + portfolio.getBestHeuristic (processedArgs.processorConstraint));
+	}
+	
 	/**
 	 * Entry point method for period exploration for shared memory architecture
 	 * 
@@ -88,19 +142,20 @@ public class SinglePeriodQuery
 			satSolver.bufferAnalysisWithFunctions = processedArgs.bufferAnalysisWithFunctions; 
 			satSolver.leftEdgeAlgorithm = processedArgs.leftEdge;
 			satSolver.mutualExclusionGraphAnalysis = processedArgs.mutualExclusionGraphAnalysis;
+			satSolver.orderVariableMutualExclusion = processedArgs.mutualExclusionOrderVariables;
+			satSolver.orderTransitivityCuts = processedArgs.orderTransitivity;
 			satSolver.periodSymmetry = processedArgs.periodSymmetry;		
 			
 			satSolver.assertPipelineConstraints ();
 			satSolver.generateLatencyConstraint (latency.intValue ());
 			satSolver.generateProcessorConstraint (processedArgs.processorConstraint);
+			satSolver.setIncrementalQueries (processedArgs.incrementalQueries);
 			
 			PeriodParams params = new PeriodParams (g, solutions);
 			params.setSolver (satSolver);
 			
-			BinarySearchOneDim oneDimExplorer = new BinarySearchOneDim (processedArgs.outputDirectory, 
-					processedArgs.timeOutPerQueryInSeconds, 
-					processedArgs.totalTimeOutInSeconds, params);
-			oneDimExplorer.explore ();
+			setHeuristicBounds (processedArgs, g, latency.intValue (), params);
+			explore (processedArgs, params);
 		}
 		else if (solverType == SolverType.UNFOLDING_SOLVER)
 		{
@@ -122,10 +177,8 @@ public class SinglePeriodQuery
 			params.numProcessors = processedArgs.processorConstraint;
 			params.maxLatencyScalingFactor = processedArgs.maxLatencyScalingFactor;
 			
-			BinarySearchOneDim oneDimExplorer = new BinarySearchOneDim (processedArgs.outputDirectory, 
-					processedArgs.timeOutPerQueryInSeconds, 
-					processedArgs.totalTimeOutInSeconds, params);
-			oneDimExplorer.explore ();
+			setHeuristicBounds (processedArgs, g, latency.intValue (), params);
+			explore (processedArgs, params);
 		}
 		else
 			throw new RuntimeException ("Unknown Solver Type. " + solverType.toString ());
@@ -76,7 +76,11 @@ public class LatProcBuffExploration
 			satSolver.bufferAnalysisWithFunctions = processedArgs.bufferAnalysisWithFunctions; 
 			satSolver.leftEdgeAlgorithm = processedArgs.leftEdge;
 			satSolver.mutualExclusionGraphAnalysis = processedArgs.mutualExclusionGraphAnalysis;
+			satSolver.orderVariableMutualExclusion = processedArgs.mutualExclusionOrderVariables;
+			satSolver.orderTransitivityCuts = processedArgs.orderTransitivity;
+			satSolver.cumulativeProcessorConstraint = processedArgs.cumulativeProcessors;
 			satSolver.assertNonPipelineConstraints ();
+			satSolver.setIncrementalQueries (processedArgs.incrementalQueries);
 			satSolver.generateSatCode (processedArgs.outputDirectory  + "scheduling.z3");
 			
 			LatProcBuffParams explorationParams = new LatProcBuffParams (g, solutions);
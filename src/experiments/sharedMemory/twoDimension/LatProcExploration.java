@@ -12,9 +12,17 @@ import output.GanttChart;
 
 import platform.tilera.scheduleXML.NonPipelinedScheduleXml;
 
+import graphanalysis.scheduling.SchedulingPortfolio;
+
+import exploration.AdaptiveTimeout;
+import exploration.ExplorationParameters;
+import exploration.ListScheduleSeeds;
+import exploration.SolverPool;
+import exploration.interfaces.twoDim.LatProcConstraints;
 import exploration.parameters.twoDimension.LatProcParams;
 import exploration.paretoExploration.gridexploration.GridBasedExploration;
 
+import solver.Z3Solver;
 import solver.sharedMemory.combinedSolver.nonpipelined.*;
 import spdfcore.*;
 import spdfcore.stanalys.*;
@@ -38,6 +46,82 @@ public class LatProcExploration
 	 */
 	private static boolean generateGanttCharts = true;
 	
+	/**
+	 * Tactics of the solver for the portfolio workers which use a tactic solver.
+	 */
+	private static final String portfolioTactics[] = { "simplify", "propagate-values", "solve-eqs", "smt" };
+	
+	/**
+	 * Build the solver and generate all the scheduling constraints.
+	 * 
+	 * @param g application graph
+	 * @param processedArgs command line arguments
+	 * @return solver with the scheduling constraints
+	 */
+	private static LatProcConstraints buildSolver (Graph g, CommandLineArgs processedArgs)
+	{
+		return buildSolver (g, processedArgs, 0);
+	}
+	
+	/**
+	 * Build the solver of a portfolio worker. Every worker uses a different random seed,
+	 * and the workers switch between the encodings of the mutual exclusion solver and a 
+	 * tactic solver, so that the workers which race on a query behave differently. 
+	 * Configuration 0 is the one given on the command line.
+	 * 
+	 * @param g application graph
+	 * @param processedArgs command line arguments
+	 * @param configuration number of the portfolio configuration
+	 * @return solver with the scheduling constraints
+	 */
+	private static LatProcConstraints buildSolver (Graph g, CommandLineArgs processedArgs, int configuration)
+	{
+		SolverType solverType = processedArgs.solver;
+		
+		if (solverType == SolverType.MUTUAL_EXCLUSION)
+		{		
+			MutExNonPipelinedScheduling satSolver = new MutExNonPipelinedScheduling (g);
+			// satSolver.setTacTicSolver (solverTactics);
+			satSolver.graphSymmetry = processedArgs.graphSymmetry;
+			satSolver.processorSymmetry = processedArgs.processorSymmetry;
+			satSolver.bufferAnalysis = processedArgs.bufferAnalysis; 
+			satSolver.bufferAnalysisWithFunctions = processedArgs.bufferAnalysisWithFunctions ^ ((configuration / 4) % 2 == 1); 
+			satSolver.leftEdgeAlgorithm = processedArgs.leftEdge ^ (configuration % 4 == 1);
+			satSolver.mutualExclusionGraphAnalysis = processedArgs.mutualExclusionGraphAnalysis ^ (configuration % 4 == 2);
+			satSolver.orderVariableMutualExclusion = processedArgs.mutualExclusionOrderVariables;
+			satSolver.orderTransitivityCuts = processedArgs.orderTransitivity;
+			satSolver.cumulativeProcessorConstraint = processedArgs.cumulativeProcessors;
+			if (configuration % 4 == 3)
+				satSolver.setTacTicSolver (portfolioTactics);
+			if (configuration > 0)
+				satSolver.setRandomSeed (configuration);
+			satSolver.assertNonPipelineConstraints ();
+			satSolver.setIncrementalQueries (processedArgs.incrementalQueries);
+			return satSolver;
+		}
+		else if (solverType == SolverType.MATRIX_SOLVER)
+		{
+			MatrixSolver satSolver = new MatrixSolver (g);
+			// satSolver.setTacTicSolver (solverTactics);
+			if (configuration % 2 == 1)
+				satSolver.setTacTicSolver (portfolioTactics);
+			if (configuration > 0)
+				satSolver.setRandomSeed (configuration);
+			satSolver.processorSymmetry = processedArgs.processorSymmetry;
+			satSolver.graphSymmetry = processedArgs.graphSymmetry;
+			satSolver.useMaxFunction = processedArgs.useMaxFunction;
+			satSolver.useQuantifier = processedArgs.useQuantifier; 
+			
+			satSolver.assertNonPipelineConstraints ();
+			satSolver.setIncrementalQueries (processedArgs.incrementalQueries);
+			return satSolver;
+		}
+		else if (solverType == SolverType.BRANCH_AND_BOUND)
+			return new BranchAndBoundScheduling (g);
+		else
+			throw new RuntimeException ("Unknown Solver Type.");
+	}
+	
 	/**
 	 * Entry point method to perform Latency vs Processor used 
 	 * exploration for shared memory architecture.
@@ -53,7 +137,6 @@ public class LatProcExploration
 		CommandLineArgs processedArgs = new CommandLineArgs (args);
 		
 		processedArgs.printConfig ();
-		SolverType solverType = processedArgs.solver;
 		
 		// Create the output Directory first if it doesn't exist
         File directory = new File (processedArgs.outputDirectory);
@@ -75,42 +158,77 @@ public class LatProcExploration
 		if(processedArgs.processorConstraint != 0 && processedArgs.processorConstraint < explorationParams.getUpperBounds()[1])
 			explorationParams.setUpperBound(1, processedArgs.processorConstraint);
 		
-		if (solverType == SolverType.MUTUAL_EXCLUSION)
-		{		
-			MutExNonPipelinedScheduling satSolver = new MutExNonPipelinedScheduling (g);
-			// satSolver.setTacTicSolver (solverTactics);
-			satSolver.graphSymmetry = processedArgs.graphSymmetry;
-			satSolver.processorSymmetry = processedArgs.processorSymmetry;
-			satSolver.bufferAnalysis = processedArgs.bufferAnalysis; 
-			satSolver.bufferAnalysisWithFunctions = processedArgs.bufferAnalysisWithFunctions; 
-			satSolver.leftEdgeAlgorithm = processedArgs.leftEdge;
-			satSolver.mutualExclusionGraphAnalysis = processedArgs.mutualExclusionGraphAnalysis;
-			satSolver.assertNonPipelineConstraints ();
-			satSolver.generateSatCode (processedArgs.outputDirectory  + "scheduling.z3");
+		// Heuristic schedules give tighter upper bounds than the sum of execution times.
+		if (processedArgs.heuristicBounds == true)
+		{
+			SchedulingPortfolio portfolio = new SchedulingPortfolio (g);
+			portfolio.run (explorationParams.getUpperBounds ()[1]);
+			
+			// No more processors are needed once the minimum latency is reached.
+			int maxProcessors = portfolio.getMinProcessors (explorationParams.getLowerBounds ()[0]);
+			if (maxProcessors != -1 && maxProcessors < explorationParams.getUpperBounds ()[1])
+				explorationParams.setUpperBound (1, maxProcessors);
 			
-			explorationParams.setSolver (satSolver);			
+			int maxLatency = portfolio.getBestLatency (explorationParams.getLowerBounds ()[1]);
+			if (maxLatency < explorationParams.getUpperBounds ()[0])
+				explorationParams.setUpperBound (0, maxLatency);
+			
+			System.out.println ("Heuristic Bounds :: Latency " + explorationParams.getUpperBounds ()[0] 
+					+ " :: Processors " + explorationParams.getUpperBounds ()[1]);
 		}
-		else if (solverType == SolverType.MATRIX_SOLVER)
+		
+		LatProcConstraints satSolver = buildSolver (g, processedArgs);
+		if (satSolver instanceof Z3Solver)
+			((Z3Solver) satSolver).generateSatCode (processedArgs.outputDirectory  + "scheduling.z3");
+		explorationParams.setSolver (satSolver);
+		
+		// Every worker of the solver pool builds the constraints again in its own context.
+		if (processedArgs.solverWorkers > 1)
 		{
-			MatrixSolver satSolver = new MatrixSolver (g);
-			// satSolver.setTacTicSolver (solverTactics);
-			satSolver.processorSymmetry = processedArgs.processorSymmetry;
-			satSolver.graphSymmetry = processedArgs.graphSymmetry;
-			satSolver.useMaxFunction = processedArgs.useMaxFunction;
-			satSolver.useQuantifier = processedArgs.useQuantifier; 
-			
-			satSolver.assertNonPipelineConstraints ();
-			satSolver.generateSatCode (processedArgs.outputDirectory  + "scheduling.z3");
-			explorationParams.setSolver (satSolver);
+			final Graph graph = g;
+			final Solutions graphSolutions = solutions;
+			final CommandLineArgs workerArgs = processedArgs;
+			explorationParams.setSolverPool (new SolverPool (processedArgs.solverWorkers, new SolverPool.WorkerFactory ()
+			{
+				/**
+				 * Number of workers built until now.
+				 */
+				private int numWorkers = 0;
+				
+				@Override
+				public ExplorationParameters createWorker ()
+				{
+					LatProcParams workerParams = new LatProcParams (graph, graphSolutions);
+					if (workerArgs.solverPortfolio == true)
+						workerParams.setSolver (buildSolver (graph, workerArgs, numWorkers++));
+					else
+						workerParams.setSolver (buildSolver (graph, workerArgs));
+					return workerParams;
+				}
+			}));
+			explorationParams.getSolverPool ().setPortfolio (processedArgs.solverPortfolio);
 		}
-		else
-			throw new RuntimeException ("Unknown Solver Type.");
 		
 		// Perform Grid-based design space exploration.
 		GridBasedExploration paretoExplore = new GridBasedExploration (processedArgs.outputDirectory, processedArgs.timeOutPerQueryInSeconds, 
 												processedArgs.totalTimeOutInSeconds, explorationParams);
+		paretoExplore.setConcurrentDispatch (processedArgs.concurrentGrid);
+		if (processedArgs.adaptiveTimeout == true)
+			paretoExplore.setTimeoutPolicy (new AdaptiveTimeout (processedArgs.timeOutPerQueryInSeconds, processedArgs.totalTimeOutInSeconds));
+		
+		// Schedules from list scheduling are SAT points which need no query.
+		if (processedArgs.seedListSchedules == true)
+		{
+			ListScheduleSeeds seeds = new ListScheduleSeeds (g);
+			seeds.randomRestarts = processedArgs.seedRandomRestarts;
+			int numSeeds = seeds.addSeedPoints (paretoExplore, explorationParams, 
+					explorationParams.getLowerBounds ()[1], explorationParams.getUpperBounds ()[1]);
+			System.out.println ("List Scheduling Seed Points : " + numSeeds);
+		}
 		
 		paretoExplore.explore ();
+		if (explorationParams.getSolverPool () != null)
+			explorationParams.getSolverPool ().shutdown ();
 		// paretoExplore.readExploredPoints(processedArgs.outputDirectory);
 		
 		if (generateScheduleXML == true)
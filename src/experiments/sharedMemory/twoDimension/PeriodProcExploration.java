@@ -10,6 +10,7 @@ import java.util.*;
 import output.GanttChart;
 import platform.tilera.scheduleXML.PipelinedScheduleXml;
 
+import exploration.ExplorationParameters;
 import exploration.parameters.twoDimension.*;
 import exploration.paretoExploration.gridexploration.GridBasedExploration;
 
@@ -18,6 +19,7 @@ import solver.sharedMemory.combinedSolver.pipelined.UnfoldingScheduling;
 import spdfcore.*;
 import spdfcore.stanalys.*;
 import graphanalysis.CalculateBounds;
+import graphanalysis.scheduling.SchedulingPortfolio;
 
 /**
  * Perform Period vs Processors exploration for a shared memory architecture.
@@ -53,6 +55,30 @@ public class PeriodProcExploration
 		}
 	}
 	
+	/**
+	 * Tighten the period upper bound with the best heuristic schedule on the
+	 * least number of processors. This schedule repeated every latency time units
+	 * is a pipelined schedule with the same period and latency, hence it is a bound
+	 * only if it also satisfies the latency constraint.
+	 * 
+	 * @param g application graph
+	 * @param latencyConstraint latency constraint of the pipelined schedule
+	 * @param explorationParams exploration parameters with period as first and processors as second dimension
+	 */
+	private static void setHeuristicBounds (Graph g, int latencyConstraint, ExplorationParameters explorationParams)
+	{
+		int minProcessors = explorationParams.getLowerBounds ()[1];
+		SchedulingPortfolio portfolio = new SchedulingPortfolio (g);
+		portfolio.run (minProcessors);
+		
+		int maxPeriod = portfolio.getPeriodUpperBound (minProcessors);
+		if (maxPeriod <= latencyConstraint && maxPeriod < explorationParams.getUpperBounds ()[0])
+			explorationParams.setUpperBound (0, maxPeriod);
+		
+		System.out.println ("Heuristic Bounds :: Period " + explorationParams.getUpperBounds ()[0] 
+				+ " by " + portfolio.getBestHeuristic (minProcessors));
+	}
+	
 	/**
 	 * Entry point method to perform Period vs Processors exploration for a shared memory architecture.
 	 * 
@@ -98,6 +124,8 @@ public class PeriodProcExploration
 			satSolver.bufferAnalysisWithFunctions = processedArgs.bufferAnalysisWithFunctions; 
 			satSolver.leftEdgeAlgorithm = processedArgs.leftEdge;
 			satSolver.mutualExclusionGraphAnalysis = processedArgs.mutualExclusionGraphAnalysis;
+			satSolver.orderVariableMutualExclusion = processedArgs.mutualExclusionOrderVariables;
+			satSolver.orderTransitivityCuts = processedArgs.orderTransitivity;
 			satSolver.typeDifferentiateAlgo = processedArgs.typeDifferentiateAlgo;
 			satSolver.omegaAnalysis = processedArgs.omegaAnalysis;
 			satSolver.periodSymmetry = processedArgs.periodSymmetry;
@@ -106,11 +134,15 @@ public class PeriodProcExploration
 				throw new RuntimeException ("The Latency Scaling Factor should > 0 and <= 1 ");
 			
 			satSolver.assertPipelineConstraints ();
+			satSolver.setIncrementalQueries (processedArgs.incrementalQueries);
 			Double latency = Math.ceil (maxLatency * processedArgs.maxLatencyScalingFactor);
 			satSolver.generateLatencyConstraint (latency.intValue ());
 			satSolver.generateSatCode (processedArgs.outputDirectory  + "scheduling.z3");
 			explorationParams.setSolver (satSolver);
 			
+			if (processedArgs.heuristicBounds == true)
+				setHeuristicBounds (g, latency.intValue (), explorationParams);
+			
 			GridBasedExploration paretoExplorer = new GridBasedExploration (processedArgs.outputDirectory, processedArgs.timeOutPerQueryInSeconds, 
 												processedArgs.totalTimeOutInSeconds, explorationParams);
 			paretoExplorer.explore ();
@@ -129,6 +161,12 @@ public class PeriodProcExploration
 			
 			explorationParams.setSolver (satSolver);
 			
+			if (processedArgs.heuristicBounds == true)
+			{
+				Double latency = Math.ceil (maxLatency * processedArgs.maxLatencyScalingFactor);
+				setHeuristicBounds (g, latency.intValue (), explorationParams);
+			}
+			
 			GridBasedExploration paretoExplorer = new GridBasedExploration (processedArgs.outputDirectory, processedArgs.timeOutPerQueryInSeconds, 
 												processedArgs.totalTimeOutInSeconds, explorationParams);
 			paretoExplorer.explore ();
@@ -0,0 +1,317 @@
+package exploration;
+
+import java.util.*;
+
+import solver.Z3Solver.SatResult;
+
+/**
+ * Adaptive time out for the queries of the design space exploration.
+ *
+ * A fixed time out per query is either too short for the hard points near the Pareto front,
+ * or wastes the budget on points which will never be solved. Instead we start with a short time out
+ * and predict the time out of a point from the solving time of its nearest queried points.
+ * Points whose neighbours have both SAT and UNSAT results lie on the frontier and get a longer time out.
+ *
+ * A part of the total budget is reserved for refinement. The points which timed out during the
+ * exploration are given back to the explorer, which queries them again with a doubled time out
+ * in the reserved budget.
+ *
+ * @author Pranav Tendulkar
+ *
+ */
+public class AdaptiveTimeout
+{
+	/**
+	 * Result of a query to learn from.
+	 */
+	private class QueryRecord
+	{
+		/**
+		 * Point which was queried.
+		 */
+		private final int point[];
+
+		/**
+		 * Result of the query.
+		 */
+		private final SatResult result;
+
+		/**
+		 * Time taken by the query in seconds.
+		 */
+		private final double timeTaken;
+
+		/**
+		 * Time out of the query in seconds.
+		 */
+		private final int timeOut;
+
+		/**
+		 * Build a query record.
+		 *
+		 * @param point point which was queried
+		 * @param result result of the query
+		 * @param timeTaken time taken in seconds
+		 * @param timeOut time out of the query in seconds
+		 */
+		private QueryRecord (int point[], SatResult result, double timeTaken, int timeOut)
+		{
+			this.point = point.clone ();
+			this.result = result;
+			this.timeTaken = timeTaken;
+			this.timeOut = timeOut;
+		}
+
+		/**
+		 * Check if the query was solved.
+		 *
+		 * @return true if SAT or UNSAT, false if timed out
+		 */
+		private boolean isSolved () { return result == SatResult.SAT || result == SatResult.UNSAT; }
+	}
+
+	/**
+	 * Maximum time out of a query in seconds.
+	 */
+	private final int maxTimeOut;
+
+	/**
+	 * Total time budget of the exploration in seconds.
+	 */
+	private final int totalBudget;
+
+	/**
+	 * Time out of the first queries in seconds, before anything is learnt.
+	 */
+	public int initialTimeOut;
+
+	/**
+	 * Fraction of the total budget reserved for the refinement of timed out points.
+	 */
+	public double reserveFraction = 0.2;
+
+	/**
+	 * Number of nearest queried points to predict the time out from.
+	 */
+	public int numNeighbours = 4;
+
+	/**
+	 * The time out is this factor times the longest solving time of the neighbours.
+	 */
+	public double safetyFactor = 2.0;
+
+	/**
+	 * Lower bounds of the design space, to normalize the distances.
+	 */
+	private int lowerBounds[] = null;
+
+	/**
+	 * Upper bounds of the design space, to normalize the distances.
+	 */
+	private int upperBounds[] = null;
+
+	/**
+	 * Results of all the queries.
+	 */
+	private List<QueryRecord> history = new ArrayList<QueryRecord>();
+
+	/**
+	 * Last time out given for every point.
+	 */
+	private Map<List<Integer>, Integer> issuedTimeOuts = new HashMap<List<Integer>, Integer>();
+
+	/**
+	 * Points which timed out and can be queried again with a longer time out.
+	 */
+	private Map<List<Integer>, int[]> timedOutPoints = new LinkedHashMap<List<Integer>, int[]>();
+
+	/**
+	 * In refinement, the reserved budget is available.
+	 */
+	private boolean refinement = false;
+
+	/**
+	 * Initialize the adaptive time out.
+	 *
+	 * @param maxTimeOutSeconds maximum time out of a query in seconds
+	 * @param totalBudgetSeconds total time budget of the exploration in seconds
+	 */
+	public AdaptiveTimeout (int maxTimeOutSeconds, int totalBudgetSeconds)
+	{
+		if (maxTimeOutSeconds <= 0)
+			throw new RuntimeException ("Adaptive time out needs a per query time out.");
+
+		maxTimeOut = maxTimeOutSeconds;
+		totalBudget = totalBudgetSeconds;
+		initialTimeOut = Math.max (1, maxTimeOutSeconds / 8);
+	}
+
+	/**
+	 * Set the bounds of the design space. The distance between points is
+	 * normalized with the bounds, otherwise every dimension has the same weight.
+	 *
+	 * @param lowerBounds lower bounds of the design space
+	 * @param upperBounds upper bounds of the design space
+	 */
+	public synchronized void setBounds (int lowerBounds[], int upperBounds[])
+	{
+		this.lowerBounds = lowerBounds.clone ();
+		this.upperBounds = upperBounds.clone ();
+	}
+
+	/**
+	 * Convert a point to a key of the maps.
+	 *
+	 * @param point point of the design space
+	 * @return key of the point
+	 */
+	private static List<Integer> getKey (int point[])
+	{
+		List<Integer> key = new ArrayList<Integer>(point.length);
+		for (int value : point)
+			key.add (value);
+		return key;
+	}
+
+	/**
+	 * Normalized distance between two points.
+	 *
+	 * @param point1 first point
+	 * @param point2 second point
+	 * @return distance between the points
+	 */
+	private double distance (int point1[], int point2[])
+	{
+		double result = 0;
+		for (int i=0;i<point1.length;i++)
+		{
+			double range = 1.0;
+			if (lowerBounds != null && upperBounds[i] > lowerBounds[i])
+				range = upperBounds[i] - lowerBounds[i];
+			result += Math.abs (point1[i] - point2[i]) / range;
+		}
+		return result;
+	}
+
+	/**
+	 * Time budget of the current phase in seconds. Before the refinement the
+	 * reserved part of the budget is not available.
+	 *
+	 * @return time budget in seconds
+	 */
+	public synchronized double getPhaseBudget ()
+	{
+		if (refinement == true)
+			return totalBudget;
+		return totalBudget * (1 - reserveFraction);
+	}
+
+	/**
+	 * Start the refinement phase, in which the reserved budget is available.
+	 */
+	public synchronized void startRefinement ()
+	{
+		refinement = true;
+	}
+
+	/**
+	 * Get the time out for a query of a point.
+	 *
+	 * @param point point to be queried
+	 * @param elapsedSeconds time used by the exploration until now in seconds
+	 * @return time out of the query in seconds
+	 */
+	public synchronized int getTimeOut (int point[], double elapsedSeconds)
+	{
+		List<Integer> key = getKey (point);
+		Integer lastTimeOut = issuedTimeOuts.get (key);
+		int timeOut;
+
+		if (lastTimeOut != null)
+		{
+			// Point timed out before, escalate.
+			timeOut = 2 * lastTimeOut;
+		}
+		else
+		{
+			timeOut = initialTimeOut;
+
+			// Nearest queried points.
+			List<QueryRecord> neighbours = new ArrayList<QueryRecord>(history);
+			final int queryPoint[] = point;
+			Collections.sort (neighbours, new Comparator<QueryRecord>()
+			{
+				@Override
+				public int compare (QueryRecord record1, QueryRecord record2)
+				{
+					return Double.compare (distance (queryPoint, record1.point), distance (queryPoint, record2.point));
+				}
+			});
+
+			boolean satNeighbour = false;
+			boolean unsatNeighbour = false;
+			for (int i=0;i<Math.min (numNeighbours, neighbours.size ());i++)
+			{
+				QueryRecord record = neighbours.get (i);
+				satNeighbour |= (record.result == SatResult.SAT);
+				unsatNeighbour |= (record.result == SatResult.UNSAT);
+
+				if (record.isSolved () == true)
+					timeOut = Math.max (timeOut, (int) Math.ceil (safetyFactor * record.timeTaken));
+				else if (refinement == true)
+					timeOut = Math.max (timeOut, 2 * record.timeOut);
+			}
+
+			// Point on the frontier between the SAT and UNSAT area.
+			if (satNeighbour == true && unsatNeighbour == true)
+				timeOut *= 2;
+		}
+
+		timeOut = Math.min (timeOut, maxTimeOut);
+
+		// Do not wait beyond the budget of the current phase.
+		int remaining = (int) Math.ceil (getPhaseBudget () - elapsedSeconds);
+		timeOut = Math.max (1, Math.min (timeOut, remaining));
+
+		issuedTimeOuts.put (key, timeOut);
+		return timeOut;
+	}
+
+	/**
+	 * Learn from the result of a query. Only the queries with a time out
+	 * from this policy are recorded.
+	 *
+	 * @param point point which was queried
+	 * @param result result of the query
+	 * @param timeTakenMs time taken by the query in milliseconds
+	 */
+	public synchronized void record (int point[], SatResult result, double timeTakenMs)
+	{
+		List<Integer> key = getKey (point);
+		Integer timeOut = issuedTimeOuts.get (key);
+		if (timeOut == null)
+			return;
+
+		history.add (new QueryRecord (point, result, timeTakenMs / 1000, timeOut));
+
+		if (result == SatResult.SAT || result == SatResult.UNSAT)
+			timedOutPoints.remove (key);
+		else if (timeOut < maxTimeOut)
+			timedOutPoints.put (key, point.clone ());
+		else
+			timedOutPoints.remove (key);
+	}
+
+	/**
+	 * Get the points which timed out with less than the maximum time out.
+	 * They are removed from the policy, and added again if they time out again.
+	 *
+	 * @return list of timed out points
+	 */
+	public synchronized List<int[]> takeTimedOutPoints ()
+	{
+		List<int[]> result = new ArrayList<int[]>(timedOutPoints.values ());
+		timedOutPoints.clear ();
+		return result;
+	}
+}
@@ -1,6 +1,11 @@
 package exploration;
 
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+
+import exploration.interfaces.SolverFunctions;
+import solver.Z3Context;
+import solver.Z3Solver;
 import solver.Z3Solver.SatResult;
 
 /**
@@ -39,8 +44,25 @@ public abstract class ExplorationParameters
 	 * Name of the constraints for each dimension.
 	 * Important because they are used when writing the log files.
 	 */
-	protected String constraintNames[]=null;	
-	
+	protected String constraintNames[]=null;
+
+	/**
+	 * Number of cost constraints in the solver before every dimension was set
+	 * by the last setConstraints, and the total number at the end.
+	 */
+	private int constraintIndex[] = null;
+
+	/**
+	 * Time taken by the last setConstraints in milliseconds.
+	 */
+	private double constraintTime = 0;
+
+	/**
+	 * Pool of solvers to perform the queries in parallel, null if
+	 * the queries are performed only on the solver of this object.
+	 */
+	protected SolverPool solverPool = null;
+
 	/**
 	 * Set a constraint for a particular dimension. This will be called
 	 * for every query when exploration algorithm wants to set a cost constraint
@@ -85,6 +107,145 @@ public abstract class ExplorationParameters
 	 */
 	public abstract void popSolverContext (int numContext);
 	
+	/**
+	 * Interrupt the query running in the solver. It is called from another
+	 * thread, when the result of the query is not required anymore.
+	 */
+	public abstract void interruptSolverQuery ();
+
+	/**
+	 * Get the costs of a schedule which was not found by the solver, for
+	 * example by list scheduling. The schedule must be a feasible solution 
+	 * of the constraints of the solver for these costs.
+	 * 
+	 * @param schedule model of the schedule with the same variable names as the solver
+	 * @return costs for every dimension, null if the costs of the schedule are not known
+	 */
+	public int[] getCostsFromSchedule (Map<String, String> schedule) { return null; }
+
+	/**
+	 * Get the solver used for the queries, which can report the unsat core.
+	 * 
+	 * @return solver, null if the unsat core should not be used
+	 */
+	protected SolverFunctions getSolver () { return null; }
+
+	/**
+	 * Close the solver used for the queries, so that its Z3 context goes back
+	 * to the context pool. This object cannot perform queries afterwards.
+	 */
+	public void closeSolver ()
+	{
+		if (getSolver () instanceof Z3Context)
+			((Z3Context) getSolver ()).close ();
+	}
+
+	/**
+	 * Set the constraints of all the dimensions for the next query.
+	 * 
+	 * @param constraints value of the constraint for every dimension
+	 */
+	public void setConstraints (int constraints[])
+	{
+		long startTime = System.nanoTime ();
+		SolverFunctions solver = getSolver ();
+		constraintIndex = new int[dimensions+1];
+		for (int i=0;i<dimensions;i++)
+		{
+			constraintIndex[i] = (solver == null) ? 0 : solver.getNumCostConstraints ();
+			setConstraint (i, constraints[i]);
+		}
+		constraintIndex[dimensions] = (solver == null) ? 0 : solver.getNumCostConstraints ();
+		constraintTime = ((System.nanoTime () - startTime) / (double) 1000000);
+	}
+
+	/**
+	 * Get the statistics of the solver for the last query. The constraints must
+	 * be set with setConstraints. The statistics of the solver are known only 
+	 * for a Z3 solver.
+	 * 
+	 * @return statistics of the last query
+	 */
+	public QueryStatistics getQueryStatistics ()
+	{
+		SolverFunctions solver = getSolver ();
+		if (solver instanceof Z3Solver)
+			return new QueryStatistics (((Z3Solver) solver).getStatisticsMap (), ((Z3Solver) solver).getNumAssertions (), constraintTime);
+		return new QueryStatistics (null, -1, constraintTime);
+	}
+
+	/**
+	 * Get the dimensions whose constraints are required for the UNSAT answer 
+	 * of the last query. The query remains UNSAT if the constraints of the other 
+	 * dimensions are removed. The constraints must be set with setConstraints.
+	 * 
+	 * @return true for every dimension in the unsat core, null if not known
+	 */
+	public boolean[] getUnsatCoreDimensions ()
+	{
+		SolverFunctions solver = getSolver ();
+		if (solver == null || constraintIndex == null)
+			return null;
+
+		boolean core[] = solver.getUnsatCore ();
+		if (core == null || core.length != constraintIndex[dimensions])
+			return null;
+
+		boolean result[] = new boolean[dimensions];
+		for (int i=0;i<dimensions;i++)
+		{
+			// A dimension without any constraint in the solver is treated as required.
+			result[i] = (constraintIndex[i] == constraintIndex[i+1]);
+			for (int j=constraintIndex[i];j<constraintIndex[i+1];j++)
+				result[i] |= core[j];
+		}
+		return result;
+	}
+
+	/**
+	 * Set a pool of solvers to perform the queries in parallel.
+	 *
+	 * @param pool pool of solvers with the same base constraints as this solver
+	 */
+	public void setSolverPool (SolverPool pool) { solverPool = pool; }
+
+	/**
+	 * Get the pool of solvers.
+	 *
+	 * @return pool of solvers, null if not set
+	 */
+	public SolverPool getSolverPool () { return solverPool; }
+
+	/**
+	 * Give a query to a free worker of the solver pool.
+	 *
+	 * @param constraints cost constraints for every dimension
+	 * @param timeOutInSeconds time out for this query
+	 * @return result of the query when it is finished
+	 */
+	public SolverPool.Query submitQuery (int constraints[], int timeOutInSeconds)
+	{
+		if (solverPool == null)
+			throw new RuntimeException ("Solver pool is not set.");
+		return solverPool.submit (constraints, timeOutInSeconds);
+	}
+
+	/**
+	 * Give a query to a free worker of the solver pool. The query is added
+	 * to the queue of completed queries when it is finished.
+	 *
+	 * @param constraints cost constraints for every dimension
+	 * @param timeOutInSeconds time out for this query
+	 * @param completedQueries queue to which the query is added when finished
+	 * @return result of the query when it is finished
+	 */
+	public SolverPool.Query submitQuery (int constraints[], int timeOutInSeconds, BlockingQueue<SolverPool.Query> completedQueries)
+	{
+		if (solverPool == null)
+			throw new RuntimeException ("Solver pool is not set.");
+		return solverPool.submit (constraints, timeOutInSeconds, completedQueries);
+	}
+
 	/**
 	 * Initialization exploration parameters object.
 	 * 
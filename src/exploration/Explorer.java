@@ -5,6 +5,7 @@ import java.text.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
+import solver.IntModel;
 import solver.Z3Solver.SatResult;
 
 /**
@@ -85,6 +86,16 @@ public abstract class Explorer
 	 */
 	protected FileWriter timedOutPointsfile;
 	
+	/**
+	 * Log file containing the solver statistics of every query as comma separated values.
+	 */
+	protected FileWriter statisticsFile;
+	
+	/**
+	 * Log file containing the solver statistics of every query as JSON lines.
+	 */
+	protected FileWriter statisticsJsonFile;
+	
 	/**
 	 * Filename for models file.
 	 */
@@ -115,11 +126,72 @@ public abstract class Explorer
 	 */
 	protected String timedOutPointsFileName = "timedOutPoints.txt";
 	
+	/**
+	 * Filename for query statistics file. 
+	 */
+	protected String statisticsFileName = "queryStatistics.csv";
+	
+	/**
+	 * Filename for query statistics file in JSON lines. 
+	 */
+	protected String statisticsJsonFileName = "queryStatistics.jsonl";
+	
+	/**
+	 * Filename for the summary of the query statistics. 
+	 */
+	protected String statisticsSummaryFileName = "queryStatisticsSummary.txt";
+	
 	/**
 	 * Format to generate the time for Log files. 
 	 */
 	private NumberFormat formatter = new DecimalFormat("#0.000000");     
 	
+	/**
+	 * Costs of the SAT points known before the exploration starts.
+	 */
+	protected List<int[]> seedCosts = new ArrayList<int[]>();
+	
+	/**
+	 * Models of the SAT points known before the exploration starts.
+	 */
+	protected List<Map<String, String>> seedModels = new ArrayList<Map<String, String>>();
+	
+	/**
+	 * Adaptive time out of the queries, null for the fixed time out per query.
+	 */
+	protected AdaptiveTimeout timeoutPolicy = null;
+	
+	/**
+	 * Number of queries for every result.
+	 */
+	private int resultCount[] = new int[SatResult.values ().length];
+	
+	/**
+	 * Total time of the queries for every result in milliseconds.
+	 */
+	private double resultTime[] = new double[SatResult.values ().length];
+	
+	/**
+	 * Longest time of a query for every result in milliseconds.
+	 */
+	private double resultMaxTime[] = new double[SatResult.values ().length];
+	
+	/**
+	 * Total time to add the cost constraints of the queries in milliseconds.
+	 */
+	private double totalConstraintTime = 0;
+	
+	/**
+	 * Sum of the statistics of all the queries, for the statistics columns.
+	 * For the memory we keep the maximum and not the sum.
+	 */
+	private double totalStatistics[] = new double[QueryStatistics.columns.length];
+	
+	/**
+	 * Query which took the longest time.
+	 */
+	private SolverPool.QueryResult slowestQuery = null;
+	
 	/**
 	 * Initialize Explorer class object.
 	 * 
@@ -169,6 +241,13 @@ public abstract class Explorer
 			satPointsfile = new FileWriter (outputDir + satPointsFileName);
 			paretoPointsfile = new FileWriter (outputDir + paretoPointsFileName);
 			timedOutPointsfile = new FileWriter (outputDir + timedOutPointsFileName);
+			statisticsFile = new FileWriter (outputDir + statisticsFileName);
+			statisticsJsonFile = new FileWriter (outputDir + statisticsJsonFileName);
+			
+			String constraintNames[] = new String[dimensions];
+			for (int i=0;i<dimensions;i++)
+				constraintNames[i] = explParams.getConstraintName (i);
+			outputToFile (statisticsFile, QueryStatistics.getCsvHeader (constraintNames) + "\n");
 			filesOpened = true;
 		} 
 		catch (IOException e) 
@@ -224,10 +303,89 @@ public abstract class Explorer
 
 			timedOutPointsfile.flush ();
 			timedOutPointsfile.close ();	
+			
+			statisticsFile.flush ();
+			statisticsFile.close ();
+			
+			statisticsJsonFile.flush ();
+			statisticsJsonFile.close ();
 
 		} catch (IOException e)  { e.printStackTrace (); }
 	}
 	
+	/**
+	 * Open the log files if they are not opened yet.
+	 */
+	protected void openFilesIfRequired ()
+	{
+		if (filesOpened == false)
+			openFiles ();
+	}
+
+	/**
+	 * Get the point as a string to print and log.
+	 * 
+	 * @param point value for every dimension
+	 * @return point as a string
+	 */
+	protected String pointToString (int point[])
+	{
+		String pointString= "";
+		
+		for (int i=0;i<dimensions;i++)			
+			pointString = pointString.concat (explParams.getConstraintName (i) + " : " + Integer.toString (point[i]) + " ");
+		return pointString;
+	}
+
+	/**
+	 * Print the current time and the point to be queried.
+	 * 
+	 * @param constraints constraints of the query for every dimension
+	 */
+	protected void printQueryPoint (int constraints[])
+	{
+		SimpleDateFormat sdfDate = new SimpleDateFormat ("HH:mm:ss");
+		Date now = new Date ();
+		
+		System.out.print ("<"+sdfDate.format (now)+"> " + pointToString (constraints));
+	}
+
+	/**
+	 * Use an adaptive time out for the queries instead of the fixed time out per query.
+	 * 
+	 * @param timeoutPolicy adaptive time out policy, null for the fixed time out
+	 */
+	public void setTimeoutPolicy (AdaptiveTimeout timeoutPolicy)
+	{
+		this.timeoutPolicy = timeoutPolicy;
+	}
+	
+	/**
+	 * Get the time out for a query.
+	 * 
+	 * @param constraints constraints of the query for every dimension
+	 * @return time out in seconds
+	 */
+	protected int getQueryTimeOut (int constraints[])
+	{
+		if (timeoutPolicy == null)
+			return perQuerytimeOutInSeconds;
+		return timeoutPolicy.getTimeOut (constraints, totalExplTime/1000);
+	}
+	
+	/**
+	 * Get the time budget of the exploration. With an adaptive time out,
+	 * a part of the budget is reserved for the refinement.
+	 * 
+	 * @return time budget in seconds
+	 */
+	protected double getExplorationBudget ()
+	{
+		if (timeoutPolicy == null)
+			return totalQueryTimeOutInSeconds;
+		return timeoutPolicy.getPhaseBudget ();
+	}
+	
 	/**
 	 * Perform the SMT query
 	 * 
@@ -236,31 +394,78 @@ public abstract class Explorer
 	 */
 	protected SatResult smtQuery (int constraints[])
 	{
-        if(filesOpened == false)
-            openFiles();
+		openFilesIfRequired ();
         
 		// Set the constraints.
-		for (int i=0;i<dimensions;i++)
-			explParams.setConstraint (i, constraints[i]);			
+		explParams.setConstraints (constraints);
 
-		SimpleDateFormat sdfDate = new SimpleDateFormat ("HH:mm:ss");
-		Date now = new Date ();
-		
-		String pointString= "";
-		
-		for (int i=0;i<dimensions;i++)			
-			pointString = pointString.concat (explParams.getConstraintName (i) + " : " + Integer.toString (constraints[i]) + " ");
-		
-		System.out.print ("<"+sdfDate.format (now)+"> " + pointString);
+		printQueryPoint (constraints);
 		
 		long startTime = System.nanoTime (); 
-		SatResult result = explParams.solverQuery (perQuerytimeOutInSeconds);
+		SatResult result = explParams.solverQuery (getQueryTimeOut (constraints));
 		long endTime = System.nanoTime ();
 		timeTakenForCurrentQuery = ((endTime - startTime) / (double) 1000000);
 
 		totalExplTime += timeTakenForCurrentQuery;
 		
-		String currentQueryTimeString = formatter.format(timeTakenForCurrentQuery/1000) + " seconds";
+		int costs[] = null;
+		Map<String, String> model = null;
+		if (result == SatResult.SAT)
+		{
+			model = IntModel.copyOf (explParams.getModelFromSolver ());
+			costs = explParams.getCostsFromModel();
+		}
+		
+		logQueryResult (new SolverPool.QueryResult (constraints, result, costs, model, timeTakenForCurrentQuery, 
+								false, null, explParams.getQueryStatistics ()));
+		return result;		
+	}
+	
+	/**
+	 * Add a SAT point which is known before the exploration, for example from 
+	 * a heuristic schedule. It is added to the SAT points when the exploration starts,
+	 * so that the queries in its forward cone are not performed.
+	 * 
+	 * @param costs costs of the point for every dimension
+	 * @param model model of the point
+	 */
+	public void addSeedPoint (int costs[], Map<String, String> model)
+	{
+		if (costs.length != dimensions)
+			throw new RuntimeException ("Seed point must have " + dimensions + " dimensions.");
+		seedCosts.add (costs.clone ());
+		seedModels.add (model);
+	}
+	
+	/**
+	 * Log a seed point as a SAT point.
+	 * 
+	 * @param index index of the seed point
+	 */
+	protected void logSeedPoint (int index)
+	{
+		int costs[] = seedCosts.get (index);
+		System.out.print ("Seed Point : " + pointToString (costs));
+		logQueryResult (new SolverPool.QueryResult (costs, SatResult.SAT, costs, seedModels.get (index), 0));
+		System.out.println ();
+	}
+	
+	/**
+	 * Write the result of a query to the log files.
+	 * The queries performed by a solver pool are also logged with this method.
+	 * 
+	 * @param query result of the query
+	 */
+	protected synchronized void logQueryResult (SolverPool.QueryResult query)
+	{
+		openFilesIfRequired ();
+		
+		SatResult result = query.getResult ();
+		String pointString = pointToString (query.getConstraints ());
+		
+		if (timeoutPolicy != null)
+			timeoutPolicy.record (query.getConstraints (), result, query.getTimeTaken ());
+		String currentQueryTimeString = formatter.format(query.getTimeTaken ()/1000) + " seconds";
 			
 		System.out.print (" Result : " + result.toString () + " Time : " + currentQueryTimeString);		
 		
@@ -268,22 +473,17 @@ public abstract class Explorer
 
 		if (result == SatResult.SAT)
 		{								
-			Map<String, String> model = explParams.getModelFromSolver ();
-			
 			// Note: This code was added in order to serve the reading of the pareto exploration results
 			// from a file. We need to dump the acquired sat points to the sat point files, otherwise the
 			// sat points and pareto points don't match each other. However I remember that there was some
 			// reason why I had not done it. Probably some scripting issue or something else. Hence please
 			// verify later if this is causing any other code to break.
-			pointString = "";			
-			int costs[] = explParams.getCostsFromModel();			
-			for (int i=0;i<dimensions;i++)			
-				pointString = pointString.concat (explParams.getConstraintName (i) + " : "  + Integer.toString (costs[i]) + " ");
+			pointString = pointToString (query.getCosts ());
 			
 			outputToFile (satPointsfile, pointString + " Result : " + result.toString () 
 					+ " Time : " + currentQueryTimeString + "\n");
 			outputToFile (modelFile, pointString + " Result : " + result.toString () 
-					+ " Time : " + currentQueryTimeString + "\n" + model.toString () + "\n");			
+					+ " Time : " + currentQueryTimeString + "\n" + query.getModel ().toString () + "\n");			
 		}
 		else if ((result == SatResult.UNSAT))
 		{	
@@ -297,7 +497,81 @@ public abstract class Explorer
 		}
 		else
 			throw new RuntimeException ("Unexpected Result "+ result.toString () + " at : " + pointString);
-
-		return result;		
-	}	
+		
+		if (query.getStatistics () != null)
+			logQueryStatistics (query);
+	}
+	
+	/**
+	 * Write the solver statistics of a query to the statistics files and
+	 * add them to the summary.
+	 * 
+	 * @param query result of the query with the statistics
+	 */
+	private void logQueryStatistics (SolverPool.QueryResult query)
+	{
+		QueryStatistics statistics = query.getStatistics ();
+		String constraintNames[] = new String[dimensions];
+		for (int i=0;i<dimensions;i++)
+			constraintNames[i] = explParams.getConstraintName (i);
+		
+		String result = query.getResult ().toString ();
+		outputToFile (statisticsFile, statistics.toCsv (query.getConstraints (), result, query.getTimeTaken ()) + "\n");
+		outputToFile (statisticsJsonFile, statistics.toJson (constraintNames, query.getConstraints (), result, query.getTimeTaken ()) + "\n");
+		
+		int index = query.getResult ().ordinal ();
+		resultCount[index]++;
+		resultTime[index] += query.getTimeTaken ();
+		resultMaxTime[index] = Math.max (resultMaxTime[index], query.getTimeTaken ());
+		totalConstraintTime += statistics.getConstraintTime ();
+		for (int i=0;i<QueryStatistics.columns.length;i++)
+		{
+			if (QueryStatistics.columns[i].contains ("memory"))
+				totalStatistics[i] = Math.max (totalStatistics[i], statistics.get (QueryStatistics.columns[i]));
+			else
+				totalStatistics[i] += statistics.get (QueryStatistics.columns[i]);
+		}
+		if (slowestQuery == null || query.getTimeTaken () > slowestQuery.getTimeTaken ())
+			slowestQuery = query;
+	}
+	
+	/**
+	 * Print the summary of the query statistics and write it to the summary file.
+	 * It should be called at the end of the exploration.
+	 */
+	protected void logStatisticsSummary ()
+	{
+		openFilesIfRequired ();
+		
+		StringBuilder summary = new StringBuilder ("Query Statistics Summary\n");
+		for (SatResult result : SatResult.values ())
+		{
+			int index = result.ordinal ();
+			if (resultCount[index] == 0)
+				continue;
+			summary.append (result.toString () + " : " + resultCount[index] + " queries, Total Time : " 
+					+ formatter.format (resultTime[index]/1000) + " seconds, Average Time : " 
+					+ formatter.format (resultTime[index]/resultCount[index]/1000) + " seconds, Max Time : " 
+					+ formatter.format (resultMaxTime[index]/1000) + " seconds\n");
+		}
+		summary.append ("Constraint Generation Time : " + formatter.format (totalConstraintTime/1000) + " seconds\n");
+		for (int i=0;i<QueryStatistics.columns.length;i++)
+		{
+			if (QueryStatistics.columns[i].contains ("memory"))
+				summary.append ("Highest " + QueryStatistics.columns[i] + " : " + totalStatistics[i] + "\n");
+			else
+				summary.append ("Total " + QueryStatistics.columns[i] + " : " + (long) totalStatistics[i] + "\n");
+		}
+		if (slowestQuery != null)
+			summary.append ("Slowest Query : " + pointToString (slowestQuery.getConstraints ()) + "Result : " 
+					+ slowestQuery.getResult ().toString () + " Time : " + formatter.format (slowestQuery.getTimeTaken ()/1000) + " seconds\n");
+		
+		System.out.print (summary.toString ());
+		try
+		{
+			FileWriter summaryFile = new FileWriter (outputDir + statisticsSummaryFileName);
+			outputToFile (summaryFile, summary.toString ());
+			summaryFile.close ();
+		} catch (IOException e) { e.printStackTrace (); }
+	}
 }
@@ -0,0 +1,145 @@
+package exploration;
+
+import java.util.*;
+
+import graphanalysis.scheduling.ListScheduling;
+import graphanalysis.scheduling.ListScheduling.Strategy;
+import spdfcore.Graph;
+
+/**
+ * Seed the design space exploration with SAT points from list scheduling.
+ *
+ * List scheduling gives a feasible non-pipelined schedule in milliseconds. We schedule
+ * the graph with every selection strategy and a number of random tie-breaking orders,
+ * for every number of processors in the range. The non-dominated schedules are given to
+ * the explorer as SAT points before it performs any query, so that the queries in their
+ * forward cone are not performed.
+ *
+ * @author Pranav Tendulkar
+ *
+ */
+public class ListScheduleSeeds
+{
+	/**
+	 * Application graph to be scheduled.
+	 */
+	private Graph graph;
+
+	/**
+	 * Number of random orders of the actors to schedule with, in addition to the first one.
+	 */
+	public int randomRestarts = 10;
+
+	/**
+	 * Seed of the first random order, so that the seeds are repeatable.
+	 */
+	public long randomSeed = 0;
+
+	/**
+	 * Initialize the list scheduling seeds.
+	 *
+	 * @param graph application graph
+	 */
+	public ListScheduleSeeds (Graph graph)
+	{
+		this.graph = graph;
+	}
+
+	/**
+	 * Selection strategies to schedule with. The empty list is the RANDOM strategy.
+	 *
+	 * @return list of strategies for every schedule
+	 */
+	private List<List<Strategy>> getStrategies ()
+	{
+		List<List<Strategy>> result = new ArrayList<List<Strategy>>();
+		result.add (new ArrayList<Strategy>());
+		for (Strategy strategy : Strategy.values ())
+			if (strategy != Strategy.RANDOM)
+				result.add (new ArrayList<Strategy>(Arrays.asList (strategy)));
+		return result;
+	}
+
+	/**
+	 * Add a point to the list, if it is not dominated. The points dominated by it are removed.
+	 *
+	 * @param costs costs of the new point
+	 * @param model model of the new point
+	 * @param seedCosts costs of the non-dominated points
+	 * @param seedModels models of the non-dominated points
+	 */
+	private void addIfNotDominated (int costs[], Map<String, String> model, List<int[]> seedCosts, List<Map<String, String>> seedModels)
+	{
+		for (int i=0;i<seedCosts.size ();i++)
+		{
+			int other[] = seedCosts.get (i);
+			boolean otherLessOrEqual = true;
+			boolean newLessOrEqual = true;
+			for (int j=0;j<costs.length;j++)
+			{
+				otherLessOrEqual &= (other[j] <= costs[j]);
+				newLessOrEqual &= (costs[j] <= other[j]);
+			}
+
+			if (otherLessOrEqual == true)
+				return;
+			else if (newLessOrEqual == true)
+			{
+				seedCosts.remove (i);
+				seedModels.remove (i);
+				i--;
+			}
+		}
+		seedCosts.add (costs);
+		seedModels.add (model);
+	}
+
+	/**
+	 * Schedule the graph and add the non-dominated schedules as seed points to the explorer.
+	 *
+	 * @param explorer explorer to which the seed points are added
+	 * @param params exploration parameters to get the costs of the schedules
+	 * @param minProcessors minimum number of processors to schedule on
+	 * @param maxProcessors maximum number of processors to schedule on
+	 * @return number of seed points added, 0 if the exploration parameters do not support schedule costs
+	 */
+	public int addSeedPoints (Explorer explorer, ExplorationParameters params, int minProcessors, int maxProcessors)
+	{
+		ListScheduling scheduler = new ListScheduling (graph);
+		List<List<Strategy>> strategies = getStrategies ();
+		List<int[]> seedCosts = new ArrayList<int[]>();
+		List<Map<String, String>> seedModels = new ArrayList<Map<String, String>>();
+
+		for (int restart=0;restart<=randomRestarts;restart++)
+		{
+			scheduler.randomize (randomSeed + restart);
+			for (List<Strategy> strategy : strategies)
+			{
+				scheduler.selectionStrategies = strategy;
+				for (int numProcessors=minProcessors;numProcessors<=maxProcessors;numProcessors++)
+				{
+					Map<String, String> schedule;
+					try
+					{
+						schedule = scheduler.generateSchedule (numProcessors);
+					}
+					catch (RuntimeException e)
+					{
+						// The graph cannot be list scheduled, for example a cycle which is blocked.
+						System.out.println ("List scheduling failed, no seed points : " + e.getMessage ());
+						return 0;
+					}
+					int costs[] = params.getCostsFromSchedule (schedule);
+					if (costs == null)
+						return 0;
+					addIfNotDominated (costs, schedule, seedCosts, seedModels);
+				}
+			}
+		}
+
+		for (int i=0;i<seedCosts.size ();i++)
+			explorer.addSeedPoint (seedCosts.get (i), seedModels.get (i));
+
+		return seedCosts.size ();
+	}
+}
@@ -0,0 +1,165 @@
+package exploration;
+
+import java.util.*;
+
+/**
+ * Statistics of the solver for a query of the exploration.
+ *
+ * The statistics are reported by the solver after the query, for example the number of
+ * conflicts, decisions and propagations of Z3. Together with the time taken to add the
+ * cost constraints of the query, they show where the time of the exploration goes.
+ *
+ * @author Pranav Tendulkar
+ *
+ */
+public class QueryStatistics
+{
+	/**
+	 * Statistics which are written as columns of the statistics file.
+	 */
+	public static final String columns[] = { "conflicts", "decisions", "propagations", "restarts", "memory", "max memory" };
+
+	/**
+	 * All the statistics reported by the solver.
+	 */
+	private final Map<String, Double> solverStatistics;
+
+	/**
+	 * Number of assertions in the solver, -1 if not known.
+	 */
+	private final int numAssertions;
+
+	/**
+	 * Time taken to add the cost constraints of the query in milliseconds.
+	 */
+	private final double constraintTime;
+
+	/**
+	 * Build the statistics of a query.
+	 *
+	 * @param solverStatistics statistics reported by the solver, can be null
+	 * @param numAssertions number of assertions in the solver, -1 if not known
+	 * @param constraintTime time taken to add the cost constraints in milliseconds
+	 */
+	public QueryStatistics (Map<String, Double> solverStatistics, int numAssertions, double constraintTime)
+	{
+		if (solverStatistics == null)
+			solverStatistics = new TreeMap<String, Double>();
+		this.solverStatistics = solverStatistics;
+		this.numAssertions = numAssertions;
+		this.constraintTime = constraintTime;
+	}
+
+	/**
+	 * Get a statistic reported by the solver.
+	 *
+	 * @param name name of the statistic
+	 * @return value of the statistic, 0 if not reported
+	 */
+	public double get (String name)
+	{
+		Double value = solverStatistics.get (name);
+		return (value == null) ? 0 : value;
+	}
+
+	/**
+	 * Get all the statistics reported by the solver.
+	 *
+	 * @return map of name to the value of every statistic
+	 */
+	public Map<String, Double> getSolverStatistics () { return Collections.unmodifiableMap (solverStatistics); }
+
+	/**
+	 * Get the number of assertions in the solver.
+	 *
+	 * @return number of assertions, -1 if not known
+	 */
+	public int getNumAssertions () { return numAssertions; }
+
+	/**
+	 * Get the time taken to add the cost constraints of the query.
+	 *
+	 * @return time in milliseconds
+	 */
+	public double getConstraintTime () { return constraintTime; }
+
+	/**
+	 * Get the header line of the statistics file.
+	 *
+	 * @param constraintNames names of the dimensions of the query point
+	 * @return header with comma separated names
+	 */
+	public static String getCsvHeader (String constraintNames[])
+	{
+		StringBuilder result = new StringBuilder ();
+		for (String name : constraintNames)
+			result.append (name).append (",");
+		result.append ("result,time_ms,constraint_time_ms,assertions");
+		for (String column : columns)
+			result.append (",").append (column.replace (' ', '_'));
+		return result.toString ();
+	}
+
+	/**
+	 * Get a line of the statistics file for a query.
+	 *
+	 * @param point point of the query
+	 * @param result result of the query
+	 * @param timeTaken time taken by the query in milliseconds
+	 * @return line with comma separated values
+	 */
+	public String toCsv (int point[], String result, double timeTaken)
+	{
+		StringBuilder line = new StringBuilder ();
+		for (int value : point)
+			line.append (value).append (",");
+		line.append (result).append (",").append (String.format (Locale.US, "%.3f", timeTaken));
+		line.append (",").append (String.format (Locale.US, "%.3f", constraintTime));
+		line.append (",").append (numAssertions);
+		for (String column : columns)
+			line.append (",").append (formatValue (get (column)));
+		return line.toString ();
+	}
+
+	/**
+	 * Get a JSON object with all the statistics of a query.
+	 *
+	 * @param constraintNames names of the dimensions of the query point
+	 * @param point point of the query
+	 * @param result result of the query
+	 * @param timeTaken time taken by the query in milliseconds
+	 * @return JSON object on a single line
+	 */
+	public String toJson (String constraintNames[], int point[], String result, double timeTaken)
+	{
+		StringBuilder line = new StringBuilder ("{\"point\":{");
+		for (int i=0;i<point.length;i++)
+			line.append (i == 0 ? "" : ",").append ("\"").append (constraintNames[i]).append ("\":").append (point[i]);
+		line.append ("},\"result\":\"").append (result).append ("\"");
+		line.append (",\"time_ms\":").append (String.format (Locale.US, "%.3f", timeTaken));
+		line.append (",\"constraint_time_ms\":").append (String.format (Locale.US, "%.3f", constraintTime));
+		line.append (",\"assertions\":").append (numAssertions);
+		line.append (",\"solver\":{");
+		boolean first = true;
+		for (Map.Entry<String, Double> entry : solverStatistics.entrySet ())
+		{
+			line.append (first ? "" : ",").append ("\"").append (entry.getKey ()).append ("\":").append (formatValue (entry.getValue ()));
+			first = false;
+		}
+		line.append ("}}");
+		return line.toString ();
+	}
+
+	/**
+	 * Format a value without decimals if it is an integer.
+	 *
+	 * @param value value to be formatted
+	 * @return value as a string
+	 */
+	private static String formatValue (double value)
+	{
+		if (value == Math.rint (value) && Math.abs (value) < Long.MAX_VALUE)
+			return Long.toString ((long) value);
+		return String.format (Locale.US, "%.3f", value);
+	}
+}
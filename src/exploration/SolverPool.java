@@ -0,0 +1,693 @@
+package exploration;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import solver.Z3Solver.SatResult;
+
+/**
+ * Pool of solvers to perform SMT queries of the exploration in parallel.
+ *
+ * Every worker is an exploration parameters object with its own solver,
+ * and hence its own Z3 context. The base constraints are generated again for
+ * every worker by the worker factory, since a Z3 context cannot be shared
+ * between the threads. A query is given to a free worker, which adds the cost
+ * constraints in a new context level and removes them after the query.
+ * A query can be interrupted, when its result is not required anymore.
+ *
+ * In portfolio mode, the workers are built with different configurations of the
+ * solver, and every query is raced on all the workers. The first SAT or UNSAT answer
+ * wins and the other workers are interrupted.
+ *
+ * @author Pranav Tendulkar
+ *
+ */
+public class SolverPool
+{
+	/**
+	 * Builds a worker for the pool.
+	 *
+	 * @author Pranav Tendulkar
+	 *
+	 */
+	public interface WorkerFactory
+	{
+		/**
+		 * Build the exploration parameters with a new solver
+		 * in which all the base constraints are asserted.
+		 *
+		 * @return exploration parameters of the worker
+		 */
+		ExplorationParameters createWorker ();
+	}
+
+	/**
+	 * Result of a query performed by a worker.
+	 *
+	 * @author Pranav Tendulkar
+	 *
+	 */
+	public static class QueryResult
+	{
+		/**
+		 * Cost constraints of the query.
+		 */
+		private final int constraints[];
+
+		/**
+		 * Result of the query.
+		 */
+		private final SatResult result;
+
+		/**
+		 * Costs from the model if the result is SAT, else null.
+		 */
+		private final int costs[];
+
+		/**
+		 * Model if the result is SAT, else null.
+		 */
+		private final Map<String, String> model;
+
+		/**
+		 * Time taken by the query in milliseconds.
+		 */
+		private final double timeTaken;
+
+		/**
+		 * The query was interrupted before the solver could find the answer.
+		 */
+		private final boolean interrupted;
+
+		/**
+		 * Dimensions in the unsat core if the result is UNSAT, else null.
+		 */
+		private final boolean unsatCore[];
+
+		/**
+		 * Statistics of the solver for the query, null if not known.
+		 */
+		private final QueryStatistics statistics;
+
+		/**
+		 * Build a query result.
+		 *
+		 * @param constraints cost constraints of the query
+		 * @param result result of the query
+		 * @param costs costs from the model, null if not SAT
+		 * @param model model from the solver, null if not SAT
+		 * @param timeTaken time taken in milliseconds
+		 */
+		public QueryResult (int constraints[], SatResult result, int costs[], Map<String, String> model, double timeTaken)
+		{
+			this (constraints, result, costs, model, timeTaken, false);
+		}
+
+		/**
+		 * Build a query result.
+		 *
+		 * @param constraints cost constraints of the query
+		 * @param result result of the query
+		 * @param costs costs from the model, null if not SAT
+		 * @param model model from the solver, null if not SAT
+		 * @param timeTaken time taken in milliseconds
+		 * @param interrupted the query was interrupted before the answer
+		 */
+		public QueryResult (int constraints[], SatResult result, int costs[], Map<String, String> model, double timeTaken, boolean interrupted)
+		{
+			this (constraints, result, costs, model, timeTaken, interrupted, null);
+		}
+
+		/**
+		 * Build a query result.
+		 *
+		 * @param constraints cost constraints of the query
+		 * @param result result of the query
+		 * @param costs costs from the model, null if not SAT
+		 * @param model model from the solver, null if not SAT
+		 * @param timeTaken time taken in milliseconds
+		 * @param interrupted the query was interrupted before the answer
+		 * @param unsatCore dimensions in the unsat core, null if not known
+		 */
+		public QueryResult (int constraints[], SatResult result, int costs[], Map<String, String> model, 
+							double timeTaken, boolean interrupted, boolean unsatCore[])
+		{
+			this (constraints, result, costs, model, timeTaken, interrupted, unsatCore, null);
+		}
+
+		/**
+		 * Build a query result.
+		 *
+		 * @param constraints cost constraints of the query
+		 * @param result result of the query
+		 * @param costs costs from the model, null if not SAT
+		 * @param model model from the solver, null if not SAT
+		 * @param timeTaken time taken in milliseconds
+		 * @param interrupted the query was interrupted before the answer
+		 * @param unsatCore dimensions in the unsat core, null if not known
+		 * @param statistics statistics of the solver for the query, null if not known
+		 */
+		public QueryResult (int constraints[], SatResult result, int costs[], Map<String, String> model, 
+							double timeTaken, boolean interrupted, boolean unsatCore[], QueryStatistics statistics)
+		{
+			this.constraints = constraints;
+			this.result = result;
+			this.costs = costs;
+			this.model = model;
+			this.timeTaken = timeTaken;
+			this.interrupted = interrupted;
+			this.unsatCore = unsatCore;
+			this.statistics = statistics;
+		}
+
+		/**
+		 * Get the cost constraints of the query.
+		 *
+		 * @return cost constraints for every dimension
+		 */
+		public int[] getConstraints () { return constraints; }
+
+		/**
+		 * Get the result of the query.
+		 *
+		 * @return result of the query
+		 */
+		public SatResult getResult () { return result; }
+
+		/**
+		 * Get the costs of the model of a SAT query.
+		 *
+		 * @return costs for every dimension, null if not SAT
+		 */
+		public int[] getCosts () { return costs; }
+
+		/**
+		 * Get the model of a SAT query.
+		 *
+		 * @return model, null if not SAT
+		 */
+		public Map<String, String> getModel () { return model; }
+
+		/**
+		 * Get the time taken by the query.
+		 *
+		 * @return time in milliseconds
+		 */
+		public double getTimeTaken () { return timeTaken; }
+
+		/**
+		 * Check if the query was interrupted. The result of an
+		 * interrupted query must not be used.
+		 *
+		 * @return true if interrupted before the solver found the answer
+		 */
+		public boolean isInterrupted () { return interrupted; }
+
+		/**
+		 * Get the dimensions whose constraints are required for the UNSAT answer.
+		 *
+		 * @return true for every dimension in the unsat core, null if not known
+		 */
+		public boolean[] getUnsatCore () { return unsatCore; }
+
+		/**
+		 * Get the statistics of the solver for the query.
+		 *
+		 * @return statistics, null if not known
+		 */
+		public QueryStatistics getStatistics () { return statistics; }
+	}
+
+	/**
+	 * A query to be performed by a worker. It keeps track of the worker which
+	 * runs it, so that the solver of the worker can be interrupted.
+	 *
+	 * @author Pranav Tendulkar
+	 *
+	 */
+	private class QueryTask implements Callable<QueryResult>
+	{
+		/**
+		 * Cost constraints of the query.
+		 */
+		private final int constraints[];
+
+		/**
+		 * Time out for the query.
+		 */
+		private final int timeOutInSeconds;
+
+		/**
+		 * Worker which is running the query, null if it is not running.
+		 */
+		private ExplorationParameters runningWorker = null;
+
+		/**
+		 * Query is interrupted.
+		 */
+		private boolean interrupted = false;
+
+		/**
+		 * Queries raced on every worker in portfolio mode, null if not racing.
+		 */
+		private List<QueryTask> raceTasks = null;
+
+		/**
+		 * Build a query task.
+		 *
+		 * @param constraints cost constraints for every dimension
+		 * @param timeOutInSeconds time out for the query
+		 */
+		private QueryTask (int constraints[], int timeOutInSeconds)
+		{
+			this.constraints = constraints.clone ();
+			this.timeOutInSeconds = timeOutInSeconds;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.Callable#call()
+		 */
+		@Override
+		public QueryResult call () throws InterruptedException
+		{
+			if (portfolio == true)
+				return performPortfolioQuery (this);
+			
+			ExplorationParameters worker = freeWorkers.take ();
+			try
+			{
+				return performQuery (worker, this);
+			}
+			finally
+			{
+				freeWorkers.add (worker);
+			}
+		}
+
+		/**
+		 * Mark the query as running on a worker.
+		 *
+		 * @param worker worker which runs the query
+		 * @return false if the query is already interrupted and should not be run
+		 */
+		private synchronized boolean start (ExplorationParameters worker)
+		{
+			if (interrupted == true)
+				return false;
+			runningWorker = worker;
+			return true;
+		}
+
+		/**
+		 * Mark the query as finished on the worker. After this the
+		 * worker will not be interrupted for this query.
+		 */
+		private synchronized void finish ()
+		{
+			runningWorker = null;
+		}
+
+		/**
+		 * Check if the query is interrupted.
+		 *
+		 * @return true if interrupted
+		 */
+		private synchronized boolean isInterrupted () { return interrupted; }
+
+		/**
+		 * Set the queries raced on the workers. If the query is already
+		 * interrupted, they are interrupted as well.
+		 *
+		 * @param tasks queries raced on every worker
+		 */
+		private synchronized void setRaceTasks (List<QueryTask> tasks)
+		{
+			raceTasks = tasks;
+			if (interrupted == true)
+				for (QueryTask task : raceTasks)
+					task.interrupt ();
+		}
+
+		/**
+		 * Interrupt the query. If it is running, the solver of the worker
+		 * is interrupted, else it will not be run.
+		 */
+		private synchronized void interrupt ()
+		{
+			interrupted = true;
+			if (runningWorker != null)
+				runningWorker.interruptSolverQuery ();
+			if (raceTasks != null)
+				for (QueryTask task : raceTasks)
+					task.interrupt ();
+		}
+	}
+
+	/**
+	 * A query given to the pool. It can be interrupted from
+	 * another thread, while it is waiting or running on a worker.
+	 *
+	 * @author Pranav Tendulkar
+	 *
+	 */
+	public class Query extends FutureTask<QueryResult>
+	{
+		/**
+		 * Task performed by the worker.
+		 */
+		private final QueryTask task;
+
+		/**
+		 * Queue to which the query is added when it is finished, can be null.
+		 */
+		private final BlockingQueue<Query> completedQueries;
+
+		/**
+		 * Build a query.
+		 *
+		 * @param task task to be performed by the worker
+		 * @param completedQueries queue to which the query is added when finished, can be null
+		 */
+		private Query (QueryTask task, BlockingQueue<Query> completedQueries)
+		{
+			super (task);
+			this.task = task;
+			this.completedQueries = completedQueries;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.FutureTask#done()
+		 */
+		@Override
+		protected void done ()
+		{
+			if (completedQueries != null)
+				completedQueries.add (this);
+		}
+
+		/**
+		 * Get the cost constraints of the query.
+		 *
+		 * @return cost constraints for every dimension
+		 */
+		public int[] getConstraints () { return task.constraints.clone (); }
+
+		/**
+		 * Interrupt the query. If it is running, the solver of the worker
+		 * is interrupted, else it will not be run. A query which is
+		 * interrupted still returns a result, which must be checked with
+		 * QueryResult.isInterrupted ().
+		 */
+		public void interrupt () { task.interrupt (); }
+	}
+
+	/**
+	 * All the workers of the pool.
+	 */
+	private List<ExplorationParameters> workers;
+
+	/**
+	 * Workers which are not performing a query.
+	 */
+	private BlockingQueue<ExplorationParameters> freeWorkers;
+
+	/**
+	 * Threads to run the queries.
+	 */
+	private ExecutorService executor;
+
+	/**
+	 * Race every query on all the workers.
+	 */
+	private boolean portfolio = false;
+
+	/**
+	 * Threads to run a query on every worker in portfolio mode.
+	 */
+	private ExecutorService raceExecutor = null;
+
+	/**
+	 * Lock to take all the workers for a portfolio query, so that two
+	 * portfolio queries do not wait for the workers taken by each other.
+	 */
+	private final Object portfolioLock = new Object ();
+
+	/**
+	 * Build a pool of solvers.
+	 * The workers are built one after another, because the graph analysis
+	 * done while generating the constraints is not thread safe.
+	 *
+	 * @param numWorkers number of workers
+	 * @param factory factory to build the workers
+	 */
+	public SolverPool (int numWorkers, WorkerFactory factory)
+	{
+		if (numWorkers < 1)
+			throw new RuntimeException ("At least one worker is required in the solver pool.");
+
+		workers = new ArrayList<ExplorationParameters>(numWorkers);
+		freeWorkers = new ArrayBlockingQueue<ExplorationParameters>(numWorkers);
+		for (int i=0;i<numWorkers;i++)
+		{
+			ExplorationParameters worker = factory.createWorker ();
+			workers.add (worker);
+			freeWorkers.add (worker);
+		}
+
+		executor = Executors.newFixedThreadPool (numWorkers);
+	}
+
+	/**
+	 * Get number of workers in the pool. In portfolio mode all the workers
+	 * perform the same query, so the pool performs one query at a time.
+	 *
+	 * @return number of queries which can be performed in parallel
+	 */
+	public int getNumWorkers () { return portfolio ? 1 : workers.size (); }
+
+	/**
+	 * Race every query on all the workers. The workers should be built with
+	 * different configurations of the solver, for example different tactics,
+	 * random seeds or encodings. The queries are then performed one at a time,
+	 * hence the explorer sees a pool with a single worker.
+	 *
+	 * @param portfolio true to race the queries, false to give a query to one worker
+	 */
+	public void setPortfolio (boolean portfolio)
+	{
+		this.portfolio = portfolio;
+		if (portfolio == true && raceExecutor == null)
+			raceExecutor = Executors.newFixedThreadPool (workers.size ());
+	}
+
+	/**
+	 * Check if the queries are raced on all the workers.
+	 *
+	 * @return true if the queries are raced
+	 */
+	public boolean isPortfolio () { return portfolio; }
+
+	/**
+	 * Perform a query on a worker.
+	 *
+	 * @param worker worker to perform the query
+	 * @param query query to be performed
+	 * @return result of the query
+	 */
+	private QueryResult performQuery (ExplorationParameters worker, QueryTask query)
+	{
+		int constraints[] = query.constraints;
+		worker.pushSolverContext ();
+		try
+		{
+			worker.setConstraints (constraints);
+
+			if (query.start (worker) == false)
+				return new QueryResult (constraints.clone (), SatResult.TIMEOUT, null, null, 0, true);
+
+			long startTime = System.nanoTime ();
+			SatResult result = worker.solverQuery (query.timeOutInSeconds);
+			double timeTaken = ((System.nanoTime () - startTime) / (double) 1000000);
+			query.finish ();
+
+			// If the solver has given an answer, we use it even if it was interrupted.
+			if ((result != SatResult.SAT) && (result != SatResult.UNSAT) && (query.isInterrupted () == true))
+				return new QueryResult (constraints.clone (), result, null, null, timeTaken, true, null, worker.getQueryStatistics ());
+
+			int costs[] = null;
+			Map<String, String> model = null;
+			boolean unsatCore[] = null;
+			if (result == SatResult.UNSAT)
+				unsatCore = worker.getUnsatCoreDimensions ();
+			else if (result == SatResult.SAT)
+			{
+				costs = worker.getCostsFromModel ();
+				// The model belongs to the context of the worker, which
+				// will be used for the next query. So we keep a copy.
+				model = new TreeMap<String, String>(worker.getModelFromSolver ());
+			}
+
+			return new QueryResult (constraints.clone (), result, costs, model, timeTaken, false, unsatCore, worker.getQueryStatistics ());
+		}
+		finally
+		{
+			worker.popSolverContext (1);
+		}
+	}
+
+	/**
+	 * Race a query on all the workers. The first SAT or UNSAT answer is the result, and
+	 * the other workers are interrupted. We wait until all the workers are finished,
+	 * since their context is used for the next query.
+	 *
+	 * @param query query to be performed
+	 * @return result of the query, TIMEOUT or UNKNOWN if no worker found an answer
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 */
+	private QueryResult performPortfolioQuery (QueryTask query) throws InterruptedException
+	{
+		List<ExplorationParameters> raceWorkers = new ArrayList<ExplorationParameters>(workers.size ());
+		synchronized (portfolioLock)
+		{
+			for (int i=0;i<workers.size ();i++)
+				raceWorkers.add (freeWorkers.take ());
+		}
+
+		try
+		{
+			CompletionService<QueryResult> completion = new ExecutorCompletionService<QueryResult>(raceExecutor);
+			List<QueryTask> raceTasks = new ArrayList<QueryTask>(raceWorkers.size ());
+			for (final ExplorationParameters worker : raceWorkers)
+			{
+				final QueryTask raceTask = new QueryTask (query.constraints, query.timeOutInSeconds);
+				raceTasks.add (raceTask);
+				completion.submit (new Callable<QueryResult>()
+				{
+					@Override
+					public QueryResult call ()
+					{
+						return performQuery (worker, raceTask);
+					}
+				});
+			}
+			query.setRaceTasks (raceTasks);
+
+			QueryResult winner = null;
+			QueryResult lastResult = null;
+			for (int i=0;i<raceTasks.size ();)
+			{
+				// Z3 cancels only a check which is running. After the winner, we interrupt
+				// again the workers which are not finished, in case one of them was just
+				// starting its check and missed the interrupt.
+				Future<QueryResult> finished = (winner == null) ? completion.take () : completion.poll (100, TimeUnit.MILLISECONDS);
+				if (finished == null)
+				{
+					for (QueryTask task : raceTasks)
+						task.interrupt ();
+					continue;
+				}
+				i++;
+
+				QueryResult result = getResult (finished);
+				if (winner == null && result.isInterrupted () == false
+						&& (result.getResult () == SatResult.SAT || result.getResult () == SatResult.UNSAT))
+				{
+					winner = result;
+					for (QueryTask task : raceTasks)
+						task.interrupt ();
+				}
+				else if (result.isInterrupted () == false || lastResult == null)
+					lastResult = result;
+			}
+
+			if (winner != null)
+				return winner;
+
+			// No worker found an answer.
+			return new QueryResult (lastResult.getConstraints (), lastResult.getResult (), null, null, lastResult.getTimeTaken (), 
+						query.isInterrupted (), null, lastResult.getStatistics ());
+		}
+		finally
+		{
+			freeWorkers.addAll (raceWorkers);
+		}
+	}
+
+	/**
+	 * Give a query to the next free worker.
+	 *
+	 * @param constraints cost constraints for every dimension
+	 * @param timeOutInSeconds time out for the query
+	 * @return result of the query when it is finished
+	 */
+	public Query submit (int constraints[], int timeOutInSeconds)
+	{
+		return submit (constraints, timeOutInSeconds, null);
+	}
+
+	/**
+	 * Give a query to the next free worker. When the query is finished
+	 * it is added to the queue of completed queries, so that the caller can
+	 * wait for whichever query finishes first.
+	 *
+	 * @param constraints cost constraints for every dimension
+	 * @param timeOutInSeconds time out for the query
+	 * @param completedQueries queue to which the query is added when finished, can be null
+	 * @return result of the query when it is finished
+	 */
+	public Query submit (int constraints[], int timeOutInSeconds, BlockingQueue<Query> completedQueries)
+	{
+		Query query = new Query (new QueryTask (constraints, timeOutInSeconds), completedQueries);
+		executor.execute (query);
+		return query;
+	}
+
+	/**
+	 * Wait for a query to finish.
+	 *
+	 * @param query query returned by submit
+	 * @return result of the query
+	 */
+	public static QueryResult getResult (Future<QueryResult> query)
+	{
+		try
+		{
+			return query.get ();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread ().interrupt ();
+			throw new RuntimeException ("Interrupted while waiting for the solver.", e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new RuntimeException ("Solver query failed.", e.getCause ());
+		}
+	}
+
+	/**
+	 * Stop all the threads of the pool and close the solvers of the workers.
+	 * Queries which are already submitted are finished first.
+	 */
+	public void shutdown ()
+	{
+		executor.shutdown ();
+		if (raceExecutor != null)
+			raceExecutor.shutdown ();
+		try
+		{
+			while (executor.awaitTermination (1, TimeUnit.MINUTES) == false);
+			if (raceExecutor != null)
+				while (raceExecutor.awaitTermination (1, TimeUnit.MINUTES) == false);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread ().interrupt ();
+			throw new RuntimeException ("Interrupted while waiting for the solver pool.", e);
+		}
+
+		// The contexts of the workers go back to the context pool.
+		for (ExplorationParameters worker : workers)
+			worker.closeSolver ();
+	}
+}
@@ -46,4 +46,27 @@ public interface SolverFunctions
 	 * @param numContext
 	 */
 	void popContext (int numContext);
+	
+	/**
+	 * Interrupt the query which is running in the solver.
+	 * The query returns as timed out. It can be called from another thread.
+	 */
+	void interruptQuery ();
+	
+	/**
+	 * Get number of cost constraints which are generated after the 
+	 * last push, and can be reported in an unsat core.
+	 * 
+	 * @return number of cost constraints, 0 if unsat cores are not supported
+	 */
+	int getNumCostConstraints ();
+	
+	/**
+	 * Get the cost constraints which are required for the UNSAT answer
+	 * of the last query. The constraints are numbered in the order in 
+	 * which they were generated after the last push.
+	 * 
+	 * @return true for every cost constraint in the unsat core, null if not available
+	 */
+	boolean[] getUnsatCore ();
 }
@@ -2,6 +2,7 @@ package exploration.oneDimensionExploration;
 
 import java.io.*;
 import java.util.*;
+import solver.IntModel;
 import solver.Z3Solver.SatResult;
 import exploration.ExplorationParameters;
 import exploration.Explorer;
@@ -259,7 +260,7 @@ public class BinarySearchOneDim extends Explorer
 				int [] queryModel = explParams.getCostsFromModel ();
 				satPointsList.add (queryModel[0]);
 				
-				Map<String, String> model = explParams.getModelFromSolver ();
+				Map<String, String> model = IntModel.copyOf (explParams.getModelFromSolver ());
 				satPointsModelList.add (model);
 				
 				upperBound[0] = queryModel[0]-1;
@@ -288,6 +289,7 @@ public class BinarySearchOneDim extends Explorer
 		String pointString = explParams.getConstraintName(0)  + " : " + getLeastSatPoint() + " ";		
 		outputToFile (paretoPointsfile, pointString + "\n");		
 		
+		logStatisticsSummary ();
 		System.out.println ("Finished Exploration in " + totalExplTime/1000 + " seconds");
 	}
 }
@@ -0,0 +1,207 @@
+package exploration.oneDimensionExploration;
+
+import java.util.*;
+import solver.IntModel;
+import solver.Z3Solver.SatResult;
+import exploration.ExplorationParameters;
+import exploration.Explorer;
+
+/**
+ * Minimize the cost of every dimension in lexicographic order, by improving the model.
+ *
+ * The first query is at the upper bound, and the next ones bisect the remaining range.
+ * A SAT answer moves the upper end of the range to one below the cost of its model, not
+ * to the query, so a model better than the bound shrinks the range at no cost, while the
+ * number of queries stays logarithmic in the range as in the binary search.
+ *
+ * With more than one dimension, the first dimension is minimized first. It is then fixed
+ * to its optimum, and the next dimension is minimized to break the ties, and so on.
+ * For example latency and then number of processors.
+ *
+ * @author Pranav Tendulkar
+ *
+ */
+public class ObjectiveMinimization extends Explorer
+{
+	/**
+	 * List of SAT points from the exploration
+	 */
+	private List<int[]> satPointsList;
+
+	/**
+	 * List of UNSAT points from the exploration
+	 */
+	private List<int[]> unsatPointsList;
+
+	/**
+	 *  List of TIMED OUT points from the exploration
+	 */
+	private List<int[]> timedOutPointsList;
+
+	/**
+	 * Costs of the best model found, null if no SAT point was found.
+	 */
+	private int optimalCosts[] = null;
+
+	/**
+	 * Best model found, null if no SAT point was found.
+	 */
+	private Map<String, String> optimalModel = null;
+
+	/**
+	 * Exploration stops on timeout if this flag is set to true, otherwise
+	 * a timed out point is treated as UNSAT and the search continues above it.
+	 */
+	public boolean stopOnTimeout=false;
+
+	/**
+	 * Initialize explorer to minimize the costs.
+	 *
+	 * @param outputDirectory output directory to put log files
+	 * @param perQueryTimeOutSeconds time out for each SMT query in seconds
+	 * @param totalTimeOutInSeconds global time out value in seconds
+	 * @param explorationParams exploration parameters, dimensions in the order of minimization
+	 */
+	public ObjectiveMinimization (String outputDirectory, int perQueryTimeOutSeconds, int totalTimeOutInSeconds,
+			ExplorationParameters explorationParams)
+	{
+		super (outputDirectory, explorationParams.getDimensions (), perQueryTimeOutSeconds, totalTimeOutInSeconds, explorationParams);
+		satPointsList = new ArrayList<int[]>();
+		unsatPointsList = new ArrayList<int[]>();
+		timedOutPointsList = new ArrayList<int[]>();
+	}
+
+	/**
+	 * Get List of SAT points
+	 * @return list of SAT points
+	 */
+	public List<int[]> getSatPoints () { return new ArrayList<int[]>(satPointsList); }
+
+	/**
+	 * Get List of UNSAT points
+	 * @return list of UNSAT points
+	 */
+	public List<int[]> getUnsatPoints () { return new ArrayList<int[]>(unsatPointsList); }
+
+	/**
+	 * Get List of TIMED OUT points
+	 * @return list of TIMED OUT points
+	 */
+	public List<int[]> getTimedoutPoints () { return new ArrayList<int[]>(timedOutPointsList); }
+
+	/**
+	 * Get the costs of the best model found during exploration.
+	 *
+	 * @return costs for every dimension, null if no SAT point was found
+	 */
+	public int[] getOptimalCosts () { return (optimalCosts == null) ? null : optimalCosts.clone (); }
+
+	/**
+	 * Get the minimum value of the first dimension found during exploration.
+	 *
+	 * @return minimum value of SAT point
+	 */
+	public int getLeastSatPoint ()
+	{
+		return (optimalCosts == null) ? Integer.MAX_VALUE : optimalCosts[0];
+	}
+
+	/**
+	 * Gets model of the best SAT point found during exploration.
+	 *
+	 * @return model of best SAT point, null if no SAT point was found
+	 */
+	public Map<String, String> getLeastSatPointModel ()
+	{
+		if (optimalModel == null)
+			return null;
+		return new HashMap<String, String>(optimalModel);
+	}
+
+	/**
+	 * Minimize the cost of every dimension in order.
+	 */
+	public void explore ()
+	{
+		int lowerBound[] = explParams.getLowerBounds ();
+		int query[] = explParams.getUpperBounds ();
+
+		explParams.pushSolverContext ();
+
+		boolean stop = false;
+		for (int dim=0;dim<dimensions && stop == false;dim++)
+		{
+			// The dimensions before this one are fixed at their optimum,
+			// the dimensions after this one are at their upper bound.
+			int low = lowerBound[dim];
+			int high = query[dim];
+			if (optimalCosts != null)
+			{
+				// The optimal model of the previous dimensions is a solution
+				// of the first query, so we search only for a better one.
+				high = optimalCosts[dim]-1;
+				query[dim] = low + ((high - low) / 2);
+			}
+			while (low <= high)
+			{
+				if ((totalExplTime/1000) > totalQueryTimeOutInSeconds)
+				{
+					stop = true;
+					break;
+				}
+
+				SatResult result = smtQuery (query);
+				if (result == SatResult.SAT)
+				{
+					optimalCosts = explParams.getCostsFromModel ();
+					optimalModel = IntModel.copyOf (explParams.getModelFromSolver ());
+					satPointsList.add (optimalCosts.clone ());
+
+					// Next solution must be strictly better than this model.
+					high = optimalCosts[dim]-1;
+					query[dim] = low + ((high - low) / 2);
+				}
+				else if (result == SatResult.UNSAT)
+				{
+					unsatPointsList.add (query.clone ());
+					low = query[dim]+1;
+					query[dim] = low + ((high - low) / 2);
+				}
+				else if ((result == SatResult.TIMEOUT) || (result == SatResult.UNKNOWN))
+				{
+					timedOutPointsList.add (query.clone ());
+					low = query[dim]+1;
+					query[dim] = low + ((high - low) / 2);
+					stop = stopOnTimeout;
+				}
+				else
+					throw new RuntimeException ("Uninterpreted Result : " + result.toString ());
+
+				explParams.popSolverContext (1);
+				explParams.pushSolverContext ();
+				System.out.println();
+
+				if (stop == true)
+					break;
+			}
+
+			// No solution in the bounds.
+			if (optimalCosts == null)
+				break;
+			query[dim] = optimalCosts[dim];
+		}
+
+		// Write the pareto points file
+		if (optimalCosts != null)
+		{
+			openFilesIfRequired ();
+			String pointString = "";
+			for (int i=0;i<dimensions;i++)
+				pointString = pointString.concat (explParams.getConstraintName (i) + " : " + optimalCosts[i] + " ");
+			outputToFile (paretoPointsfile, pointString + "\n");
+		}
+
+		logStatisticsSummary ();
+		System.out.println ("Finished Exploration in " + totalExplTime/1000 + " seconds");
+	}
+}
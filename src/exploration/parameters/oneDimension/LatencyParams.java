@@ -127,4 +127,13 @@ public class LatencyParams extends ExplorationParameters
 	{
 		satSolver.popContext (numContext);
 	}
+	
+	/* (non-Javadoc)
+	 * @see exploration.ExplorationParameters#interruptSolverQuery()
+	 */
+	@Override
+	public void interruptSolverQuery ()
+	{
+		satSolver.interruptQuery ();
+	}
 }
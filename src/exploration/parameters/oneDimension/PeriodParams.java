@@ -124,4 +124,13 @@ public class PeriodParams extends ExplorationParameters
 	{
 		satSolver.popContext (numContext);
 	}
+	
+	/* (non-Javadoc)
+	 * @see exploration.ExplorationParameters#interruptSolverQuery()
+	 */
+	@Override
+	public void interruptSolverQuery ()
+	{
+		satSolver.interruptQuery ();
+	}
 }
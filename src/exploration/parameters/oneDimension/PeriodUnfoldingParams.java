@@ -175,4 +175,13 @@ public class PeriodUnfoldingParams extends ExplorationParameters
 	{
 		// satSolver.popContext (numContext);
 	}
+	
+	/* (non-Javadoc)
+	 * @see exploration.ExplorationParameters#interruptSolverQuery()
+	 */
+	@Override
+	public void interruptSolverQuery ()
+	{
+		satSolver.interruptQuery ();
+	}
 }
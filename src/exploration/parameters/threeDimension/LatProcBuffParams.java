@@ -3,6 +3,7 @@ package exploration.parameters.threeDimension;
 import java.util.*;
 
 import exploration.ExplorationParameters;
+import exploration.interfaces.SolverFunctions;
 import exploration.interfaces.threeDim.LatProcBuffConstraints;
 
 import solver.Z3Solver.SatResult;
@@ -140,4 +141,22 @@ public class LatProcBuffParams extends ExplorationParameters
 	{
 		satSolver.popContext (numContext);
 	}
+	
+	/* (non-Javadoc)
+	 * @see exploration.ExplorationParameters#interruptSolverQuery()
+	 */
+	@Override
+	public void interruptSolverQuery ()
+	{
+		satSolver.interruptQuery ();
+	}
+	
+	/* (non-Javadoc)
+	 * @see exploration.ExplorationParameters#getSolver()
+	 */
+	@Override
+	protected SolverFunctions getSolver ()
+	{
+		return satSolver;
+	}
 }
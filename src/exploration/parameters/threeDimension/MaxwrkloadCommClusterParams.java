@@ -6,6 +6,7 @@ import solver.Z3Solver.SatResult;
 import spdfcore.*;
 import spdfcore.stanalys.Solutions;
 import exploration.ExplorationParameters;
+import exploration.interfaces.SolverFunctions;
 import exploration.interfaces.threeDim.MaxWrkLdCommCostClusterConstraints;
 import graphanalysis.CalculateBounds;
 
@@ -158,4 +159,22 @@ public class MaxwrkloadCommClusterParams extends ExplorationParameters
 	{
 		satSolver.popContext (numContext);
 	}
+	
+	/* (non-Javadoc)
+	 * @see exploration.ExplorationParameters#interruptSolverQuery()
+	 */
+	@Override
+	public void interruptSolverQuery ()
+	{
+		satSolver.interruptQuery ();
+	}
+	
+	/* (non-Javadoc)
+	 * @see exploration.ExplorationParameters#getSolver()
+	 */
+	@Override
+	protected SolverFunctions getSolver ()
+	{
+		return satSolver;
+	}
 }
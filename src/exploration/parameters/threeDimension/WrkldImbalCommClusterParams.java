@@ -2,6 +2,7 @@ package exploration.parameters.threeDimension;
 import java.util.Map;
 
 import exploration.ExplorationParameters;
+import exploration.interfaces.SolverFunctions;
 import exploration.interfaces.threeDim.WorkloadCommClusterConstraints;
 
 import solver.Z3Solver.SatResult;
@@ -152,4 +153,22 @@ public class WrkldImbalCommClusterParams extends ExplorationParameters
 	{
 		satSolver.popContext (numContext);
 	}
+	
+	/* (non-Javadoc)
+	 * @see exploration.ExplorationParameters#interruptSolverQuery()
+	 */
+	@Override
+	public void interruptSolverQuery ()
+	{
+		satSolver.interruptQuery ();
+	}
+	
+	/* (non-Javadoc)
+	 * @see exploration.ExplorationParameters#getSolver()
+	 */
+	@Override
+	protected SolverFunctions getSolver ()
+	{
+		return satSolver;
+	}
 }
@@ -2,6 +2,7 @@ package exploration.parameters.twoDimension;
 import java.util.*;
 
 import exploration.ExplorationParameters;
+import exploration.interfaces.SolverFunctions;
 import exploration.interfaces.twoDim.LatBuffConstraints;
 
 import solver.Z3Solver.SatResult;
@@ -138,4 +139,22 @@ public class LatBuffParams extends ExplorationParameters
 	{
 		satSolver.popContext (numContext);
 	}
+	
+	/* (non-Javadoc)
+	 * @see exploration.ExplorationParameters#interruptSolverQuery()
+	 */
+	@Override
+	public void interruptSolverQuery ()
+	{
+		satSolver.interruptQuery ();
+	}
+	
+	/* (non-Javadoc)
+	 * @see exploration.ExplorationParameters#getSolver()
+	 */
+	@Override
+	protected SolverFunctions getSolver ()
+	{
+		return satSolver;
+	}
 }
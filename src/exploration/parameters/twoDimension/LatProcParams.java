@@ -2,8 +2,11 @@ package exploration.parameters.twoDimension;
 import java.util.*;
 
 import exploration.ExplorationParameters;
+import exploration.interfaces.SolverFunctions;
 import exploration.interfaces.twoDim.LatProcConstraints;
 
+import solver.IntModel;
+import solver.SmtVariablePrefixes;
 import solver.Z3Solver.SatResult;
 import spdfcore.*;
 import spdfcore.stanalys.*;
@@ -63,6 +66,22 @@ public class LatProcParams extends ExplorationParameters
 		return result;
 	}
 
+	/* (non-Javadoc)
+	 * @see exploration.ExplorationParameters#getCostsFromSchedule(java.util.Map)
+	 */
+	@Override
+	public int[] getCostsFromSchedule (Map<String, String> schedule)
+	{
+		if (schedule.containsKey (SmtVariablePrefixes.latencyPrefix) == false 
+				|| schedule.containsKey (SmtVariablePrefixes.totalProcPrefix) == false)
+			return null;
+		
+		int [] result = new int[dimensions];
+		result[0] = IntModel.getInt (schedule, SmtVariablePrefixes.latencyPrefix);
+		result[1] = IntModel.getInt (schedule, SmtVariablePrefixes.totalProcPrefix);
+		return result;
+	}
+
 	/* (non-Javadoc)
 	 * @see exploration.ExplorationParameters#setConstraint(int, int)
 	 */
@@ -131,4 +150,22 @@ public class LatProcParams extends ExplorationParameters
 	{
 		satSolver.popContext (numContext);
 	}
+	
+	/* (non-Javadoc)
+	 * @see exploration.ExplorationParameters#interruptSolverQuery()
+	 */
+	@Override
+	public void interruptSolverQuery ()
+	{
+		satSolver.interruptQuery ();
+	}
+	
+	/* (non-Javadoc)
+	 * @see exploration.ExplorationParameters#getSolver()
+	 */
+	@Override
+	protected SolverFunctions getSolver ()
+	{
+		return satSolver;
+	}
 }
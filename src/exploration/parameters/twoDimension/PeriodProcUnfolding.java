@@ -3,6 +3,7 @@ import java.util.*;
 
 import exploration.ExplorationParameters;
 
+import solver.IntModel;
 import solver.Z3Solver.SatResult;
 import solver.sharedMemory.combinedSolver.pipelined.UnfoldingScheduling;
 import spdfcore.*;
@@ -90,8 +91,8 @@ public class PeriodProcUnfolding extends ExplorationParameters
 		int [] result = new int[dimensions];
 		Map<String, String> model = satSolver.getModel ();
 
-		result[0] = Integer.parseInt (model.get ("period"));
-		result[1] = Integer.parseInt (model.get ("totalProc"));
+		result[0] = IntModel.getInt (model, "period");
+		result[1] = IntModel.getInt (model, "totalProc");
 		
 		return result;
 	}
@@ -177,4 +178,13 @@ public class PeriodProcUnfolding extends ExplorationParameters
 	{
 		// satSolver.popContext (numContext);
 	}
+	
+	/* (non-Javadoc)
+	 * @see exploration.ExplorationParameters#interruptSolverQuery()
+	 */
+	@Override
+	public void interruptSolverQuery ()
+	{
+		satSolver.interruptQuery ();
+	}
 }
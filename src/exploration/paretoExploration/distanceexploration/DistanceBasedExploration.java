@@ -309,6 +309,15 @@ public class DistanceBasedExploration extends Explorer
 		if(kneeTreeRoot.checkGenerators() == false)
 			throw new RuntimeException("Check Generators failed.");
 		
+		// SAT points known before the exploration.
+		for (int i=0;i<seedCosts.size ();i++)
+		{
+			logSeedPoint (i);
+			Point scaledPt = scalePoints.scale(new Point(seedCosts.get (i)));
+			propSat(kneeTreeRoot, scaledPt);
+			addSatPointToList(scaledPt);
+		}
+		
 		while ((totalExplTime/1000) <= totalQueryTimeOutInSeconds)
 		{
 			Point[] minDistPoints = selectPoint (kneeTreeRoot);			
@@ -337,6 +346,7 @@ public class DistanceBasedExploration extends Explorer
 			}			
 		}
 		
+		logStatisticsSummary ();
 		System.out.println ("Finished Exploration in " + totalExplTime + " seconds");
 	}	
 }
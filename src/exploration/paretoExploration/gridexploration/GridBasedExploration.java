@@ -2,6 +2,9 @@ package exploration.paretoExploration.gridexploration;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
+
+import solver.IntModel;
 import solver.Z3Solver.SatResult;
 import exploration.*;
 
@@ -27,8 +30,16 @@ public class GridBasedExploration extends Explorer
 	 * List of all the SAT points explored. 
 	 */
 	private List<Point> satPointsList; 
-	// private List<Point> unsatPointsList;
-	// private List<Point> timedOutPointsList;
+	
+	/**
+	 * List of all the UNSAT points explored, enlarged with their unsat core.
+	 */
+	private List<Point> unsatPointsList;
+	
+	/**
+	 * List of all the points which timed out.
+	 */
+	private List<Point> timedOutPointsList;
 	
 	/**
 	 * List of Pareto Points from the exploration. 
@@ -64,6 +75,88 @@ public class GridBasedExploration extends Explorer
 	 * Upper bounds for the exploration. 
 	 */
 	private int upperBounds[];
+	
+	/**
+	 * Dispatch the queries of many grid lines at the same time to the solver pool.
+	 */
+	private boolean concurrentDispatch = false;
+	
+	/**
+	 * A line of the grid along the last dimension, on which a binary search is done.
+	 * The other dimensions are fixed to a grid point.
+	 * 
+	 * @author Pranav Tendulkar
+	 *
+	 */
+	private class GridLine
+	{
+		/**
+		 * Point with the fixed values of the other dimensions.
+		 */
+		private final Point point;
+		
+		/**
+		 * Lower grid point of the last dimension still to be explored.
+		 */
+		private int lowerPoint;
+		
+		/**
+		 * Upper grid point of the last dimension still to be explored.
+		 */
+		private int upperPoint;
+		
+		/**
+		 * Grid point of the last dimension which is being queried.
+		 */
+		private int currentPoint;
+		
+		/**
+		 * Query which is running for this line, null if none.
+		 */
+		private SolverPool.Query query = null;
+		
+		/**
+		 * Build a grid line.
+		 * 
+		 * @param point point with the fixed values of the other dimensions
+		 * @param numPoints number of grid points in the last dimension
+		 */
+		private GridLine (Point point, int numPoints)
+		{
+			this.point = new Point (point);
+			lowerPoint = 0;
+			upperPoint = numPoints-1;
+		}
+		
+		/**
+		 * Check if the binary search on this line is finished.
+		 * 
+		 * @return true if finished
+		 */
+		private boolean isFinished () { return lowerPoint > upperPoint; }
+		
+		/**
+		 * Set the query point to the middle of the remaining part of the line.
+		 */
+		private void moveToMiddle ()
+		{
+			currentPoint = (int) (lowerPoint + Math.floor(((double)(upperPoint - lowerPoint)/2)));
+			point.set(dimensions-1, pointToValue (dimensions-1, epsilon, currentPoint));
+		}
+		
+		/**
+		 * Update the search bounds with the result of the current point.
+		 * 
+		 * @param result result of the current point
+		 */
+		private void update (SatResult result)
+		{
+			if(result == SatResult.SAT)
+				upperPoint = currentPoint - 1;
+			else
+				lowerPoint = currentPoint + 1;
+		}
+	}
 
 	/**
 	 * Initialize the grid-based explorer.
@@ -82,8 +175,8 @@ public class GridBasedExploration extends Explorer
 			throw new RuntimeException ("At least 2 dimensions should be present.");
 		
 		satPointsList = new ArrayList<Point>();		
-		// unsatPointsList = new ArrayList<Point>();
-		// timedOutPointsList = new ArrayList<Point>();
+		unsatPointsList = new ArrayList<Point>();
+		timedOutPointsList = new ArrayList<Point>();
 		satPointsModelList = new ArrayList<Map<String, String>>();
 		
 		paretoPoints = new ArrayList<Point>();
@@ -93,6 +186,20 @@ public class GridBasedExploration extends Explorer
 		algoUnsatPointsList = new ArrayList<Point>();
 	}
 	
+	/**
+	 * Dispatch the queries of many grid lines at the same time to the solver pool.
+	 * A query is dispatched only if its point is incomparable to the points of all
+	 * the running queries, and a running query is interrupted as soon as its point
+	 * falls in the known area of a new result. The solver pool must be set in the 
+	 * exploration parameters.
+	 * 
+	 * @param concurrentDispatch true to dispatch concurrently, false for one query at a time
+	 */
+	public void setConcurrentDispatch (boolean concurrentDispatch)
+	{
+		this.concurrentDispatch = concurrentDispatch;
+	}
+	
 	/**
 	 * Add UNSAT point to the list. We remove the
 	 * dominated points so that we have size of the list
@@ -386,32 +493,368 @@ public class GridBasedExploration extends Explorer
 		// System.out.print(" Query Point : " + queryPoint);
 		
 		if (result == SatResult.SAT)
+			mergeQueryResult (queryPoint, result, explParams.getCostsFromModel(), explParams.getModelFromSolver (), null);
+		else if (result == SatResult.UNSAT)
+			mergeQueryResult (queryPoint, result, null, null, explParams.getUnsatCoreDimensions ());
+		else
+			mergeQueryResult (queryPoint, result, null, null, null);
+		
+		explParams.popSolverContext (1);
+		explParams.pushSolverContext ();
+		System.out.println(" Total Time : " + totalExplTime/1000 + " seconds");
+		
+		return result;
+	}
+	
+	/**
+	 * Enlarge an UNSAT point with its unsat core. The query remains UNSAT without
+	 * the constraints of the dimensions which are not in the core, so the point can be
+	 * moved to the upper bound of those dimensions. Its backward cone then covers
+	 * the whole slab of the design space below the dimensions in the core.
+	 * 
+	 * @param queryPoint point which was UNSAT
+	 * @param unsatCore dimensions in the unsat core, null if not known
+	 * @return UNSAT point to be added to the list
+	 */
+	private Point projectUnsatPoint (Point queryPoint, boolean unsatCore[])
+	{
+		Point result = new Point (queryPoint);
+		if (unsatCore != null)
 		{
-			Point queryModel = new Point(explParams.getCostsFromModel());
+			for (int i=0;i<dimensions;i++)
+				if (unsatCore[i] == false && result.get (i) < upperBounds[i])
+					result.set (i, upperBounds[i]);
+		}
+		return result;
+	}
+	
+	/**
+	 * Add the result of a query to the lists of SAT and UNSAT points.
+	 * 
+	 * @param queryPoint point which was queried
+	 * @param result result of the query
+	 * @param costs costs from the model of a SAT result
+	 * @param model model of a SAT result
+	 * @param unsatCore dimensions in the unsat core of an UNSAT result, null if not known
+	 */
+	private void mergeQueryResult (Point queryPoint, SatResult result, int costs[], Map<String, String> model, boolean unsatCore[])
+	{
+		if (result == SatResult.SAT)
+		{
+			Point queryModel = new Point(costs);
 			satPointsList.add (queryModel);
-			
-			Map<String, String> model = explParams.getModelFromSolver ();
-			satPointsModelList.add (model);
+			satPointsModelList.add (IntModel.copyOf (model));
 			
 			// System.out.print(" Model unscaled" + queryModel +" scaled : " + scaledModel);
 			addSatToList (queryModel);					
 		}
 		else if (result == SatResult.UNSAT)
 		{
-			// unsatPointsList.add (new Point(queryPoint));
-			addUnsatToList (new Point(queryPoint));
+			Point unsatPoint = projectUnsatPoint (queryPoint, unsatCore);
+			unsatPointsList.add (unsatPoint);
+			addUnsatToList (unsatPoint);
 		}
 		else if ((result == SatResult.TIMEOUT) || (result == SatResult.UNKNOWN))
 		{
-			// timedOutPointsList.add (new Point(queryPoint));
+			timedOutPointsList.add (new Point(queryPoint));
 			addUnsatToList (new Point(queryPoint));
 		}
+	}
+	
+	/**
+	 * Search the last dimension with the solver pool. Instead of the middle point
+	 * we query as many points as there are workers, equally spaced between the lower 
+	 * and upper point. The search continues between the highest UNSAT point below
+	 * the lowest SAT point and the lowest SAT point.
+	 * 
+	 * @param dimension last dimension
+	 * @param lowerPoint lower grid point to be explored
+	 * @param upperPoint upper grid point to be explored
+	 * @param queryPoint current Point which is being queried
+	 * @return true if global timeout, false otherwise
+	 */
+	private boolean parallelSearch (int dimension, int lowerPoint, int upperPoint, Point queryPoint)
+	{
+		int numWorkers = explParams.getSolverPool ().getNumWorkers ();
 		
-		explParams.popSolverContext (1);
-		explParams.pushSolverContext ();
-		System.out.println(" Total Time : " + totalExplTime/1000 + " seconds");
+		while (lowerPoint <= upperPoint)
+		{
+			int numQueries = Math.min (numWorkers, upperPoint - lowerPoint + 1);
+			int gridPoints[] = new int[numQueries];
+			SatResult results[] = new SatResult[numQueries];
+			List<Future<SolverPool.QueryResult>> queries = new ArrayList<Future<SolverPool.QueryResult>>(numQueries);
+			Point points[] = new Point[numQueries];
+			
+			long startTime = System.nanoTime ();
+			for (int i=0;i<numQueries;i++)
+			{
+				gridPoints[i] = lowerPoint + (int) Math.floor ((double) (i+1) * (upperPoint - lowerPoint + 1) / (numQueries + 1));
+				queryPoint.set(dimension, pointToValue (dimension, epsilon, gridPoints[i]));
+				points[i] = new Point (queryPoint);
+				
+				results[i] = checkIfSatOrUnsat (points[i]);
+				if (results[i] == SatResult.UNKNOWN)
+					queries.add (explParams.submitQuery (points[i].getIntegerCoordinates(), getQueryTimeOut (points[i].getIntegerCoordinates())));
+				else
+					queries.add (null);
+			}
+			
+			for (int i=0;i<numQueries;i++)
+			{
+				if (queries.get (i) == null)
+					continue;
+				
+				SolverPool.QueryResult query = SolverPool.getResult (queries.get (i));
+				printQueryPoint (query.getConstraints ());
+				logQueryResult (query);
+				mergeQueryResult (points[i], query.getResult (), query.getCosts (), query.getModel (), query.getUnsatCore ());
+				results[i] = query.getResult ();
+				System.out.println();
+			}
+			
+			// The queries run in parallel, so we count the elapsed time and not their sum.
+			totalExplTime += ((System.nanoTime () - startTime) / (double) 1000000);
+			System.out.println(" Total Time : " + totalExplTime/1000 + " seconds");
+			
+			int lowestSat = numQueries;
+			for (int i=0;i<numQueries;i++)
+				if (results[i] == SatResult.SAT)
+				{
+					lowestSat = i;
+					break;
+				}
+			
+			if (lowestSat < numQueries)
+				upperPoint = gridPoints[lowestSat] - 1;
+			if (lowestSat > 0)
+				lowerPoint = gridPoints[lowestSat - 1] + 1;
+			
+			// Return true if we finished the global time-budget
+			if ((((totalExplTime/1000) > getExplorationBudget ())) || (containsLowestPoint() == true))
+				return true;
+		}
 		
-		return result;
+		return false;
+	}
+	
+	/**
+	 * Level of a grid point at which it first appears, when the grid is made finer.
+	 * The end points are at level 0, the middle point at level 1 and so on.
+	 * 
+	 * @param gridPoint number of the grid point
+	 * @param numIntervals number of intervals in the grid
+	 * @return level of the grid point
+	 */
+	private static int gridLevel (int gridPoint, int numIntervals)
+	{
+		int level = Integer.numberOfTrailingZeros (numIntervals);
+		if (gridPoint == 0)
+			return 0;
+		return Math.max (0, level - Integer.numberOfTrailingZeros (gridPoint));
+	}
+	
+	/**
+	 * Build all the grid lines along the last dimension for the current epsilon.
+	 * The lines are ordered from coarse to fine grid points of the other dimensions,
+	 * so that the lines which prune most of the design space are explored first.
+	 * 
+	 * @return list of grid lines
+	 */
+	private List<GridLine> buildGridLines ()
+	{
+		final int numIntervals = (int) Math.round (1 / epsilon);
+		int numPoints = numIntervals + 1;
+		
+		List<GridLine> lines = new ArrayList<GridLine>();
+		final Map<GridLine, Integer> levels = new HashMap<GridLine, Integer>();
+		int gridPoint[] = new int[dimensions-1];
+		Point point = new Point(dimensions);
+		point.set(0.0);
+		
+		while (true)
+		{
+			int level = 0;
+			for (int i=0;i<dimensions-1;i++)
+			{
+				point.set(i, pointToValue (i, epsilon, gridPoint[i]));
+				level = Math.max (level, gridLevel (gridPoint[i], numIntervals));
+			}
+			
+			GridLine line = new GridLine (point, numPoints);
+			lines.add (line);
+			levels.put (line, level);
+			
+			// Next grid point of the other dimensions.
+			int dim = dimensions-2;
+			while (dim >= 0 && gridPoint[dim] == numPoints-1)
+				gridPoint[dim--] = 0;
+			if (dim < 0)
+				break;
+			gridPoint[dim]++;
+		}
+		
+		// Sort is stable, so the lines of the same level remain in order.
+		Collections.sort (lines, new Comparator<GridLine>()
+		{
+			@Override
+			public int compare (GridLine line1, GridLine line2)
+			{
+				return levels.get (line1).compareTo (levels.get (line2));
+			}
+		});
+		
+		return lines;
+	}
+	
+	/**
+	 * Check if a point is comparable with the point of any running query.
+	 * 
+	 * @param point point to be checked
+	 * @param running lines with a running query
+	 * @return true if comparable to any running query
+	 */
+	private boolean isComparableToRunning (Point point, Collection<GridLine> running)
+	{
+		for (GridLine line : running)
+			if (point.lessThanOrEquals (line.point) || point.greaterThanOrEquals (line.point))
+				return true;
+		return false;
+	}
+	
+	/**
+	 * Handle a query which is finished. The result is logged and merged
+	 * only if the query was not interrupted.
+	 * 
+	 * @param line line of the query
+	 * @param query query result
+	 */
+	private void finishQuery (GridLine line, SolverPool.QueryResult query)
+	{
+		line.query = null;
+		SatResult result = query.getResult ();
+		if (query.isInterrupted () == false)
+		{
+			printQueryPoint (query.getConstraints ());
+			logQueryResult (query);
+			mergeQueryResult (line.point, result, query.getCosts (), query.getModel (), query.getUnsatCore ());
+			System.out.println();
+		}
+		else
+			result = checkIfSatOrUnsat (line.point);
+		
+		if (result != SatResult.UNKNOWN)
+			line.update (result);
+	}
+	
+	/**
+	 * Explore all the grid lines of the current epsilon concurrently with the solver pool.
+	 * 
+	 * A batch of mutually incomparable points, at most one per grid line, is dispatched
+	 * to the solvers. Whenever a query finishes, the running queries whose points are
+	 * now dominated by the new SAT or UNSAT point are interrupted and new points are dispatched. 
+	 * 
+	 * @return true if global timeout, false otherwise
+	 */
+	private boolean concurrentSearch ()
+	{
+		int numWorkers = explParams.getSolverPool ().getNumWorkers ();
+		int maxActiveLines = 4 * numWorkers;
+		int lastDim = dimensions-1;
+		
+		LinkedList<GridLine> pendingLines = new LinkedList<GridLine>(buildGridLines ());
+		List<GridLine> activeLines = new ArrayList<GridLine>();
+		Map<SolverPool.Query, GridLine> running = new HashMap<SolverPool.Query, GridLine>();
+		BlockingQueue<SolverPool.Query> completedQueries = new LinkedBlockingQueue<SolverPool.Query>();
+		
+		double startExplTime = totalExplTime;
+		long startTime = System.nanoTime ();
+		boolean timeOut = false;
+		
+		while (true)
+		{
+			// Take new lines, skipping the ones which are already known.
+			while (activeLines.size () < maxActiveLines && pendingLines.isEmpty () == false)
+			{
+				GridLine line = pendingLines.removeFirst ();
+				
+				line.point.set(lastDim, lowerBounds[lastDim]);
+				if(checkIfSatOrUnsat (line.point) == SatResult.SAT)
+					continue;
+				
+				line.point.set(lastDim, upperBounds[lastDim]);
+				if(checkIfSatOrUnsat (line.point) == SatResult.UNSAT)
+					continue;
+				
+				activeLines.add (line);
+			}
+			
+			// Dispatch the next point of every line which is not running.
+			for (int i=0;i<activeLines.size () && running.size () < numWorkers && timeOut == false;i++)
+			{
+				GridLine line = activeLines.get (i);
+				if (line.query != null)
+					continue;
+				
+				SatResult result = SatResult.SAT;
+				while (line.isFinished () == false)
+				{
+					line.moveToMiddle ();
+					result = checkIfSatOrUnsat (line.point);
+					if (result == SatResult.UNKNOWN)
+						break;
+					line.update (result);
+				}
+				
+				if (line.isFinished () == true)
+				{
+					activeLines.remove (i--);
+					continue;
+				}
+				
+				if (isComparableToRunning (line.point, running.values ()) == true)
+					continue;
+				
+				line.query = explParams.submitQuery (line.point.getIntegerCoordinates(), getQueryTimeOut (line.point.getIntegerCoordinates()), completedQueries);
+				running.put (line.query, line);
+			}
+			
+			if (running.isEmpty () == true)
+			{
+				if (timeOut == true || (activeLines.isEmpty () && pendingLines.isEmpty ()))
+					break;
+				continue;
+			}
+			
+			// Wait for the first query to finish.
+			SolverPool.Query finished = null;
+			try { finished = completedQueries.take (); } 
+			catch (InterruptedException e) 
+			{ 
+				Thread.currentThread ().interrupt ();
+				throw new RuntimeException ("Interrupted while waiting for the solver.", e);
+			}
+			
+			GridLine line = running.remove (finished);
+			finishQuery (line, SolverPool.getResult (finished));
+			
+			// The queries run in parallel, so we count the elapsed time and not their sum.
+			totalExplTime = startExplTime + ((System.nanoTime () - startTime) / (double) 1000000);
+			
+			if (timeOut == false)
+			{
+				System.out.println(" Total Time : " + totalExplTime/1000 + " seconds");
+				
+				// Return true if we finished the global time-budget
+				timeOut = (((totalExplTime/1000) > getExplorationBudget ())) || (containsLowestPoint() == true);
+			}
+			
+			// Interrupt the queries which are not required anymore.
+			for (GridLine runningLine : running.values ())
+				if (timeOut == true || checkIfSatOrUnsat (runningLine.point) != SatResult.UNKNOWN)
+					runningLine.query.interrupt ();
+		}
+		
+		return timeOut;
 	}
 	
 	/**
@@ -515,6 +958,10 @@ public class GridBasedExploration extends Explorer
 				}
 			}			
 			
+			if (explParams.getSolverPool () != null && (explParams.getSolverPool ().getNumWorkers () > 1 
+					|| explParams.getSolverPool ().isPortfolio () == true))
+				return parallelSearch (dimension, lowerPoint, upperPoint, queryPoint);
+			
 			while (lowerPoint <= upperPoint)
 			{
 				int currentPoint = (int) (lowerPoint + Math.floor(((double)(upperPoint - lowerPoint)/2)));
@@ -533,7 +980,7 @@ public class GridBasedExploration extends Explorer
 					lowerPoint = currentPoint + 1;
 				
 				// Return true if we finished the global time-budget
-				if ((((totalExplTime/1000) > totalQueryTimeOutInSeconds)) || (containsLowestPoint() == true))
+				if ((((totalExplTime/1000) > getExplorationBudget ())) || (containsLowestPoint() == true))
 					return true;
 			}
 		}
@@ -616,6 +1063,77 @@ public class GridBasedExploration extends Explorer
 		System.out.println(")");
 	}
 
+	/**
+	 * Explore the grid from the coarse to the fine epsilon. The points which are
+	 * already known are not queried again.
+	 * 
+	 * @param queryPoint point to be used for the queries
+	 * @return true if global timeout, false otherwise
+	 */
+	private boolean gridSearch (Point queryPoint)
+	{
+		// Initialiaze the epsilon to 0.5
+		epsilon = 0.5;
+		
+		boolean timeout = false;
+		
+		while (timeout == false)
+		{
+			if (concurrentDispatch == true && explParams.getSolverPool () != null)
+				timeout = concurrentSearch ();
+			else
+				timeout = binarySearch (0, lowerBounds[0], upperBounds[0], queryPoint, epsilon);
+			if(checkIfExplorationGranularityReached() == true)
+				break;
+			epsilon /= 2;
+			
+		}
+		
+		return timeout;
+	}
+	
+	/**
+	 * Query the points which timed out again, with the escalated time out of the
+	 * adaptive time out policy. A timed out point is added as an UNSAT point, 
+	 * so we remove it from the UNSAT points before the query.
+	 * 
+	 * @return true if any timed out point was solved, false otherwise
+	 */
+	private boolean refineTimedOutPoints ()
+	{
+		boolean solved = false;
+		
+		for (int coordinates[] : timeoutPolicy.takeTimedOutPoints ())
+		{
+			if ((totalExplTime/1000) > getExplorationBudget () || containsLowestPoint() == true)
+				break;
+			
+			Point point = null;
+			for (int i=0;i<timedOutPointsList.size ();i++)
+				if (Arrays.equals (timedOutPointsList.get (i).getIntegerCoordinates (), coordinates))
+					point = timedOutPointsList.remove (i--);
+			if (point == null)
+				continue;
+			
+			// Build the UNSAT points again without this point.
+			algoUnsatPointsList.clear ();
+			for (Point unsatPoint : unsatPointsList)
+				addUnsatToList (unsatPoint);
+			for (Point timedOutPoint : timedOutPointsList)
+				addUnsatToList (timedOutPoint);
+			
+			if (checkIfSatOrUnsat (point) != SatResult.UNKNOWN)
+				continue;
+			
+			System.out.print ("Refine : ");
+			SatResult result = performQuery (point);
+			if (result == SatResult.SAT || result == SatResult.UNSAT)
+				solved = true;
+		}
+		
+		return solved;
+	}
+	
 	/**
 	 * Perform grid-based exploration
 	 */
@@ -633,23 +1151,35 @@ public class GridBasedExploration extends Explorer
 		
 		explParams.pushSolverContext ();
 		
-		// Initialiaze the epsilon to 0.5
-		epsilon = 0.5;
+		// SAT points known before the exploration.
+		for (int i=0;i<seedCosts.size ();i++)
+		{
+			logSeedPoint (i);
+			mergeQueryResult (new Point(seedCosts.get (i)), SatResult.SAT, seedCosts.get (i), seedModels.get (i), null);
+		}
 		
-		boolean timeout = false;
+		if (timeoutPolicy != null)
+			timeoutPolicy.setBounds (lowerBounds, upperBounds);
 		
-		while (timeout == false)
+		boolean timeout = gridSearch (queryPoint);
+		
+		// Query the timed out points again in the reserved budget.
+		if (timeoutPolicy != null && containsLowestPoint() == false)
 		{
-			timeout = binarySearch (0, lowerBounds[0], upperBounds[0], queryPoint, epsilon);
-			if(checkIfExplorationGranularityReached() == true)
-				break;
-			epsilon /= 2;
-			
+			timeoutPolicy.startRefinement ();
+			while (refineTimedOutPoints () == true)
+			{
+				// The area of the timed out points which are solved now is explored again.
+				timeout = gridSearch (queryPoint);
+				if (timeout == true && (totalExplTime/1000) > getExplorationBudget ())
+					break;
+			}
 		}
 		
 		// Calculate the pareto points
 		calcParetoPoints ();
 		
+		logStatisticsSummary ();
 		System.out.println ("Finished Exploration in " + (totalExplTime/1000) + " seconds");
 	}
 	
@@ -1,11 +1,8 @@
 package graphanalysis;
 
-import graphanalysis.properties.GraphAnalysisSdfAndHsdf;
-
 import java.util.*;
 
 import spdfcore.*;
-import spdfcore.Channel.Link;
 import spdfcore.stanalys.*;
 
 /**
@@ -49,6 +46,11 @@ public class CalculateBounds
 	 */
 	private int minLatency;
 	
+	/**
+	 * HSDF actors on the path which gives the minimum latency.
+	 */
+	private List<Actor> minLatencyPath = new ArrayList<Actor>();
+	
 	/**
 	 * Maximum Latency to be used for a design space exploration. 
 	 */
@@ -430,7 +432,20 @@ public class CalculateBounds
 	}	
 
 	/**
-	 * Finds minimum latency of the graph
+	 * Get the HSDF actors on the longest path which gives the minimum latency.
+	 * 
+	 * @return list of HSDF actors on the critical path
+	 */
+	public List<Actor> findGraphMinLatencyPath ()
+	{
+		findGraphMinLatency ();
+		return minLatencyPath;
+	}
+
+	/**
+	 * Finds minimum latency of the graph.
+	 * It is the longest path in the HSDF graph without the channels
+	 * which have initial tokens. The HSDF graph is not modified.
 	 * 
 	 * @return minimum latency of the graph for exploration 
 	 */
@@ -438,70 +453,16 @@ public class CalculateBounds
 	{
 		if (minLatency == 0)
 		{
-			GraphAnalysisSdfAndHsdf analysis = new GraphAnalysisSdfAndHsdf (graph, solutions, hsdf);
-			List<Actor> startActors = analysis.findHsdfStartActors ();
-			List<Actor> lastActors = analysis.findHsdfEndActors ();
-	
-			// Now let us remove the channels with initial Tokens.
-			List<Channel> chnnlList = new ArrayList<Channel>();
-			Iterator<Actor> actrList = hsdf.getActors ();
-			while (actrList.hasNext ())
-			{
-				Actor actr = actrList.next ();
-				for (Link lnk : actr.getLinks (Port.DIR.IN))
-				{				
-					if (lnk.getChannel ().getInitialTokens () >= Integer.parseInt (lnk.getPort ().getRate ()))
-					{
-						// We have to remove the channel.
-						chnnlList.add (lnk.getChannel ());					
-					}
-				}
-			}
-	
-			for (int i=0;i<chnnlList.size ();i++)
-				hsdf.remove (chnnlList.get (i));			
-	
-			if ((lastActors.size ()) != 0 && (startActors.size () != 0))
-			{
-				HashMap<Channel, String> edgQty = new HashMap<Channel, String>();
-				Iterator<Channel> chnnlIter = hsdf.getChannels ();
-	
-				while (chnnlIter.hasNext ())
-				{					
-					Channel chnnl = chnnlIter.next ();
-					edgQty.put (chnnl, Integer.toString (chnnl.getLink (Port.DIR.OUT).getActor ().getExecTime ()));
-				}
-	
-				BellmanFord bmFrd = new BellmanFord (hsdf, edgQty);
-	
-				for (int i=0;i<startActors.size ();i++)
-				{
-					for (int j=0;j<lastActors.size ();j++)
-					{
-						Actor srcActor = hsdf.getActor (startActors.get (i).getName ());
-						Actor dstActor = hsdf.getActor (lastActors.get (j).getName ());
-	
-						Stack<Actor> longestPath = bmFrd.searchPath (srcActor, dstActor, true);
-	
-						if (longestPath != null)
-						{					
-							int pathLatency = 0;
-	
-							for (int k=0;k<longestPath.size ();k++)
-								pathLatency += longestPath.get (k).getExecTime ();
-	
-							if (minLatency < pathLatency)
-								minLatency = pathLatency;
-						}
-					}
-				}
-			}
+			// Longest path over the channels without initial tokens.
+			LongestPathLatency longestPath = new LongestPathLatency (hsdf);
+			minLatency = longestPath.getLongestPathLength ();
+			minLatencyPath = longestPath.getCriticalPath ();
 	
 			// This is the old crude way. If the above method fails, then 
 			// we should use the old way to find the min. latency.
 			if (minLatency == 0)
 			{
-				actrList = graph.getActors ();
+				Iterator<Actor> actrList = graph.getActors ();
 				while (actrList.hasNext ())
 				{
 					Actor actr = actrList.next ();
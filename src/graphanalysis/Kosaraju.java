@@ -123,21 +123,18 @@ public class Kosaraju
             ++iteration;
         }
         
-        iteration--;
-        while ((iteration >= 0) && (result.isEmpty ()==false))
-        {
-        	List<Actor> actrList = new ArrayList<Actor>();
-        	for (Map.Entry<Actor, Integer> entry : result.entrySet ()) 
-        	{
-        		if (entry.getValue ().equals (iteration)) 
-        		{
-        			actrList.add (entry.getKey ());
-        			result.remove (entry);
-        		}
-        	}
-        	stronglyConnectedComponents.add (actrList);
-        	iteration--;
-        }
+        /* Group the nodes by their label in a single pass. The components
+         * are listed in the decreasing order of the labels.
+         */
+        List<List<Actor>> components = new ArrayList<List<Actor>>(iteration);
+        for (int i=0;i<iteration;i++)
+        	components.add (new ArrayList<Actor>());
+
+        for (Map.Entry<Actor, Integer> entry : result.entrySet ())
+        	components.get (entry.getValue ()).add (entry.getKey ());
+
+        for (int i=iteration-1;i>=0;i--)
+        	stronglyConnectedComponents.add (components.get (i));
 	}
 	
     /**
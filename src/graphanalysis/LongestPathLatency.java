@@ -0,0 +1,190 @@
+package graphanalysis;
+
+import java.util.*;
+
+import spdfcore.*;
+import spdfcore.Channel.Link;
+
+/**
+ * Calculate the longest path in an HSDF graph without the channels
+ * which carry initial tokens. The length of a path is the sum of execution
+ * times of all the actors on it. It is a lower bound on the latency
+ * of one iteration of the graph.
+ *
+ * The channels with enough initial tokens for the consumer are ignored, the
+ * rest of the graph must be acyclic. We compute a topological order once
+ * and find the longest path from all the start actors in a single pass.
+ * The input graph is not modified.
+ *
+ * @author Pranav Tendulkar
+ *
+ */
+public class LongestPathLatency
+{
+	/**
+	 * Actors of the graph, indexed.
+	 */
+	private Actor[] actors;
+
+	/**
+	 * Execution time of every actor.
+	 */
+	private int[] execTime;
+
+	/**
+	 * Successors of actor v are successor[successorStart[v]] ... successor[successorStart[v+1]-1].
+	 */
+	private int[] successorStart;
+
+	/**
+	 * Successors of all the actors over channels without enough initial tokens.
+	 */
+	private int[] successor;
+
+	/**
+	 * Length of the longest path ending at every actor.
+	 */
+	private int[] pathLength = null;
+
+	/**
+	 * Predecessor of every actor on its longest path, -1 for start of the path.
+	 */
+	private int[] pathPredecessor = null;
+
+	/**
+	 * Actor where the longest path ends.
+	 */
+	private int criticalEnd = -1;
+
+	/**
+	 * Initialize the longest path calculator.
+	 *
+	 * @param hsdf input HSDF graph
+	 */
+	public LongestPathLatency (Graph hsdf)
+	{
+		Map<Actor, Integer> actorIndex = new HashMap<Actor, Integer>();
+		actors = new Actor[hsdf.countActors ()];
+		execTime = new int[actors.length];
+
+		Iterator<Actor> actrIter = hsdf.getActors ();
+		while (actrIter.hasNext ())
+		{
+			Actor actr = actrIter.next ();
+			execTime[actorIndex.size ()] = actr.getExecTime ();
+			actors[actorIndex.size ()] = actr;
+			actorIndex.put (actr, actorIndex.size ());
+		}
+
+		// Form the adjacency of the channels which do not have initial tokens.
+		successorStart = new int[actors.length+1];
+		List<Integer> edgeSrc = new ArrayList<Integer>();
+		List<Integer> edgeDst = new ArrayList<Integer>();
+		for (int v=0;v<actors.length;v++)
+		{
+			for (Link lnk : actors[v].getLinks (Port.DIR.IN))
+			{
+				if (lnk.getChannel ().getInitialTokens () >= Integer.parseInt (lnk.getPort ().getRate ()))
+					continue;
+
+				int src = actorIndex.get (lnk.getOpposite ().getActor ());
+				edgeSrc.add (src);
+				edgeDst.add (v);
+				successorStart[src+1]++;
+			}
+		}
+
+		for (int v=0;v<actors.length;v++)
+			successorStart[v+1] += successorStart[v];
+
+		int fill[] = Arrays.copyOf (successorStart, actors.length);
+		successor = new int[edgeSrc.size ()];
+		for (int e=0;e<edgeSrc.size ();e++)
+			successor[fill[edgeSrc.get (e)]++] = edgeDst.get (e);
+	}
+
+	/**
+	 * Calculate the longest path over all the start and end actors.
+	 */
+	private void calculate ()
+	{
+		int n = actors.length;
+		int inDegree[] = new int[n];
+		for (int e=0;e<successor.length;e++)
+			inDegree[successor[e]]++;
+
+		int order[] = new int[n];
+		int head = 0, tail = 0;
+		for (int v=0;v<n;v++)
+			if (inDegree[v] == 0)
+				order[tail++] = v;
+
+		while (head < tail)
+		{
+			int v = order[head++];
+			for (int i=successorStart[v];i<successorStart[v+1];i++)
+				if (--inDegree[successor[i]] == 0)
+					order[tail++] = successor[i];
+		}
+
+		if (tail != n)
+			throw new RuntimeException ("The graph has a cycle without initial tokens. Cannot calculate the latency.");
+
+		// Every actor starts a path. An actor with predecessors will get a longer
+		// path from them, so this is same as starting from all the start actors.
+		pathLength = Arrays.copyOf (execTime, n);
+		pathPredecessor = new int[n];
+		Arrays.fill (pathPredecessor, -1);
+		criticalEnd = -1;
+
+		for (int i=0;i<n;i++)
+		{
+			int v = order[i];
+			for (int j=successorStart[v];j<successorStart[v+1];j++)
+			{
+				int w = successor[j];
+				if (pathLength[v] + execTime[w] > pathLength[w])
+				{
+					pathLength[w] = pathLength[v] + execTime[w];
+					pathPredecessor[w] = v;
+				}
+			}
+
+			if (criticalEnd == -1 || pathLength[v] > pathLength[criticalEnd])
+				criticalEnd = v;
+		}
+	}
+
+	/**
+	 * Get the length of the longest path in the graph.
+	 *
+	 * @return sum of execution times on the longest path, 0 if the graph is empty
+	 */
+	public int getLongestPathLength ()
+	{
+		if (pathLength == null)
+			calculate ();
+
+		if (criticalEnd == -1)
+			return 0;
+
+		return pathLength[criticalEnd];
+	}
+
+	/**
+	 * Get the actors on the longest path, from the start actor to the end actor.
+	 *
+	 * @return list of actors on the longest path
+	 */
+	public List<Actor> getCriticalPath ()
+	{
+		if (pathLength == null)
+			calculate ();
+
+		List<Actor> path = new ArrayList<Actor>();
+		for (int v=criticalEnd;v!=-1;v=pathPredecessor[v])
+			path.add (actors[v]);
+		Collections.reverse (path);
+		return path;
+	}
+}
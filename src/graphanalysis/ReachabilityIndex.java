@@ -0,0 +1,483 @@
+package graphanalysis;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import spdfcore.*;
+import spdfcore.Channel.Link;
+
+/**
+ * Transitive closure of a graph stored as bitsets.
+ *
+ * For every actor we store the set of actors reachable from it and the set
+ * of actors from which it is reachable, each as a long[] bitset. The strongly
+ * connected components are collapsed first, and the sets are built in
+ * topological order of the components. Components at the same depth do not
+ * depend on each other, so on large graphs they are processed in parallel.
+ *
+ * Once built, reachability and overlap queries take constant time.
+ *
+ * @author Pranav Tendulkar
+ *
+ */
+public class ReachabilityIndex
+{
+	/**
+	 * Minimum number of components at one depth to process them in parallel.
+	 */
+	private static final int parallelThreshold = 256;
+
+	/**
+	 * Index built for each graph, for all channels [0] and for channels
+	 * without initial tokens [1].
+	 */
+	private static final Map<Graph, ReachabilityIndex[]> cache = new WeakHashMap<Graph, ReachabilityIndex[]>();
+
+	/**
+	 * Actors of the graph, indexed.
+	 */
+	private Actor[] actors;
+
+	/**
+	 * Index of every actor.
+	 */
+	private Map<Actor, Integer> actorIndex;
+
+	/**
+	 * Source and destination actor of every edge used to build the index,
+	 * to check that the graph was not modified since.
+	 */
+	private int[] edgeList;
+
+	/**
+	 * Actors reachable from every actor with a non-empty path.
+	 */
+	private long[][] descendants;
+
+	/**
+	 * Actors which can reach every actor with a non-empty path.
+	 */
+	private long[][] ancestors;
+
+	/**
+	 * Get the reachability index of a graph. The index is built only once per
+	 * graph instance and reused by all the callers, as long as the graph has the
+	 * same actors and edges. The edges without initial tokens can change without
+	 * changing the number of channels, so the edges are compared every time.
+	 * This is linear in the size of the graph, the index is not.
+	 *
+	 * @param graph input graph
+	 * @param tokenFreeChannelsOnly true to ignore the channels which have initial tokens
+	 * @return reachability index of the graph
+	 */
+	public static ReachabilityIndex getIndex (Graph graph, boolean tokenFreeChannelsOnly)
+	{
+		int slot = (tokenFreeChannelsOnly == true) ? 1 : 0;
+		synchronized (cache)
+		{
+			ReachabilityIndex[] indices = cache.get (graph);
+			if (indices == null)
+			{
+				indices = new ReachabilityIndex[2];
+				cache.put (graph, indices);
+			}
+
+			ReachabilityIndex index = indices[slot];
+			if (index == null || index.matches (graph, tokenFreeChannelsOnly) == false)
+			{
+				index = new ReachabilityIndex (graph, tokenFreeChannelsOnly);
+				indices[slot] = index;
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Build the reachability index of a graph.
+	 *
+	 * @param graph input graph
+	 * @param tokenFreeChannelsOnly true to ignore the channels which have initial tokens
+	 */
+	public ReachabilityIndex (Graph graph, boolean tokenFreeChannelsOnly)
+	{
+		int n = graph.countActors ();
+		actors = new Actor[n];
+		actorIndex = new HashMap<Actor, Integer>();
+
+		Iterator<Actor> actrIter = graph.getActors ();
+		while (actrIter.hasNext ())
+		{
+			Actor actr = actrIter.next ();
+			actors[actorIndex.size ()] = actr;
+			actorIndex.put (actr, actorIndex.size ());
+		}
+
+		// Successors and predecessors in compressed row format.
+		int succStart[] = new int[n+1];
+		int predStart[] = new int[n+1];
+		List<int[]> edges = new ArrayList<int[]>();
+		for (int v=0;v<n;v++)
+		{
+			for (Link lnk : actors[v].getLinks (Port.DIR.OUT))
+			{
+				if (tokenFreeChannelsOnly == true && lnk.getChannel ().getInitialTokens () != 0)
+					continue;
+				int w = actorIndex.get (lnk.getOpposite ().getActor ());
+				edges.add (new int[] { v, w });
+				succStart[v+1]++;
+				predStart[w+1]++;
+			}
+		}
+
+		for (int v=0;v<n;v++)
+		{
+			succStart[v+1] += succStart[v];
+			predStart[v+1] += predStart[v];
+		}
+
+		edgeList = new int[2 * edges.size ()];
+		for (int e=0;e<edges.size ();e++)
+		{
+			edgeList[2*e] = edges.get (e)[0];
+			edgeList[2*e+1] = edges.get (e)[1];
+		}
+
+		int succ[] = new int[edges.size ()];
+		int pred[] = new int[edges.size ()];
+		int succFill[] = Arrays.copyOf (succStart, n);
+		int predFill[] = Arrays.copyOf (predStart, n);
+		for (int[] edge : edges)
+		{
+			succ[succFill[edge[0]]++] = edge[1];
+			pred[predFill[edge[1]]++] = edge[0];
+		}
+
+		// Components are numbered in reverse topological order.
+		int component[] = new int[n];
+		int numComponents = stronglyConnectedComponents (succStart, succ, component);
+
+		descendants = new long[n][];
+		ancestors = new long[n][];
+		buildClosure (numComponents, component, succStart, succ, descendants, true);
+		buildClosure (numComponents, component, predStart, pred, ancestors, false);
+	}
+
+	/**
+	 * Check if the index was built from the same actors and edges as the graph has now.
+	 *
+	 * @param graph input graph
+	 * @param tokenFreeChannelsOnly true to ignore the channels which have initial tokens
+	 * @return true if the index is valid for the graph
+	 */
+	private boolean matches (Graph graph, boolean tokenFreeChannelsOnly)
+	{
+		if (actors.length != graph.countActors ())
+			return false;
+
+		int v = 0;
+		Iterator<Actor> actrIter = graph.getActors ();
+		while (actrIter.hasNext ())
+			if (actrIter.next () != actors[v++])
+				return false;
+
+		int pos = 0;
+		for (v=0;v<actors.length;v++)
+		{
+			for (Link lnk : actors[v].getLinks (Port.DIR.OUT))
+			{
+				if (tokenFreeChannelsOnly == true && lnk.getChannel ().getInitialTokens () != 0)
+					continue;
+				Integer w = actorIndex.get (lnk.getOpposite ().getActor ());
+				if (w == null || pos == edgeList.length || edgeList[pos] != v || edgeList[pos+1] != w)
+					return false;
+				pos += 2;
+			}
+		}
+		return (pos == edgeList.length);
+	}
+
+	/**
+	 * Find strongly connected components with an iterative version of Tarjan's algorithm.
+	 *
+	 * @param succStart start of the successors of every actor
+	 * @param succ successors of all the actors
+	 * @param component array to hold the component of every actor
+	 * @return number of components, which are numbered in reverse topological order
+	 */
+	private int stronglyConnectedComponents (int[] succStart, int[] succ, int[] component)
+	{
+		int n = component.length;
+		int index[] = new int[n];
+		int lowLink[] = new int[n];
+		int nextEdge[] = new int[n];
+		int callStack[] = new int[n];
+		int sccStack[] = new int[n];
+		boolean onStack[] = new boolean[n];
+		Arrays.fill (index, -1);
+
+		int counter = 0, numComponents = 0, sccTop = 0;
+		for (int root=0;root<n;root++)
+		{
+			if (index[root] != -1)
+				continue;
+
+			int callTop = 0;
+			callStack[callTop++] = root;
+			index[root] = lowLink[root] = counter++;
+			nextEdge[root] = succStart[root];
+			sccStack[sccTop++] = root;
+			onStack[root] = true;
+
+			while (callTop > 0)
+			{
+				int v = callStack[callTop-1];
+				if (nextEdge[v] < succStart[v+1])
+				{
+					int w = succ[nextEdge[v]++];
+					if (index[w] == -1)
+					{
+						index[w] = lowLink[w] = counter++;
+						nextEdge[w] = succStart[w];
+						sccStack[sccTop++] = w;
+						onStack[w] = true;
+						callStack[callTop++] = w;
+					}
+					else if (onStack[w] == true && index[w] < lowLink[v])
+						lowLink[v] = index[w];
+				}
+				else
+				{
+					callTop--;
+					if (callTop > 0)
+					{
+						int parent = callStack[callTop-1];
+						if (lowLink[v] < lowLink[parent])
+							lowLink[parent] = lowLink[v];
+					}
+
+					if (lowLink[v] == index[v])
+					{
+						int w;
+						do
+						{
+							w = sccStack[--sccTop];
+							onStack[w] = false;
+							component[w] = numComponents;
+						} while (w != v);
+						numComponents++;
+					}
+				}
+			}
+		}
+		return numComponents;
+	}
+
+	/**
+	 * Build the closure in one direction over the condensed graph.
+	 *
+	 * @param numComponents number of strongly connected components
+	 * @param component component of every actor
+	 * @param adjStart start of the adjacent actors of every actor
+	 * @param adj adjacent actors in the direction of the closure
+	 * @param closure array to hold the bitset of every actor
+	 * @param forward true if adjacency is the successors, false for predecessors
+	 */
+	private void buildClosure (int numComponents, int[] component, int[] adjStart, int[] adj, long[][] closure, boolean forward)
+	{
+		int n = component.length;
+		int words = (n + 63) >>> 6;
+
+		// Members of every component.
+		int memberStart[] = new int[numComponents+1];
+		for (int v=0;v<n;v++)
+			memberStart[component[v]+1]++;
+		for (int c=0;c<numComponents;c++)
+			memberStart[c+1] += memberStart[c];
+		int members[] = new int[n];
+		int fill[] = Arrays.copyOf (memberStart, numComponents);
+		for (int v=0;v<n;v++)
+			members[fill[component[v]]++] = v;
+
+		// Successors are in components with lower number, predecessors in higher number.
+		// Depth of a component is the longest chain of components it depends on.
+		int depth[] = new int[numComponents];
+		int maxDepth = 0;
+		for (int i=0;i<numComponents;i++)
+		{
+			int c = (forward == true) ? i : numComponents - 1 - i;
+			for (int j=memberStart[c];j<memberStart[c+1];j++)
+			{
+				int v = members[j];
+				for (int k=adjStart[v];k<adjStart[v+1];k++)
+				{
+					int d = component[adj[k]];
+					if (d != c && depth[d] + 1 > depth[c])
+						depth[c] = depth[d] + 1;
+				}
+			}
+			if (depth[c] > maxDepth)
+				maxDepth = depth[c];
+		}
+
+		int levelStart[] = new int[maxDepth+2];
+		for (int c=0;c<numComponents;c++)
+			levelStart[depth[c]+1]++;
+		for (int l=0;l<=maxDepth;l++)
+			levelStart[l+1] += levelStart[l];
+		int levels[] = new int[numComponents];
+		int levelFill[] = Arrays.copyOf (levelStart, maxDepth+1);
+		for (int c=0;c<numComponents;c++)
+			levels[levelFill[depth[c]]++] = c;
+
+		for (int l=0;l<=maxDepth;l++)
+		{
+			final int start = levelStart[l];
+			IntStream range = IntStream.range (start, levelStart[l+1]);
+			if (levelStart[l+1] - start >= parallelThreshold)
+				range = range.parallel ();
+
+			range.forEach (i ->
+			{
+				int c = levels[i];
+				long set[] = new long[words];
+				boolean cyclic = (memberStart[c+1] - memberStart[c] > 1);
+				for (int j=memberStart[c];j<memberStart[c+1];j++)
+				{
+					int v = members[j];
+					for (int k=adjStart[v];k<adjStart[v+1];k++)
+					{
+						int w = adj[k];
+						if (component[w] == c)
+						{
+							// self-loop
+							cyclic = true;
+							continue;
+						}
+
+						set[w >>> 6] |= (1L << w);
+						long other[] = closure[w];
+						for (int b=0;b<words;b++)
+							set[b] |= other[b];
+					}
+				}
+
+				if (cyclic == true)
+					for (int j=memberStart[c];j<memberStart[c+1];j++)
+						set[members[j] >>> 6] |= (1L << members[j]);
+
+				// All the members of a component share the same set.
+				for (int j=memberStart[c];j<memberStart[c+1];j++)
+					closure[members[j]] = set;
+			});
+		}
+	}
+
+	/**
+	 * Get the index of an actor in the bitsets.
+	 *
+	 * @param actr actor
+	 * @return index of the actor
+	 */
+	public int getIndex (Actor actr)
+	{
+		Integer index = actorIndex.get (actr);
+		if (index == null)
+			throw new RuntimeException ("Actor " + actr.getName () + " is not present in the reachability index");
+		return index;
+	}
+
+	/**
+	 * Get the actor at an index of the bitsets.
+	 *
+	 * @param index index of the actor
+	 * @return actor at the index
+	 */
+	public Actor getActor (int index)
+	{
+		return actors[index];
+	}
+
+	/**
+	 * Get number of actors in the index.
+	 *
+	 * @return number of actors
+	 */
+	public int size ()
+	{
+		return actors.length;
+	}
+
+	/**
+	 * Check if there is a non-empty path from one actor to another.
+	 *
+	 * @param src start actor
+	 * @param dst end actor
+	 * @return true if dst is reachable from src, false otherwise
+	 */
+	public boolean canReach (Actor src, Actor dst)
+	{
+		return canReach (getIndex (src), getIndex (dst));
+	}
+
+	/**
+	 * Check if there is a non-empty path from one actor to another.
+	 *
+	 * @param src index of start actor
+	 * @param dst index of end actor
+	 * @return true if dst is reachable from src, false otherwise
+	 */
+	public boolean canReach (int src, int dst)
+	{
+		return ((descendants[src][dst >>> 6] & (1L << dst)) != 0);
+	}
+
+	/**
+	 * Check if two different actors are not ordered by any path,
+	 * and thus may execute in parallel.
+	 *
+	 * @param a first actor
+	 * @param b second actor
+	 * @return true if the actors may overlap, false otherwise
+	 */
+	public boolean mayOverlap (Actor a, Actor b)
+	{
+		return mayOverlap (getIndex (a), getIndex (b));
+	}
+
+	/**
+	 * Check if two different actors are not ordered by any path,
+	 * and thus may execute in parallel.
+	 *
+	 * @param a index of first actor
+	 * @param b index of second actor
+	 * @return true if the actors may overlap, false otherwise
+	 */
+	public boolean mayOverlap (int a, int b)
+	{
+		return (a != b && canReach (a, b) == false && canReach (b, a) == false);
+	}
+
+	/**
+	 * Get the bitset of actors reachable from an actor.
+	 * The returned array is shared and must not be modified.
+	 *
+	 * @param actr actor
+	 * @return bitset of reachable actors
+	 */
+	public long[] getDescendants (Actor actr)
+	{
+		return descendants[getIndex (actr)];
+	}
+
+	/**
+	 * Get the bitset of actors from which an actor is reachable.
+	 * The returned array is shared and must not be modified.
+	 *
+	 * @param actr actor
+	 * @return bitset of actors reaching this actor
+	 */
+	public long[] getAncestors (Actor actr)
+	{
+		return ancestors[getIndex (actr)];
+	}
+}
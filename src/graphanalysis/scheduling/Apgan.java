@@ -3,6 +3,7 @@ package graphanalysis.scheduling;
 
 import java.util.*;
 
+import graphanalysis.ReachabilityIndex;
 import output.DotGraph;
 
 import spdfcore.*;
@@ -39,7 +40,7 @@ public class Apgan
 	/**
 	 * Reachability matrix
 	 */
-	HashMap<Actor, List<Actor>> reachability = new HashMap<Actor, List<Actor>>();
+	ReachabilityIndex reachability = null;
 	
 	/**
 	 * Repetition count with respect to channels
@@ -66,104 +67,12 @@ public class Apgan
 	/**
 	 * Construct Reachability matrix of the input graph
 	 * 
-	 * This algorithm comes from the book - 
-	 * Essential Java for Scientists and Engineers 
-	 * page no. 247
-	 * search in books.google.com as "Reachability Matrix Java"
-	 * 
 	 * @param graph input graph
 	 */
 	private void constructReachability (Graph graph) 
 	{
-		int actorCount = graph.countActors ();
-		int count=0;
-		int[][] adjacencyMatrix = new int [actorCount][actorCount];
-		int[][] R = new int [actorCount][actorCount];
-		int[][] B = new int [actorCount][actorCount];
-		HashMap<Actor, Integer> actorIndex = new HashMap<Actor, Integer>();
-		HashMap<Integer, Actor> actorReverseIndex = new HashMap<Integer, Actor>();
-		
-		
-		// Initialize the matrix to zero.
-		for (int i=0;i<actorCount;i++)
-			for (int j=0;j<actorCount;j++)
-			{
-				adjacencyMatrix[i][j] = 0;
-				R[i][j] = 0;
-				B[i][j] = 0;
-			}
-		
-		// First we have to know which actor will be stored where in the matrix.
-		Iterator<Actor> actorIter = graph.getActors ();		
-		while (actorIter.hasNext ())
-		{
-			Actor actr = actorIter.next ();
-			actorIndex.put (actr, count);
-			actorReverseIndex.put (count++, actr);
-			//System.out.println ("Actor:"+actr.getName ()+" Index:"+(count-1));
-		}
-		
-		// Calculate Adjacency Matrix
-		actorIter = graph.getActors ();		
-		while (actorIter.hasNext ())
-		{
-			Actor actr = actorIter.next ();
-			for(Link lnk : actr.getLinks (Port.DIR.OUT))  // get All Outgoing Links			
-				adjacencyMatrix[actorIndex.get (actr)][actorIndex.get (lnk.getOpposite ().getActor ())] = 1;
-		}
-		
-		// Copy adjacency to R and B.
-		for (int i=0;i<actorCount;i++)
-			for (int j=0;j<actorCount;j++)
-			{				
-				R[i][j] = adjacencyMatrix[i][j];
-				B[i][j] = adjacencyMatrix[i][j];
-			}
-
-		// Calculate Reachability Matrix
-		for (int i=1;i<=(actorCount-2);i++)
-		{
-			// B = B * Adjacency
-			for (int j=0;j<actorCount;j++)
-				for (int k=0;k<actorCount;k++)
-					for (int l=0;l<actorCount;l++)
-						B[j][k] += B[j][l] * adjacencyMatrix[l][k];
-			
-			// R = R + B
-			for (int j=0;j<actorCount;j++)
-				for (int k=0;k<actorCount;k++)
-					R[j][k] += B[j][k]; 
-		}
-		
-		// Now we populate in our format.
-
-		// Calculate the reachability matrix		
-		actorIter = graph.getActors ();
-		reachability.clear ();
-		
-		// First I want to create all the lists for each actor so as not to have null reference later on.
-		while (actorIter.hasNext ())
-		{
-			Actor actr = actorIter.next ();
-			List<Actor> tempActList = new ArrayList<Actor>();
-			reachability.put (actr, tempActList);
-		}
-		
-		actorIter = graph.getActors ();
-		while (actorIter.hasNext ())
-		{
-			Actor actr = actorIter.next ();
-			int indx = actorIndex.get (actr);
-			for (int i=0;i<actorCount;i++)
-			{
-				// Insert in reachability matrix only if not equal to zero.
-				if (R[indx][i] != 0)
-				{
-					reachability.get (actr).add (actorReverseIndex.get (i));
-				}
-			}						
-		}
-		// Finished constructing Reachability Matrix.
+		// The graph is modified in every step, so we do not use the cached index.
+		reachability = new ReachabilityIndex (graph, false);
 	}
 	
 	/**
@@ -284,19 +193,14 @@ public class Apgan
 		// And this actor has a reachable inActor.
 		// If yes, it introduces a cycle.
 		
-		Iterator<Actor> outGoingActorIter = reachability.get (outActor).iterator ();
-		while (outGoingActorIter.hasNext ())
+		long outGoingActors[] = reachability.getDescendants (outActor);
+		for (int i=0;i<reachability.size ();i++)
 		{
-			Actor out = outGoingActorIter.next ();
-			Iterator<Actor> outIter = reachability.get (out).iterator ();
-			while (outIter.hasNext ())
+			if ((outGoingActors[i >>> 6] & (1L << i)) != 0 && reachability.canReach (reachability.getActor (i), inActor))
 			{
-				if (outIter.next () == inActor)
-				{
-					//System.out.println ("Found a Cycle in the Graph");
-					return true;
-				}
-			}			
+				//System.out.println ("Found a Cycle in the Graph");
+				return true;
+			}
 		}		
 		return false;
 	}
@@ -149,6 +149,7 @@ public class ListScheduling
 	public Map<String, String> generateSchedule (int numProcessors)
 	{	
 		// Clear all the lists.
+		schedule.clear ();
 		predecessors.clear ();
 		readyList.clear ();
 		allocatedActorList.clear ();
@@ -194,7 +195,12 @@ public class ListScheduling
 				nonAllocatedActorList.remove (readyActor);				
 			}
 			else
+			{
 				processorTime[procWithMinTime] = getTimeIncrement (numProcessors, procWithMinTime);
+				// No actor will finish later to make another actor ready.
+				if (processorTime[procWithMinTime] == Integer.MAX_VALUE)
+					throw new RuntimeException ("List scheduling is blocked, no actor can be made ready.");
+			}
 		}		
 		return generateModel ();
 	}
@@ -338,7 +344,8 @@ public class ListScheduling
 				maxExecutionTime = schedParams[1] + actr.getExecTime ();			
 		}
 		result.put ("latency", Integer.toString (maxExecutionTime));
-		result.put ("totalProc", Integer.toString (maxProc));
+		// Processors are numbered from 0, total is the number of processors used.
+		result.put ("totalProc", Integer.toString (maxProc+1));
 		result.put ("totalBuffer", Integer.toString (calculateBuffer (result)));
 		return result;
 	}
@@ -375,6 +382,17 @@ public class ListScheduling
 		return readyList.get (0);
 	}
 
+	/**
+	 * Compute a new random order of the actors, used by the RANDOM strategy
+	 * and to break the ties of the other strategies. 
+	 * 
+	 * @param seed seed for the random number generator, to repeat the same order
+	 */
+	public void randomize (long seed)
+	{
+		computeRandomStrategy (new Random (seed));
+	}
+
 	//=========================================
 	//  Compute random strategy order
 	//=======================================
@@ -383,7 +401,16 @@ public class ListScheduling
 	 */
 	private void computeRandomStrategy () 
 	{
-		Random rand = new Random ();
+		computeRandomStrategy (new Random ());
+	}
+
+	/**
+	 * Compute random strategy order
+	 * 
+	 * @param rand random number generator
+	 */
+	private void computeRandomStrategy (Random rand) 
+	{
 		int range = hsdf.countActors ();
 		int maxRange = range;
 		int i;
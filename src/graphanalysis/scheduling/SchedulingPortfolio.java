@@ -0,0 +1,582 @@
+package graphanalysis.scheduling;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import graphanalysis.TransformSDFtoHSDF;
+import spdfcore.*;
+import spdfcore.Channel.Link;
+
+/**
+ * Portfolio of fast list scheduling heuristics for non-pipelined scheduling
+ * on identical processors.
+ *
+ * Every heuristic is run for every number of processors, in parallel on a
+ * fork-join pool, and the schedule with the least latency is kept for every
+ * number of processors. The latency of these schedules is an upper bound
+ * for the exploration, which is otherwise found from the sum of all the
+ * execution times.
+ *
+ * HEFT : actors in the order of upward rank, placed in the earliest idle slot of any processor.
+ * CPOP : actors in the order of upward plus downward rank, actors on the critical
+ *        path are placed on one processor, the rest as in HEFT.
+ * CRITICAL_PATH : actors in the order of upward rank, started when a processor is free.
+ * RANDOM_LIST : actors in a random order, started when a processor is free.
+ *
+ * As in the latency calculation, the channels with enough initial tokens for the
+ * consumer do not order the actors in one iteration.
+ *
+ * @author Pranav Tendulkar
+ *
+ */
+public class SchedulingPortfolio
+{
+	/**
+	 * Heuristics in the portfolio.
+	 */
+	public enum Heuristic {HEFT, CPOP, CRITICAL_PATH, RANDOM_LIST};
+
+	/**
+	 * Number of random orders for the RANDOM_LIST heuristic.
+	 */
+	public int randomRestarts = 10;
+
+	/**
+	 * Seed of the first random order, so that the results are repeatable.
+	 */
+	public long randomSeed = 0;
+
+	/**
+	 * Number of threads of the fork-join pool.
+	 */
+	public int parallelism = Runtime.getRuntime ().availableProcessors ();
+
+	/**
+	 * Actors of the HSDF graph, indexed.
+	 */
+	private Actor[] actors;
+
+	/**
+	 * Execution time of every actor.
+	 */
+	private int[] execTime;
+
+	/**
+	 * Successors of actor v are successor[successorStart[v]] ... successor[successorStart[v+1]-1].
+	 */
+	private int[] successorStart;
+
+	/**
+	 * Successors of all the actors over channels without enough initial tokens.
+	 */
+	private int[] successor;
+
+	/**
+	 * Number of predecessors of every actor.
+	 */
+	private int[] numPredecessors;
+
+	/**
+	 * Position of every actor in a topological order, used to break the ties.
+	 */
+	private int[] topologicalPosition;
+
+	/**
+	 * Length of the longest path starting at every actor, including its execution time.
+	 */
+	private int[] upwardRank;
+
+	/**
+	 * Length of the longest path ending before every actor.
+	 */
+	private int[] downwardRank;
+
+	/**
+	 * Actors on one critical path of the graph.
+	 */
+	private boolean[] criticalActor;
+
+	/**
+	 * Best schedule for every number of processors, index 0 is not used.
+	 */
+	private PortfolioSchedule[] bestSchedules = null;
+
+	/**
+	 * A schedule produced by a heuristic.
+	 */
+	private static class PortfolioSchedule
+	{
+		/**
+		 * Heuristic which produced the schedule.
+		 */
+		Heuristic heuristic;
+
+		/**
+		 * Start time of every actor.
+		 */
+		int[] startTime;
+
+		/**
+		 * Processor of every actor.
+		 */
+		int[] processor;
+
+		/**
+		 * Latency of the schedule.
+		 */
+		int latency;
+
+		/**
+		 * Number of processors used by the schedule.
+		 */
+		int processorsUsed;
+	}
+
+	/**
+	 * Run one heuristic for a number of processors.
+	 */
+	private class ScheduleTask extends RecursiveTask<PortfolioSchedule>
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Heuristic to be run.
+		 */
+		private final Heuristic heuristic;
+
+		/**
+		 * Number of processors available.
+		 */
+		private final int numProcessors;
+
+		/**
+		 * Seed for the RANDOM_LIST heuristic.
+		 */
+		private final long seed;
+
+		/**
+		 * Initialize the task.
+		 *
+		 * @param heuristic heuristic to be run
+		 * @param numProcessors number of processors available
+		 * @param seed seed for the RANDOM_LIST heuristic
+		 */
+		ScheduleTask (Heuristic heuristic, int numProcessors, long seed)
+		{
+			this.heuristic = heuristic;
+			this.numProcessors = numProcessors;
+			this.seed = seed;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.RecursiveTask#compute()
+		 */
+		@Override
+		protected PortfolioSchedule compute ()
+		{
+			return schedule (heuristic, numProcessors, seed);
+		}
+	}
+
+	/**
+	 * Initialize the portfolio for an SDF graph.
+	 *
+	 * @param sdfGraph input SDF graph
+	 */
+	public SchedulingPortfolio (Graph sdfGraph)
+	{
+		TransformSDFtoHSDF toHSDF = new TransformSDFtoHSDF ();
+		Graph hsdf = toHSDF.convertSDFtoHSDFWithUniqueChannels (sdfGraph);
+
+		Map<Actor, Integer> actorIndex = new HashMap<Actor, Integer>();
+		actors = new Actor[hsdf.countActors ()];
+		execTime = new int[actors.length];
+
+		Iterator<Actor> actrIter = hsdf.getActors ();
+		while (actrIter.hasNext ())
+		{
+			Actor actr = actrIter.next ();
+			execTime[actorIndex.size ()] = actr.getExecTime ();
+			actors[actorIndex.size ()] = actr;
+			actorIndex.put (actr, actorIndex.size ());
+		}
+
+		// Form the adjacency of the channels which do not have initial tokens.
+		int n = actors.length;
+		successorStart = new int[n+1];
+		numPredecessors = new int[n];
+		List<Integer> edgeSrc = new ArrayList<Integer>();
+		List<Integer> edgeDst = new ArrayList<Integer>();
+		for (int v=0;v<n;v++)
+		{
+			for (Link lnk : actors[v].getLinks (Port.DIR.IN))
+			{
+				if (lnk.getChannel ().getInitialTokens () >= Integer.parseInt (lnk.getPort ().getRate ()))
+					continue;
+
+				int src = actorIndex.get (lnk.getOpposite ().getActor ());
+				edgeSrc.add (src);
+				edgeDst.add (v);
+				successorStart[src+1]++;
+				numPredecessors[v]++;
+			}
+		}
+
+		for (int v=0;v<n;v++)
+			successorStart[v+1] += successorStart[v];
+
+		int fill[] = Arrays.copyOf (successorStart, n);
+		successor = new int[edgeSrc.size ()];
+		for (int e=0;e<edgeSrc.size ();e++)
+			successor[fill[edgeSrc.get (e)]++] = edgeDst.get (e);
+
+		calculateRanks ();
+	}
+
+	/**
+	 * Calculate the topological order, the upward and downward ranks and the critical path.
+	 */
+	private void calculateRanks ()
+	{
+		int n = actors.length;
+		int inDegree[] = numPredecessors.clone ();
+		int order[] = new int[n];
+		int head = 0, tail = 0;
+		for (int v=0;v<n;v++)
+			if (inDegree[v] == 0)
+				order[tail++] = v;
+
+		while (head < tail)
+		{
+			int v = order[head++];
+			for (int i=successorStart[v];i<successorStart[v+1];i++)
+				if (--inDegree[successor[i]] == 0)
+					order[tail++] = successor[i];
+		}
+
+		if (tail != n)
+			throw new RuntimeException ("The graph has a cycle without initial tokens. Cannot schedule the graph.");
+
+		topologicalPosition = new int[n];
+		for (int i=0;i<n;i++)
+			topologicalPosition[order[i]] = i;
+
+		downwardRank = new int[n];
+		for (int i=0;i<n;i++)
+		{
+			int v = order[i];
+			for (int j=successorStart[v];j<successorStart[v+1];j++)
+				downwardRank[successor[j]] = Math.max (downwardRank[successor[j]], downwardRank[v] + execTime[v]);
+		}
+
+		upwardRank = new int[n];
+		for (int i=n-1;i>=0;i--)
+		{
+			int v = order[i];
+			int longestSuccessor = 0;
+			for (int j=successorStart[v];j<successorStart[v+1];j++)
+				longestSuccessor = Math.max (longestSuccessor, upwardRank[successor[j]]);
+			upwardRank[v] = execTime[v] + longestSuccessor;
+		}
+
+		// Follow one critical path from a start actor.
+		criticalActor = new boolean[n];
+		int criticalLength = 0;
+		for (int v=0;v<n;v++)
+			criticalLength = Math.max (criticalLength, upwardRank[v] + downwardRank[v]);
+
+		int current = -1;
+		for (int v=0;v<n && current == -1;v++)
+			if (numPredecessors[v] == 0 && upwardRank[v] == criticalLength)
+				current = v;
+
+		while (current != -1)
+		{
+			criticalActor[current] = true;
+			int next = -1;
+			for (int j=successorStart[current];j<successorStart[current+1] && next == -1;j++)
+				if (upwardRank[successor[j]] + downwardRank[successor[j]] == criticalLength)
+					next = successor[j];
+			current = next;
+		}
+	}
+
+	/**
+	 * Find the earliest start time on a processor with idle slots.
+	 *
+	 * @param busySlots start and end times of the actors on the processor, sorted by start time
+	 * @param readyTime time when the actor is ready
+	 * @param duration execution time of the actor
+	 * @return earliest start time in an idle slot
+	 */
+	private static int earliestIdleSlot (List<int[]> busySlots, int readyTime, int duration)
+	{
+		int time = readyTime;
+		for (int[] slot : busySlots)
+		{
+			if (slot[1] <= time)
+				continue;
+			if (slot[0] >= time + duration)
+				break;
+			time = slot[1];
+		}
+		return time;
+	}
+
+	/**
+	 * Schedule the graph with a heuristic on a number of processors.
+	 *
+	 * @param heuristic heuristic to be used
+	 * @param numProcessors number of processors available
+	 * @param seed seed for the RANDOM_LIST heuristic
+	 * @return schedule produced by the heuristic
+	 */
+	private PortfolioSchedule schedule (Heuristic heuristic, int numProcessors, long seed)
+	{
+		int n = actors.length;
+		final int priority[];
+		if (heuristic == Heuristic.CPOP)
+		{
+			priority = new int[n];
+			for (int v=0;v<n;v++)
+				priority[v] = upwardRank[v] + downwardRank[v];
+		}
+		else if (heuristic == Heuristic.RANDOM_LIST)
+		{
+			priority = new int[n];
+			for (int v=0;v<n;v++)
+				priority[v] = v;
+			Random random = new Random (seed);
+			for (int v=n-1;v>0;v--)
+			{
+				int w = random.nextInt (v+1);
+				int temp = priority[v];
+				priority[v] = priority[w];
+				priority[w] = temp;
+			}
+		}
+		else
+			priority = upwardRank;
+
+		boolean useIdleSlots = (heuristic == Heuristic.HEFT || heuristic == Heuristic.CPOP);
+
+		// Highest priority first, ties in the topological order.
+		PriorityQueue<Integer> readyList = new PriorityQueue<Integer>(Math.max (1, n), new Comparator<Integer>()
+		{
+			@Override
+			public int compare (Integer v, Integer w)
+			{
+				if (priority[v] != priority[w])
+					return (priority[v] > priority[w]) ? -1 : 1;
+				return topologicalPosition[v] - topologicalPosition[w];
+			}
+		});
+
+		int remainingPredecessors[] = numPredecessors.clone ();
+		int readyTime[] = new int[n];
+		for (int v=0;v<n;v++)
+			if (remainingPredecessors[v] == 0)
+				readyList.add (v);
+
+		List<List<int[]>> busySlots = new ArrayList<List<int[]>>();
+		int processorFree[] = new int[numProcessors];
+		for (int p=0;p<numProcessors;p++)
+			busySlots.add (new ArrayList<int[]>());
+
+		PortfolioSchedule result = new PortfolioSchedule ();
+		result.heuristic = heuristic;
+		result.startTime = new int[n];
+		result.processor = new int[n];
+		boolean processorUsed[] = new boolean[numProcessors];
+
+		while (readyList.isEmpty () == false)
+		{
+			int v = readyList.poll ();
+
+			// Actors on the critical path are placed on the first processor in CPOP.
+			int firstProcessor = 0;
+			int lastProcessor = (heuristic == Heuristic.CPOP && criticalActor[v]) ? 0 : numProcessors-1;
+
+			int bestProcessor = -1;
+			int bestStart = Integer.MAX_VALUE;
+			for (int p=firstProcessor;p<=lastProcessor;p++)
+			{
+				int start;
+				if (useIdleSlots == true)
+					start = earliestIdleSlot (busySlots.get (p), readyTime[v], execTime[v]);
+				else
+					start = Math.max (readyTime[v], processorFree[p]);
+
+				if (start < bestStart)
+				{
+					bestStart = start;
+					bestProcessor = p;
+				}
+			}
+
+			int end = bestStart + execTime[v];
+			result.startTime[v] = bestStart;
+			result.processor[v] = bestProcessor;
+			result.latency = Math.max (result.latency, end);
+			processorUsed[bestProcessor] = true;
+			processorFree[bestProcessor] = Math.max (processorFree[bestProcessor], end);
+
+			List<int[]> slots = busySlots.get (bestProcessor);
+			int position = 0;
+			while (position < slots.size () && slots.get (position)[0] <= bestStart)
+				position++;
+			slots.add (position, new int[] {bestStart, end});
+
+			for (int j=successorStart[v];j<successorStart[v+1];j++)
+			{
+				int w = successor[j];
+				readyTime[w] = Math.max (readyTime[w], end);
+				if (--remainingPredecessors[w] == 0)
+					readyList.add (w);
+			}
+		}
+
+		// Number the used processors from zero.
+		int processorIndex[] = new int[numProcessors];
+		for (int p=0;p<numProcessors;p++)
+			processorIndex[p] = processorUsed[p] ? result.processorsUsed++ : -1;
+		for (int v=0;v<n;v++)
+			result.processor[v] = processorIndex[result.processor[v]];
+
+		return result;
+	}
+
+	/**
+	 * Run all the heuristics for 1 to maxProcessors processors and keep the best schedules.
+	 *
+	 * @param maxProcessors maximum number of processors
+	 */
+	public void run (int maxProcessors)
+	{
+		final List<ScheduleTask> tasks = new ArrayList<ScheduleTask>();
+		for (int p=1;p<=maxProcessors;p++)
+		{
+			tasks.add (new ScheduleTask (Heuristic.HEFT, p, 0));
+			tasks.add (new ScheduleTask (Heuristic.CPOP, p, 0));
+			tasks.add (new ScheduleTask (Heuristic.CRITICAL_PATH, p, 0));
+			for (int r=0;r<randomRestarts;r++)
+				tasks.add (new ScheduleTask (Heuristic.RANDOM_LIST, p, randomSeed + r));
+		}
+
+		ForkJoinPool pool = new ForkJoinPool (Math.max (1, parallelism));
+		try
+		{
+			pool.invoke (new RecursiveAction ()
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute ()
+				{
+					invokeAll (tasks);
+				}
+			});
+		}
+		finally
+		{
+			pool.shutdown ();
+		}
+
+		bestSchedules = new PortfolioSchedule[maxProcessors+1];
+		for (ScheduleTask task : tasks)
+		{
+			PortfolioSchedule sched = task.join ();
+			PortfolioSchedule best = bestSchedules[task.numProcessors];
+			if (best == null || sched.latency < best.latency
+					|| (sched.latency == best.latency && sched.processorsUsed < best.processorsUsed))
+				bestSchedules[task.numProcessors] = sched;
+		}
+
+		// A schedule on fewer processors is also a schedule on more processors.
+		for (int p=2;p<=maxProcessors;p++)
+			if (bestSchedules[p-1].latency <= bestSchedules[p].latency)
+				bestSchedules[p] = bestSchedules[p-1];
+	}
+
+	/**
+	 * Get the latency of the schedule of a single heuristic, without running the portfolio.
+	 *
+	 * @param heuristic heuristic to be used
+	 * @param numProcessors number of processors available
+	 * @return latency of the schedule produced by the heuristic
+	 */
+	public int getLatency (Heuristic heuristic, int numProcessors)
+	{
+		if (numProcessors < 1)
+			throw new RuntimeException ("Number of processors must be at least 1 : " + numProcessors);
+		return schedule (heuristic, numProcessors, randomSeed).latency;
+	}
+
+	/**
+	 * Get the best schedule for a number of processors.
+	 *
+	 * @param numProcessors number of processors
+	 * @return best schedule found
+	 */
+	private PortfolioSchedule getBest (int numProcessors)
+	{
+		if (bestSchedules == null)
+			throw new RuntimeException ("The portfolio is not run yet.");
+		if (numProcessors < 1)
+			throw new RuntimeException ("Number of processors must be at least 1 : " + numProcessors);
+		return bestSchedules[Math.min (numProcessors, bestSchedules.length-1)];
+	}
+
+	/**
+	 * Get the least latency found for a number of processors.
+	 *
+	 * @param numProcessors number of processors
+	 * @return least latency found by the heuristics
+	 */
+	public int getBestLatency (int numProcessors)
+	{
+		return getBest (numProcessors).latency;
+	}
+
+	/**
+	 * Get an upper bound on the period for a number of processors. If the best
+	 * non-pipelined schedule is repeated every latency time units, the iterations
+	 * do not overlap, so the latency is also an upper bound on the period.
+	 *
+	 * @param numProcessors number of processors
+	 * @return upper bound on the period
+	 */
+	public int getPeriodUpperBound (int numProcessors)
+	{
+		return getBestLatency (numProcessors);
+	}
+
+	/**
+	 * Get the heuristic which found the best schedule for a number of processors.
+	 *
+	 * @param numProcessors number of processors
+	 * @return heuristic of the best schedule
+	 */
+	public Heuristic getBestHeuristic (int numProcessors)
+	{
+		return getBest (numProcessors).heuristic;
+	}
+
+	/**
+	 * Get the least number of processors for which a schedule with a latency was found.
+	 *
+	 * @param latency latency to be achieved
+	 * @return least number of processors, -1 if no schedule has this latency
+	 */
+	public int getMinProcessors (int latency)
+	{
+		if (bestSchedules == null)
+			throw new RuntimeException ("The portfolio is not run yet.");
+		for (int p=1;p<bestSchedules.length;p++)
+			if (bestSchedules[p].latency <= latency)
+				return bestSchedules[p].processorsUsed;
+		return -1;
+	}
+}
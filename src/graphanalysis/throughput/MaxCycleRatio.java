@@ -0,0 +1,1034 @@
+package graphanalysis.throughput;
+
+import graphanalysis.Kosaraju;
+
+import java.util.*;
+
+import spdfcore.*;
+
+/**
+ * Calculate the maximum cycle ratio of an HSDF graph in polynomial time.
+ *
+ * The ratio of a cycle is the sum of the execution times of the actors
+ * on the cycle divided by the sum of the initial tokens on its channels.
+ * The maximum ratio over all the cycles is the iteration period of the
+ * graph, and its inverse is the maximum throughput.
+ *
+ * The graph is converted to an index-based representation (execution times
+ * as node weights, initial tokens as edge delays) and analysed separately
+ * for every strongly connected component. Every component is solved with
+ * Howard's policy iteration. If the policy iteration does not converge within
+ * the iteration limit, Karp's algorithm is used on the token graph of the component.
+ *
+ * Refer to "Numerical computation of spectral elements in max-plus algebra"
+ * (Cochet-Terrasson et al.) and to Dasdan's survey on cycle mean algorithms.
+ *
+ * @author Pranav Tendulkar
+ *
+ */
+public class MaxCycleRatio
+{
+	/**
+	 * Algorithm used to solve every strongly connected component.
+	 */
+	public enum Algorithm { HOWARD, KARP }
+
+	/**
+	 * Relative tolerance used for comparisons in the policy iteration.
+	 */
+	private static final double tolerance = 1e-9;
+
+	/**
+	 * HSDF graph under analysis.
+	 */
+	private Graph hsdfGraph;
+
+	/**
+	 * Algorithm used to analyse the components.
+	 */
+	private Algorithm algorithm = Algorithm.HOWARD;
+
+	/**
+	 * Maximum number of policy iterations before we fall back to Karp's algorithm.
+	 * If zero, the limit is calculated from the size of the component.
+	 */
+	private int maxPolicyIterations = 0;
+
+	/**
+	 * Actors of the graph, indexed.
+	 */
+	private Actor[] actors;
+
+	/**
+	 * Execution time of every actor.
+	 */
+	private int[] execTime;
+
+	/**
+	 * Source actor index of every channel.
+	 */
+	private int[] edgeSrc;
+
+	/**
+	 * Sink actor index of every channel.
+	 */
+	private int[] edgeDst;
+
+	/**
+	 * Initial tokens of every channel.
+	 */
+	private int[] edgeDelay;
+
+	/**
+	 * Analysis was already performed.
+	 */
+	private boolean analysisDone = false;
+
+	/**
+	 * Graph contains a cycle without any initial tokens.
+	 */
+	private boolean deadlocked = false;
+
+	/**
+	 * Sum of execution times on the critical cycle.
+	 */
+	private long criticalExecTime = 0;
+
+	/**
+	 * Sum of initial tokens on the critical cycle.
+	 */
+	private long criticalTokens = 0;
+
+	/**
+	 * Actors of the critical cycle in the order of the channels.
+	 */
+	private List<Actor> criticalCycle = new ArrayList<Actor>();
+
+	/**
+	 * Index-based representation of one strongly connected component.
+	 * Nodes and edges are numbered locally.
+	 */
+	private class Component
+	{
+		/**
+		 * Number of nodes.
+		 */
+		int numNodes;
+
+		/**
+		 * Number of edges.
+		 */
+		int numEdges;
+
+		/**
+		 * Global actor index of every local node.
+		 */
+		int[] globalNode;
+
+		/**
+		 * Execution time of every local node.
+		 */
+		int[] weight;
+
+		/**
+		 * Local source node of every edge.
+		 */
+		int[] src;
+
+		/**
+		 * Local sink node of every edge.
+		 */
+		int[] dst;
+
+		/**
+		 * Initial tokens of every edge.
+		 */
+		int[] delay;
+
+		/**
+		 * Outgoing edges of node v are outEdges[outStart[v]] ... outEdges[outStart[v+1]-1].
+		 */
+		int[] outStart;
+
+		/**
+		 * Outgoing edges sorted by source node.
+		 */
+		int[] outEdges;
+
+		/**
+		 * Build the adjacency of the component.
+		 *
+		 * @param nodes global indices of the nodes in the component
+		 * @param localIndex local index of every global node, -1 if not in the component
+		 */
+		Component (List<Integer> nodes, int[] localIndex)
+		{
+			numNodes = nodes.size ();
+			globalNode = new int[numNodes];
+			weight = new int[numNodes];
+			for (int i=0;i<numNodes;i++)
+			{
+				globalNode[i] = nodes.get (i);
+				weight[i] = execTime[globalNode[i]];
+			}
+
+			numEdges = 0;
+			for (int e=0;e<edgeSrc.length;e++)
+				if (localIndex[edgeSrc[e]] >= 0 && localIndex[edgeDst[e]] >= 0)
+					numEdges++;
+
+			src = new int[numEdges];
+			dst = new int[numEdges];
+			delay = new int[numEdges];
+			outStart = new int[numNodes+1];
+			int count = 0;
+			for (int e=0;e<edgeSrc.length;e++)
+			{
+				if (localIndex[edgeSrc[e]] >= 0 && localIndex[edgeDst[e]] >= 0)
+				{
+					src[count] = localIndex[edgeSrc[e]];
+					dst[count] = localIndex[edgeDst[e]];
+					delay[count] = edgeDelay[e];
+					outStart[src[count]+1]++;
+					count++;
+				}
+			}
+
+			for (int v=0;v<numNodes;v++)
+				outStart[v+1] += outStart[v];
+
+			int fill[] = Arrays.copyOf (outStart, numNodes);
+			outEdges = new int[numEdges];
+			for (int e=0;e<numEdges;e++)
+				outEdges[fill[src[e]]++] = e;
+		}
+	}
+
+	/**
+	 * Initialize the maximum cycle ratio calculator.
+	 *
+	 * @param hsdfGraph input HSDF graph
+	 */
+	public MaxCycleRatio (Graph hsdfGraph)
+	{
+		this.hsdfGraph = hsdfGraph;
+	}
+
+	/**
+	 * Set the algorithm used to analyse the components.
+	 * Default is Howard's policy iteration.
+	 *
+	 * @param algorithm algorithm to be used
+	 */
+	public void setAlgorithm (Algorithm algorithm)
+	{
+		this.algorithm = algorithm;
+		analysisDone = false;
+	}
+
+	/**
+	 * Set the maximum number of policy iterations for Howard's algorithm
+	 * after which Karp's algorithm is used.
+	 *
+	 * @param iterations maximum number of iterations, 0 to calculate it from the graph size
+	 */
+	public void setMaxPolicyIterations (int iterations)
+	{
+		maxPolicyIterations = iterations;
+		analysisDone = false;
+	}
+
+	/**
+	 * Calculate the maximum cycle ratio of the graph.
+	 *
+	 * @return maximum cycle ratio, 0 if there are no cycles, infinity if the graph deadlocks
+	 */
+	public double calculateMaxCycleRatio ()
+	{
+		if (analysisDone == false)
+			analyse ();
+
+		if (deadlocked == true)
+			return Double.POSITIVE_INFINITY;
+
+		if (criticalTokens == 0)
+			return 0.0;
+
+		return ((double) criticalExecTime / (double) criticalTokens);
+	}
+
+	/**
+	 * Get the critical cycle, the cycle which has the maximum ratio.
+	 * If the graph deadlocks, this is a cycle without initial tokens.
+	 * The channel from every actor goes to the next actor in the list,
+	 * and from the last actor back to the first one.
+	 *
+	 * @return list of actors on the critical cycle, empty if the graph has no cycles
+	 */
+	public List<Actor> getCriticalCycle ()
+	{
+		if (analysisDone == false)
+			analyse ();
+		return new ArrayList<Actor>(criticalCycle);
+	}
+
+	/**
+	 * Get the sum of execution times of the actors on the critical cycle.
+	 *
+	 * @return total execution time on the critical cycle
+	 */
+	public long getCriticalCycleExecTime ()
+	{
+		if (analysisDone == false)
+			analyse ();
+		return criticalExecTime;
+	}
+
+	/**
+	 * Get the number of initial tokens on the critical cycle.
+	 *
+	 * @return total initial tokens on the critical cycle
+	 */
+	public long getCriticalCycleTokens ()
+	{
+		if (analysisDone == false)
+			analyse ();
+		return criticalTokens;
+	}
+
+	/**
+	 * Check if the graph has a cycle without any initial tokens.
+	 *
+	 * @return true if the graph deadlocks, false otherwise
+	 */
+	public boolean isDeadlocked ()
+	{
+		if (analysisDone == false)
+			analyse ();
+		return deadlocked;
+	}
+
+	/**
+	 * Build the index-based representation of the HSDF graph.
+	 */
+	private void buildIndex ()
+	{
+		Map<Actor, Integer> actorIndex = new HashMap<Actor, Integer>();
+		actors = new Actor[hsdfGraph.countActors ()];
+		execTime = new int[actors.length];
+
+		int count = 0;
+		Iterator<Actor> actrIter = hsdfGraph.getActors ();
+		while (actrIter.hasNext ())
+		{
+			Actor actr = actrIter.next ();
+			actors[count] = actr;
+			execTime[count] = actr.getExecTime ();
+			actorIndex.put (actr, count++);
+		}
+
+		edgeSrc = new int[hsdfGraph.countChannels ()];
+		edgeDst = new int[edgeSrc.length];
+		edgeDelay = new int[edgeSrc.length];
+
+		count = 0;
+		Iterator<Channel> chnnlIter = hsdfGraph.getChannels ();
+		while (chnnlIter.hasNext ())
+		{
+			Channel chnnl = chnnlIter.next ();
+			edgeSrc[count] = actorIndex.get (chnnl.getLink (Port.DIR.OUT).getActor ());
+			edgeDst[count] = actorIndex.get (chnnl.getLink (Port.DIR.IN).getActor ());
+			edgeDelay[count] = chnnl.getInitialTokens ();
+			count++;
+		}
+	}
+
+	/**
+	 * Compare two ratios without rounding.
+	 *
+	 * @param w1 numerator of first ratio
+	 * @param t1 denominator of first ratio
+	 * @param w2 numerator of second ratio
+	 * @param t2 denominator of second ratio
+	 * @return true if w1/t1 is strictly greater than w2/t2
+	 */
+	private boolean isGreaterRatio (long w1, long t1, long w2, long t2)
+	{
+		if (t2 == 0)
+			return (t1 != 0 && w2 < 0);
+		if (t1 == 0)
+			return true;
+		return (w1 * t2 > w2 * t1);
+	}
+
+	/**
+	 * Analyse all the strongly connected components of the graph.
+	 */
+	private void analyse ()
+	{
+		buildIndex ();
+
+		deadlocked = false;
+		criticalExecTime = 0;
+		criticalTokens = 0;
+		criticalCycle = new ArrayList<Actor>();
+
+		Map<Actor, Integer> actorIndex = new HashMap<Actor, Integer>();
+		for (int i=0;i<actors.length;i++)
+			actorIndex.put (actors[i], i);
+
+		int localIndex[] = new int[actors.length];
+		Arrays.fill (localIndex, -1);
+
+		Kosaraju connectedComponents = new Kosaraju (hsdfGraph);
+		for (List<Actor> scc : connectedComponents.getStronglyConnectedComponents ())
+		{
+			List<Integer> nodes = new ArrayList<Integer>();
+			for (Actor actr : scc)
+			{
+				int index = actorIndex.get (actr);
+				localIndex[index] = nodes.size ();
+				nodes.add (index);
+			}
+
+			Component component = new Component (nodes, localIndex);
+
+			for (int index : nodes)
+				localIndex[index] = -1;
+
+			// Single actor without a self-edge.
+			if (component.numEdges == 0)
+				continue;
+
+			List<Integer> cycle = findZeroDelayCycle (component);
+			if (cycle != null)
+			{
+				deadlocked = true;
+				setCriticalCycle (component, cycle, 0);
+				break;
+			}
+
+			if (algorithm == Algorithm.HOWARD)
+			{
+				if (howard (component) == false)
+					karp (component);
+			}
+			else
+				karp (component);
+		}
+
+		analysisDone = true;
+	}
+
+	/**
+	 * Record a cycle as critical cycle.
+	 *
+	 * @param component component containing the cycle
+	 * @param cycle local nodes of the cycle
+	 * @param tokens number of initial tokens on the cycle
+	 */
+	private void setCriticalCycle (Component component, List<Integer> cycle, long tokens)
+	{
+		criticalCycle = new ArrayList<Actor>();
+		criticalExecTime = 0;
+		for (int v : cycle)
+		{
+			criticalCycle.add (actors[component.globalNode[v]]);
+			criticalExecTime += component.weight[v];
+		}
+		criticalTokens = tokens;
+	}
+
+	/**
+	 * Calculate a topological order of the edges without initial tokens.
+	 *
+	 * @param component component to be sorted
+	 * @param inDegree array to hold the number of unprocessed incoming edges of each node
+	 * @return nodes in topological order, shorter than number of nodes if there is a cycle
+	 */
+	private int[] zeroDelayTopologicalOrder (Component component, int[] inDegree)
+	{
+		int n = component.numNodes;
+		Arrays.fill (inDegree, 0);
+		for (int e=0;e<component.numEdges;e++)
+			if (component.delay[e] == 0)
+				inDegree[component.dst[e]]++;
+
+		int order[] = new int[n];
+		int head = 0, tail = 0;
+		for (int v=0;v<n;v++)
+			if (inDegree[v] == 0)
+				order[tail++] = v;
+
+		while (head < tail)
+		{
+			int v = order[head++];
+			for (int i=component.outStart[v];i<component.outStart[v+1];i++)
+			{
+				int e = component.outEdges[i];
+				if (component.delay[e] == 0 && --inDegree[component.dst[e]] == 0)
+					order[tail++] = component.dst[e];
+			}
+		}
+
+		return Arrays.copyOf (order, tail);
+	}
+
+	/**
+	 * Find a cycle which has no initial tokens.
+	 *
+	 * @param component component to be checked
+	 * @return local nodes of the cycle, or null if every cycle has initial tokens
+	 */
+	private List<Integer> findZeroDelayCycle (Component component)
+	{
+		int n = component.numNodes;
+		int inDegree[] = new int[n];
+		int order[] = zeroDelayTopologicalOrder (component, inDegree);
+		if (order.length == n)
+			return null;
+
+		// Every node left with a non-zero in-degree has a zero-delay predecessor
+		// which is also left. Walk backwards till we visit a node twice.
+		int zeroDelayPred[] = new int[n];
+		Arrays.fill (zeroDelayPred, -1);
+		for (int e=0;e<component.numEdges;e++)
+			if (component.delay[e] == 0 && inDegree[component.src[e]] > 0 && inDegree[component.dst[e]] > 0)
+				zeroDelayPred[component.dst[e]] = component.src[e];
+
+		int start = -1;
+		for (int v=0;v<n;v++)
+			if (inDegree[v] > 0) { start = v; break; }
+
+		int visited[] = new int[n];
+		Arrays.fill (visited, -1);
+		int step = 0;
+		int v = start;
+		while (visited[v] == -1)
+		{
+			visited[v] = step++;
+			v = zeroDelayPred[v];
+		}
+
+		List<Integer> cycle = new ArrayList<Integer>();
+		int u = v;
+		do
+		{
+			cycle.add (u);
+			u = zeroDelayPred[u];
+		} while (u != v);
+
+		Collections.reverse (cycle);
+		return cycle;
+	}
+
+	/**
+	 * Check if value a is greater than value b beyond the tolerance.
+	 *
+	 * @param a first value
+	 * @param b second value
+	 * @return true if a is greater than b
+	 */
+	private boolean greaterThan (double a, double b)
+	{
+		return (a - b) > tolerance * Math.max (1.0, Math.max (Math.abs (a), Math.abs (b)));
+	}
+
+	/**
+	 * Solve a component with Howard's policy iteration.
+	 * Every node chooses one outgoing edge (the policy). Every node of the
+	 * policy graph reaches exactly one cycle, which determines its ratio (eta)
+	 * and relative value (x). The policy is improved first by ratio and then
+	 * by the value till no improvement is possible.
+	 *
+	 * @param component component to be solved
+	 * @return true if the iteration converged, false otherwise
+	 */
+	private boolean howard (Component component)
+	{
+		int n = component.numNodes;
+		int limit = (maxPolicyIterations > 0) ? maxPolicyIterations : Math.max (1000, 10 * n);
+
+		int policy[] = new int[n];
+		double eta[] = new double[n];
+		double x[] = new double[n];
+		int root[] = new int[n];
+		long cycleExecTime[] = new long[n];
+		long cycleTokens[] = new long[n];
+		int state[] = new int[n];
+		int path[] = new int[n];
+
+		// Initial policy : edge with the least initial tokens.
+		for (int v=0;v<n;v++)
+		{
+			policy[v] = -1;
+			for (int i=component.outStart[v];i<component.outStart[v+1];i++)
+			{
+				int e = component.outEdges[i];
+				if (policy[v] == -1 || component.delay[e] < component.delay[policy[v]])
+					policy[v] = e;
+			}
+		}
+
+		for (int iteration=0;iteration<limit;iteration++)
+		{
+			// Value determination.
+			Arrays.fill (state, 0);
+			for (int s=0;s<n;s++)
+			{
+				if (state[s] != 0)
+					continue;
+
+				int length = 0;
+				int v = s;
+				while (state[v] == 0)
+				{
+					state[v] = 1;
+					path[length++] = v;
+					v = component.dst[policy[v]];
+				}
+
+				if (state[v] == 1)
+				{
+					// We closed a new cycle of the policy graph.
+					long execSum = 0, tokenSum = 0;
+					int u = v;
+					do
+					{
+						int e = policy[u];
+						execSum += component.weight[u];
+						tokenSum += component.delay[e];
+						u = component.dst[e];
+					} while (u != v);
+
+					root[v] = v;
+					cycleExecTime[v] = execSum;
+					cycleTokens[v] = tokenSum;
+					eta[v] = (double) execSum / (double) tokenSum;
+					x[v] = 0;
+					state[v] = 2;
+				}
+
+				for (int i=length-1;i>=0;i--)
+				{
+					int u = path[i];
+					if (state[u] == 2)
+						continue;
+					int e = policy[u];
+					int w = component.dst[e];
+					root[u] = root[w];
+					eta[u] = eta[w];
+					x[u] = component.weight[u] - eta[w] * component.delay[e] + x[w];
+					state[u] = 2;
+				}
+			}
+
+			// Policy improvement on the ratio.
+			boolean changed = false;
+			for (int u=0;u<n;u++)
+			{
+				int best = policy[u];
+				double bestEta = eta[u];
+				for (int i=component.outStart[u];i<component.outStart[u+1];i++)
+				{
+					int e = component.outEdges[i];
+					if (greaterThan (eta[component.dst[e]], bestEta))
+					{
+						best = e;
+						bestEta = eta[component.dst[e]];
+					}
+				}
+
+				if (best != policy[u])
+				{
+					policy[u] = best;
+					changed = true;
+				}
+			}
+
+			// Policy improvement on the value.
+			if (changed == false)
+			{
+				for (int u=0;u<n;u++)
+				{
+					int best = policy[u];
+					double bestValue = x[u];
+					for (int i=component.outStart[u];i<component.outStart[u+1];i++)
+					{
+						int e = component.outEdges[i];
+						int w = component.dst[e];
+						if (greaterThan (eta[w], eta[u]) || greaterThan (eta[u], eta[w]))
+							continue;
+
+						double value = component.weight[u] - eta[u] * component.delay[e] + x[w];
+						if (greaterThan (value, bestValue))
+						{
+							best = e;
+							bestValue = value;
+						}
+					}
+
+					if (best != policy[u])
+					{
+						policy[u] = best;
+						changed = true;
+					}
+				}
+			}
+
+			if (changed == false)
+			{
+				// Converged. Pick up the best cycle of the policy graph.
+				int bestRoot = -1;
+				for (int v=0;v<n;v++)
+				{
+					if (root[v] != v)
+						continue;
+					if (bestRoot == -1 || isGreaterRatio (cycleExecTime[v], cycleTokens[v], cycleExecTime[bestRoot], cycleTokens[bestRoot]))
+						bestRoot = v;
+				}
+
+				if (criticalCycle.isEmpty () || isGreaterRatio (cycleExecTime[bestRoot], cycleTokens[bestRoot], criticalExecTime, criticalTokens))
+				{
+					List<Integer> cycle = new ArrayList<Integer>();
+					int u = bestRoot;
+					do
+					{
+						cycle.add (u);
+						u = component.dst[policy[u]];
+					} while (u != bestRoot);
+
+					setCriticalCycle (component, cycle, cycleTokens[bestRoot]);
+				}
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Longest paths (sum of execution times of all the nodes on the path, including both ends)
+	 * from a node over the edges without initial tokens.
+	 *
+	 * @param component component under analysis
+	 * @param order topological order of the zero-delay edges
+	 * @param start start node of the paths
+	 * @param pred array where the predecessor of each node on the path is stored, can be null
+	 * @return longest path to every node, Long.MIN_VALUE if not reachable
+	 */
+	private long[] zeroDelayLongestPaths (Component component, int[] order, int start, int[] pred)
+	{
+		long distance[] = new long[component.numNodes];
+		Arrays.fill (distance, Long.MIN_VALUE);
+		distance[start] = component.weight[start];
+
+		for (int v : order)
+		{
+			if (distance[v] == Long.MIN_VALUE)
+				continue;
+
+			for (int i=component.outStart[v];i<component.outStart[v+1];i++)
+			{
+				int e = component.outEdges[i];
+				int w = component.dst[e];
+				if (component.delay[e] != 0)
+					continue;
+
+				if (distance[v] + component.weight[w] > distance[w])
+				{
+					distance[w] = distance[v] + component.weight[w];
+					if (pred != null)
+						pred[w] = v;
+				}
+			}
+		}
+		return distance;
+	}
+
+	/**
+	 * Solve a component with Karp's algorithm.
+	 *
+	 * Karp's algorithm calculates the maximum cycle mean, so we first build a
+	 * token graph where every arc carries exactly one initial token. Every initial
+	 * token of the component is a node. The tokens of one channel are chained
+	 * with zero weight arcs, and the last token of a channel is connected
+	 * to the first token of every channel that can be reached over the edges
+	 * without initial tokens, with the longest such path as weight.
+	 *
+	 * @param component component to be solved
+	 */
+	private void karp (Component component)
+	{
+		int n = component.numNodes;
+		int inDegree[] = new int[n];
+		int order[] = zeroDelayTopologicalOrder (component, inDegree);
+
+		// Number the tokens.
+		int tokenBase[] = new int[component.numEdges];
+		int numTokens = 0;
+		for (int e=0;e<component.numEdges;e++)
+		{
+			tokenBase[e] = numTokens;
+			numTokens += component.delay[e];
+		}
+
+		// Form the arcs of the token graph.
+		List<int[]> arcEdges = new ArrayList<int[]>();
+		List<Long> arcWeights = new ArrayList<Long>();
+		Map<Integer, long[]> pathCache = new HashMap<Integer, long[]>();
+
+		for (int e=0;e<component.numEdges;e++)
+		{
+			int d = component.delay[e];
+			if (d == 0)
+				continue;
+
+			for (int k=0;k<d-1;k++)
+			{
+				arcEdges.add (new int[] { tokenBase[e]+k, tokenBase[e]+k+1, -1, -1 });
+				arcWeights.add (0L);
+			}
+
+			int entry = component.dst[e];
+			long distance[] = pathCache.get (entry);
+			if (distance == null)
+			{
+				distance = zeroDelayLongestPaths (component, order, entry, null);
+				pathCache.put (entry, distance);
+			}
+
+			for (int nextEdge=0;nextEdge<component.numEdges;nextEdge++)
+			{
+				if (component.delay[nextEdge] == 0 || distance[component.src[nextEdge]] == Long.MIN_VALUE)
+					continue;
+				arcEdges.add (new int[] { tokenBase[e]+d-1, tokenBase[nextEdge], e, nextEdge });
+				arcWeights.add (distance[component.src[nextEdge]]);
+			}
+		}
+
+		int numArcs = arcEdges.size ();
+		int arcFrom[] = new int[numArcs];
+		int arcTo[] = new int[numArcs];
+		long arcWeight[] = new long[numArcs];
+		for (int a=0;a<numArcs;a++)
+		{
+			arcFrom[a] = arcEdges.get (a)[0];
+			arcTo[a] = arcEdges.get (a)[1];
+			arcWeight[a] = arcWeights.get (a);
+		}
+
+		// Karp's formula : max over v of min over k of (D_n(v) - D_k(v)) / (n - k),
+		// where D_k(v) is the longest walk of exactly k arcs from token 0 to v.
+		// We keep only two rows of walks. The first pass calculates D_n, the second
+		// pass calculates the rows again to find the minimum of every token.
+		long lastRow[] = new long[numTokens];
+		long minWeight[] = new long[numTokens];
+		long minLength[] = new long[numTokens];
+		long walk[] = new long[numTokens];
+		long nextWalk[] = new long[numTokens];
+		for (int pass=0;pass<2;pass++)
+		{
+			Arrays.fill (walk, Long.MIN_VALUE);
+			walk[0] = 0;
+			for (int k=0;k<numTokens;k++)
+			{
+				if (pass == 1)
+					updateKarpMinimum (lastRow, walk, numTokens - k, minWeight, minLength);
+				nextWalkRow (walk, nextWalk, arcFrom, arcTo, arcWeight);
+				long temp[] = walk;
+				walk = nextWalk;
+				nextWalk = temp;
+			}
+			if (pass == 0)
+				System.arraycopy (walk, 0, lastRow, 0, numTokens);
+		}
+
+		int bestToken = -1;
+		for (int v=0;v<numTokens;v++)
+		{
+			if (lastRow[v] == Long.MIN_VALUE || minLength[v] == 0)
+				continue;
+			if (bestToken == -1 || isGreaterRatio (minWeight[v], minLength[v], minWeight[bestToken], minLength[bestToken]))
+				bestToken = v;
+		}
+
+		if (bestToken == -1)
+			return;
+		long meanWeight = minWeight[bestToken];
+		long meanLength = minLength[bestToken];
+
+		if (criticalCycle.isEmpty () == false && isGreaterRatio (meanWeight, meanLength, criticalExecTime, criticalTokens) == false)
+			return;
+
+		// Every cycle of arcs which are tight for the longest paths with the weights
+		// (w * length - weight) has the maximum mean, so it is a critical cycle.
+		List<Integer> cycleArcs = findCriticalTokenCycle (numTokens, arcFrom, arcTo, arcWeight, meanWeight, meanLength);
+		if (cycleArcs == null)
+			return;
+
+		// Convert the token cycle to a cycle of actors.
+		List<Integer> cycle = new ArrayList<Integer>();
+		int pred[] = new int[n];
+		for (int a : cycleArcs)
+		{
+			int arc[] = arcEdges.get (a);
+			if (arc[2] == -1)
+				continue;
+
+			int entry = component.dst[arc[2]];
+			int exit = component.src[arc[3]];
+			Arrays.fill (pred, -1);
+			zeroDelayLongestPaths (component, order, entry, pred);
+
+			List<Integer> segment = new ArrayList<Integer>();
+			for (int v=exit;v!=entry;v=pred[v])
+				segment.add (v);
+			segment.add (entry);
+			Collections.reverse (segment);
+			cycle.addAll (segment);
+		}
+
+		setCriticalCycle (component, cycle, cycleArcs.size ());
+	}
+
+	/**
+	 * Calculate the next row of longest walks in the token graph.
+	 *
+	 * @param walk longest walks of k arcs
+	 * @param nextWalk longest walks of k+1 arcs are written in this array
+	 * @param arcFrom source token of every arc
+	 * @param arcTo destination token of every arc
+	 * @param arcWeight weight of every arc
+	 */
+	private void nextWalkRow (long[] walk, long[] nextWalk, int[] arcFrom, int[] arcTo, long[] arcWeight)
+	{
+		Arrays.fill (nextWalk, Long.MIN_VALUE);
+		for (int a=0;a<arcFrom.length;a++)
+		{
+			if (walk[arcFrom[a]] == Long.MIN_VALUE)
+				continue;
+			long value = walk[arcFrom[a]] + arcWeight[a];
+			if (value > nextWalk[arcTo[a]])
+				nextWalk[arcTo[a]] = value;
+		}
+	}
+
+	/**
+	 * Update the minimum of Karp's formula of every token with a row of walks.
+	 *
+	 * @param lastRow longest walks of n arcs
+	 * @param walk longest walks of k arcs
+	 * @param length n - k
+	 * @param minWeight weight of the minimum of every token
+	 * @param minLength length of the minimum of every token, 0 if not known
+	 */
+	private void updateKarpMinimum (long[] lastRow, long[] walk, long length, long[] minWeight, long[] minLength)
+	{
+		for (int v=0;v<walk.length;v++)
+		{
+			if (lastRow[v] == Long.MIN_VALUE || walk[v] == Long.MIN_VALUE)
+				continue;
+			long weight = lastRow[v] - walk[v];
+			if (minLength[v] == 0 || isGreaterRatio (minWeight[v], minLength[v], weight, length))
+			{
+				minWeight[v] = weight;
+				minLength[v] = length;
+			}
+		}
+	}
+
+	/**
+	 * Find a cycle with the maximum mean in the token graph.
+	 *
+	 * We calculate the longest paths with the reduced weights (w * meanLength - meanWeight),
+	 * which have no positive cycle. A cycle of arcs where the paths are tight has a
+	 * reduced weight of zero, so its mean is the maximum mean.
+	 *
+	 * @param numTokens number of tokens
+	 * @param arcFrom source token of every arc
+	 * @param arcTo destination token of every arc
+	 * @param arcWeight weight of every arc
+	 * @param meanWeight numerator of the maximum mean
+	 * @param meanLength denominator of the maximum mean
+	 * @return arcs of the cycle in order, null if no cycle is found
+	 */
+	private List<Integer> findCriticalTokenCycle (int numTokens, int[] arcFrom, int[] arcTo, long[] arcWeight, long meanWeight, long meanLength)
+	{
+		int numArcs = arcFrom.length;
+		long potential[] = new long[numTokens];
+		boolean changed = true;
+		for (int iter=0;iter<=numTokens && changed == true;iter++)
+		{
+			changed = false;
+			for (int a=0;a<numArcs;a++)
+			{
+				long value = potential[arcFrom[a]] + arcWeight[a] * meanLength - meanWeight;
+				if (value > potential[arcTo[a]])
+				{
+					potential[arcTo[a]] = value;
+					changed = true;
+				}
+			}
+		}
+
+		// Tight arcs in compressed form.
+		int tightStart[] = new int[numTokens+1];
+		for (int a=0;a<numArcs;a++)
+			if (potential[arcFrom[a]] + arcWeight[a] * meanLength - meanWeight == potential[arcTo[a]])
+				tightStart[arcFrom[a]+1]++;
+		for (int v=0;v<numTokens;v++)
+			tightStart[v+1] += tightStart[v];
+		int tightArcs[] = new int[tightStart[numTokens]];
+		int fill[] = Arrays.copyOf (tightStart, numTokens);
+		for (int a=0;a<numArcs;a++)
+			if (potential[arcFrom[a]] + arcWeight[a] * meanLength - meanWeight == potential[arcTo[a]])
+				tightArcs[fill[arcFrom[a]]++] = a;
+
+		// Depth first search for a cycle of tight arcs.
+		int state[] = new int[numTokens];
+		int stackPosition[] = new int[numTokens];
+		int nextArc[] = Arrays.copyOf (tightStart, numTokens);
+		int stackNode[] = new int[numTokens];
+		int stackArc[] = new int[numTokens];
+		for (int root=0;root<numTokens;root++)
+		{
+			if (state[root] != 0)
+				continue;
+			int top = 0;
+			stackNode[0] = root;
+			stackArc[0] = -1;
+			stackPosition[root] = 0;
+			state[root] = 1;
+			while (top >= 0)
+			{
+				int v = stackNode[top];
+				if (nextArc[v] == tightStart[v+1])
+				{
+					state[v] = 2;
+					top--;
+					continue;
+				}
+				int a = tightArcs[nextArc[v]++];
+				int w = arcTo[a];
+				if (state[w] == 1)
+				{
+					List<Integer> cycle = new ArrayList<Integer>();
+					for (int k=stackPosition[w]+1;k<=top;k++)
+						cycle.add (stackArc[k]);
+					cycle.add (a);
+					return cycle;
+				}
+				if (state[w] == 0)
+				{
+					state[w] = 1;
+					top++;
+					stackNode[top] = w;
+					stackArc[top] = a;
+					stackPosition[w] = top;
+				}
+			}
+		}
+		return null;
+	}
+}
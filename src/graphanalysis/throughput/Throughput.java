@@ -19,8 +19,6 @@ import spdfcore.stanalys.*;
  * 
  * Reference code can be found in SDF3 tool.
  * 
- * TODO : I have not yet tested this code. So not sure if it works correctly.
- * 
  * @author Pranav Tendulkar
  *
  */
@@ -37,170 +35,350 @@ public class Throughput
 	private GraphExpressions expressions = new GraphExpressions ();	
 	
 	/**
-	 * Transition system.
+	 * Open addressing hash table of the states visited by the transition system.
+	 * 
+	 * Every state is packed in an int array as :
+	 * global clock, tokens of every channel, and for every actor the number 
+	 * of active firings followed by their remaining clocks in increasing order.
+	 * All the stored states are appended to a single int array, so that
+	 * no object is allocated per state.
 	 * 
 	 * @author Pranav Tendulkar
 	 *
 	 */
-	class TransitionSystem 
+	static class StateTable
 	{
 		/**
-		 * State of the system.
+		 * Packed stored states, one after another.
+		 */
+		private int[] states = new int[1024];
+		
+		/**
+		 * Used length of the states array.
+		 */
+		private int statesLength = 0;
+		
+		/**
+		 * Start offset of every stored state in states array.
+		 * An extra entry holds the end of the last state.
+		 */
+		private int[] stateOffset = new int[65];
+		
+		/**
+		 * Hash of every stored state.
+		 */
+		private int[] stateHash = new int[64];
+		
+		/**
+		 * Number of stored states.
+		 */
+		private int numStates = 0;
+		
+		/**
+		 * Hash slots holding index of the state plus one, zero if the slot is free.
+		 */
+		private int[] slots = new int[128];
+		
+		/**
+		 * Calculate the hash of a packed state.
+		 * 
+		 * @param packed packed state
+		 * @param length length of packed state
+		 * @return hash value
 		 */
-		class State
+		private static int hash (int[] packed, int length)
 		{
-			private HashMap<Actor, List<Integer>> actClk = new HashMap<Actor, List<Integer>>();
-			private HashMap<Channel, Integer> ch = new HashMap<Channel, Integer>();
-			private int repeatedStateIndex = 0;
-			
-			private int glbClk=0;
-			
-			// Clone the argument State variable
-			//public State (State argState)
-			@SuppressWarnings ("unchecked")
-			public void clone (State argState)
+			int h = length;
+			for (int i=0;i<length;i++)
+				h = 31 * h + packed[i];
+			// spread the bits so that linear probing works on the low bits.
+			h ^= (h >>> 16);
+			h *= 0x85ebca6b;
+			h ^= (h >>> 13);
+			return h;
+		}
+		
+		/**
+		 * Check if the packed state is equal to a stored state.
+		 * 
+		 * @param index index of the stored state
+		 * @param packed packed state
+		 * @param length length of packed state
+		 * @return true if equal, false otherwise
+		 */
+		private boolean equalState (int index, int[] packed, int length)
+		{
+			int offset = stateOffset[index];
+			if (stateOffset[index+1] - offset != length)
+				return false;
+			for (int i=0;i<length;i++)
+				if (states[offset+i] != packed[i])
+					return false;
+			return true;
+		}
+		
+		/**
+		 * Double the number of hash slots and re-insert all the states.
+		 */
+		private void rehash ()
+		{
+			slots = new int[slots.length * 2];
+			int mask = slots.length - 1;
+			for (int i=0;i<numStates;i++)
 			{
-				glbClk = argState.glbClk;				
-					
-				Iterator<Actor> actrIter = argState.actClk.keySet ().iterator ();
-				while (actrIter.hasNext ())
-				{
-					Actor actr = actrIter.next ();					
-					List<Integer> dstList = (List<Integer>) ((ArrayList<Integer>) argState.actClk.get (actr)).clone (); 					
-					actClk.put (actr, dstList);
-				}
-				
-				ch = (HashMap<Channel, Integer>)argState.ch.clone ();	
+				int slot = stateHash[i] & mask;
+				while (slots[slot] != 0)
+					slot = (slot + 1) & mask;
+				slots[slot] = i + 1;
 			}
-			
-			public State ()
+		}
+		
+		/**
+		 * Add a state to the table if it is not already present.
+		 * 
+		 * @param packed packed state
+		 * @param length length of packed state
+		 * @return index of the state if it was already present, -1 if it was added
+		 */
+		public int addIfAbsent (int[] packed, int length)
+		{
+			int h = hash (packed, length);
+			int mask = slots.length - 1;
+			int slot = h & mask;
+			while (slots[slot] != 0)
 			{
-				// Initialize all the channels with initial tokens.
-				Iterator<Channel> chnnlIter = graph.getChannels ();
-				while (chnnlIter.hasNext ())
-				{
-					Channel chnnl = chnnlIter.next ();
-					ch.put (chnnl, chnnl.getInitialTokens ());
-				}
+				int index = slots[slot] - 1;
+				if (stateHash[index] == h && equalState (index, packed, length))
+					return index;
+				slot = (slot + 1) & mask;
 			}
 			
-			// In order that HashSet for storedStatesHash works, we have to override both equals
-			// and hashCode () methods.
-			@Override
-			public int hashCode ()
-			{  
-				return glbClk + ch.hashCode () + actClk.hashCode ();
+			if (numStates == stateHash.length)
+			{
+				stateHash = Arrays.copyOf (stateHash, numStates * 2);
+				stateOffset = Arrays.copyOf (stateOffset, numStates * 2 + 1);
 			}
 			
-			@Override
-			public boolean equals (Object inputState)
-			{
-				State state = (State) inputState;
-				// First check if Global Clocks are equal
-				if (state.glbClk != glbClk)
-					return false;
-				
-				// Now we check if channels contain same tokens
-				if (ch.equals (state.ch) == false)
-					return false;					
+			if (statesLength + length > states.length)
+				states = Arrays.copyOf (states, Math.max (states.length * 2, statesLength + length));
 			
-				// Lastly we check the Actor clocks
-				if (actClk.size () == state.actClk.size ())
-				{
-					Iterator<Actor> actrIter = actClk.keySet ().iterator ();
-					while (actrIter.hasNext ())
-					{
-						Actor actr = actrIter.next ();
-						List<Integer> list1 = actClk.get (actr);
-						List<Integer> list2 = state.actClk.get (actr);
-						if (list1.size () == list2.size ())
-						{
-							for (int i=0;i<list1.size ();i++)
-								if (list2.contains (list1.get (i)) == false)
-									return false;
-						}
-						else
-							return false;						
-					}					
-				}
-				else
-					return false;
-				
-				return true;
-			}			
+			System.arraycopy (packed, 0, states, statesLength, length);
+			stateOffset[numStates] = statesLength;
+			statesLength += length;
+			stateOffset[numStates+1] = statesLength;
+			stateHash[numStates] = h;
+			slots[slot] = numStates + 1;
+			numStates++;
+			
+			// keep load factor below one half.
+			if (2 * numStates > slots.length)
+				rehash ();
+			
+			return -1;
 		}
 		
-		// I am using list here, because I need to know in
-		// what order the states are stored. I was using hashset
-		// earlier, but they store the data in random order.
-		// I made a small test with lists, and found out that they
-		// store the data in order.
-		List<State> storedStates = new ArrayList<State>();
-		private HashSet<State> storedStatesHash = new HashSet<State>();
-		State currentState;
-		State previousState;
-		Graph graph = new Graph ();		
-		Actor outputActor;
-		Solutions transSol = new Solutions ();		
+		/**
+		 * Get number of stored states.
+		 * 
+		 * @return number of stored states
+		 */
+		public int size ()
+		{
+			return numStates;
+		}
 		
-		public TransitionSystem (Graph inputGraph)
-		{			
-			// Initialize the graph
-			graph.clone (inputGraph);
-			
-			currentState = new State ();
-			previousState = new State ();
+		/**
+		 * Get the global clock of a stored state.
+		 * 
+		 * @param index index of the state
+		 * @return global clock of the state
+		 */
+		public int getGlobalClock (int index)
+		{
+			return states[stateOffset[index]];
+		}
+	}
+	
+	/**
+	 * Transition system.
+	 * 
+	 * The actors and channels are indexed and the current state is held in
+	 * primitive arrays, so that executing the graph does not allocate any objects.
+	 * 
+	 * @author Pranav Tendulkar
+	 *
+	 */
+	class TransitionSystem 
+	{
+		/**
+		 * Execution time of every actor.
+		 */
+		private int[] execTime;
+		
+		/**
+		 * Input channels of every actor.
+		 */
+		private int[][] inChannel;
+		
+		/**
+		 * Consumption rates on the input channels of every actor.
+		 */
+		private int[][] inRate;
+		
+		/**
+		 * Output channels of every actor.
+		 */
+		private int[][] outChannel;
+		
+		/**
+		 * Production rates on the output channels of every actor.
+		 */
+		private int[][] outRate;
+		
+		/**
+		 * Index of the output actor, the one with the lowest repetition count.
+		 */
+		private int outputActor;
+		
+		/**
+		 * Repetition count of the output actor.
+		 */
+		private int outputActorRepetitions;
+		
+		/**
+		 * Current tokens on every channel.
+		 */
+		private int[] tokens;
+		
+		/**
+		 * Remaining clocks of the active firings of every actor.
+		 * Since all the firings of an actor have the same execution time,
+		 * the clocks are always sorted in increasing order.
+		 */
+		private int[][] actClk;
+		
+		/**
+		 * Number of active firings of every actor.
+		 */
+		private int[] numFirings;
+		
+		/**
+		 * Global clock of the current state.
+		 */
+		private int glbClk = 0;
+		
+		/**
+		 * Buffer to pack the current state.
+		 */
+		private int[] packedState = new int[64];
+		
+		/**
+		 * States visited at the end of every iteration.
+		 */
+		private StateTable storedStates = new StateTable ();
+		
+		/**
+		 * Index of the state which was repeated.
+		 */
+		private int repeatedStateIndex = 0;
+		
+		/**
+		 * Initialize the transition system for a graph.
+		 * 
+		 * @param graph input SDF graph
+		 */
+		public TransitionSystem (Graph graph)
+		{
+			Map<Channel, Integer> channelIndex = new HashMap<Channel, Integer>();
+			tokens = new int[graph.countChannels ()];
+			Iterator<Channel> chnnlIter = graph.getChannels ();
+			while (chnnlIter.hasNext ())
+			{
+				Channel chnnl = chnnlIter.next ();
+				tokens[channelIndex.size ()] = chnnl.getInitialTokens ();
+				channelIndex.put (chnnl, channelIndex.size ());
+			}
 			
-			// initialize output actor which has lowest repetition count.
-					
 			GraphExpressions tempexpressions = new GraphExpressions ();			
 			tempexpressions.parse (graph);
 			
-			// Calculate the Repetition Vector			
+			// Calculate the Repetition Vector
+			Solutions transSol = new Solutions ();
 			transSol.solve (graph, tempexpressions);
 			
+			int numActors = graph.countActors ();
+			execTime = new int[numActors];
+			inChannel = new int[numActors][];
+			inRate = new int[numActors][];
+			outChannel = new int[numActors][];
+			outRate = new int[numActors][];
+			actClk = new int[numActors][];
+			numFirings = new int[numActors];
+			
 			int count = 0x0FFFFFFF;
-			// pick up the actor with lowest count.
+			int index = 0;
 			Iterator<Actor> actrIter = graph.getActors ();
 			while (actrIter.hasNext ())
 			{
 				Actor actr = actrIter.next ();
+				execTime[index] = actr.getExecTime ();
+				actClk[index] = new int[4];
+				
+				List<Link> links = new ArrayList<Link>(actr.getLinks (Port.DIR.IN));
+				inChannel[index] = new int[links.size ()];
+				inRate[index] = new int[links.size ()];
+				for (int i=0;i<links.size ();i++)
+				{
+					inChannel[index][i] = channelIndex.get (links.get (i).getChannel ());
+					inRate[index][i] = Integer.parseInt (links.get (i).getPort ().getRate ());
+				}
+				
+				links = new ArrayList<Link>(actr.getLinks (Port.DIR.OUT));
+				outChannel[index] = new int[links.size ()];
+				outRate[index] = new int[links.size ()];
+				for (int i=0;i<links.size ();i++)
+				{
+					outChannel[index][i] = channelIndex.get (links.get (i).getChannel ());
+					outRate[index][i] = Integer.parseInt (links.get (i).getPort ().getRate ());
+				}
+				
+				// pick up the actor with lowest count.
 				if (transSol.getSolution (actr).returnNumber () < count)
 				{
 					count = transSol.getSolution (actr).returnNumber ();
-					outputActor = actr;					
+					outputActor = index;
+					outputActorRepetitions = count;
 				}
-			}			
+				index++;
+			}
 		}
 
+		/**
+		 * Execute the graph in self-timed manner till a state repeats.
+		 * 
+		 * @return throughput of the graph
+		 */
 		public double execSDFgraph () 
 		{
 			int repCnt=0;
-			double clkStep=0;			
 			while (true)
 			{
-				// Store Partial State to check progress
-				// clear lists.
-				// create initial state.	
-				
 				// Finish Actor Firings
-				Iterator<Actor> actorIter = graph.getActors ();
-				while (actorIter.hasNext ())
+				for (int actr=0;actr<execTime.length;actr++)
 				{
-					Actor actr = actorIter.next ();
 					while (actorReadyToEnd (actr))
 					{
 						if (actr == outputActor)
 						{
 							repCnt++;
-							if (transSol.getSolution (actr).returnNumber () == repCnt)
+							if (outputActorRepetitions == repCnt)
 							{
-								if (storeState (currentState) == false)
+								if (storeState () == false)
 								{
 									// System.out.println ("End of StateSpace Exploration");
-									return computeThroughput (currentState.repeatedStateIndex);
+									return computeThroughput (repeatedStateIndex);
 								}
-								currentState.glbClk = 0;
+								glbClk = 0;
 								repCnt = 0; 
 							}							
 						}
@@ -209,21 +387,14 @@ public class Throughput
 				}
 				
 				// Start Actor Firings
-				Iterator<Actor> actrIter = graph.getActors ();
-				while (actrIter.hasNext ())
+				for (int actr=0;actr<execTime.length;actr++)
 				{
-					Actor actr = actrIter.next ();
 					while (actorReadyToFire (actr))
-					{
 						startActorFiring (actr);
-					}
 				}
 				
-				// Clock Step
-				clkStep = clockStep ();				
-				
 				// Deadlocked?
-				if (clkStep == Integer.MAX_VALUE)
+				if (clockStep () == Integer.MAX_VALUE)
 				{
 					System.out.println ("System Deadlocked !!");
 					return 0;
@@ -231,6 +402,12 @@ public class Throughput
 			}
 		}
 
+		/**
+		 * Compute the throughput from the periodic phase of the execution.
+		 * 
+		 * @param index index of the first state of the periodic phase
+		 * @return throughput of the graph
+		 */
 		private double computeThroughput (int index) 
 		{
 			int nr_fire = 0;
@@ -239,34 +416,30 @@ public class Throughput
 			// Check all state from stack till cycle complete			
 			for (int i=index;i<storedStates.size ();i++)
 			{
-				State state = storedStates.get (i);
-				
 				// Number of states in cycle is equal to number of iterations 
 				// in the period
 				nr_fire++;
 				
 				// Time between previous state
-				time += state.glbClk;				
-				
+				time += storedStates.getGlobalClock (i);
 			}			
 			// System.out.println ("nr:"+nr_fire + " time:" + time);
 			return (double)(nr_fire)/(time);
-			
 		}
 
+		/**
+		 * Advance the time to the end of the earliest active firing.
+		 * 
+		 * @return 0 if time progressed, Integer.MAX_VALUE if no actor is active
+		 */
 		private int clockStep () 
 		{
 			int step = Integer.MAX_VALUE;
 			
 			// Find Maximal Time Progress
-			Iterator<Actor> iterActr = currentState.actClk.keySet ().iterator ();
-			while (iterActr.hasNext ())
-			{
-				Actor actr = iterActr.next ();
-				int max = Collections.max (currentState.actClk.get (actr));
-				if (step > max)
-					step = max;
-			}
+			for (int actr=0;actr<execTime.length;actr++)
+				if (numFirings[actr] > 0 && actClk[actr][0] < step)
+					step = actClk[actr][0];
 			
 			// Still actors ready to end their firing?
 			if (step == 0)
@@ -277,110 +450,112 @@ public class Throughput
 				return Integer.MAX_VALUE;
 			
 			// Lower remaining execution time actors
-			iterActr = currentState.actClk.keySet ().iterator ();
-			while (iterActr.hasNext ())
+			for (int actr=0;actr<execTime.length;actr++)
 			{
-				Actor actr = iterActr.next ();
-				List<Integer> actrExecTimeList = currentState.actClk.get (actr);
-				for (int i=0;i<actrExecTimeList.size ();i++)									
-					actrExecTimeList.set (i, (actrExecTimeList.get (i) - step));				
+				int clocks[] = actClk[actr];
+				for (int i=0;i<numFirings[actr];i++)
+					clocks[i] -= step;
 			}
 			
 			// Advance the global clock
-			currentState.glbClk += step;
+			glbClk += step;
 			
 			return 0;
 		}
 
-		private void startActorFiring (Actor actr) 
+		/**
+		 * Start a firing of an actor.
+		 * 
+		 * @param actr index of the actor
+		 */
+		private void startActorFiring (int actr) 
 		{
-			// Consume tokens from inputs and space for output tokens
-			for(Link lnk : actr.getLinks (Port.DIR.IN))   // get All Incoming Links
-			{			
-				int portRate = Integer.parseInt (lnk.getPort ().getRate ());
-				int tokens = currentState.ch.get (lnk.getChannel ());
-				tokens -= portRate;
-				//currentState.ch.remove (lnk.getChannel ());				
-				currentState.ch.put (lnk.getChannel (), tokens);
-			}
-			
-			// Add actor firing to the list of active firings of this actor
-			// First Create the list of firing of the actors if it does not exist.
-			if (currentState.actClk.containsKey (actr) == false)
-			{
-				List<Integer> newList = new ArrayList<Integer>();
-				currentState.actClk.put (actr, newList);
-			}
+			// Consume tokens from inputs
+			for (int i=0;i<inChannel[actr].length;i++)
+				tokens[inChannel[actr][i]] -= inRate[actr][i];
 			
 			// Add execution time to list of current actor firings.
-			currentState.actClk.get (actr).add (actr.getExecTime ());
-			
+			// It is never less than the remaining clocks, so the list stays sorted.
+			if (numFirings[actr] == actClk[actr].length)
+				actClk[actr] = Arrays.copyOf (actClk[actr], 2 * actClk[actr].length);
+			actClk[actr][numFirings[actr]++] = execTime[actr];
 		}
 
-		private boolean actorReadyToFire (Actor actr) 
+		/**
+		 * Check if an actor has enough tokens on all its inputs to fire.
+		 * 
+		 * @param actr index of the actor
+		 * @return true if actor can fire, false otherwise
+		 */
+		private boolean actorReadyToFire (int actr) 
 		{
 			// Check for the input tokens on all the input links.
-			for (Link lnk : actr.getLinks (Port.DIR.IN))  // get All Incoming Links
-			{
-				Channel chnnl = lnk.getChannel ();
-				if (currentState.ch.get (chnnl) < Integer.parseInt (lnk.getPort ().getRate ()))
+			for (int i=0;i<inChannel[actr].length;i++)
+				if (tokens[inChannel[actr][i]] < inRate[actr][i])
 					return false;
-			}
 			return true;
 		}
 
-		private void endActorFiring (Actor actr) 
+		/**
+		 * End the earliest firing of an actor.
+		 * 
+		 * @param actr index of the actor
+		 */
+		private void endActorFiring (int actr) 
 		{
 			// Produce tokens on all the output channels of this actor.
-			for (Link lnk : actr.getLinks (Port.DIR.OUT))  // get All Outgoing Links
-			{			
-				Channel chnnl = lnk.getChannel ();
-				int portRate = Integer.parseInt (lnk.getPort ().getRate ()) + currentState.ch.get (chnnl);
-				//currentState.ch.remove (chnnl);
-				currentState.ch.put (chnnl, portRate);
-			}
-			
-			// Remove the Actor from the active clocks.
-			currentState.actClk.remove (actr);
+			for (int i=0;i<outChannel[actr].length;i++)
+				tokens[outChannel[actr][i]] += outRate[actr][i];
 			
+			// Remove the firing from the active clocks.
+			numFirings[actr]--;
+			System.arraycopy (actClk[actr], 1, actClk[actr], 0, numFirings[actr]);
 		}
 
-		private boolean storeState (State currState) 
+		/**
+		 * Store the current state.
+		 * 
+		 * @return true if the state was stored, false if it was already visited
+		 */
+		private boolean storeState () 
 		{
-			State tempState = new State ();
-			tempState.clone (currState);
+			int length = 1 + tokens.length + execTime.length;
+			for (int actr=0;actr<execTime.length;actr++)
+				length += numFirings[actr];
 			
-			// We add it to hashed states as well as to the list.
-			// the list preserves the order in which states are
-			// added and hashed states prevents adding of duplicate states.
-			if (storedStatesHash.add (currState) == false)
-			{			
-				// Check if the state is already stored in the list.			
-				for (int i=0;i<storedStates.size ();i++)
-				{
-					State state = storedStates.get (i);
-					if (state.equals (currState))
-					{						
-						currentState.repeatedStateIndex = i;
-						return false;
-					}
-				}
+			if (packedState.length < length)
+				packedState = new int[2 * length];
+			
+			int pos = 0;
+			packedState[pos++] = glbClk;
+			System.arraycopy (tokens, 0, packedState, pos, tokens.length);
+			pos += tokens.length;
+			for (int actr=0;actr<execTime.length;actr++)
+			{
+				packedState[pos++] = numFirings[actr];
+				System.arraycopy (actClk[actr], 0, packedState, pos, numFirings[actr]);
+				pos += numFirings[actr];
+			}
+			
+			int index = storedStates.addIfAbsent (packedState, length);
+			if (index >= 0)
+			{
+				repeatedStateIndex = index;
+				return false;
 			}
-			else			
-				storedStates.add (tempState);			
 			
 			return true;
 		}
 
-		private boolean actorReadyToEnd (Actor actr) 
+		/**
+		 * Check if the earliest firing of an actor has finished.
+		 * 
+		 * @param actr index of the actor
+		 * @return true if a firing can be ended, false otherwise
+		 */
+		private boolean actorReadyToEnd (int actr) 
 		{
-			if (currentState.actClk.containsKey (actr) == false)
-				return false;
-			
-			if (currentState.actClk.get (actr).contains (0) == false)			
-				return false;			
-			
-			return true;
+			return (numFirings[actr] > 0 && actClk[actr][0] == 0);
 		}		
 	}
 	
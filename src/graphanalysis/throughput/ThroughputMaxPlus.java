@@ -0,0 +1,324 @@
+package graphanalysis.throughput;
+
+import java.util.*;
+
+import spdfcore.*;
+import spdfcore.Channel.Link;
+import spdfcore.stanalys.*;
+
+/**
+ * Calculate throughput of an SDF graph with symbolic execution in max-plus algebra.
+ *
+ * Every initial token of the graph gets a symbolic time stamp. One iteration
+ * of the SDF graph is executed symbolically, where a firing starts at the
+ * maximum of the time stamps of the tokens it consumes and produces
+ * tokens with its end time. After the iteration, the time stamps of the
+ * initial tokens are expressed as a max-plus matrix over the time stamps before
+ * the iteration. The eigenvalue of this matrix is the iteration period of the graph.
+ *
+ * The dimension of the matrix is the number of initial tokens, thus we
+ * do not need to expand the graph to HSDF.
+ *
+ * Refer to "Synchronous Dataflow Scenarios" (Geilen) and "Throughput Analysis
+ * of Synchronous Data Flow Graphs" (Ghamarian et al.).
+ *
+ * @author Pranav Tendulkar
+ *
+ */
+public class ThroughputMaxPlus
+{
+	/**
+	 * Minus infinity in max-plus algebra.
+	 */
+	private static final long minusInfinity = Long.MIN_VALUE;
+
+	/**
+	 * Iteration matrix of the last analysed graph.
+	 * matrix[j][i] is the maximum (longest path) distance from initial token i to the new token j.
+	 */
+	private long[][] iterationMatrix = null;
+
+	/**
+	 * Iteration period of the last analysed graph.
+	 */
+	private double iterationPeriod = 0;
+
+	/**
+	 * Get the iteration matrix of the last analysed graph.
+	 * Entry [j][i] is the time distance from initial token i at the start of the iteration
+	 * to token j at the end of the iteration, or Long.MIN_VALUE if there is no dependency.
+	 * The tokens are numbered in the order of the channels and in FIFO order within a channel.
+	 *
+	 * @return iteration matrix, null if the graph deadlocks
+	 */
+	public long[][] getIterationMatrix ()
+	{
+		return iterationMatrix;
+	}
+
+	/**
+	 * Get the iteration period of the last analysed graph.
+	 *
+	 * @return iteration period, infinity if graph deadlocks
+	 */
+	public double getIterationPeriod ()
+	{
+		return iterationPeriod;
+	}
+
+	/**
+	 * Calculate the element-wise maximum of the time stamps.
+	 *
+	 * @param result vector which is updated with the maximum
+	 * @param stamp time stamp to be compared
+	 */
+	private void maximum (long[] result, long[] stamp)
+	{
+		for (int i=0;i<result.length;i++)
+			if (stamp[i] > result[i])
+				result[i] = stamp[i];
+	}
+
+	/**
+	 * Execute one iteration of the graph symbolically and build the iteration matrix.
+	 *
+	 * @param sdfGraph input SDF graph
+	 * @return iteration matrix, null if the graph deadlocks
+	 */
+	public long[][] buildIterationMatrix (Graph sdfGraph)
+	{
+		GraphExpressions expressions = new GraphExpressions ();
+		expressions.parse (sdfGraph);
+		Solutions solutions = new Solutions ();
+		solutions.setThrowExceptionFlag (false);
+		solutions.solve (sdfGraph, expressions);
+
+		// Index the channels and give every initial token a unit time stamp.
+		List<Channel> channels = new ArrayList<Channel>(sdfGraph.getChannelList ());
+		Map<Channel, Integer> channelIndex = new HashMap<Channel, Integer>();
+		int numTokens = 0;
+		for (Channel chnnl : channels)
+		{
+			channelIndex.put (chnnl, channelIndex.size ());
+			numTokens += chnnl.getInitialTokens ();
+		}
+
+		List<ArrayDeque<long[]>> fifo = new ArrayList<ArrayDeque<long[]>>(channels.size ());
+		int token = 0;
+		for (Channel chnnl : channels)
+		{
+			ArrayDeque<long[]> queue = new ArrayDeque<long[]>();
+			for (int i=0;i<chnnl.getInitialTokens ();i++)
+			{
+				long stamp[] = new long[numTokens];
+				Arrays.fill (stamp, minusInfinity);
+				stamp[token++] = 0;
+				queue.add (stamp);
+			}
+			fifo.add (queue);
+		}
+
+		// Index the actors with their ports.
+		List<Actor> actors = new ArrayList<Actor>(sdfGraph.getActorList ());
+		int numActors = actors.size ();
+		int remainingFirings[] = new int[numActors];
+		int execTime[] = new int[numActors];
+		int inChannel[][] = new int[numActors][];
+		int inRate[][] = new int[numActors][];
+		int outChannel[][] = new int[numActors][];
+		int outRate[][] = new int[numActors][];
+		int totalFirings = 0;
+
+		for (int a=0;a<numActors;a++)
+		{
+			Actor actr = actors.get (a);
+			remainingFirings[a] = solutions.getSolution (actr).returnNumber ();
+			totalFirings += remainingFirings[a];
+			execTime[a] = actr.getExecTime ();
+
+			List<Link> links = new ArrayList<Link>(actr.getLinks (Port.DIR.IN));
+			inChannel[a] = new int[links.size ()];
+			inRate[a] = new int[links.size ()];
+			for (int i=0;i<links.size ();i++)
+			{
+				inChannel[a][i] = channelIndex.get (links.get (i).getChannel ());
+				inRate[a][i] = Integer.parseInt (links.get (i).getPort ().getRate ());
+			}
+
+			links = new ArrayList<Link>(actr.getLinks (Port.DIR.OUT));
+			outChannel[a] = new int[links.size ()];
+			outRate[a] = new int[links.size ()];
+			for (int i=0;i<links.size ();i++)
+			{
+				outChannel[a][i] = channelIndex.get (links.get (i).getChannel ());
+				outRate[a][i] = Integer.parseInt (links.get (i).getPort ().getRate ());
+			}
+		}
+
+		// Fire the actors in data-driven order till the iteration is complete.
+		while (totalFirings > 0)
+		{
+			boolean progress = false;
+			for (int a=0;a<numActors;a++)
+			{
+				while (remainingFirings[a] > 0)
+				{
+					boolean ready = true;
+					for (int i=0;i<inChannel[a].length;i++)
+						if (fifo.get (inChannel[a][i]).size () < inRate[a][i])
+						{
+							ready = false;
+							break;
+						}
+
+					if (ready == false)
+						break;
+
+					long stamp[] = new long[numTokens];
+					Arrays.fill (stamp, minusInfinity);
+					for (int i=0;i<inChannel[a].length;i++)
+					{
+						ArrayDeque<long[]> queue = fifo.get (inChannel[a][i]);
+						for (int j=0;j<inRate[a][i];j++)
+							maximum (stamp, queue.poll ());
+					}
+
+					for (int i=0;i<numTokens;i++)
+						if (stamp[i] != minusInfinity)
+							stamp[i] += execTime[a];
+
+					// All the produced tokens share the same time stamp.
+					for (int i=0;i<outChannel[a].length;i++)
+					{
+						ArrayDeque<long[]> queue = fifo.get (outChannel[a][i]);
+						for (int j=0;j<outRate[a][i];j++)
+							queue.add (stamp);
+					}
+
+					remainingFirings[a]--;
+					totalFirings--;
+					progress = true;
+				}
+			}
+
+			if (progress == false)
+				return null;
+		}
+
+		long matrix[][] = new long[numTokens][];
+		token = 0;
+		for (ArrayDeque<long[]> queue : fifo)
+			for (long[] stamp : queue)
+				matrix[token++] = stamp;
+
+		return matrix;
+	}
+
+	/**
+	 * Calculate the eigenvalue of a max-plus matrix, which is the
+	 * maximum cycle mean of its precedence graph. We use Karp's algorithm
+	 * starting from all the nodes at once.
+	 *
+	 * @param matrix square max-plus matrix
+	 * @return eigenvalue of the matrix, negative infinity if there are no cycles
+	 */
+	public double maxPlusEigenvalue (long[][] matrix)
+	{
+		int n = matrix.length;
+
+		// Arcs from token i to token j with weight matrix[j][i].
+		int numArcs = 0;
+		for (int j=0;j<n;j++)
+			for (int i=0;i<n;i++)
+				if (matrix[j][i] != minusInfinity)
+					numArcs++;
+
+		int arcFrom[] = new int[numArcs];
+		int arcTo[] = new int[numArcs];
+		long arcWeight[] = new long[numArcs];
+		numArcs = 0;
+		for (int j=0;j<n;j++)
+			for (int i=0;i<n;i++)
+				if (matrix[j][i] != minusInfinity)
+				{
+					arcFrom[numArcs] = i;
+					arcTo[numArcs] = j;
+					arcWeight[numArcs++] = matrix[j][i];
+				}
+
+		// Karp's formula with the longest walks of k arcs ending in every node. We keep
+		// only two rows of walks. The first pass calculates the row of n arcs, the second
+		// pass calculates the rows again to find the minimum mean of every node.
+		long lastRow[] = new long[n];
+		double minMean[] = new double[n];
+		Arrays.fill (minMean, Double.POSITIVE_INFINITY);
+		long walk[] = new long[n];
+		long nextWalk[] = new long[n];
+		for (int pass=0;pass<2;pass++)
+		{
+			Arrays.fill (walk, 0);
+			for (int k=0;k<n;k++)
+			{
+				if (pass == 1)
+				{
+					for (int v=0;v<n;v++)
+					{
+						if (lastRow[v] == minusInfinity || walk[v] == minusInfinity)
+							continue;
+						double mean = (double) (lastRow[v] - walk[v]) / (double) (n - k);
+						if (mean < minMean[v])
+							minMean[v] = mean;
+					}
+				}
+
+				Arrays.fill (nextWalk, minusInfinity);
+				for (int a=0;a<numArcs;a++)
+				{
+					if (walk[arcFrom[a]] == minusInfinity)
+						continue;
+					long value = walk[arcFrom[a]] + arcWeight[a];
+					if (value > nextWalk[arcTo[a]])
+						nextWalk[arcTo[a]] = value;
+				}
+				long temp[] = walk;
+				walk = nextWalk;
+				nextWalk = temp;
+			}
+			if (pass == 0)
+				System.arraycopy (walk, 0, lastRow, 0, n);
+		}
+
+		double eigenValue = Double.NEGATIVE_INFINITY;
+		for (int v=0;v<n;v++)
+			if (lastRow[v] != minusInfinity && minMean[v] > eigenValue)
+				eigenValue = minMean[v];
+
+		return eigenValue;
+	}
+
+	/**
+	 * Calculates throughput of the graph.
+	 *
+	 * @param sdfGraph input SDF graph
+	 * @return throughput of the graph in iterations per time unit
+	 */
+	public double calculateThroughput (Graph sdfGraph)
+	{
+		iterationMatrix = buildIterationMatrix (sdfGraph);
+		if (iterationMatrix == null)
+		{
+			System.out.println ("System Deadlocked !!");
+			iterationPeriod = Double.POSITIVE_INFINITY;
+			return 0;
+		}
+
+		iterationPeriod = maxPlusEigenvalue (iterationMatrix);
+		if (iterationPeriod <= 0)
+		{
+			iterationPeriod = 0;
+			return Double.POSITIVE_INFINITY;
+		}
+
+		return 1 / iterationPeriod;
+	}
+}
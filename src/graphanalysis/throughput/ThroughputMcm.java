@@ -2,100 +2,81 @@ package graphanalysis.throughput;
 
 import java.util.*;
 
-import graphanalysis.*;
-import graphanalysis.properties.*;
 import spdfcore.*;
-import spdfcore.stanalys.*;
 
 /**
  * Calculate maximum throughput of the graph.
- * 
+ *
+ * The maximum cycle ratio is calculated with a polynomial time
+ * algorithm (see MaxCycleRatio) instead of enumerating all the cycles.
+ *
  * @author Pranav Tendulkar
  *
  */
-public class ThroughputMcm 
+public class ThroughputMcm
 {
 	/**
-	 * HSDF graph
-	 */
-	private Graph hsdfGraph;
-	
-	/**
-	 * Calculate strongly connected components in the graph
-	 */
-	private Kosaraju connectedComponents;
-	
-	/**
-	 * Get some properties of the graph
+	 * Maximum cycle ratio calculator
 	 */
-	private GraphAnalysis graphAnalysis;
-	
+	private MaxCycleRatio maxCycleRatio;
+
 	/**
 	 * Initialize throughput calculator object.
-	 * 
+	 *
 	 * @param hsdfGraph input HSDF graph
 	 */
 	public ThroughputMcm (Graph hsdfGraph)
 	{
-		this.hsdfGraph = hsdfGraph;
-		connectedComponents = new Kosaraju (hsdfGraph);
-		graphAnalysis = new GraphAnalysis ();
+		maxCycleRatio = new MaxCycleRatio (hsdfGraph);
+	}
+
+	/**
+	 * Set the algorithm used to calculate the maximum cycle ratio.
+	 *
+	 * @param algorithm algorithm to be used
+	 */
+	public void setAlgorithm (MaxCycleRatio.Algorithm algorithm)
+	{
+		maxCycleRatio.setAlgorithm (algorithm);
 	}
-	
+
 	/**
 	 * Calculates the throughput using MCM.
 	 * Refer to Bhattacharya book for the formula.
-	 * 
+	 *
 	 * @return maximum throughput of the graph
 	 */
 	public double calculateThroughput ()
 	{
-		double throughPut = 0.0;	
-		
-		if (connectedComponents.isStronglyConnected () == true)
+		double throughPut = 0.0;
+		double mcm = maxCycleRatio.calculateMaxCycleRatio ();
+
+		if (maxCycleRatio.isDeadlocked () == true)
 		{
-			GraphExpressions expressions = new GraphExpressions ();
-			expressions.parse (hsdfGraph);
-			Solutions solutions = new Solutions ();
-			solutions.setThrowExceptionFlag (false);	    		
-			solutions.solve (hsdfGraph, expressions);
-			GraphFindCycles findCycles = new GraphFindCycles ();
-			
-			List<List<Actor>>cycles = findCycles.findCycles (hsdfGraph); 
-			
-			double mcm = Double.NEGATIVE_INFINITY;
-			
-			for (List<Actor> cycle : cycles)
-			{
-				double cycleMcm = 0;
-				double totalExecTime = 0;
-				int totalDelay = 0;
-				for (Actor actr : cycle)
-					totalExecTime += actr.getExecTime ();
-				
-				for (int i=1;i<cycle.size ();i++)
-				{
-					Channel chnnl = graphAnalysis.getChannelConnectingActors (cycle.get (i), cycle.get (i-1), Port.DIR.OUT);
-					totalDelay += chnnl.getInitialTokens ();
-				}
-				
-				Channel chnnl = graphAnalysis.getChannelConnectingActors (cycle.get (0), cycle.get (cycle.size ()-1), Port.DIR.OUT);
-				totalDelay += chnnl.getInitialTokens ();
-				
-				cycleMcm = totalExecTime / totalDelay;
-				
-				// Find the max.
-				mcm = ((cycleMcm > mcm) ? cycleMcm : mcm);
-				// System.out.println ("Cycle " + cycle.toString () + " MCM : " + cycleMcm + " time : " + totalExecTime + " delay " + totalDelay);
-			}
-			throughPut = 1 / mcm;
+			throughPut = 0.0;
+			System.out.println ("The Graph has a cycle without initial tokens " + maxCycleRatio.getCriticalCycle ().toString () + ". The throughput is zero\n");
 		}
+		else if (mcm > 0)
+			throughPut = 1 / mcm;
 		else
-		{	
+		{
 			throughPut = Double.POSITIVE_INFINITY;
-			System.out.println ("The Graph is not strongly connected. The throughput is infinity\n");			
-		}		
-		
+			if (maxCycleRatio.getCriticalCycle ().isEmpty ())
+				System.out.println ("The Graph has no cycle. The throughput is infinity\n");
+			else
+				System.out.println ("The cycles of the Graph have zero execution time " + maxCycleRatio.getCriticalCycle ().toString () + ". The throughput is infinity\n");
+		}
+
 		return throughPut;
 	}
+
+	/**
+	 * Get the critical cycle which limits the throughput.
+	 *
+	 * @return list of actors on the critical cycle
+	 */
+	public List<Actor> getCriticalCycle ()
+	{
+		return maxCycleRatio.getCriticalCycle ();
+	}
 }
@@ -117,6 +117,21 @@ public class CommandLineArgs
 	 */
 	public boolean mutualExclusionGraphAnalysis = false;
 	
+	/**
+	 * Mutual Exclusion with order variables
+	 */
+	public boolean mutualExclusionOrderVariables = false;
+	
+	/**
+	 * Transitivity constraints on the order variables
+	 */
+	public boolean orderTransitivity = true;
+	
+	/**
+	 * Cumulative processor constraints instead of processor allocation
+	 */
+	public boolean cumulativeProcessors = false;
+	
 	/**
 	 * Use Quantifier in SMT solving 
 	 */
@@ -152,15 +167,90 @@ public class CommandLineArgs
 	 */
 	public boolean minLatencyForPeriodExpl = false;
 	
+	/**
+	 * Number of solvers to perform the exploration queries in parallel 
+	 */
+	public int solverWorkers = 1;
+	
+	/**
+	 * Dispatch the queries of many grid lines concurrently to the solver workers 
+	 */
+	public boolean concurrentGrid = false;
+	
+	/**
+	 * Pass the cost constraints as assumptions to the solver instead of push / pop 
+	 */
+	public boolean incrementalQueries = false;
+	
+	/**
+	 * Minimize one dimension by improving the model instead of binary search 
+	 */
+	public boolean objectiveSearch = false;
+	
+	/**
+	 * Seed the exploration with SAT points from list scheduling
+	 */
+	public boolean seedListSchedules = false;
+	
+	/**
+	 * Number of random restarts of list scheduling for the seed points
+	 */
+	public int seedRandomRestarts = 10;
+	
+	/**
+	 * Tighten the exploration bounds with a portfolio of scheduling heuristics
+	 */
+	public boolean heuristicBounds = false;
+	
+	/**
+	 * Adapt the time out of every query to the solving time of the nearby queries
+	 */
+	public boolean adaptiveTimeout = false;
+	
+	/**
+	 * Race every query on all the solver workers, each with a different solver configuration
+	 */
+	public boolean solverPortfolio = false;
+	
+	/**
+	 * Maximum number of Z3 contexts open at the same time (0 for no limit).
+	 * A solver which is built waits until another one is closed, so the limit must be
+	 * at least the number of solvers that one stage keeps open together.
+	 */
+	public int maxSolverContexts = 0;
+	
+	/**
+	 * Number of released Z3 contexts kept for reuse
+	 */
+	public int idleSolverContexts = 1;
+	
+	/**
+	 * Schedule every cluster on its own solver in parallel (distributed memory).
+	 * Every subproblem holds the complete formula with the mutual exclusion of its cluster only,
+	 * so a mapping on k clusters builds k+1 formulas and uses k+1 Z3 contexts.
+	 */
+	public boolean clusterDecomposition = false;
+	
+	/**
+	 * Maximum number of coordination rounds of the cluster decomposition,
+	 * before the complete problem is solved
+	 */
+	public int decompositionRounds = 3;
+	
+	/**
+	 * Number of deployment solutions placed and scheduled in parallel by the design flow
+	 */
+	public int designFlowWorkers = 1;
+	
 	/**
 	 * 
 	 * Pipelined Scheduling Solvers : UNFOLDING_SOLVER -- PERIOD_LOCALITY
-	 * Non-Pipelined Scheduling Solvers : MATRIX_SOLVER -- MUTUAL_EXCLUSION
+	 * Non-Pipelined Scheduling Solvers : MATRIX_SOLVER -- MUTUAL_EXCLUSION -- BRANCH_AND_BOUND
 	 * 
 	 * @author Pranav Tendulkar
 	 *
 	 */
-	public enum SolverType {UNFOLDING_SOLVER, PERIOD_LOCALITY, MATRIX_SOLVER, MUTUAL_EXCLUSION, DUMMY_INVALID};	
+	public enum SolverType {UNFOLDING_SOLVER, PERIOD_LOCALITY, MATRIX_SOLVER, MUTUAL_EXCLUSION, BRANCH_AND_BOUND, DUMMY_INVALID};	
 	
 	/**
 	 * Solver to use for SMT Solving 
@@ -209,6 +299,8 @@ public class CommandLineArgs
 			return SolverType.MATRIX_SOLVER;
 		else if (argument.equalsIgnoreCase ("mutualExclusion")) 
 			return SolverType.MUTUAL_EXCLUSION;
+		else if (argument.equalsIgnoreCase ("branchAndBound")) 
+			return SolverType.BRANCH_AND_BOUND;
 		else
 			throw new RuntimeException ("Was expecting Solver Type unfolding / periodLocality, but found " + argument);
 	}
@@ -253,6 +345,9 @@ public class CommandLineArgs
 		System.out.println ("Enable Functions in Buffer Analysis : " + bufferAnalysisWithFunctions);
 		System.out.println ("Use Left Edge Algorithm : "  + leftEdge);				
 		System.out.println ("Enable Mutual Exclusion Graph Analysis : " + mutualExclusionGraphAnalysis);
+		System.out.println ("Enable Mutual Exclusion with Order Variables : " + mutualExclusionOrderVariables);
+		System.out.println ("Enable Transitivity of Order Variables : " + orderTransitivity);
+		System.out.println ("Use Cumulative Processor Constraints : " + cumulativeProcessors);
 		System.out.println ("Use Quantifiers in Sched Matrix : " + useQuantifier);
 		System.out.println ("Use Max Integer Function in Sched Matrix : " + useMaxFunction);
 		System.out.println ("Processor Constraint for Solver : " + processorConstraint);
@@ -266,6 +361,20 @@ public class CommandLineArgs
 		System.out.println ("Period Constraint : " + periodConstraint);
 		System.out.println ("Latency Constraint : " + latencyConstraint);
 		System.out.println ("Cluster Constraint : " + clusterConstraint);
+		System.out.println ("Parallel Solver Workers : " + solverWorkers);
+		System.out.println ("Concurrent Grid Exploration : " + concurrentGrid);
+		System.out.println ("Incremental Solver Queries : " + incrementalQueries);
+		System.out.println ("Objective Search for One Dimension : " + objectiveSearch);
+		System.out.println ("Seed List Schedules : " + seedListSchedules);
+		System.out.println ("Seed Random Restarts : " + seedRandomRestarts);
+		System.out.println ("Heuristic Bounds : " + heuristicBounds);
+		System.out.println ("Adaptive Timeout : " + adaptiveTimeout);
+		System.out.println ("Solver Portfolio : " + solverPortfolio);
+		System.out.println ("Max Solver Contexts : " + maxSolverContexts);
+		System.out.println ("Idle Solver Contexts : " + idleSolverContexts);
+		System.out.println ("Cluster Decomposition : " + clusterDecomposition);
+		System.out.println ("Decomposition Rounds : " + decompositionRounds);
+		System.out.println ("Design Flow Workers : " + designFlowWorkers);
 		System.out.println ("Solver : " + solver.toString ());
 	}
 	
@@ -291,6 +400,9 @@ public class CommandLineArgs
 		System.out.println ("-bufferfunctions <True / False> : Enable Functions in Buffer Analysis : " + bufferAnalysisWithFunctions);
 		System.out.println ("-leftedge <True / False> : Use left edge algorithm : " + leftEdge);
 		System.out.println ("-mutexgraph <True / False> : Enable Mutual Exclusion Graph Analysis : " + mutualExclusionGraphAnalysis);
+		System.out.println ("-mutexorder <True / False> : Enable Mutual Exclusion with Order Variables : " + mutualExclusionOrderVariables);
+		System.out.println ("-ordertransitivity <True / False> : Enable Transitivity of Order Variables : " + orderTransitivity);
+		System.out.println ("-cumulative <True / False> : Use Cumulative Processor Constraints : " + cumulativeProcessors);
 		System.out.println ("-quant <True / False> : Use Quantifiers in Sched Matrix : " + useQuantifier);
 		System.out.println ("-maxfunc <True / False> : Use Max Integer Function in Sched Matrix : " + useMaxFunction);
 		System.out.println ("-proc <No. Of Processors> : Processor Constraint for Solver : " + processorConstraint);
@@ -304,7 +416,21 @@ public class CommandLineArgs
 		System.out.println ("-period <Period Constraint Value> : Period Constraint for Solver : " + periodConstraint);
 		System.out.println ("-latency <Period Constraint Value> : Period Constraint for Solver : " + latencyConstraint);
 		System.out.println ("-clusters <Cluster Constraint Value> : Cluster Constraint for Solver : " + clusterConstraint);
-		System.out.println ("-solver <Solver Type> : which solver To Use <unfolding / periodLocality / matrixSolver / mutualExclusion> : " + solver.toString ());
+		System.out.println ("-solverWorkers <No. Of Solvers> : Solvers to perform exploration queries in parallel : " + solverWorkers);
+		System.out.println ("-concurrentGrid <True / False> : Dispatch incomparable grid points concurrently to the solver workers : " + concurrentGrid);
+		System.out.println ("-incrementalQueries <True / False> : Pass cost constraints as assumptions and keep the solver state across queries : " + incrementalQueries);
+		System.out.println ("-objectiveSearch <True / False> : Minimize one dimension by improving the model instead of binary search : " + objectiveSearch);
+		System.out.println ("-seedListSchedules <True / False> : Seed the exploration with SAT points from list scheduling : " + seedListSchedules);
+		System.out.println ("-seedRandomRestarts <Number of Restarts> : Random restarts of list scheduling for the seed points : " + seedRandomRestarts);
+		System.out.println ("-heuristicBounds <True / False> : Tighten the exploration bounds with HEFT, CPOP and list scheduling heuristics : " + heuristicBounds);
+		System.out.println ("-adaptiveTimeout <True / False> : Adapt the time out of each query to nearby queries and refine the timed out points : " + adaptiveTimeout);
+		System.out.println ("-solverPortfolio <True / False> : Race every query on all the solver workers with different seeds, tactics and encodings : " + solverPortfolio);
+		System.out.println ("-maxSolverContexts <No. Of Contexts> : Maximum Z3 contexts open at the same time, new solvers wait for a free one, 0 for no limit : " + maxSolverContexts);
+		System.out.println ("-idleSolverContexts <No. Of Contexts> : Released Z3 contexts kept for reuse : " + idleSolverContexts);
+		System.out.println ("-clusterDecomposition <True / False> : Schedule every cluster on its own solver in parallel, with one complete formula and Z3 context per cluster plus the master : " + clusterDecomposition);
+		System.out.println ("-decompositionRounds <No. Of Rounds> : Coordination rounds of the cluster decomposition per query before the complete problem is solved : " + decompositionRounds);
+		System.out.println ("-designFlowWorkers <No. Of Workers> : Deployment solutions placed and scheduled in parallel, sharing the global time out : " + designFlowWorkers);
+		System.out.println ("-solver <Solver Type> : which solver To Use <unfolding / periodLocality / matrixSolver / mutualExclusion / branchAndBound> : " + solver.toString ());
 	}
 		
 	/**
@@ -356,6 +482,12 @@ public class CommandLineArgs
 				leftEdge = stringToBoolean (args[++i]);
 			else if (args[i].equalsIgnoreCase ("-mutexgraph"))
 				mutualExclusionGraphAnalysis = stringToBoolean (args[++i]);
+			else if (args[i].equalsIgnoreCase ("-mutexorder"))
+				mutualExclusionOrderVariables = stringToBoolean (args[++i]);
+			else if (args[i].equalsIgnoreCase ("-ordertransitivity"))
+				orderTransitivity = stringToBoolean (args[++i]);
+			else if (args[i].equalsIgnoreCase ("-cumulative"))
+				cumulativeProcessors = stringToBoolean (args[++i]);
 			else if (args[i].equalsIgnoreCase ("-quant"))
 				useQuantifier = stringToBoolean (args[++i]);
 			else if (args[i].equalsIgnoreCase ("-maxfunc"))
@@ -378,6 +510,34 @@ public class CommandLineArgs
 				latencyConstraint = Integer.parseInt (args[++i]);
 			else if (args[i].equalsIgnoreCase ("-clusters"))
 				clusterConstraint = Integer.parseInt (args[++i]);
+			else if (args[i].equalsIgnoreCase ("-solverWorkers"))
+				solverWorkers = Integer.parseInt (args[++i]);
+			else if (args[i].equalsIgnoreCase ("-concurrentGrid"))
+				concurrentGrid = stringToBoolean (args[++i]);
+			else if (args[i].equalsIgnoreCase ("-incrementalQueries"))
+				incrementalQueries = stringToBoolean (args[++i]);
+			else if (args[i].equalsIgnoreCase ("-objectiveSearch"))
+				objectiveSearch = stringToBoolean (args[++i]);
+			else if (args[i].equalsIgnoreCase ("-seedListSchedules"))
+				seedListSchedules = stringToBoolean (args[++i]);
+			else if (args[i].equalsIgnoreCase ("-seedRandomRestarts"))
+				seedRandomRestarts = Integer.parseInt (args[++i]);
+			else if (args[i].equalsIgnoreCase ("-heuristicBounds"))
+				heuristicBounds = stringToBoolean (args[++i]);
+			else if (args[i].equalsIgnoreCase ("-adaptiveTimeout"))
+				adaptiveTimeout = stringToBoolean (args[++i]);
+			else if (args[i].equalsIgnoreCase ("-solverPortfolio"))
+				solverPortfolio = stringToBoolean (args[++i]);
+			else if (args[i].equalsIgnoreCase ("-maxSolverContexts"))
+				maxSolverContexts = Integer.parseInt (args[++i]);
+			else if (args[i].equalsIgnoreCase ("-idleSolverContexts"))
+				idleSolverContexts = Integer.parseInt (args[++i]);
+			else if (args[i].equalsIgnoreCase ("-clusterDecomposition"))
+				clusterDecomposition = stringToBoolean (args[++i]);
+			else if (args[i].equalsIgnoreCase ("-decompositionRounds"))
+				decompositionRounds = Integer.parseInt (args[++i]);
+			else if (args[i].equalsIgnoreCase ("-designFlowWorkers"))
+				designFlowWorkers = Integer.parseInt (args[++i]);
 			else if (args[i].equalsIgnoreCase ("-solver"))
 				solver = parseSolverType (args[++i]);
 			else if (args[i].equalsIgnoreCase ("-h"))
@@ -2,6 +2,7 @@ package output;
 import java.io.*;
 import java.util.*;
 
+import solver.IntModel;
 import solver.SmtVariablePrefixes;
 import spdfcore.*;
 
@@ -597,7 +598,7 @@ public class GanttChart
 		}
 		
 		if (model.containsKey (SmtVariablePrefixes.periodPrefix))
-			period = Integer.parseInt (model.get (SmtVariablePrefixes.periodPrefix));
+			period = IntModel.getInt (model, SmtVariablePrefixes.periodPrefix);
 		
 		plotChart (model, taskDuration, outputFileName, period);		
 	}
@@ -647,8 +648,8 @@ public class GanttChart
 			if ((key.startsWith ("x") == true) && (key.startsWith ("xPrime") == false))
 			{
 				String actorName = key.substring (1);
-				int startTime = Integer.parseInt (model.get (key));
-				int processor = Integer.parseInt (model.get ("cpu"+actorName));
+				int startTime = IntModel.getInt (model, key);
+				int processor = IntModel.getInt (model, "cpu"+actorName);
 				int endTime = startTime;
 				String split[] = actorName.split ("_");
 				int duration = taskDuration.get (split[0]);
@@ -0,0 +1,282 @@
+package solver;
+
+import java.util.*;
+
+import com.microsoft.z3.*;
+
+/**
+ * Model returned by the Z3 Solver on a SAT answer, read as integers.
+ *
+ * Only the values which are asked for are evaluated in the Z3 model. The costs
+ * and the schedule are read as int values directly, without converting the
+ * complete model to text and parsing it again. The interpretation of a function
+ * is converted only when a value of this function is requested, and only for
+ * this function. The values are looked up by the name of the variable or function.
+ *
+ * The model can still be used as a map from variable name to its value as text.
+ * The complete map is built only if it is iterated.
+ *
+ * @author Pranav Tendulkar
+ *
+ */
+public class IntModel extends AbstractMap<String, String>
+{
+	/**
+	 * Model returned by the Z3 Solver.
+	 */
+	private Model model;
+
+	/**
+	 * Declarations of the constants in the model by name, built on first lookup.
+	 */
+	private Map<String, FuncDecl> constantDecls = null;
+
+	/**
+	 * Values of the constants which are already evaluated.
+	 */
+	private Map<String, Integer> constantValues = new HashMap<String, Integer>();
+
+	/**
+	 * Declarations of the functions in the model by name, built on first lookup.
+	 */
+	private Map<String, FuncDecl> functionDecls = null;
+
+	/**
+	 * Values of the functions which are already converted, by function name.
+	 */
+	private Map<String, Map<String, String>> functionValues = new HashMap<String, Map<String, String>>();
+
+	/**
+	 * Complete model as text, built only if it is iterated.
+	 */
+	private Map<String, String> textModel = null;
+
+	/**
+	 * Build an integer model.
+	 *
+	 * @param model model returned by the Z3 Solver
+	 */
+	public IntModel (Model model)
+	{
+		this.model = model;
+	}
+
+	/**
+	 * Get the Z3 model.
+	 *
+	 * @return model returned by the Z3 Solver
+	 */
+	public Model getZ3Model () { return model; }
+
+	/**
+	 * Convert a numeral returned by the model to an integer.
+	 *
+	 * @param value value returned by the model
+	 * @param name name used in the error message
+	 * @return integer value
+	 */
+	private static long toLong (Expr value, String name)
+	{
+		if (value instanceof IntNum)
+		{
+			try { return ((IntNum) value).getInt64 (); } catch (Z3Exception e) { e.printStackTrace (); }
+		}
+		throw new RuntimeException ("The model does not have an integer value for " + name);
+	}
+
+	/**
+	 * Evaluate an integer expression in the model.
+	 *
+	 * @param expr integer expression, usually a declared constant
+	 * @return value of the expression
+	 */
+	public long getLong (IntExpr expr)
+	{
+		Expr value = null;
+		try { value = model.eval (expr, false); } catch (Z3Exception e) { e.printStackTrace (); }
+		return toLong (value, expr.toString ());
+	}
+
+	/**
+	 * Evaluate an integer expression in the model.
+	 *
+	 * @param expr integer expression, usually a declared constant
+	 * @return value of the expression
+	 */
+	public int getInt (IntExpr expr)
+	{
+		return (int) getLong (expr);
+	}
+
+	/**
+	 * Get the declaration of a constant in the model.
+	 *
+	 * @param name name of the constant
+	 * @return declaration of the constant, null if the model does not have it
+	 */
+	private FuncDecl getConstantDecl (String name)
+	{
+		if (constantDecls == null)
+		{
+			constantDecls = new HashMap<String, FuncDecl>();
+			try
+			{
+				for (FuncDecl decl : model.getConstDecls ())
+					constantDecls.put (decl.getName ().toString (), decl);
+			} catch (Z3Exception e) { e.printStackTrace (); }
+		}
+		return constantDecls.get (name);
+	}
+
+	/**
+	 * Get the values of a function in the model. The interpretation of the
+	 * function is converted the first time, the other functions are not.
+	 *
+	 * @param key key of a function value "(name [arguments])"
+	 * @return values of the function by key, null if the model does not have the function
+	 */
+	private Map<String, String> getFunctionValues (String key)
+	{
+		int end = key.indexOf (' ');
+		String name = key.substring (1, (end == -1) ? key.length () : end);
+		Map<String, String> values = functionValues.get (name);
+		if (values != null)
+			return values;
+
+		if (functionDecls == null)
+		{
+			functionDecls = new HashMap<String, FuncDecl>();
+			try
+			{
+				for (FuncDecl decl : model.getFuncDecls ())
+					functionDecls.put (decl.getName ().toString (), decl);
+			} catch (Z3Exception e) { e.printStackTrace (); }
+		}
+
+		FuncDecl decl = functionDecls.get (name);
+		if (decl == null)
+			return null;
+		values = new HashMap<String, String>();
+		try { Z3Context.parseFunctionInterp (model, decl, values); } catch (Z3Exception e) { e.printStackTrace (); }
+		functionValues.put (name, values);
+		return values;
+	}
+
+	/**
+	 * Get value of an integer constant by its name.
+	 *
+	 * @param name name of the constant
+	 * @return value of the constant
+	 */
+	public int getInt (String name)
+	{
+		Integer value = constantValues.get (name);
+		if (value == null)
+		{
+			FuncDecl decl = getConstantDecl (name);
+			if (decl == null)
+				throw new RuntimeException ("The model does not have a value for " + name);
+
+			Expr interp = null;
+			try { interp = model.getConstInterp (decl); } catch (Z3Exception e) { e.printStackTrace (); }
+			value = (int) toLong (interp, name);
+			constantValues.put (name, value);
+		}
+		return value;
+	}
+
+	/**
+	 * Get value of an integer variable from a model.
+	 * The value is evaluated directly if it is an integer model, otherwise it is parsed from the text.
+	 *
+	 * @param model model returned by the solver
+	 * @param name name of the variable
+	 * @return value of the variable
+	 */
+	public static int getInt (Map<String, String> model, String name)
+	{
+		if (model instanceof IntModel)
+			return ((IntModel) model).getInt (name);
+		return Integer.parseInt (model.get (name));
+	}
+
+	/**
+	 * Copy the values of a model, so that it can be kept after the query.
+	 * The solver may answer other queries or be closed, which changes or
+	 * releases the Z3 model read by an integer model.
+	 *
+	 * Other maps do not read the solver and are returned as they are.
+	 *
+	 * @param model model returned by the solver, can be null
+	 * @return map of variable name and its value
+	 */
+	public static Map<String, String> copyOf (Map<String, String> model)
+	{
+		if (model instanceof IntModel)
+			return new HashMap<String, String>(model);
+		return model;
+	}
+
+	/**
+	 * Get the complete model as text.
+	 *
+	 * @return map of variable name and its value
+	 */
+	private Map<String, String> getTextModel ()
+	{
+		if (textModel == null)
+			textModel = Z3Context.parseModel (model);
+		return textModel;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractMap#get(java.lang.Object)
+	 */
+	@Override
+	public String get (Object key)
+	{
+		if (textModel == null && key instanceof String && ((String) key).startsWith ("("))
+		{
+			Map<String, String> values = getFunctionValues ((String) key);
+			return (values == null) ? null : values.get (key);
+		}
+		if (textModel == null && key instanceof String)
+		{
+			Integer value = constantValues.get (key);
+			if (value != null)
+				return value.toString ();
+
+			FuncDecl decl = getConstantDecl ((String) key);
+			if (decl == null)
+				return null;
+			try { return model.getConstInterp (decl).toString (); } catch (Z3Exception e) { e.printStackTrace (); }
+			return null;
+		}
+		return getTextModel ().get (key);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractMap#containsKey(java.lang.Object)
+	 */
+	@Override
+	public boolean containsKey (Object key)
+	{
+		if (textModel == null && key instanceof String && ((String) key).startsWith ("("))
+		{
+			Map<String, String> values = getFunctionValues ((String) key);
+			return (values != null && values.containsKey (key));
+		}
+		if (textModel == null && key instanceof String)
+			return getConstantDecl ((String) key) != null;
+		return getTextModel ().containsKey (key);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractMap#entrySet()
+	 */
+	@Override
+	public Set<Map.Entry<String, String>> entrySet ()
+	{
+		return Collections.unmodifiableMap (getTextModel ()).entrySet ();
+	}
+}
@@ -230,6 +230,17 @@ public class SmtVariablePrefixes
 	 */
 	public static final String maxCpuPrefix = "maxCpu";
 	
+	/**
+	 * Boolean literal which enables a cost constraint, passed as an assumption to the solver.
+	 */
+	public static final String assumptionPrefix = "assumeBound_";
+	
+	/**
+	 * Boolean literal which enables the mutual exclusion constraints of the master problem
+	 * in the cluster decomposition.
+	 */
+	public static final String mutualExclusionGuardPrefix = "mutExclGuard";
+	
 	// Pipelined Scheduling 
 	/**
 	 * xPrime variable for pipelined scheduling.
@@ -261,6 +272,11 @@ public class SmtVariablePrefixes
 	 */
 	public static final String afterVarPrefix = "after_";
 	
+	/**
+	 * Order of two tasks on the same processor.
+	 */
+	public static final String orderPrefix = "order_";
+	
 	/**
 	 * Number of initial tokens in the channel. 
 	 */
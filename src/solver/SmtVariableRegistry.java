@@ -0,0 +1,293 @@
+package solver;
+
+import java.util.*;
+
+import com.microsoft.z3.IntExpr;
+
+/**
+ * Registry of SMT variables defined for every instance of every actor.
+ *
+ * The variables are stored in arrays indexed by kind of the variable,
+ * index of the actor and instance of the actor. Looking up a variable requires
+ * a single hash of the actor name (which is cached by the String), instead
+ * of building and hashing the complete variable name every time.
+ *
+ * Actors are indexed in the order in which their first variable is registered.
+ *
+ * @author Pranav Tendulkar
+ */
+public class SmtVariableRegistry
+{
+	/**
+	 * Kind of the variables which are defined per actor instance.
+	 */
+	public enum Kind
+	{
+		/**
+		 * Start time of the task
+		 */
+		START_TIME (SmtVariablePrefixes.startTimePrefix, "_"),
+		/**
+		 * End time of the task
+		 */
+		END_TIME (SmtVariablePrefixes.endTimePrefix, "_"),
+		/**
+		 * End time of the task including the DMA start
+		 */
+		END_DOT_TIME (SmtVariablePrefixes.endDotTimePrefix, "_"),
+		/**
+		 * Processor allocated to the task
+		 */
+		CPU (SmtVariablePrefixes.cpuPrefix, "_"),
+		/**
+		 * Number of tasks started before this task
+		 */
+		TASKS_STARTED_BEFORE (SmtVariablePrefixes.tasksStartedBeforePrefix, "_"),
+		/**
+		 * Number of tasks ended before this task
+		 */
+		TASKS_ENDED_BEFORE (SmtVariablePrefixes.tasksEndedBeforePrefix, "_"),
+		/**
+		 * Processor utilization when task starts
+		 */
+		PROC_UTIL (SmtVariablePrefixes.procUtilPrefix, "_"),
+		/**
+		 * Maximum processor index used till this task, for processor symmetry
+		 */
+		MAX_CPU (SmtVariablePrefixes.maxCpuPrefix, "");
+
+		/**
+		 * Prefix of the variable name
+		 */
+		private final String prefix;
+
+		/**
+		 * Separator between actor name and instance id in variable name
+		 */
+		private final String separator;
+
+		/**
+		 * Define a kind of variable.
+		 *
+		 * @param prefix prefix of the variable name
+		 * @param separator separator between actor name and instance
+		 */
+		Kind (String prefix, String separator)
+		{
+			this.prefix = prefix;
+			this.separator = separator;
+		}
+
+		/**
+		 * Get the name of the SMT variable.
+		 *
+		 * @param actorName name of the actor
+		 * @param instance instance of the actor
+		 * @return name of the variable
+		 */
+		public String variableName (String actorName, int instance)
+		{
+			return prefix + actorName + separator + Integer.toString (instance);
+		}
+	}
+
+	/**
+	 * Index of every actor.
+	 */
+	private Map<String, Integer> actorIndex = new HashMap<String, Integer>();
+
+	/**
+	 * Name of every actor.
+	 */
+	private List<String> actorNames = new ArrayList<String>();
+
+	/**
+	 * Actor index and instance of the HSDF actor names (actor_instance).
+	 */
+	private Map<String, int[]> instanceNames = new HashMap<String, int[]>();
+
+	/**
+	 * Variables [kind][actor][instance].
+	 */
+	private IntExpr[][][] variables = new IntExpr[Kind.values ().length][][];
+
+	/**
+	 * Get the index of an actor.
+	 *
+	 * @param actorName name of the actor
+	 * @return index of the actor, -1 if no variable is registered for it
+	 */
+	public int getActorIndex (String actorName)
+	{
+		Integer index = actorIndex.get (actorName);
+		return (index == null) ? -1 : index;
+	}
+
+	/**
+	 * Get the name of an actor.
+	 *
+	 * @param index index of the actor
+	 * @return name of the actor
+	 */
+	public String getActorName (int index)
+	{
+		return actorNames.get (index);
+	}
+
+	/**
+	 * Get number of actors which have variables.
+	 *
+	 * @return number of actors
+	 */
+	public int getNumActors ()
+	{
+		return actorNames.size ();
+	}
+
+	/**
+	 * Register a variable of an actor instance.
+	 *
+	 * @param kind kind of the variable
+	 * @param actorName name of the actor
+	 * @param instance instance of the actor
+	 * @param variable SMT variable
+	 */
+	public void put (Kind kind, String actorName, int instance, IntExpr variable)
+	{
+		int actor = getActorIndex (actorName);
+		if (actor == -1)
+		{
+			actor = actorNames.size ();
+			actorIndex.put (actorName, actor);
+			actorNames.add (actorName);
+		}
+
+		IntExpr[][] kindVariables = variables[kind.ordinal ()];
+		if (kindVariables == null)
+			kindVariables = new IntExpr[Math.max (16, actor+1)][];
+		else if (kindVariables.length <= actor)
+			kindVariables = Arrays.copyOf (kindVariables, Math.max (2 * kindVariables.length, actor+1));
+		variables[kind.ordinal ()] = kindVariables;
+
+		if (kindVariables[actor] == null)
+			kindVariables[actor] = new IntExpr[instance+1];
+		else if (kindVariables[actor].length <= instance)
+			kindVariables[actor] = Arrays.copyOf (kindVariables[actor], instance+1);
+		kindVariables[actor][instance] = variable;
+
+		String instanceName = actorName + "_" + Integer.toString (instance);
+		if (instanceNames.containsKey (instanceName) == false)
+			instanceNames.put (instanceName, new int[] { actor, instance });
+	}
+
+	/**
+	 * Get a variable of an actor instance.
+	 *
+	 * @param kind kind of the variable
+	 * @param actor index of the actor
+	 * @param instance instance of the actor
+	 * @return SMT variable, null if not registered
+	 */
+	public IntExpr get (Kind kind, int actor, int instance)
+	{
+		IntExpr[][] kindVariables = variables[kind.ordinal ()];
+		if (actor < 0 || kindVariables == null || actor >= kindVariables.length)
+			return null;
+		IntExpr[] actorVariables = kindVariables[actor];
+		if (actorVariables == null || instance >= actorVariables.length)
+			return null;
+		return actorVariables[instance];
+	}
+
+	/**
+	 * Get a variable of an actor instance.
+	 *
+	 * @param kind kind of the variable
+	 * @param actorName name of the actor
+	 * @param instance instance of the actor
+	 * @return SMT variable, null if not registered
+	 */
+	public IntExpr get (Kind kind, String actorName, int instance)
+	{
+		return get (kind, getActorIndex (actorName), instance);
+	}
+
+	/**
+	 * Get a variable of an actor instance by the name of the
+	 * HSDF actor (actor name _ instance).
+	 *
+	 * @param kind kind of the variable
+	 * @param instanceName name of the HSDF actor
+	 * @return SMT variable, null if not registered
+	 */
+	public IntExpr get (Kind kind, String instanceName)
+	{
+		int[] instance = instanceNames.get (instanceName);
+		if (instance == null)
+			return null;
+		return get (kind, instance[0], instance[1]);
+	}
+
+	/**
+	 * Get the names of all the variables of a kind in sorted order.
+	 *
+	 * @param kind kind of the variable
+	 * @return sorted list of variable names
+	 */
+	public List<String> getVariableNames (Kind kind)
+	{
+		List<String> result = new ArrayList<String>();
+		IntExpr[][] kindVariables = variables[kind.ordinal ()];
+		if (kindVariables == null)
+			return result;
+
+		for (int actor=0;actor<kindVariables.length;actor++)
+		{
+			if (kindVariables[actor] == null)
+				continue;
+			for (int instance=0;instance<kindVariables[actor].length;instance++)
+				if (kindVariables[actor][instance] != null)
+					result.add (kind.variableName (actorNames.get (actor), instance));
+		}
+		Collections.sort (result);
+		return result;
+	}
+
+	/**
+	 * Get a variable by its SMT name.
+	 *
+	 * @param kind kind of the variable
+	 * @param variableName name of the SMT variable
+	 * @return SMT variable, null if not registered
+	 */
+	public IntExpr getByVariableName (Kind kind, String variableName)
+	{
+		if (variableName.startsWith (kind.prefix) == false)
+			return null;
+		String name = variableName.substring (kind.prefix.length ());
+		if (kind.separator.length () > 0)
+			return get (kind, name);
+
+		// No separator, try all the splits of the name.
+		for (int i=name.length ()-1;i>0;i--)
+		{
+			if (Character.isDigit (name.charAt (i)) == false)
+				break;
+			IntExpr result = get (kind, name.substring (0, i), Integer.parseInt (name.substring (i)));
+			if (result != null)
+				return result;
+		}
+		return null;
+	}
+
+	/**
+	 * Remove all the variables.
+	 */
+	public void clear ()
+	{
+		actorIndex.clear ();
+		actorNames.clear ();
+		instanceNames.clear ();
+		Arrays.fill (variables, null);
+	}
+}
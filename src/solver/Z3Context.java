@@ -1,5 +1,6 @@
 package solver;
 
+import java.io.Closeable;
 import java.util.*;
 
 import solver.Z3Solver.SatResult;
@@ -9,10 +10,14 @@ import com.microsoft.z3.*;
  * This class contains a Z3 Solver context.
  * A Z3 context contains a lot of assertions
  * 
+ * The context is taken from the Z3ContextPool, and must be given back with 
+ * close () when the object is not used anymore, otherwise its native memory
+ * is not recovered.
+ * 
  * @author Pranav Tendulkar
  *
  */
-public class Z3Context
+public class Z3Context implements Closeable
 {
 	/**
 	 * Z3 Context.
@@ -24,13 +29,18 @@ public class Z3Context
 	 */
 	public Z3Context ()
 	{
-		// Enable Z3 Solver to produce Models on a SAT answer.
-		HashMap<String, String> cfg = new HashMap<String, String>();
-		cfg.put ("MODEL", "true");
-		try 
-		{
-			ctx = new Context (cfg);
-		} catch (Z3Exception e) { e.printStackTrace (); }		
+		ctx = Z3ContextPool.acquire ();
+	}
+	
+	/**
+	 * Give back the Z3 context to the pool. The object must not be used afterwards.
+	 * Closing it again has no effect.
+	 */
+	@Override
+	public void close ()
+	{
+		Z3ContextPool.release (ctx);
+		ctx = null;
 	}
 	
 	/**
@@ -59,11 +69,12 @@ public class Z3Context
 
 	/**
 	 * Parse a Model from the model class to a hash map.
+	 * This converts every value to text, use IntModel to read only the required values.
 	 * 
 	 * @param model model returned by the Z3 Solver.
 	 * @return HashMap representation of the model.
 	 */
-	private Map<String, String> parseModel (Model model)
+	static Map<String, String> parseModel (Model model)
 	{
 		Map<String, String> result = new TreeMap<String, String>();
 		
@@ -75,37 +86,7 @@ public class Z3Context
 			for (int i=0;i<decl.length;i++)
 			{
 				if (decl[i].getArity () > 0)
-				{
-					// This is a function.
-					String value = model.getFuncInterp (decl[i]).toString ();				
-					value = value.replaceAll ("\\[", "");
-					value = value.replaceAll ("\\]", "");
-					value = value.replaceAll (" ", "");               // remove spaces, too,
-					                                                 // no need to trim later
-					int start = 0;
-					while (start < value.length ()) 
-					{
-					    int arrow = value.indexOf ("->", start);      // next -> after start
-					    int comma = value.indexOf (",", arrow);       // next comma after ->
-					    comma = comma > -1 ? comma : value.length (); // final segment?
-				
-					    String segment = value.substring (start, comma);
-					    String key = segment.split ("->")[0];         // before ->
-					    String val = segment.split ("->")[1];         // after ->
-				
-					    if (key.contains ("else") == false)
-					    {
-					        String[] keys = key.split (",");
-					        // System.out.println (Arrays.toString (keys) + ": " + val);
-					        result.put (("("+decl[i].getName ().toString ()+" " + Arrays.toString (keys)+")"), val);
-					    }
-					    else
-					    {
-					    	// the last part which contains else, which we ignore.
-					    }
-					    start = comma + 1;                           // continue after segment
-					}							
-				}
+					parseFunctionInterp (model, decl[i], result);
 				else
 					result.put (decl[i].getName ().toString (), model.getConstInterp (decl[i]).toString ());							
 			}			
@@ -114,6 +95,47 @@ public class Z3Context
 		return result;
 	}	
 
+	/**
+	 * Parse the interpretation of a function in a model. Every point of the function
+	 * is added to the map with the key "(name [arguments])".
+	 * 
+	 * @param model model returned by the Z3 Solver.
+	 * @param decl declaration of the function
+	 * @param result map to which the values are added
+	 * @throws Z3Exception
+	 */
+	static void parseFunctionInterp (Model model, FuncDecl decl, Map<String, String> result) throws Z3Exception
+	{
+		String value = model.getFuncInterp (decl).toString ();				
+		value = value.replaceAll ("\\[", "");
+		value = value.replaceAll ("\\]", "");
+		value = value.replaceAll (" ", "");               // remove spaces, too,
+		                                                 // no need to trim later
+		int start = 0;
+		while (start < value.length ()) 
+		{
+		    int arrow = value.indexOf ("->", start);      // next -> after start
+		    int comma = value.indexOf (",", arrow);       // next comma after ->
+		    comma = comma > -1 ? comma : value.length (); // final segment?
+	
+		    String segment = value.substring (start, comma);
+		    String key = segment.split ("->")[0];         // before ->
+		    String val = segment.split ("->")[1];         // after ->
+	
+		    if (key.contains ("else") == false)
+		    {
+		        String[] keys = key.split (",");
+		        // System.out.println (Arrays.toString (keys) + ": " + val);
+		        result.put (("("+decl.getName ().toString ()+" " + Arrays.toString (keys)+")"), val);
+		    }
+		    else
+		    {
+		    	// the last part which contains else, which we ignore.
+		    }
+		    start = comma + 1;                           // continue after segment
+		}
+	}
+
 	/**
 	 * Assert a SMT Query in the Solver.
 	 * 
@@ -122,6 +144,19 @@ public class Z3Context
 	 * @return Result from the Z3 Solver for the query.
 	 */
 	public SatResult check (Solver solver, int timeOutInSeconds)
+	{
+		return check (solver, timeOutInSeconds, new BoolExpr[0]);
+	}
+
+	/**
+	 * Assert a SMT Query in the Solver under the given assumptions.
+	 * 
+	 * @param solver Z3 Solver instance
+	 * @param timeOutInSeconds time out in seconds
+	 * @param assumptions boolean literals which are assumed true only for this query
+	 * @return Result from the Z3 Solver for the query.
+	 */
+	public SatResult check (Solver solver, int timeOutInSeconds, BoolExpr assumptions[])
 	{	
 		SatResult result = SatResult.UNKNOWN;	
 		try 
@@ -140,7 +175,7 @@ public class Z3Context
 				ctx.updateParamValue("timeout", Integer.toString(timeOutInSeconds * 1000));
 			}
 			
-			Status satResult = solver.check ();
+			Status satResult = (assumptions.length == 0) ? solver.check () : solver.check (assumptions);
 			
 			// if True
 			if (satResult == Status.SATISFIABLE)
@@ -165,17 +200,18 @@ public class Z3Context
 
 	/**
 	 * Get a Model after we have a SAT answer.
+	 * The values are evaluated only when they are read from the model.
 	 * 
 	 * @param solver Z3 Solver
 	 * @return Map containing a variable and its assignment
 	 */
-	public Map<String, String> getModel (Solver solver) 
+	public IntModel getModel (Solver solver) 
 	{
-		Map<String, String>modelMap=null;
+		IntModel modelMap=null;
 		try 
 		{
 			Model model = solver.getModel ();			
-			modelMap = parseModel (model);
+			modelMap = new IntModel (model);
 		} catch (Z3Exception e) { e.printStackTrace (); }		
 		return modelMap;		
 	}	
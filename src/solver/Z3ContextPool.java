@@ -0,0 +1,200 @@
+package solver;
+
+import java.io.*;
+import java.util.*;
+
+import com.microsoft.z3.*;
+
+/**
+ * Pool of Z3 contexts shared by all the solvers.
+ *
+ * A Z3 context allocates native memory which is not seen by the garbage collector.
+ * The design flow builds a new solver for every partition and every deployment solution,
+ * so a long run keeps growing its native memory if the contexts are not released.
+ * A solver takes a context from this pool when it is built and gives it back when it is closed.
+ * The released contexts are kept for reuse up to a limit, the others are disposed.
+ * The number of contexts which are open at the same time can be limited, then a solver
+ * which is built waits until another one is closed.
+ *
+ * @author Pranav Tendulkar
+ *
+ */
+public class Z3ContextPool
+{
+	/**
+	 * Maximum number of contexts open at the same time, 0 for no limit.
+	 */
+	private static int maxContexts = 0;
+
+	/**
+	 * Maximum number of released contexts kept for reuse.
+	 */
+	private static int maxIdleContexts = 1;
+
+	/**
+	 * Released contexts which can be reused.
+	 */
+	private static Deque<Context> idleContexts = new ArrayDeque<Context>();
+
+	/**
+	 * Number of contexts used by the solvers.
+	 */
+	private static int activeContexts = 0;
+
+	/**
+	 * Highest number of contexts used at the same time.
+	 */
+	private static int peakActiveContexts = 0;
+
+	/**
+	 * Number of contexts created.
+	 */
+	private static int createdContexts = 0;
+
+	/**
+	 * Number of contexts reused from the pool.
+	 */
+	private static int reusedContexts = 0;
+
+	/**
+	 * Highest resident memory of the process seen by a memory report in kilobytes.
+	 */
+	private static long peakResidentMemory = 0;
+
+	/**
+	 * No objects of this class are built.
+	 */
+	private Z3ContextPool () {}
+
+	/**
+	 * Set the maximum number of contexts open at the same time.
+	 *
+	 * @param contexts maximum number of contexts, 0 for no limit
+	 */
+	public static synchronized void setMaxContexts (int contexts)
+	{
+		maxContexts = contexts;
+		Z3ContextPool.class.notifyAll ();
+	}
+
+	/**
+	 * Set the maximum number of released contexts kept for reuse.
+	 *
+	 * @param contexts maximum number of idle contexts
+	 */
+	public static synchronized void setMaxIdleContexts (int contexts)
+	{
+		maxIdleContexts = contexts;
+		while (idleContexts.size () > maxIdleContexts)
+			idleContexts.removeFirst ().dispose ();
+	}
+
+	/**
+	 * Get a context for a solver. A released context is reused if there is one.
+	 * If the maximum number of contexts is open, we wait until a solver is closed.
+	 *
+	 * @return context with the models enabled
+	 */
+	public static synchronized Context acquire ()
+	{
+		while (maxContexts > 0 && activeContexts >= maxContexts)
+		{
+			try
+			{
+				Z3ContextPool.class.wait ();
+			} catch (InterruptedException e)
+			{
+				Thread.currentThread ().interrupt ();
+				throw new RuntimeException ("Interrupted while waiting for a Z3 context.", e);
+			}
+		}
+
+		Context ctx = idleContexts.pollLast ();
+		if (ctx != null)
+			reusedContexts++;
+		else
+		{
+			// Enable Z3 Solver to produce Models on a SAT answer.
+			HashMap<String, String> cfg = new HashMap<String, String>();
+			cfg.put ("MODEL", "true");
+			try
+			{
+				ctx = new Context (cfg);
+			} catch (Z3Exception e) { e.printStackTrace (); }
+			createdContexts++;
+		}
+
+		activeContexts++;
+		peakActiveContexts = Math.max (peakActiveContexts, activeContexts);
+		return ctx;
+	}
+
+	/**
+	 * Give back a context which is not used anymore by its solver.
+	 *
+	 * @param ctx context to be released
+	 */
+	public static synchronized void release (Context ctx)
+	{
+		if (ctx == null)
+			return;
+		activeContexts--;
+		if (idleContexts.size () < maxIdleContexts)
+			idleContexts.addLast (ctx);
+		else
+			ctx.dispose ();
+		Z3ContextPool.class.notifyAll ();
+	}
+
+	/**
+	 * Get the number of contexts used by the solvers.
+	 *
+	 * @return number of contexts in use
+	 */
+	public static synchronized int getActiveContexts () { return activeContexts; }
+
+	/**
+	 * Get the resident memory of the process. It includes the native memory of Z3.
+	 *
+	 * @return resident memory in kilobytes, -1 if not known
+	 */
+	public static long getResidentMemory ()
+	{
+		try
+		{
+			BufferedReader br = new BufferedReader (new FileReader ("/proc/self/status"));
+			try
+			{
+				String strLine;
+				while ((strLine = br.readLine ()) != null)
+				{
+					if (strLine.startsWith ("VmRSS:"))
+						return Long.parseLong (strLine.replaceAll ("[^0-9]", ""));
+				}
+			}
+			finally { br.close (); }
+		} catch (IOException e) { }
+		return -1;
+	}
+
+	/**
+	 * Print the number of contexts and the memory of the process, with the highest
+	 * values seen until now. Call it between the stages of a long run to check that
+	 * the memory does not grow.
+	 *
+	 * @param stage name of the stage
+	 */
+	public static synchronized void printMemoryReport (String stage)
+	{
+		long residentMemory = getResidentMemory ();
+		peakResidentMemory = Math.max (peakResidentMemory, residentMemory);
+		Runtime runtime = Runtime.getRuntime ();
+		long heapMemory = (runtime.totalMemory () - runtime.freeMemory ()) / 1024;
+
+		System.out.println ("Memory Report (" + stage + ") :: Z3 Contexts Active : " + activeContexts
+				+ " Idle : " + idleContexts.size () + " Peak : " + peakActiveContexts
+				+ " Created : " + createdContexts + " Reused : " + reusedContexts
+				+ " :: Resident : " + residentMemory + " KB Peak : " + peakResidentMemory
+				+ " KB :: Java Heap : " + heapMemory + " KB");
+	}
+}
@@ -22,19 +22,21 @@ public abstract class Z3Solver extends Z3Context implements SolverFunctions
 	
 	/**
 	 * For every statement that we assert, we can save it on our own stack to 
-	 * generate the output file.
+	 * generate the output file. Only the expression handles are saved, they
+	 * are converted to text when the file is generated.
 	 */
 	private boolean enableStatementStack=false;
 	
 	/**
-	 * We save all the assertions on this stack.
+	 * We save the declarations and comments (as String) on this stack, 
+	 * and the assertions (as BoolExpr) if the statement stack is enabled.
 	 * 
 	 * Use this to generate a Z3 solver file.
 	 * 
 	 * TODO: we use push and pop alternatively so this works. 
 	 * otherwise we must have list<list<integer>> and more complex logic.
 	 */
-	protected List<String> contextStatements; 
+	protected List<Object> contextStatements; 
 
 	/**
 	 * Context pushed on the stack? 
@@ -47,6 +49,42 @@ public abstract class Z3Solver extends Z3Context implements SolverFunctions
 	 */
 	protected int statementCountAfterPush = 0;
 	
+	/**
+	 * Incremental queries. The constraints asserted after a push are not added
+	 * to a new context level of the solver. Every such constraint is enabled by a 
+	 * boolean literal, which is passed as an assumption to the query. The solver
+	 * is never popped, and keeps what it learned about the base constraints 
+	 * across all the queries of an exploration.
+	 */
+	private boolean incrementalQueries = false;
+	
+	/**
+	 * Literal for every constraint which was asserted under an assumption.
+	 */
+	private Map<BoolExpr, BoolExpr> assumptionLiterals = new HashMap<BoolExpr, BoolExpr>();
+	
+	/**
+	 * Literals to be assumed for the next query.
+	 */
+	private List<BoolExpr> activeAssumptions = new ArrayList<BoolExpr>();
+	
+	/**
+	 * Number of active assumptions when every level was pushed.
+	 */
+	private Deque<Integer> assumptionLevels = new ArrayDeque<Integer>();
+	
+	/**
+	 * Result of the last query.
+	 */
+	private SatResult lastResult = SatResult.UNKNOWN;
+	
+	/**
+	 * Set when the query is interrupted. Z3 only cancels a check which is running,
+	 * so an interrupt which arrives before the check is remembered here.
+	 * It is cleared when the context of the next query is pushed.
+	 */
+	private volatile boolean interruptRequested = false;
+	
 	/**
 	 * Result of a SMT query
 	 */
@@ -57,7 +95,7 @@ public abstract class Z3Solver extends Z3Context implements SolverFunctions
 	 */
 	protected Z3Solver ()
 	{
-		contextStatements = new ArrayList<String>();
+		contextStatements = new ArrayList<Object>();
 		
 		System.setProperty("java.library.path", "/home/rajtendulkar/eclipse-workspace/Java-WorkSpace/spdf_with_Z3_integrated/dep/Z3Lib/64-bit");
 
@@ -176,45 +214,134 @@ public abstract class Z3Solver extends Z3Context implements SolverFunctions
 	}
 
 	/**
-	 * Generate a Z3 file with all the constraints in it.
-	 * We can use this file to check the same problem by using 
-	 * Z3 on command line.
-	 * @param fileName name of the output file including the path
+	 * Set a random seed for Z3 solver.
+	 * 
+	 * @param seed integer value as a seed.
 	 */
-	public void generateSatCode (String fileName)
+	public void setRandomSeed (int seed) { setRandomSeed (z3Solver, seed); }
+
+	/**
+	 * Enable or disable saving of the assertions on the statement stack.
+	 * When disabled, the assertions are taken from the solver when required.
+	 * 
+	 * @param enable true to save the assertions, false otherwise
+	 */
+	public void setStatementStack (boolean enable)
 	{
-		FileWriter fstreamOutput ;
-		PrintWriter out;
-		// String fileName = outputDirectory + "output.z3";
+		enableStatementStack = enable;
+	}
 
-		try
+	/**
+	 * Enable or disable incremental queries. In incremental mode the push and pop
+	 * of the context do not change the solver, and the constraints asserted after
+	 * a push are passed as assumptions to the query.
+	 * 
+	 * @param enable true to use assumptions, false to push and pop the solver
+	 */
+	public void setIncrementalQueries (boolean enable)
+	{
+		if (assumptionLevels.isEmpty () == false)
+			throw new RuntimeException ("Incremental queries cannot be changed when a context is pushed.");
+		incrementalQueries = enable;
+	}
+	
+	/**
+	 * Get the literal which enables a constraint. The literal and its implication
+	 * are asserted only the first time, since the same cost constraint is asked 
+	 * many times in an exploration.
+	 * 
+	 * @param expression constraint to be enabled by the literal
+	 * @return literal to be assumed
+	 */
+	private BoolExpr getAssumptionLiteral (BoolExpr expression)
+	{
+		BoolExpr literal = assumptionLiterals.get (expression);
+		if (literal == null)
 		{
-			fstreamOutput = new FileWriter (fileName);
-			out = new PrintWriter (fstreamOutput);
+			try
+			{
+				String literalName = SmtVariablePrefixes.assumptionPrefix + Integer.toString (assumptionLiterals.size ());
+				literal = ctx.mkBoolConst (literalName);
+				z3Solver.add (ctx.mkImplies (literal, expression));
+				
+				// The generated files write the implications of the solver, so they need 
+				// the literal declared. The statement stack has the constraint itself instead.
+				if (enableStatementStack == false)
+					contextStatements.add ("(declare-const " + literalName + " Bool)");
+			} catch (Z3Exception e) { e.printStackTrace (); }
+			assumptionLiterals.put (expression, literal);
+		}
+		return literal;
+	}
 
-			out.println ("(set-option :produce-models true) ; enable model generation");
-			out.println ("(set-option :print-success false)");
+	/**
+	 * Write a statement of the context in SMT-LIB format.
+	 * 
+	 * @param out output writer
+	 * @param statement declaration / comment string or an assertion
+	 * @throws IOException if writing fails
+	 */
+	private void writeStatement (Writer out, Object statement) throws IOException
+	{
+		if (statement instanceof BoolExpr)
+		{
+			out.write ("(assert ");
+			out.write (statement.toString ());
+			out.write (")");
+		}
+		else
+			out.write (statement.toString ());
+		out.write ("\n");
+	}
 
-			if (enableStatementStack == true)
-			{
-				for (int i=0;i<contextStatements.size ();i++)
-					out.println (contextStatements.get (i));
-			}
-			else
-			{
-				for (int i=0;i<contextStatements.size ();i++)
-					out.println (contextStatements.get (i));
+	/**
+	 * Write the saved statements followed by the assertions of the solver,
+	 * if they are not saved on the statement stack.
+	 * 
+	 * @param out output writer
+	 * @param declarations write the declarations and comments as well
+	 * @throws IOException if writing fails
+	 */
+	private void writeContext (Writer out, boolean declarations) throws IOException
+	{
+		if (enableStatementStack == true || declarations == true)
+		{
+			for (Object statement : contextStatements)
+				writeStatement (out, statement);
+		}
 
+		if (enableStatementStack == false)
+		{
+			try
+			{
 				BoolExpr expr[] = z3Solver.getAssertions ();
 				for (int i=0;i<expr.length;i++)
-					out.println ("(assert"+expr[i].toString ()+")");
-			}
+					writeStatement (out, expr[i]);
+			} catch (Z3Exception e) { e.printStackTrace (); }
+			
+			// The assumptions of the next query hold for this file.
+			for (BoolExpr literal : activeAssumptions)
+				writeStatement (out, literal);
+		}
+	}
 
-			out.println ("(check-sat)");
-			out.println ("(get-model)");
+	/**
+	 * Generate a Z3 file with all the constraints in it.
+	 * We can use this file to check the same problem by using 
+	 * Z3 on command line.
+	 * @param fileName name of the output file including the path
+	 */
+	public void generateSatCode (String fileName)
+	{
+		try (Writer out = new BufferedWriter (new FileWriter (fileName)))
+		{
+			out.write ("(set-option :produce-models true) ; enable model generation\n");
+			out.write ("(set-option :print-success false)\n");
 
-			out.close ();
-			fstreamOutput.close ();			
+			writeContext (out, true);
+
+			out.write ("(check-sat)\n");
+			out.write ("(get-model)\n");
 		}
 		catch (Exception e)
 		{ //Catch exception if any
@@ -227,20 +354,13 @@ public abstract class Z3Solver extends Z3Context implements SolverFunctions
 	 */
 	public void printContext ()
 	{
-		if (enableStatementStack == true)
-		{
-			for (int i=0;i<contextStatements.size ();i++)
-				System.out.println (contextStatements.get (i));
-		}
-		else
+		// We do not close this writer, since it will close System.out.
+		Writer out = new BufferedWriter (new OutputStreamWriter (System.out));
+		try
 		{
-			try 
-			{
-				BoolExpr expr[] = z3Solver.getAssertions ();
-				for (int i=0;i<expr.length;i++)
-					System.out.println (expr[i].toString ());					
-			} catch (Z3Exception e) { e.printStackTrace (); }
-		}
+			writeContext (out, false);
+			out.flush ();
+		} catch (IOException e) { e.printStackTrace (); }
 	}
 
 	/* (non-Javadoc)
@@ -257,6 +377,17 @@ public abstract class Z3Solver extends Z3Context implements SolverFunctions
 			statementCountAfterPush = 0;
 			pushedContext = false;
 		}
+		
+		if (incrementalQueries == true)
+		{
+			for (int i=0;i<scopes;i++)
+			{
+				int numAssumptions = assumptionLevels.pop ();
+				while (activeAssumptions.size () > numAssumptions)
+					activeAssumptions.remove (activeAssumptions.size ()-1);
+			}
+			return;
+		}
 		try { z3Solver.pop (scopes); } catch (Z3Exception e) { e.printStackTrace (); }
 	}
 
@@ -265,12 +396,38 @@ public abstract class Z3Solver extends Z3Context implements SolverFunctions
 	 */
 	@Override
 	public void pushContext ()
+	{
+		interruptRequested = false;
+		pushContextLevel ();
+	}
+
+	/**
+	 * Push a level of the context without clearing an interrupt of the query,
+	 * for the levels pushed while a query is performed.
+	 */
+	protected void pushContextLevel ()
 	{
 		if (enableStatementStack == true)
 			pushedContext = true;
+		
+		if (incrementalQueries == true)
+		{
+			assumptionLevels.push (activeAssumptions.size ());
+			return;
+		}
 		try { z3Solver.push (); } catch (Z3Exception e) { e.printStackTrace (); }
 	}
 
+	/* (non-Javadoc)
+	 * @see exploration.interfaces.SolverFunctions#interruptQuery()
+	 */
+	@Override
+	public void interruptQuery ()
+	{
+		interruptRequested = true;
+		try { ctx.interrupt (); } catch (Z3Exception e) { e.printStackTrace (); }
+	}
+
 	/* (non-Javadoc)
 	 * @see exploration.interfaces.SolverFunctions#getModel()
 	 */
@@ -284,21 +441,26 @@ public abstract class Z3Solver extends Z3Context implements SolverFunctions
 	 */
 	public void generateAssertion (BoolExpr expression)
 	{
-		try
-		{
-			z3Solver.add(expression);
-			// z3Solver.assert_(id);
-		}
-		catch (Z3Exception e)
+		if (incrementalQueries == true && assumptionLevels.isEmpty () == false)
+			activeAssumptions.add (getAssumptionLiteral (expression));
+		else
 		{
-			e.printStackTrace();
+			try
+			{
+				z3Solver.add(expression);
+				// z3Solver.assert_(id);
+			}
+			catch (Z3Exception e)
+			{
+				e.printStackTrace();
+			}
 		}
 		// try { z3Solver.assert_(id); } catch (Z3Exception e) { e.printStackTrace (); }				
-		String str = expression.toString ();
 
+		// We keep only the handle, it is converted to text when the file is generated.
 		if (enableStatementStack == true)
 		{
-			contextStatements.add ("(assert " + str + ")");
+			contextStatements.add (expression);
 			if (pushedContext)
 				statementCountAfterPush ++;
 		}
@@ -310,7 +472,45 @@ public abstract class Z3Solver extends Z3Context implements SolverFunctions
 	@Override
 	public SatResult checkSat (int timeOutInSeconds) 
 	{		
-		return check (z3Solver, timeOutInSeconds);
+		if (interruptRequested == true)
+			lastResult = SatResult.UNKNOWN;
+		else if (activeAssumptions.isEmpty () == false)
+			lastResult = check (z3Solver, timeOutInSeconds, activeAssumptions.toArray (new BoolExpr[activeAssumptions.size ()]));
+		else
+			lastResult = check (z3Solver, timeOutInSeconds);
+		return lastResult;
+	}
+
+	/* (non-Javadoc)
+	 * @see exploration.interfaces.SolverFunctions#getNumCostConstraints()
+	 */
+	@Override
+	public int getNumCostConstraints ()
+	{
+		if (incrementalQueries == false || assumptionLevels.isEmpty () == true)
+			return 0;
+		return activeAssumptions.size () - assumptionLevels.peek ();
+	}
+
+	/* (non-Javadoc)
+	 * @see exploration.interfaces.SolverFunctions#getUnsatCore()
+	 */
+	@Override
+	public boolean[] getUnsatCore ()
+	{
+		// Only the constraints passed as assumptions are reported in the core.
+		if (incrementalQueries == false || assumptionLevels.isEmpty () == true || lastResult != SatResult.UNSAT)
+			return null;
+
+		int firstConstraint = assumptionLevels.peek ();
+		boolean result[] = new boolean[activeAssumptions.size () - firstConstraint];
+		try
+		{
+			Set<Expr> core = new HashSet<Expr>(Arrays.asList (z3Solver.getUnsatCore ()));
+			for (int i=0;i<result.length;i++)
+				result[i] = core.contains (activeAssumptions.get (firstConstraint + i));
+		} catch (Z3Exception e) { e.printStackTrace (); return null; }
+		return result;
 	}
 
 	/**
@@ -328,6 +528,54 @@ public abstract class Z3Solver extends Z3Context implements SolverFunctions
 		return stats.toString ();
 	}
 
+	/**
+	 * Get Z3 Solver statistics of the last query.
+	 *
+	 * @return map of name to the value of every statistic, null if not available
+	 */
+	public Map<String, Double> getStatisticsMap ()
+	{
+		Map<String, Double> result = new TreeMap<String, Double>();
+		try
+		{
+			for (Statistics.Entry entry : z3Solver.getStatistics ().getEntries ())
+			{
+				if (entry.isUInt ())
+					result.put (entry.Key, (double) entry.getUIntValue ());
+				else if (entry.isDouble ())
+					result.put (entry.Key, entry.getDoubleValue ());
+			}
+		} catch (Z3Exception e) { e.printStackTrace (); return null; }
+		return result;
+	}
+
+	/**
+	 * Get the number of assertions in the solver.
+	 *
+	 * @return number of assertions, -1 if not available
+	 */
+	public int getNumAssertions ()
+	{
+		try
+		{
+			return z3Solver.getNumAssertions ();
+		} catch (Z3Exception e) { e.printStackTrace (); return -1; }
+	}
+
+	/* (non-Javadoc)
+	 * @see solver.Z3Context#close()
+	 */
+	@Override
+	public void close ()
+	{
+		if (ctx == null)
+			return;
+		// The assertions are removed so that the context can be reused.
+		resetSolver ();
+		z3Solver = null;
+		super.close ();
+	}
+
 	/**
 	 * Reset the Z3 Solver.
 	 */
@@ -337,6 +585,10 @@ public abstract class Z3Solver extends Z3Context implements SolverFunctions
 		{
 			z3Solver.reset();
 			contextStatements.clear();
+			assumptionLiterals.clear ();
+			activeAssumptions.clear ();
+			assumptionLevels.clear ();
+			lastResult = SatResult.UNKNOWN;
 			// com.microsoft.z3.Native.resetMemory();			
 		} catch (Z3Exception e) { e.printStackTrace(); }		
 	}
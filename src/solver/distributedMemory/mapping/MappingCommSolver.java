@@ -73,7 +73,7 @@ public class MappingCommSolver extends Z3Solver
 		this.platform = platform;
 		this.hsdf = hsdf;	        
         
-		contextStatements = new ArrayList<String>();
+		contextStatements = new ArrayList<Object>();
 		varDecl = new TreeMap<String, Expr>();
 		
 		CalculateBounds bounds = new CalculateBounds (graph, solutions);
@@ -439,7 +439,7 @@ public class MappingCommSolver extends Z3Solver
 	@Override
 	public int getWorkLoadImbalance (Map<String,String>model)
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.totalWorkImbalancePrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.totalWorkImbalancePrefix);
 	}
 	
 	/* (non-Javadoc)
@@ -448,7 +448,7 @@ public class MappingCommSolver extends Z3Solver
 	@Override
 	public int getCommunicationCost (Map<String,String>model)
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.totalCommCostPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.totalCommCostPrefix);
 	}
 	
 	/**
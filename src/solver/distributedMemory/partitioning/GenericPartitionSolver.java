@@ -8,6 +8,7 @@ import designflow.NonPipelinedScheduling;
 import designflow.DesignFlowSolution;
 import designflow.DesignFlowSolution.*;
 import platform.model.Platform;
+import solver.IntModel;
 import solver.SmtVariablePrefixes;
 import solver.Z3Solver;
 import spdfcore.*;
@@ -316,8 +317,8 @@ public abstract class GenericPartitionSolver extends Z3Solver
 		    
 		    int srcGroup = 0, dstGroup = 0;
 		    
-		    srcGroup = Integer.parseInt(model.get(SmtVariablePrefixes.clusterTaskPrefix + srcActor.getName()));
-		    dstGroup = Integer.parseInt(model.get(SmtVariablePrefixes.clusterTaskPrefix + dstActor.getName()));
+		    srcGroup = IntModel.getInt(model, SmtVariablePrefixes.clusterTaskPrefix + srcActor.getName());
+		    dstGroup = IntModel.getInt(model, SmtVariablePrefixes.clusterTaskPrefix + dstActor.getName());
 			
 		    if(srcGroup != dstGroup)
 		    {
@@ -452,7 +453,7 @@ public abstract class GenericPartitionSolver extends Z3Solver
 	@Override
 	public int getMaxWorkLoadPerCluster(Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.maxWorkloadOnClusterPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.maxWorkloadOnClusterPrefix);
 	}
 
 	/* (non-Javadoc)
@@ -473,7 +474,7 @@ public abstract class GenericPartitionSolver extends Z3Solver
 	@Override
 	public int getTotalClustersUsed (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.totalClustersUsedPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.totalClustersUsedPrefix);
 	}
 
 	/* (non-Javadoc)
@@ -514,7 +515,7 @@ public abstract class GenericPartitionSolver extends Z3Solver
 	@Override
 	public int getCommunicationCost (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.totalCommCostPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.totalCommCostPrefix);
 	}
 
 	/* (non-Javadoc)
@@ -535,6 +536,6 @@ public abstract class GenericPartitionSolver extends Z3Solver
 	@Override
 	public int getWorkLoadImbalance (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.totalWorkImbalancePrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.totalWorkImbalancePrefix);
 	}
 }
@@ -8,6 +8,7 @@ import designflow.NonPipelinedScheduling;
 import designflow.DesignFlowSolution;
 import designflow.DesignFlowSolution.*;
 import platform.model.Platform;
+import solver.IntModel;
 import solver.SmtVariablePrefixes;
 import spdfcore.*;
 import spdfcore.Actor.ActorType;
@@ -109,8 +110,8 @@ public class PartitionSolverHSDF extends GenericPartitionSolver
 		    
 		    int srcGroup = 0, dstGroup = 0;
 		    
-		    srcGroup = Integer.parseInt(model.get(SmtVariablePrefixes.clusterTaskPrefix + srcActor.getName()));
-		    dstGroup = Integer.parseInt(model.get(SmtVariablePrefixes.clusterTaskPrefix + dstActor.getName()));
+		    srcGroup = IntModel.getInt(model, SmtVariablePrefixes.clusterTaskPrefix + srcActor.getName());
+		    dstGroup = IntModel.getInt(model, SmtVariablePrefixes.clusterTaskPrefix + dstActor.getName());
 			
 		    if(srcGroup != dstGroup)
 		    {
@@ -245,7 +246,7 @@ public class PartitionSolverHSDF extends GenericPartitionSolver
 	@Override
 	public int getMaxWorkLoadPerCluster(Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.maxWorkloadOnClusterPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.maxWorkloadOnClusterPrefix);
 	}
 
 	/* (non-Javadoc)
@@ -266,7 +267,7 @@ public class PartitionSolverHSDF extends GenericPartitionSolver
 	@Override
 	public int getTotalClustersUsed (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.totalClustersUsedPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.totalClustersUsedPrefix);
 	}
 
 	/* (non-Javadoc)
@@ -307,7 +308,7 @@ public class PartitionSolverHSDF extends GenericPartitionSolver
 	@Override
 	public int getCommunicationCost (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.totalCommCostPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.totalCommCostPrefix);
 	}
 
 	/* (non-Javadoc)
@@ -328,7 +329,7 @@ public class PartitionSolverHSDF extends GenericPartitionSolver
 	@Override
 	public int getWorkLoadImbalance (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.totalWorkImbalancePrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.totalWorkImbalancePrefix);
 	}
 	
 	/**
@@ -8,6 +8,7 @@ import designflow.NonPipelinedScheduling;
 import designflow.DesignFlowSolution;
 import designflow.DesignFlowSolution.*;
 import platform.model.Platform;
+import solver.IntModel;
 import solver.SmtVariablePrefixes;
 import spdfcore.*;
 import spdfcore.Actor.ActorType;
@@ -115,8 +116,8 @@ public class PartitionSolverSDF extends GenericPartitionSolver
 		    
 		    int srcGroup = 0, dstGroup = 0;
 		    
-		    srcGroup = Integer.parseInt(model.get(SmtVariablePrefixes.clusterTaskPrefix + srcActor.getName()));
-		    dstGroup = Integer.parseInt(model.get(SmtVariablePrefixes.clusterTaskPrefix + dstActor.getName()));
+		    srcGroup = IntModel.getInt(model, SmtVariablePrefixes.clusterTaskPrefix + srcActor.getName());
+		    dstGroup = IntModel.getInt(model, SmtVariablePrefixes.clusterTaskPrefix + dstActor.getName());
 			
 		    if(srcGroup != dstGroup)
 		    {
@@ -242,7 +243,7 @@ public class PartitionSolverSDF extends GenericPartitionSolver
 	@Override
 	public int getMaxWorkLoadPerCluster(Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.maxWorkloadOnClusterPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.maxWorkloadOnClusterPrefix);
 	}
 
 	/* (non-Javadoc)
@@ -263,7 +264,7 @@ public class PartitionSolverSDF extends GenericPartitionSolver
 	@Override
 	public int getTotalClustersUsed (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.totalClustersUsedPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.totalClustersUsedPrefix);
 	}
 
 	/* (non-Javadoc)
@@ -304,7 +305,7 @@ public class PartitionSolverSDF extends GenericPartitionSolver
 	@Override
 	public int getCommunicationCost (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.totalCommCostPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.totalCommCostPrefix);
 	}
 
 	/* (non-Javadoc)
@@ -325,7 +326,7 @@ public class PartitionSolverSDF extends GenericPartitionSolver
 	@Override
 	public int getWorkLoadImbalance (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.totalWorkImbalancePrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.totalWorkImbalancePrefix);
 	}
 	
 	/* (non-Javadoc)
@@ -337,8 +338,8 @@ public class PartitionSolverSDF extends GenericPartitionSolver
 	 */
 	protected Partition modelToPartition (Map<String, String> model, DesignFlowSolution designFlowSolution)
 	{		
-		int totalCommCost = Integer.parseInt (model.get (SmtVariablePrefixes.totalCommCostPrefix));
-		int numGroups = Integer.parseInt (model.get (SmtVariablePrefixes.totalClustersUsedPrefix));
+		int totalCommCost = IntModel.getInt (model, SmtVariablePrefixes.totalCommCostPrefix);
+		int numGroups = IntModel.getInt (model, SmtVariablePrefixes.totalClustersUsedPrefix);
 		
 		Partition partition = designFlowSolution.new Partition (numGroups, totalCommCost, true);
 		
@@ -346,7 +347,7 @@ public class PartitionSolverSDF extends GenericPartitionSolver
 		while (actrIter.hasNext ())
 		{
 			Actor actr = actrIter.next ();
-			int allocatedGroup = Integer.parseInt (model.get (SmtVariablePrefixes.clusterTaskPrefix + actr.getName ()));
+			int allocatedGroup = IntModel.getInt (model, SmtVariablePrefixes.clusterTaskPrefix + actr.getName ());
 			partition.addSdfActorToGroup (allocatedGroup, actr.getName());
 		}
 		
@@ -444,7 +444,7 @@ public class GenericPlacementSolver extends Z3Solver implements CommunicationCos
 	@Override
 	public int getCommunicationCost(Map<String, String> model) 
 	{
-		return Integer.parseInt(model.get(SmtVariablePrefixes.totalCommCostPrefix));
+		return IntModel.getInt(model, SmtVariablePrefixes.totalCommCostPrefix);
 	}
 	
 	/**
@@ -461,7 +461,7 @@ public class GenericPlacementSolver extends Z3Solver implements CommunicationCos
 		int numGroups = partition.getNumGroups();
 		for(int i=0;i<numGroups;i++)
 		{
-			int clusterAllocated = Integer.parseInt(model.get(SmtVariablePrefixes.partitionClusterAllocationPrefix + Integer.toString(i)));
+			int clusterAllocated = IntModel.getInt(model, SmtVariablePrefixes.partitionClusterAllocationPrefix + Integer.toString(i));
 			Cluster cluster = platform.getCluster(clusterAllocated);
 			
 			mapping.addGroupToCluster (cluster, i);
@@ -0,0 +1,443 @@
+package solver.distributedMemory.scheduling;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import platform.model.Cluster;
+
+import solver.Z3Solver.SatResult;
+
+/**
+ * Decomposition of the cluster scheduling problem into one subproblem per cluster.
+ *
+ * The allocation of the tasks to the clusters is already fixed by the scheduling constraints.
+ * The mutual exclusion constraints of the processors and DMA engines are the disjunctive part
+ * of the problem, and every one of them belongs to a single cluster. The master problem has
+ * no mutual exclusion at all. The subproblem of a cluster has the mutual exclusion only of its
+ * own cluster, and the tasks of the other clusters are fixed to their order on their processors
+ * and DMA engines. These orders are only precedences, so the disjunctions which the solver of a
+ * subproblem has to search are those of its cluster. The subproblems are solved in parallel on
+ * their own solvers.
+ *
+ * The subproblems are coordinated in rounds :
+ * 1. The master problem is solved. It is a relaxation of the complete problem, and the cuts
+ *    added to it are implied by the complete problem, so if it is UNSAT the query is UNSAT.
+ *    The order of the tasks on every processor and DMA engine is taken from its model.
+ * 2. The master problem is checked with the task orders of all the clusters. This is a cheap
+ *    query. If it is SAT we have a schedule.
+ * 3. Every subproblem is solved with the task orders of the other clusters. If one of them
+ *    is SAT, its model is a schedule of the complete problem.
+ * 4. An UNSAT subproblem gives the unsat core of the fixed orders. No schedule can have all the
+ *    tasks of the core in the same relative order on the same processors, and this cut is added
+ *    to the master problem. It excludes every order of the tasks which contains the core, not only
+ *    the order of this round. Then a new round starts.
+ * If no schedule is found after the rounds, the master problem is solved with all the mutual
+ * exclusion constraints and the cuts, so the result of a query is the same as without the
+ * decomposition, unless it times out.
+ *
+ * @author Pranav Tendulkar
+ *
+ */
+public class ClusterDecomposition
+{
+	/**
+	 * Order of a task on its processor or DMA engine.
+	 */
+	public static class TaskOrder
+	{
+		/**
+		 * Actor of the task.
+		 */
+		public final String actor;
+		/**
+		 * Instance of the task.
+		 */
+		public final int instance;
+		/**
+		 * Processor or DMA engine of the task.
+		 */
+		public final int processor;
+		/**
+		 * Actor of the task executed just before on the same processor, null if it is the first.
+		 */
+		public final String prevActor;
+		/**
+		 * Instance of the task executed just before on the same processor.
+		 */
+		public final int prevInstance;
+
+		/**
+		 * Build the order of a task.
+		 *
+		 * @param actor actor of the task
+		 * @param instance instance of the task
+		 * @param processor processor or DMA engine of the task
+		 * @param prevActor actor of the previous task on the processor, null if none
+		 * @param prevInstance instance of the previous task on the processor
+		 */
+		public TaskOrder (String actor, int instance, int processor, String prevActor, int prevInstance)
+		{
+			this.actor = actor;
+			this.instance = instance;
+			this.processor = processor;
+			this.prevActor = prevActor;
+			this.prevInstance = prevInstance;
+		}
+	}
+
+	/**
+	 * Master problem without mutual exclusion constraints.
+	 */
+	private final ClusterMutExclNonPipelined master;
+
+	/**
+	 * Subproblem of every cluster.
+	 */
+	private final Map<Cluster, ClusterMutExclNonPipelined> subProblems = new LinkedHashMap<Cluster, ClusterMutExclNonPipelined>();
+
+	/**
+	 * Threads to solve the subproblems.
+	 */
+	private ExecutorService executor = null;
+
+	/**
+	 * Maximum number of rounds of a query, before the complete problem is solved.
+	 */
+	private final int maxRounds;
+
+	/**
+	 * Latency constraints of the current query.
+	 */
+	private List<Integer> latencyConstraints = new ArrayList<Integer>();
+
+	/**
+	 * Buffer constraints of the current query.
+	 */
+	private List<Integer> bufferConstraints = new ArrayList<Integer>();
+
+	/**
+	 * Number of latency and buffer constraints at every push.
+	 */
+	private Deque<int[]> contextLevels = new ArrayDeque<int[]>();
+
+	/**
+	 * Model of the last SAT query.
+	 */
+	private Map<String, String> lastModel = null;
+
+	/**
+	 * Set when the query is interrupted, cleared when the context of the next query is pushed.
+	 */
+	private volatile boolean interrupted = false;
+
+	/**
+	 * Build the decomposition of a scheduling problem.
+	 *
+	 * @param master master problem, its constraints must be asserted without the mutual exclusion
+	 * @param subProblems subproblem of every cluster with its constraints asserted, in incremental mode for the unsat cores
+	 * @param maxRounds maximum number of rounds of a query, before the complete problem is solved
+	 */
+	public ClusterDecomposition (ClusterMutExclNonPipelined master, Map<Cluster, ClusterMutExclNonPipelined> subProblems, int maxRounds)
+	{
+		this.master = master;
+		this.subProblems.putAll (subProblems);
+		this.maxRounds = maxRounds;
+	}
+
+	/**
+	 * Get the number of subproblems.
+	 *
+	 * @return number of clusters with tasks
+	 */
+	public int getNumSubProblems () { return subProblems.size (); }
+
+	/**
+	 * Add a latency constraint to the current query.
+	 *
+	 * @param latency latency constraint
+	 */
+	public void addLatencyConstraint (int latency) { latencyConstraints.add (latency); }
+
+	/**
+	 * Add a buffer constraint to the current query.
+	 *
+	 * @param buffer buffer constraint
+	 */
+	public void addBufferConstraint (int buffer) { bufferConstraints.add (buffer); }
+
+	/**
+	 * Save the constraints of the query.
+	 */
+	public void pushContext ()
+	{
+		// An interrupt which arrives before the query must not be lost.
+		interrupted = false;
+		contextLevels.push (new int[] { latencyConstraints.size (), bufferConstraints.size () });
+	}
+
+	/**
+	 * Remove the constraints added after the push.
+	 *
+	 * @param scopes number of pushes to remove
+	 */
+	public void popContext (int scopes)
+	{
+		for (int i=0;i<scopes && contextLevels.isEmpty () == false;i++)
+		{
+			int levels[] = contextLevels.pop ();
+			latencyConstraints.subList (levels[0], latencyConstraints.size ()).clear ();
+			bufferConstraints.subList (levels[1], bufferConstraints.size ()).clear ();
+		}
+	}
+
+	/**
+	 * Get the model of the last SAT query.
+	 *
+	 * @return model of the complete problem
+	 */
+	public Map<String, String> getModel () { return lastModel; }
+
+	/**
+	 * Interrupt the current query.
+	 */
+	public void interruptQuery ()
+	{
+		interrupted = true;
+		for (ClusterMutExclNonPipelined subProblem : subProblems.values ())
+			subProblem.interruptQuery ();
+	}
+
+	/**
+	 * Remaining time of a query.
+	 *
+	 * @param deadline end of the query in milliseconds, 0 for no time out
+	 * @return time out in seconds, 0 for no time out, -1 if the time is over
+	 */
+	private static int remainingTime (long deadline)
+	{
+		if (deadline == 0)
+			return 0;
+		long remaining = deadline - System.currentTimeMillis ();
+		if (remaining <= 0)
+			return -1;
+		return (int) Math.max (1, (remaining + 999) / 1000);
+	}
+
+	/**
+	 * Solve the subproblems in parallel, with the task orders of the other clusters fixed.
+	 *
+	 * @param orders task orders of all the clusters
+	 * @param deadline end of the query in milliseconds, 0 for no time out
+	 * @param models models of the SAT subproblems are added to this map
+	 * @param cuts task orders of the unsat core of every UNSAT subproblem are added to this list
+	 * @return result of every subproblem
+	 */
+	private Map<Cluster, SatResult> solveSubProblems (final Map<Cluster, List<TaskOrder>> orders,
+			final long deadline, final Map<Cluster, Map<String, String>> models, final List<List<TaskOrder>> cuts)
+	{
+		if (executor == null)
+		{
+			executor = Executors.newFixedThreadPool (subProblems.size (), new ThreadFactory ()
+			{
+				@Override
+				public Thread newThread (Runnable runnable)
+				{
+					// The threads must not keep the application alive if the solver is not closed.
+					Thread thread = new Thread (runnable, "ClusterDecomposition");
+					thread.setDaemon (true);
+					return thread;
+				}
+			});
+		}
+
+		Map<Cluster, Future<SatResult>> futures = new LinkedHashMap<Cluster, Future<SatResult>>();
+		for (final Map.Entry<Cluster, ClusterMutExclNonPipelined> entry : subProblems.entrySet ())
+		{
+			futures.put (entry.getKey (), executor.submit (new Callable<SatResult>()
+			{
+				@Override
+				public SatResult call ()
+				{
+					ClusterMutExclNonPipelined subProblem = entry.getValue ();
+					int timeOut = remainingTime (deadline);
+					if (timeOut < 0)
+						return SatResult.TIMEOUT;
+
+					List<TaskOrder> fixedOrders = new ArrayList<TaskOrder>();
+					for (Map.Entry<Cluster, List<TaskOrder>> order : orders.entrySet ())
+						if (order.getKey () != entry.getKey ())
+							fixedOrders.addAll (order.getValue ());
+
+					subProblem.pushContext ();
+					subProblem.assertTaskOrders (fixedOrders);
+
+					// The push clears the interrupt of the subproblem, so we check the query.
+					SatResult result = (interrupted == true) ? SatResult.UNKNOWN : subProblem.checkSat (timeOut);
+					if (result == SatResult.SAT)
+					{
+						Map<String, String> model = subProblem.getSolverModel ();
+						synchronized (models) { models.put (entry.getKey (), model); }
+					}
+					else if (result == SatResult.UNSAT)
+					{
+						// Every order is a separate assertion, so the core is indexed by the orders.
+						// Without a core all the fixed orders are cut.
+						boolean core[] = subProblem.getUnsatCore ();
+						List<TaskOrder> cut = new ArrayList<TaskOrder>();
+						for (int i=0;i<fixedOrders.size ();i++)
+							if (core == null || core.length != fixedOrders.size () || core[i] == true)
+								cut.add (fixedOrders.get (i));
+						synchronized (cuts) { cuts.add (cut); }
+					}
+
+					subProblem.popContext (1);
+					return result;
+				}
+			}));
+		}
+
+		Map<Cluster, SatResult> results = new LinkedHashMap<Cluster, SatResult>();
+		for (Map.Entry<Cluster, Future<SatResult>> entry : futures.entrySet ())
+		{
+			try
+			{
+				results.put (entry.getKey (), entry.getValue ().get ());
+			} catch (InterruptedException e)
+			{
+				Thread.currentThread ().interrupt ();
+				results.put (entry.getKey (), SatResult.UNKNOWN);
+			} catch (ExecutionException e) { throw new RuntimeException (e.getCause ()); }
+		}
+		return results;
+	}
+
+	/**
+	 * Solve the query with the decomposition.
+	 *
+	 * @param timeOutInSeconds time out of the query, 0 for no time out
+	 * @return SAT if a schedule was found, UNSAT if there is no schedule,
+	 * 			TIMEOUT or UNKNOWN otherwise
+	 */
+	public SatResult checkSat (int timeOutInSeconds)
+	{
+		long deadline = (timeOutInSeconds > 0) ? System.currentTimeMillis () + timeOutInSeconds * 1000L : 0;
+		lastModel = null;
+
+		// The constraints of the query are added to every subproblem.
+		for (ClusterMutExclNonPipelined subProblem : subProblems.values ())
+		{
+			subProblem.pushContext ();
+			for (int latency : latencyConstraints)
+				subProblem.generateLatencyConstraint (latency);
+			for (int buffer : bufferConstraints)
+				subProblem.generateBufferConstraint (buffer);
+		}
+		// The cuts are added to the master in this context.
+		master.pushMasterContext ();
+
+		SatResult result = null;
+		try
+		{
+			for (int round=0;round<maxRounds && result == null;round++)
+			{
+				int timeOut = remainingTime (deadline);
+				if (interrupted == true)
+					result = SatResult.UNKNOWN;
+				else if (timeOut < 0)
+					result = SatResult.TIMEOUT;
+				else
+				{
+					// Relaxation without mutual exclusion and with the cuts.
+					SatResult masterResult = master.checkMaster (timeOut);
+					if (masterResult != SatResult.SAT)
+					{
+						result = masterResult;
+						break;
+					}
+
+					Map<String, String> masterModel = master.getSolverModel ();
+					Map<Cluster, List<TaskOrder>> orders = new LinkedHashMap<Cluster, List<TaskOrder>>();
+					List<TaskOrder> allOrders = new ArrayList<TaskOrder>();
+					for (Cluster cluster : subProblems.keySet ())
+					{
+						List<TaskOrder> clusterOrders = master.getTaskOrders (masterModel, cluster);
+						orders.put (cluster, clusterOrders);
+						allOrders.addAll (clusterOrders);
+					}
+
+					// Master problem with the orders of all the clusters.
+					timeOut = remainingTime (deadline);
+					if (timeOut < 0)
+					{
+						result = SatResult.TIMEOUT;
+						break;
+					}
+					lastModel = master.checkTaskOrders (allOrders, timeOut);
+					if (lastModel != null)
+					{
+						result = SatResult.SAT;
+						break;
+					}
+
+					// Every cluster with the orders of the other clusters.
+					Map<Cluster, Map<String, String>> models = new HashMap<Cluster, Map<String, String>>();
+					List<List<TaskOrder>> cuts = new ArrayList<List<TaskOrder>>();
+					solveSubProblems (orders, deadline, models, cuts);
+					if (models.isEmpty () == false)
+					{
+						lastModel = new HashMap<String, String>(models.values ().iterator ().next ());
+						result = SatResult.SAT;
+						break;
+					}
+
+					for (List<TaskOrder> cut : cuts)
+					{
+						// A cluster is UNSAT with its own constraints.
+						if (cut.isEmpty ())
+							result = SatResult.UNSAT;
+						else
+							master.addTaskOrderCut (cut);
+					}
+				}
+			}
+
+			// The rounds did not converge, we solve the complete problem with the cuts.
+			if (result == null)
+			{
+				int timeOut = remainingTime (deadline);
+				if (interrupted == true)
+					result = SatResult.UNKNOWN;
+				else if (timeOut < 0)
+					result = SatResult.TIMEOUT;
+				else
+				{
+					result = master.checkWithMutualExclusion (timeOut);
+					if (result == SatResult.SAT)
+						lastModel = master.getSolverModel ();
+				}
+			}
+		}
+		finally
+		{
+			// The cuts and the constraints are valid only for this query.
+			master.popMasterContext ();
+			for (ClusterMutExclNonPipelined subProblem : subProblems.values ())
+				subProblem.popContext (1);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Close the subproblems and stop the threads.
+	 */
+	public void close ()
+	{
+		if (executor != null)
+			executor.shutdownNow ();
+		executor = null;
+		for (ClusterMutExclNonPipelined subProblem : subProblems.values ())
+			subProblem.close ();
+		subProblems.clear ();
+	}
+}
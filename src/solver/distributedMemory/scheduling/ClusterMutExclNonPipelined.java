@@ -17,7 +17,9 @@ import platform.model.*;
 
 import com.microsoft.z3.*;
 
+import solver.IntModel;
 import solver.SmtVariablePrefixes;
+import solver.SmtVariableRegistry;
 import solver.Z3Solver;
 import solver.distributedMemory.constraints.SchedulingConstraints;
 import spdfcore.*;
@@ -103,6 +105,24 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 	 * or total buffer used in the schedule (false)
 	 */
 	public boolean useMaxBuffer = true;
+	/**
+	 * Solve the scheduling of every cluster on its own solver
+	 * and coordinate them with a master problem.
+	 * Every subproblem is built from the complete set of constraints with the mutual
+	 * exclusion of its cluster only, so with k clusters there are k+1 formulas and
+	 * Z3 contexts, and the constraints are generated k+1 times.
+	 */
+	public boolean clusterDecomposition = false;
+	/**
+	 * Maximum number of rounds of the cluster decomposition for a query,
+	 * before the complete problem is solved.
+	 */
+	public int decompositionRounds = 3;
+	/**
+	 * Optimize the schedule of a SAT model with two more solver queries (true)
+	 * or with the ASAP compaction and left-edge allocation on arrays (false).
+	 */
+	public boolean solverScheduleOptimization = false;
 	/**
 	 * output directory to generate different files
 	 */
@@ -127,29 +147,34 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 	private Map<String, String> satQueryModel;
 
 	/**
-	 * SMT variables for start times of all the tasks.
-	 */
-	private Map<String, IntExpr> startTimeDecl;
-	/**
-	 * SMT variables for end times of all the tasks.
+	 * SMT variables for start times, end times, allocated processor
+	 * and processor symmetry of all the tasks.
 	 */
-	private Map<String, IntExpr> endTimeDecl;
+	private SmtVariableRegistry taskVariables;
 	/**
 	 * SMT variables for duration of all the tasks.
 	 */
 	private Map<String, IntExpr> durationDecl;
-	/**
-	 * SMT variables for allocated processor of all the tasks.
-	 */
-	private Map<String, IntExpr> cpuDecl;
 	/**
 	 * SMT variables for buffer calculation of all the channels.
 	 */
 	private Map<String, IntExpr> bufferDecl;
+	
+	/**
+	 * Only the mutual exclusion constraints of this cluster are generated,
+	 * null for all the clusters.
+	 */
+	private Cluster mutualExclusionCluster = null;
 	/**
-	 * SMT variables for Processor Symmetry
+	 * Literal which enables the mutual exclusion constraints, null if they always hold.
+	 * The master problem of the cluster decomposition has them only when the rounds
+	 * do not converge.
 	 */
-	private Map<String, IntExpr> symmetryDecl;
+	private BoolExpr mutualExclusionGuard = null;
+	/**
+	 * Subproblems of the clusters in the cluster decomposition.
+	 */
+	private ClusterDecomposition decomposition = null;
 
 	/**
 	 * Initialize a Cluster scheduler based on mutual exclusion.
@@ -178,12 +203,9 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 		this.partitionAwareHsdf = partitionAwareHsdf;
 		this.outputDirectory = outputDirectory;
 
-		startTimeDecl 	= new TreeMap<String, IntExpr>();
-		endTimeDecl 	= new TreeMap<String, IntExpr>();		
+		taskVariables 	= new SmtVariableRegistry ();
 		durationDecl 	= new TreeMap<String, IntExpr>();
-		cpuDecl 		= new TreeMap<String, IntExpr>();
 		bufferDecl 		= new TreeMap<String, IntExpr>();
-		symmetryDecl    = new TreeMap<String, IntExpr>();
 	}
 	
 
@@ -214,7 +236,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 	 * @param index index of the instance
 	 * @return variable for start time of an actor instance
 	 */
-	private IntExpr xId (String name, int index) 		 { return startTimeDecl.get (SmtVariablePrefixes.startTimePrefix + name + "_" + Integer.toString (index)); }
+	private IntExpr xId (String name, int index) 		 { return taskVariables.get (SmtVariableRegistry.Kind.START_TIME, name, index); }
 	
 	/**
 	 * Get SMT variable for start time of an actor instance
@@ -222,7 +244,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 	 * @param name actor instance name
 	 * @return variable for start time of an actor instance
 	 */
-	private IntExpr xId (String name) 		 { return startTimeDecl.get (SmtVariablePrefixes.startTimePrefix + name); }
+	private IntExpr xId (String name) 		 { return taskVariables.get (SmtVariableRegistry.Kind.START_TIME, name); }
 	
 	/**
 	 * Get SMT variable for end time of an instance of an actor.
@@ -231,7 +253,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 	 * @param index index of the instance
 	 * @return variable for end time of an actor instance
 	 */
-	private IntExpr yId (String name, int index) 		 { return endTimeDecl.get (SmtVariablePrefixes.endTimePrefix + name + "_" + Integer.toString (index)); }
+	private IntExpr yId (String name, int index) 		 { return taskVariables.get (SmtVariableRegistry.Kind.END_TIME, name, index); }
 	
 	/**
 	 * Get SMT variable for end time of an actor instance
@@ -239,7 +261,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 	 * @param name actor instance name
 	 * @return variable for end time of an actor instance
 	 */
-	private IntExpr yId (String name) 		 { return endTimeDecl.get (SmtVariablePrefixes.endTimePrefix + name); }
+	private IntExpr yId (String name) 		 { return taskVariables.get (SmtVariableRegistry.Kind.END_TIME, name); }
 	
 	/**
 	 * Get SMT variable for end time of an actor instance for actors
@@ -248,7 +270,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 	 * @param name actor instance name
 	 * @return variable for end time of an actor instance with DMA at output
 	 */
-	private IntExpr yDotId (String name) 		 { return endTimeDecl.get (SmtVariablePrefixes.endDotTimePrefix + name); }
+	private IntExpr yDotId (String name) 		 { return taskVariables.get (SmtVariableRegistry.Kind.END_DOT_TIME, name); }
 	
 	/**
 	 * Get SMT variable for end time of an actor instance for actors
@@ -258,7 +280,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 	 * @param index index of the instance
 	 * @return variable for end time of an actor instance with DMA at output
 	 */
-	private IntExpr yDotId (String name, int index) 		 { return endTimeDecl.get (SmtVariablePrefixes.endDotTimePrefix + name + "_" + Integer.toString (index)); }
+	private IntExpr yDotId (String name, int index) 		 { return taskVariables.get (SmtVariableRegistry.Kind.END_DOT_TIME, name, index); }
 	
 	/**
 	 * Get SMT variable for duration of an actor
@@ -274,7 +296,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 	 * @param name actor instance name
 	 * @return variable for processor allocated of an actor instance
 	 */
-	private IntExpr cpuId (String name) 	 { return cpuDecl.get (SmtVariablePrefixes.cpuPrefix + name); }
+	private IntExpr cpuId (String name) 	 { return taskVariables.get (SmtVariableRegistry.Kind.CPU, name); }
 	
 	/**
 	 * Get SMT variable for processor allocated of an actor instance
@@ -283,7 +305,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 	 * @param index index of the instance
 	 * @return variable for processor allocated of an actor instance
 	 */
-	private IntExpr cpuId (String name, int index) 	 { return cpuDecl.get (SmtVariablePrefixes.cpuPrefix + name + "_" + Integer.toString (index)); }
+	private IntExpr cpuId (String name, int index) 	 { return taskVariables.get (SmtVariableRegistry.Kind.CPU, name, index); }
 	
 	/**
 	 * Get SMT variable for maximum buffer for channel connecting two actors.
@@ -320,7 +342,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 	 * @param index index
 	 * @return variable for max CPU id for processor symmetry
 	 */
-	private IntExpr maxCpuId (String name, int index) 	 { return symmetryDecl.get (SmtVariablePrefixes.maxCpuPrefix+ name + Integer.toString (index)); }
+	private IntExpr maxCpuId (String name, int index) 	 { return taskVariables.get (SmtVariableRegistry.Kind.MAX_CPU, name, index); }
 
 	/**
 	 * Define start time variables for all the tasks.
@@ -340,7 +362,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 			for (int i=0;i<repCount;i++)
 			{
 				IntExpr id = (IntExpr) addVariableDeclaration (SmtVariablePrefixes.startTimePrefix + actr.getName () +"_"+ Integer.toString (i), "Int");
-				startTimeDecl.put (SmtVariablePrefixes.startTimePrefix + actr.getName () +"_"+ Integer.toString (i), id);
+				taskVariables.put (SmtVariableRegistry.Kind.START_TIME, actr.getName (), i, id);
 			}
 		}		
 	}
@@ -392,11 +414,11 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 				// {
 					// IntExpr id = (IntExpr) ctx.mkAdd (xId (actr.getName (), i), durationId (actr.getName ()));
 				    IntExpr id = (IntExpr) addVariableDeclaration (SmtVariablePrefixes.endTimePrefix + actr.getName () +"_"+ Integer.toString (i), "Int");
-					endTimeDecl.put (SmtVariablePrefixes.endTimePrefix + actr.getName () +"_"+ Integer.toString (i), id);
+					taskVariables.put (SmtVariableRegistry.Kind.END_TIME, actr.getName (), i, id);
 					if(hasDmaOutput == true)
 					{
 						id = (IntExpr) addVariableDeclaration (SmtVariablePrefixes.endDotTimePrefix + actr.getName () +"_"+ Integer.toString (i), "Int");
-						endTimeDecl.put (SmtVariablePrefixes.endDotTimePrefix + actr.getName () +"_"+ Integer.toString (i), id);
+						taskVariables.put (SmtVariableRegistry.Kind.END_DOT_TIME, actr.getName (), i, id);
 					}
 				//} catch (Z3Exception e) { e.printStackTrace (); }
 			}
@@ -478,7 +500,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 			for (int i=0;i<repCount;i++)
 			{
 				IntExpr id = (IntExpr) addVariableDeclaration (SmtVariablePrefixes.cpuPrefix + actr.getName () + "_" + Integer.toString (i), "Int");
-				cpuDecl.put (SmtVariablePrefixes.cpuPrefix + actr.getName () + "_" + Integer.toString (i), id);
+				taskVariables.put (SmtVariableRegistry.Kind.CPU, actr.getName (), i, id);
 			}
 		}		
 	}
@@ -793,7 +815,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 					// Final Assertion
 					try
 					{
-						generateAssertion (ctx.mkImplies (ctx.mkEq (cpuJ, cpuK),  
+						assertMutualExclusionConstraint (ctx.mkImplies (ctx.mkEq (cpuJ, cpuK),  
 											ctx.mkOr (ctx.mkGe (xJ, yK), ctx.mkGe (xK, yJ))));
 					} catch (Z3Exception e) { e.printStackTrace (); }
 					
@@ -829,7 +851,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 						// Final Assertion
 						try
 						{
-							generateAssertion (ctx.mkImplies (ctx.mkEq (idxCpuA, idxCpuB), 
+							assertMutualExclusionConstraint (ctx.mkImplies (ctx.mkEq (idxCpuA, idxCpuB), 
 									ctx.mkOr (ctx.mkGe (idx_xA, idx_yB), 
 											ctx.mkGe (idx_xB, idx_yA))));
 						} catch (Z3Exception e) { e.printStackTrace (); }					
@@ -867,7 +889,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 					// Final Assertion
 					try
 					{
-						generateAssertion (ctx.mkImplies (ctx.mkEq (cpuJ, cpuK),  
+						assertMutualExclusionConstraint (ctx.mkImplies (ctx.mkEq (cpuJ, cpuK),  
 								ctx.mkOr (ctx.mkGe (xJ, yK), ctx.mkGe (xK, yJ))));
 					} catch (Z3Exception e) { e.printStackTrace (); }										
 				}
@@ -893,7 +915,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 						// Final Assertion
 						try
 						{
-							generateAssertion (ctx.mkImplies (ctx.mkEq (idxCpuA, idxCpuB), 
+							assertMutualExclusionConstraint (ctx.mkImplies (ctx.mkEq (idxCpuA, idxCpuB), 
 									ctx.mkOr (ctx.mkGe (idx_xA, idx_yB), 
 											ctx.mkGe (idx_xB, idx_yA))));
 						} catch (Z3Exception e) { e.printStackTrace (); }
@@ -903,6 +925,20 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 		}		
 	}
 
+	/**
+	 * Assert a mutual exclusion constraint, enabled by the guard if there is one.
+	 * 
+	 * @param constraint mutual exclusion constraint
+	 * @throws Z3Exception
+	 */
+	private void assertMutualExclusionConstraint (BoolExpr constraint) throws Z3Exception
+	{
+		if (mutualExclusionGuard == null)
+			generateAssertion (constraint);
+		else
+			generateAssertion (ctx.mkImplies (mutualExclusionGuard, constraint));
+	}
+
 	/**
 	 * Generate all the mutual exclusion constraints
 	 */
@@ -912,6 +948,8 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 		HashMap<Cluster, HashSet<String>> actorToClusterMap = schedulingConstraints.getActorsMappedToCluster ();		
 		for(Cluster cluster : actorToClusterMap.keySet())
 		{
+			if (mutualExclusionCluster != null && cluster != mutualExclusionCluster)
+				continue;
 			List<String> actrList = new ArrayList<String>(actorToClusterMap.get(cluster));			
 			assertDataFlowMutualExclusion (actrList);			
 		}
@@ -920,6 +958,8 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 		actorToClusterMap = schedulingConstraints.getActorsMappedToDmaOfCluster ();		
 		for(Cluster cluster : actorToClusterMap.keySet())
 		{
+			if (mutualExclusionCluster != null && cluster != mutualExclusionCluster)
+				continue;
 			List<String> actrList = new ArrayList<String>(actorToClusterMap.get(cluster));			
 			assertCommunicationMutualExclusion (actrList);			
 		}
@@ -1261,8 +1301,8 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 
 			for(int i=0;i<solutions.getSolution(actr).returnNumber();i++)
 			{
-				int cpuIndex = Integer.parseInt(model.get(SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (i)));
-				int startTime = Integer.parseInt(model.get(SmtVariablePrefixes.startTimePrefix + actr.getName() + "_" + Integer.toString (i)));
+				int cpuIndex = IntModel.getInt(model, SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (i));
+				int startTime = IntModel.getInt(model, SmtVariablePrefixes.startTimePrefix + actr.getName() + "_" + Integer.toString (i));
 				schedule.addActor (actr.getName(), i, platform.getProcessor(cpuIndex), startTime);
 			}
 		}
@@ -1275,8 +1315,8 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 			{
 				for(int i=0;i<partitionGraphSolutions.getSolution(actr).returnNumber();i++)
 				{
-					int cpuIndex = Integer.parseInt(model.get(SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (i)));
-					int startTime = Integer.parseInt(model.get(SmtVariablePrefixes.startTimePrefix + actr.getName() + "_" + Integer.toString (i)));
+					int cpuIndex = IntModel.getInt(model, SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (i));
+					int startTime = IntModel.getInt(model, SmtVariablePrefixes.startTimePrefix + actr.getName() + "_" + Integer.toString (i));
 					schedule.addActor (actr.getName(), i, platform.getDmaEngine(cpuIndex), startTime);
 				}
 			}
@@ -1286,8 +1326,8 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 				{
 					for(int i=0;i<partitionGraphSolutions.getSolution(actr).returnNumber();i++)
 					{
-						int cpuIndex = Integer.parseInt(model.get(SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (i)));
-						int startTime = Integer.parseInt(model.get(SmtVariablePrefixes.startTimePrefix + actr.getName() + "_" + Integer.toString (i)));
+						int cpuIndex = IntModel.getInt(model, SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (i));
+						int startTime = IntModel.getInt(model, SmtVariablePrefixes.startTimePrefix + actr.getName() + "_" + Integer.toString (i));
 						schedule.addActor (actr.getName(), i, platform.getProcessor(cpuIndex), startTime);
 					}
 				}
@@ -1307,12 +1347,12 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 				int bufferSize = 0;
 				// Check if src and destination is in the same cluster.
 				if(schedulingConstraints.getActorAllocatedCluster(srcActor.getName()) == schedulingConstraints.getActorAllocatedCluster(dstActor.getName()))
-					bufferSize = Integer.parseInt(model.get(SmtVariablePrefixes.maxBufferPrefix + srcActor.getName() + dstActor.getName()));
+					bufferSize = IntModel.getInt(model, SmtVariablePrefixes.maxBufferPrefix + srcActor.getName() + dstActor.getName());
 				else
 				{
 					Actor dmaTokenTask = partitionAwareGraph.getActor(SmtVariablePrefixes.dmaTokenTaskPrefix + chnnl.getName());
-					bufferSize = Integer.parseInt(model.get(SmtVariablePrefixes.maxBufferPrefix + srcActor.getName() + dmaTokenTask.getName()));
-					bufferSize += Integer.parseInt(model.get(SmtVariablePrefixes.maxBufferPrefix + dmaTokenTask.getName() + dstActor.getName()));
+					bufferSize = IntModel.getInt(model, SmtVariablePrefixes.maxBufferPrefix + srcActor.getName() + dmaTokenTask.getName());
+					bufferSize += IntModel.getInt(model, SmtVariablePrefixes.maxBufferPrefix + dmaTokenTask.getName() + dstActor.getName());
 				}
 
 				bufferSize /= chnnl.getTokenSize();
@@ -1885,7 +1925,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 			for (int i=0;i<repCount;i++)
 			{
 				IntExpr id = (IntExpr) addVariableDeclaration (SmtVariablePrefixes.maxCpuPrefix + actr.getName () + Integer.toString (i), "Int");
-				symmetryDecl.put (SmtVariablePrefixes.maxCpuPrefix+ actr.getName () +Integer.toString (i), id);
+				taskVariables.put (SmtVariableRegistry.Kind.MAX_CPU, actr.getName (), i, id);
 			}
 		}
 	}
@@ -2120,6 +2160,10 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 		assertDmaTaskProcBounds();
 
 		// Mutual Exclusion Constraints
+		// With the cluster decomposition, they are solved in the subproblems.
+		// The master has them only when its guard is asserted.
+		if (clusterDecomposition == true)
+			mutualExclusionGuard = (BoolExpr) addVariableDeclaration (SmtVariablePrefixes.mutualExclusionGuardPrefix, "Bool");
 		assertMutualExclusion ();
 
 		actorPrecedences();
@@ -2138,6 +2182,282 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 		clusterDmaStartTimePrecedences();
 
 		generateLatencyCalculation();
+		
+		if (clusterDecomposition == true)
+			buildClusterDecomposition ();
+	}
+	
+	/**
+	 * Build a subproblem for every cluster which has tasks allocated to it.
+	 * A subproblem has the mutual exclusion constraints only of its cluster,
+	 * the tasks of the other clusters are fixed to their order in every query.
+	 * The orders are passed as assumptions, so that the unsat core can be used for the cuts.
+	 */
+	private void buildClusterDecomposition ()
+	{
+		Map<Cluster, ClusterMutExclNonPipelined> subProblems = new LinkedHashMap<Cluster, ClusterMutExclNonPipelined>();
+		for (Cluster cluster : platform.getAllClusters ())
+		{
+			if (schedulingConstraints.getActorsAllocatedToCluster (cluster).size () == 0 && 
+					schedulingConstraints.getActorsAllocatedToDmaOfCluster (cluster).size () == 0)
+				continue;
+			
+			ClusterMutExclNonPipelined subProblem = new ClusterMutExclNonPipelined (graph, hsdf, solutions, 
+					partitionAwareGraph, partitionAwareHsdf, partitionGraphSolutions,
+					platform, outputDirectory, schedulingConstraints);
+			subProblem.graphSymmetry = graphSymmetry;
+			subProblem.processorSymmetry = processorSymmetry;
+			subProblem.bufferAnalysis = bufferAnalysis;
+			subProblem.useMaxBuffer = useMaxBuffer;
+			subProblem.mutualExclusionCluster = cluster;
+			subProblem.setIncrementalQueries (true);
+			subProblem.assertNonPipelineConstraints ();
+			subProblems.put (cluster, subProblem);
+		}
+		
+		if (subProblems.isEmpty () == false)
+			decomposition = new ClusterDecomposition (this, subProblems, decompositionRounds);
+	}
+	
+	/**
+	 * Get the order of the tasks on the processors and DMA engines of a cluster.
+	 * 
+	 * @param model model with the start times and processors of the tasks
+	 * @param cluster cluster of the tasks
+	 * @return order of every task of the cluster
+	 */
+	List<ClusterDecomposition.TaskOrder> getTaskOrders (Map<String, String> model, Cluster cluster)
+	{
+		List<ClusterDecomposition.TaskOrder> result = new ArrayList<ClusterDecomposition.TaskOrder>();
+		
+		// The processor and DMA engine indexes are separate, so are their tasks.
+		List<HashSet<String>> taskLists = new ArrayList<HashSet<String>>();
+		taskLists.add (schedulingConstraints.getActorsAllocatedToCluster (cluster));
+		taskLists.add (new HashSet<String>(schedulingConstraints.getActorsAllocatedToDmaOfCluster (cluster)));
+		
+		for (HashSet<String> taskList : taskLists)
+		{
+			// Tasks on every processor sorted by start time.
+			Map<Integer, TreeMap<Integer, List<String[]>>> processorTasks = new TreeMap<Integer, TreeMap<Integer, List<String[]>>>();
+			for (String actrName : new TreeSet<String>(taskList))
+			{
+				int repCount = partitionGraphSolutions.getSolution (partitionAwareGraph.getActor (actrName)).returnNumber ();
+				for (int i=0;i<repCount;i++)
+				{
+					int processor = IntModel.getInt (model, SmtVariablePrefixes.cpuPrefix + actrName + "_" + Integer.toString (i));
+					int startTime = IntModel.getInt (model, SmtVariablePrefixes.startTimePrefix + actrName + "_" + Integer.toString (i));
+					if (processorTasks.containsKey (processor) == false)
+						processorTasks.put (processor, new TreeMap<Integer, List<String[]>>());
+					if (processorTasks.get (processor).containsKey (startTime) == false)
+						processorTasks.get (processor).put (startTime, new ArrayList<String[]>());
+					processorTasks.get (processor).get (startTime).add (new String[] { actrName, Integer.toString (i) });
+				}
+			}
+			
+			for (Map.Entry<Integer, TreeMap<Integer, List<String[]>>> entry : processorTasks.entrySet ())
+			{
+				String prevTask[] = null;
+				for (List<String[]> tasks : entry.getValue ().values ())
+				{
+					for (String task[] : tasks)
+					{
+						if (prevTask == null)
+							result.add (new ClusterDecomposition.TaskOrder (task[0], Integer.parseInt (task[1]), entry.getKey (), null, -1));
+						else
+							result.add (new ClusterDecomposition.TaskOrder (task[0], Integer.parseInt (task[1]), entry.getKey (), 
+									prevTask[0], Integer.parseInt (prevTask[1])));
+						prevTask = task;
+					}
+				}
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Get the constraint of a task order. The task is on its processor
+	 * and starts after the end of the previous task on the processor.
+	 * 
+	 * @param order order of the task
+	 * @return constraint for the order
+	 * @throws Z3Exception
+	 */
+	private BoolExpr taskOrderConstraint (ClusterDecomposition.TaskOrder order) throws Z3Exception
+	{
+		BoolExpr onProcessor = ctx.mkEq (cpuId (order.actor, order.instance), ctx.mkInt (order.processor));
+		if (order.prevActor == null)
+			return onProcessor;
+		
+		IntExpr prevEndTime;
+		if (hasActorDmaOutput (partitionAwareGraph.getActor (order.prevActor)) == true)
+			prevEndTime = yDotId (order.prevActor, order.prevInstance);
+		else
+			prevEndTime = yId (order.prevActor, order.prevInstance);
+		
+		return ctx.mkAnd (onProcessor, ctx.mkGe (xId (order.actor, order.instance), prevEndTime));
+	}
+	
+	/**
+	 * Assert the order of tasks on their processors.
+	 * 
+	 * @param orders order of the tasks
+	 */
+	void assertTaskOrders (List<ClusterDecomposition.TaskOrder> orders)
+	{
+		try
+		{
+			for (ClusterDecomposition.TaskOrder order : orders)
+				generateAssertion (taskOrderConstraint (order));
+		} catch (Z3Exception e) { e.printStackTrace (); }
+	}
+	
+	/**
+	 * Assert that the tasks of a cut are not all in the same relative order on the same processors.
+	 * A schedule which respects the mutual exclusion and has the task before the other one on the
+	 * processor also has it before its end, so a schedule in which all the tasks of an unsat core
+	 * are in the same relative order as in the core is not possible.
+	 * 
+	 * @param orders order of the tasks of the unsat core
+	 */
+	void addTaskOrderCut (List<ClusterDecomposition.TaskOrder> orders)
+	{
+		try
+		{
+			BoolExpr andArgs[] = new BoolExpr[orders.size ()];
+			for (int i=0;i<orders.size ();i++)
+			{
+				ClusterDecomposition.TaskOrder order = orders.get (i);
+				BoolExpr onProcessor = ctx.mkEq (cpuId (order.actor, order.instance), ctx.mkInt (order.processor));
+				if (order.prevActor == null)
+					andArgs[i] = onProcessor;
+				else
+					andArgs[i] = ctx.mkAnd (onProcessor, 
+							ctx.mkEq (cpuId (order.prevActor, order.prevInstance), ctx.mkInt (order.processor)),
+							ctx.mkLt (xId (order.prevActor, order.prevInstance), xId (order.actor, order.instance)));
+			}
+			generateAssertion (ctx.mkNot (ctx.mkAnd (andArgs)));
+		} catch (Z3Exception e) { e.printStackTrace (); }
+	}
+	
+	/**
+	 * Push the context of this solver only, for the cuts of a query of the decomposition.
+	 */
+	void pushMasterContext () { super.pushContextLevel (); }
+	
+	/**
+	 * Pop the context of this solver only.
+	 */
+	void popMasterContext () { super.popContext (1); }
+	
+	/**
+	 * Check the problem of this solver, without the decomposition.
+	 * 
+	 * @param timeOutInSeconds time out in seconds
+	 * @return result of the query
+	 */
+	SatResult checkMaster (int timeOutInSeconds) { return super.checkSat (timeOutInSeconds); }
+	
+	/**
+	 * Check the complete problem, by enabling all the mutual exclusion constraints 
+	 * in the current context of this solver. They are asserted only once, when the
+	 * constraints are generated.
+	 * 
+	 * @param timeOutInSeconds time out in seconds
+	 * @return result of the query
+	 */
+	SatResult checkWithMutualExclusion (int timeOutInSeconds)
+	{
+		generateAssertion (mutualExclusionGuard);
+		return super.checkSat (timeOutInSeconds);
+	}
+	
+	/**
+	 * Check if the problem without mutual exclusion is SAT with the given
+	 * order of the tasks on the processors.
+	 * 
+	 * @param orders order of all the tasks
+	 * @param timeOutInSeconds time out in seconds
+	 * @return model if SAT, null otherwise
+	 */
+	Map<String, String> checkTaskOrders (List<ClusterDecomposition.TaskOrder> orders, int timeOutInSeconds)
+	{
+		super.pushContextLevel ();
+		assertTaskOrders (orders);
+		Map<String, String> model = null;
+		if (super.checkSat (timeOutInSeconds) == SatResult.SAT)
+			model = new HashMap<String, String>(super.getModel ());
+		super.popContext (1);
+		return model;
+	}
+	
+	/**
+	 * Get the model of the solver, without the schedule optimization.
+	 * 
+	 * @return model of the solver
+	 */
+	Map<String, String> getSolverModel ()
+	{
+		return new HashMap<String, String>(super.getModel ());
+	}
+	
+	/* (non-Javadoc)
+	 * @see solver.Z3Solver#pushContext()
+	 */
+	@Override
+	public void pushContext ()
+	{
+		if (decomposition != null)
+			decomposition.pushContext ();
+		super.pushContext ();
+	}
+	
+	/* (non-Javadoc)
+	 * @see solver.Z3Solver#popContext(int)
+	 */
+	@Override
+	public void popContext (int scopes)
+	{
+		if (decomposition != null)
+			decomposition.popContext (scopes);
+		super.popContext (scopes);
+	}
+	
+	/* (non-Javadoc)
+	 * @see solver.Z3Solver#checkSat(int)
+	 */
+	@Override
+	public SatResult checkSat (int timeOutInSeconds)
+	{
+		if (decomposition != null)
+			return decomposition.checkSat (timeOutInSeconds);
+		return super.checkSat (timeOutInSeconds);
+	}
+	
+	/* (non-Javadoc)
+	 * @see solver.Z3Solver#interruptQuery()
+	 */
+	@Override
+	public void interruptQuery ()
+	{
+		if (decomposition != null)
+			decomposition.interruptQuery ();
+		super.interruptQuery ();
+	}
+	
+	/* (non-Javadoc)
+	 * @see solver.Z3Solver#close()
+	 */
+	@Override
+	public void close ()
+	{
+		if (decomposition != null)
+			decomposition.close ();
+		decomposition = null;
+		if (optimizeSchedule != null && optimizeSchedule.optiSolver != null)
+			optimizeSchedule.optiSolver.close ();
+		optimizeSchedule = null;
+		super.close ();
 	}
 
 	/**
@@ -2178,7 +2498,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 			Actor actr = actrIter.next();
 			for(int instanceId=0;instanceId<partitionGraphSolutions.getSolution(actr).returnNumber();instanceId++)
 			{
-				int procIndex = Integer.parseInt(model.get(SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (instanceId)));
+				int procIndex = IntModel.getInt(model, SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (instanceId));
 				if(actr.getActorType() == ActorType.DATAFLOW)
 					procUsed[procIndex] = true;
 				else if(actr.getActorType() == ActorType.COMMUNICATION)					
@@ -2216,7 +2536,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 
 			for(int instanceId=0;instanceId<partitionGraphSolutions.getSolution(actr).returnNumber();instanceId++)
 			{
-				long startTime = Integer.parseInt(model.get(SmtVariablePrefixes.startTimePrefix + actr.getName() + "_" + Integer.toString (instanceId)));
+				long startTime = IntModel.getInt(model, SmtVariablePrefixes.startTimePrefix + actr.getName() + "_" + Integer.toString (instanceId));
 				long endTime = actr.getExecTime() + startTime;
 				int procIndex = -1;
 				String procName;
@@ -2224,7 +2544,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 
 				if(actr.getActorType() == ActorType.DATAFLOW)
 				{
-					procIndex = Integer.parseInt(model.get(SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (instanceId)));
+					procIndex = IntModel.getInt(model, SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (instanceId));
 					Processor proc = platform.getProcessor(procIndex);
 					procName = proc.getCluster().getName()+"--"+proc.getName();
 					procIndex = newProcIndex[procIndex];
@@ -2235,7 +2555,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 				}
 				else
 				{
-					procIndex = Integer.parseInt(model.get(SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (instanceId)));
+					procIndex = IntModel.getInt(model, SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (instanceId));
 					DmaEngine dma = platform.getDmaEngine(procIndex);
 					procName = dma.getCluster().getName() + "--" + dma.getName();
 					procIndex = newDmaIndex[procIndex];
@@ -2263,7 +2583,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 	public int getTotalBufferSize(Map<String, String> model)
 	{
 		if(useMaxBuffer == false)
-			return Integer.parseInt (model.get (SmtVariablePrefixes.totalBufferPrefix));
+			return IntModel.getInt (model, SmtVariablePrefixes.totalBufferPrefix);
 		else
 		{
 			int maxBufferSize = Integer.MIN_VALUE;
@@ -2275,14 +2595,14 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 			// int count = 0;
 			for(Cluster cluster : mapping.keySet())
 			{
-				int bufferSize = Integer.parseInt(model.get(SmtVariablePrefixes.clusterBufferPrefix + cluster.getName()));
+				int bufferSize = IntModel.getInt(model, SmtVariablePrefixes.clusterBufferPrefix + cluster.getName());
 				if(bufferSize > maxBufferSize)
 					maxBufferSize = bufferSize;
 			}
 			return maxBufferSize;
 		}			
 //		else
-//			return Integer.parseInt (model.get (SolverPrefixs.maxBufferPrefix));
+//			return IntModel.getInt (model, SolverPrefixs.maxBufferPrefix);
 	}
 
 	/* (non-Javadoc)
@@ -2293,6 +2613,8 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 	{
 		newSatQuery = true;
 		satQueryModel = null;
+		if (decomposition != null)
+			decomposition.addBufferConstraint (bufferConstraint);
 		try
 		{
 			generateAssertion (ctx.mkEq (getBufDeclId(), ctx.mkInt (bufferConstraint)));
@@ -2305,7 +2627,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 	@Override
 	public int getLatency(Map<String, String> model)
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.latencyPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.latencyPrefix);
 	}
 
 	/* (non-Javadoc)
@@ -2316,6 +2638,8 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 	{
 		newSatQuery = true;
 		satQueryModel = null;
+		if (decomposition != null)
+			decomposition.addLatencyConstraint (latency);
 		try
 		{
 			generateAssertion (ctx.mkLe (latencyDecl, ctx.mkInt (latency)));
@@ -2331,12 +2655,9 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 		super.resetSolver();
 		latencyDecl = null;	
 		totalBufDecl = null;
-		startTimeDecl.clear();
-		endTimeDecl.clear();
+		taskVariables.clear();
 		durationDecl.clear();
-		cpuDecl.clear();
 		bufferDecl.clear();
-		symmetryDecl.clear();
 		System.gc();
 	}
 	
@@ -2349,19 +2670,32 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 		if(newSatQuery == true)
 		{
 			newSatQuery = false;
-			HashMap<String,String> model = new HashMap<String,String>(super.getModel());
+			HashMap<String,String> model;
+			if (decomposition != null)
+				model = new HashMap<String,String>(decomposition.getModel());
+			else
+				model = new HashMap<String,String>(super.getModel());
 			
 			// Only One time initialization.
 			if(optimizeSchedule == null)
 				optimizeSchedule = new OptimizeSchedule();
 			
-			HashMap<String,String> nonLazyModel = new HashMap<String,String>(optimizeSchedule.generateNonLazySchedule(model));			
-			HashMap<String,String> procOptimalModel = new HashMap<String,String>(optimizeSchedule.generateProcOptimalSched(model, nonLazyModel));
+			Map<String,String> compactModel = null;
+			if(solverScheduleOptimization == false)
+				compactModel = optimizeSchedule.generateCompactSchedule(model);
 			
-			model.put(SmtVariablePrefixes.latencyPrefix, nonLazyModel.get(SmtVariablePrefixes.latencyPrefix));
-			
-			for(String str : procOptimalModel.keySet())
-				model.put(str, procOptimalModel.get(str));
+			if(compactModel != null)
+				model.putAll(compactModel);
+			else
+			{
+				HashMap<String,String> nonLazyModel = new HashMap<String,String>(optimizeSchedule.generateNonLazySchedule(model));			
+				HashMap<String,String> procOptimalModel = new HashMap<String,String>(optimizeSchedule.generateProcOptimalSched(model, nonLazyModel));
+				
+				model.put(SmtVariablePrefixes.latencyPrefix, nonLazyModel.get(SmtVariablePrefixes.latencyPrefix));
+				
+				for(String str : procOptimalModel.keySet())
+					model.put(str, procOptimalModel.get(str));
+			}
 			
 			satQueryModel = model;
 			return model;
@@ -2397,15 +2731,54 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 		 * extra constraints
 		 */
 		boolean verifyLatency = false;
+		/**
+		 * Names of the tasks of the compaction.
+		 */
+		private String compactionTasks[] = null;
+		/**
+		 * Index of every task of the compaction.
+		 */
+		private Map<String, Integer> compactionIndex = new HashMap<String, Integer>();
+		/**
+		 * Execution time of every task.
+		 */
+		private int compactionDuration[];
+		/**
+		 * DMA task which ends every task, -1 if the task has no DMA at its output.
+		 */
+		private int compactionLastDma[];
+		/**
+		 * Communication tasks are allocated to DMA engines.
+		 */
+		private boolean compactionCommTask[];
+		/**
+		 * Precedences of the buffer aware HSDF graph of the last compaction.
+		 */
+		private ScheduleCompaction compaction = null;
+		/**
+		 * Topological rank of every task in the precedences of the last compaction.
+		 */
+		private int compactionRank[];
+		/**
+		 * Buffer sizes of the last compaction.
+		 */
+		private Map<String, String> compactionBufferSizes = null;
 		
 		/**
 		 * Build a new schedule optimizer object
 		 */
-		public OptimizeSchedule()
+		public OptimizeSchedule() { }
+		
+		/**
+		 * Build the solver of the optimizer when it is used for the first time.
+		 * The compaction of the schedule does not need it.
+		 */
+		private void initOptiSolver ()
 		{
-			optiSolver = new ClusterMutExclNonPipelined(graph, hsdf, solutions, 
-				partitionAwareGraph, partitionAwareHsdf, partitionGraphSolutions,
-				platform, outputDirectory, schedulingConstraints);
+			if(optiSolver == null)
+				optiSolver = new ClusterMutExclNonPipelined(graph, hsdf, solutions, 
+					partitionAwareGraph, partitionAwareHsdf, partitionGraphSolutions,
+					platform, outputDirectory, schedulingConstraints);
 		}
 		
 		/**
@@ -2417,6 +2790,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 		 */
 		public Map<String,String> generateProcOptimalSched(HashMap<String, String> procAllocationModel, HashMap<String, String> startTimeModel)
 		{
+			initOptiSolver ();
 			initLists (procAllocationModel, startTimeModel);
 			
 			// First define all the variables.
@@ -2452,7 +2826,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 			// Set the latency.
 			try
 			{
-				int latency = Integer.parseInt(startTimeModel.get(SmtVariablePrefixes.latencyPrefix));
+				int latency = IntModel.getInt(startTimeModel, SmtVariablePrefixes.latencyPrefix);
 				optiSolver.generateAssertion(optiSolver.ctx.mkEq(optiSolver.getLatencyDeclId(), optiSolver.ctx.mkInt(latency)));
 			} catch (Z3Exception e) { e.printStackTrace(); }
 			
@@ -2484,6 +2858,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 			// dotG.generateDotFromGraph (bufferHsdfGraph, outputDirectory + "bufferAwareHsdf"+Integer.toString(count)+".dot");
 			
 			initLists (model, model);
+			initOptiSolver ();
 			
 			// First define all the variables.
 			optiSolver.resetSolver();
@@ -2499,7 +2874,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 			{
 				optiSolver.generateLatencyCalculation();
 				
-				int latency = Integer.parseInt(model.get(SmtVariablePrefixes.latencyPrefix));
+				int latency = IntModel.getInt(model, SmtVariablePrefixes.latencyPrefix);
 				try
 				{
 					optiSolver.generateAssertion(optiSolver.ctx.mkLe(optiSolver.getLatencyDeclId(), optiSolver.ctx.mkInt(latency)));
@@ -2511,7 +2886,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 				{
 					if(str.startsWith(SmtVariablePrefixes.startTimePrefix))
 					{
-						int startTime = Integer.parseInt(model.get(str));
+						int startTime = IntModel.getInt(model, str);
 						if(startTime == 0)
 						{
 							try
@@ -2543,7 +2918,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 					if((str.startsWith(SmtVariablePrefixes.endDotTimePrefix)) || 
 							(str.startsWith(SmtVariablePrefixes.endTimePrefix)))
 					{
-						int endTime = Integer.parseInt(solverModel.get(str));
+						int endTime = IntModel.getInt(solverModel, str);
 						if(endTime > latency)
 							latency = endTime;
 					}
@@ -2561,6 +2936,248 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 			return solverModel;
 		}
 		
+		/**
+		 * Initialize the tasks of the compaction. They do not change
+		 * from one query to another.
+		 */
+		private void initCompactionTasks ()
+		{
+			List<String> tasks = new ArrayList<String>();
+			List<Integer> durations = new ArrayList<Integer>();
+			List<Actor> sdfActors = new ArrayList<Actor>();
+			
+			Iterator<Actor> actorIter = partitionAwareGraph.getActors ();
+			while (actorIter.hasNext ())
+			{
+				Actor actr = actorIter.next ();
+				int repCount = partitionGraphSolutions.getSolution (actr).returnNumber ();
+				for (int i=0;i<repCount;i++)
+				{
+					compactionIndex.put (actr.getName () + "_" + Integer.toString (i), tasks.size ());
+					tasks.add (actr.getName () + "_" + Integer.toString (i));
+					durations.add (actr.getExecTime ());
+					sdfActors.add (actr);
+				}
+			}
+			
+			compactionTasks = tasks.toArray (new String[tasks.size ()]);
+			compactionDuration = new int[tasks.size ()];
+			compactionLastDma = new int[tasks.size ()];
+			compactionCommTask = new boolean[tasks.size ()];
+			for (int i=0;i<tasks.size ();i++)
+			{
+				compactionDuration[i] = durations.get (i);
+				compactionLastDma[i] = -1;
+				Actor actr = sdfActors.get (i);
+				compactionCommTask[i] = (actr.getActorType () == ActorType.COMMUNICATION);
+				if (hasActorDmaOutput (actr) == true)
+				{
+					String instance = compactionTasks[i].substring (compactionTasks[i].lastIndexOf ("_") + 1);
+					compactionLastDma[i] = compactionIndex.get (getLastDmaPort (actr).getOpposite (actr).getName () + "_" + instance);
+				}
+			}
+		}
+		
+		/**
+		 * Build the precedences of the buffer aware HSDF graph for the compaction.
+		 * 
+		 * @param model model obtained from the SMT solver
+		 */
+		private void initCompactionPrecedences (HashMap<String,String> model)
+		{
+			Graph bufferHsdfGraph;
+			if (bufferAnalysis == true)
+			{
+				TransformSDFtoHSDF toHSDF = new TransformSDFtoHSDF ();
+				bufferHsdfGraph = toHSDF.convertSDFtoHSDFWithUniqueChannels (getBufferConstraintSdf (model));
+			}
+			else
+				bufferHsdfGraph = partitionAwareHsdf;
+			
+			compaction = new ScheduleCompaction (compactionTasks.length);
+			for (Actor actr : bufferHsdfGraph.getActorList ())
+			{
+				int task = compactionIndex.get (actr.getName ());
+				for (Channel chnnl : actr.getChannels (Port.DIR.IN))
+				{
+					int dstRate = Integer.parseInt (chnnl.getLink (Port.DIR.IN).getPort ().getRate ());
+					
+					// There is no actor precedence if we have sufficient initial tokens.
+					if (chnnl.getInitialTokens () >= dstRate)
+						continue;
+					
+					int predecessor = compactionIndex.get (chnnl.getOpposite (actr).getName ());
+					compaction.addConstraint (predecessor, task, compactionDuration[predecessor]);
+				}
+				
+				if (actr.getActorType () == ActorType.COMMUNICATION)
+				{
+					// The DMA of the previous port must be started before.
+					Actor prevDmaActor = getOutgoingPreviousDmaActor (actr, bufferHsdfGraph);
+					if (prevDmaActor != null)
+						compaction.addConstraint (compactionIndex.get (prevDmaActor.getName ()), task, platform.getDmaSetupTime ());
+				}
+			}
+			
+			compactionRank = compaction.getTopologicalRank ();
+		}
+		
+		/**
+		 * Generate a non-lazy schedule with the least number of processors from the
+		 * loose schedule obtained. The order of the tasks on every processor and DMA engine
+		 * of the model is kept and every task starts as soon as possible. The processors
+		 * and DMA engines are then allocated with the left-edge algorithm in every cluster.
+		 * 
+		 * It gives the same schedule as generateNonLazySchedule and generateProcOptimalSched
+		 * without any query to the solver.
+		 * 
+		 * @param model lazy schedule obtained from originally solving the problem
+		 * @return model with the start times, end times, processors and latency of the new schedule,
+		 * 			null if the schedule cannot be compacted
+		 */
+		public Map<String, String> generateCompactSchedule (HashMap<String,String> model)
+		{
+			if (compactionTasks == null)
+				initCompactionTasks ();
+			
+			// The precedences change only with the buffer sizes.
+			Map<String, String> bufferSizes = new TreeMap<String, String>();
+			for (String str : model.keySet ())
+				if (str.startsWith (SmtVariablePrefixes.maxBufferPrefix))
+					bufferSizes.put (str, model.get (str));
+			if (compaction == null || bufferSizes.equals (compactionBufferSizes) == false)
+			{
+				initCompactionPrecedences (model);
+				compactionBufferSizes = bufferSizes;
+			}
+			if (compactionRank == null)
+				return null;
+			
+			final int numTasks = compactionTasks.length;
+			final int origStart[] = new int[numTasks];
+			final int origEnd[] = new int[numTasks];
+			int processor[] = new int[numTasks];
+			for (int i=0;i<numTasks;i++)
+			{
+				origStart[i] = IntModel.getInt (model, SmtVariablePrefixes.startTimePrefix + compactionTasks[i]);
+				origEnd[i] = IntModel.getInt (model, SmtVariablePrefixes.endTimePrefix + compactionTasks[i]);
+				processor[i] = IntModel.getInt (model, SmtVariablePrefixes.cpuPrefix + compactionTasks[i]);
+			}
+			
+			// Order of the tasks on every processor and DMA engine.
+			Map<Integer, List<Integer>> dataFlowTasks = new HashMap<Integer, List<Integer>>();
+			Map<Integer, List<Integer>> commTasks = new HashMap<Integer, List<Integer>>();
+			for (int i=0;i<numTasks;i++)
+			{
+				Map<Integer, List<Integer>> cpuMap = (compactionCommTask[i] == true) ? commTasks : dataFlowTasks;
+				if (cpuMap.containsKey (processor[i]) == false)
+					cpuMap.put (processor[i], new ArrayList<Integer>());
+				cpuMap.get (processor[i]).add (i);
+			}
+			
+			Comparator<Integer> startOrder = new Comparator<Integer>()
+			{
+				@Override
+				public int compare (Integer task1, Integer task2)
+				{
+					if (origStart[task1] != origStart[task2])
+						return Integer.compare (origStart[task1], origStart[task2]);
+					if (origEnd[task1] != origEnd[task2])
+						return Integer.compare (origEnd[task1], origEnd[task2]);
+					return Integer.compare (compactionRank[task1], compactionRank[task2]);
+				}
+			};
+			
+			int orderSource[] = new int[numTasks];
+			int orderDest[] = new int[numTasks];
+			int orderWeight[] = new int[numTasks];
+			int numOrders = 0;
+			List<List<Integer>> taskLists = new ArrayList<List<Integer>>(dataFlowTasks.values ());
+			taskLists.addAll (commTasks.values ());
+			for (List<Integer> taskList : taskLists)
+			{
+				Collections.sort (taskList, startOrder);
+				for (int i=1;i<taskList.size ();i++)
+				{
+					// The processor is free at the end of the DMA setup of the previous task.
+					int prev = taskList.get (i-1);
+					if (compactionLastDma[prev] != -1)
+					{
+						orderSource[numOrders] = compactionLastDma[prev];
+						orderWeight[numOrders] = platform.getDmaSetupTime ();
+					}
+					else
+					{
+						orderSource[numOrders] = prev;
+						orderWeight[numOrders] = compactionDuration[prev];
+					}
+					orderDest[numOrders++] = taskList.get (i);
+				}
+			}
+			
+			int startTime[] = compaction.getStartTimes (orderSource, orderDest, orderWeight, numOrders);
+			if (startTime == null)
+				return null;
+			
+			int endTime[] = new int[numTasks];
+			int freeTime[] = new int[numTasks];
+			int latency = 0;
+			for (int i=0;i<numTasks;i++)
+			{
+				endTime[i] = startTime[i] + compactionDuration[i];
+				freeTime[i] = endTime[i];
+				if (compactionLastDma[i] != -1)
+					freeTime[i] = startTime[compactionLastDma[i]] + platform.getDmaSetupTime ();
+				latency = Math.max (latency, Math.max (endTime[i], freeTime[i]));
+			}
+			
+			// Left-edge allocation of the processors and DMA engines of every cluster.
+			for (int clIndex=0;clIndex<platform.getNumClusters ();clIndex++)
+			{
+				Cluster cluster = platform.getCluster (clIndex);
+				HashSet<String> actrAllocated = schedulingConstraints.getActorsAllocatedToCluster (cluster);
+				HashSet<String> dmaActrAllocated = schedulingConstraints.getActorsMappedToDmaOfCluster (cluster);
+				
+				if (actrAllocated.size () == 0)
+					continue;
+				
+				ScheduleCompaction.leftEdge (getCompactionTasks (actrAllocated), startTime, freeTime, 
+						platform.getProcIndex (cluster.getProcessor (0)), processor);
+				ScheduleCompaction.leftEdge (getCompactionTasks (dmaActrAllocated), startTime, endTime, 
+						platform.getDmaEngineIndex (cluster.getDmaEngine (0)), processor);
+			}
+			
+			Map<String, String> result = new HashMap<String, String>();
+			for (int i=0;i<numTasks;i++)
+			{
+				result.put (SmtVariablePrefixes.startTimePrefix + compactionTasks[i], Integer.toString (startTime[i]));
+				result.put (SmtVariablePrefixes.endTimePrefix + compactionTasks[i], Integer.toString (endTime[i]));
+				if (compactionLastDma[i] != -1)
+					result.put (SmtVariablePrefixes.endDotTimePrefix + compactionTasks[i], Integer.toString (freeTime[i]));
+				result.put (SmtVariablePrefixes.cpuPrefix + compactionTasks[i], Integer.toString (processor[i]));
+			}
+			result.put (SmtVariablePrefixes.latencyPrefix, Integer.toString (latency));
+			return result;
+		}
+		
+		/**
+		 * Get the tasks of the compaction for a set of actors.
+		 * 
+		 * @param actors names of the actors
+		 * @return index of all the instances of the actors
+		 */
+		private List<Integer> getCompactionTasks (Set<String> actors)
+		{
+			List<Integer> result = new ArrayList<Integer>();
+			for (String actrName : actors)
+			{
+				int repCount = partitionGraphSolutions.getSolution (partitionAwareGraph.getActor (actrName)).returnNumber ();
+				for (int i=0;i<repCount;i++)
+					result.add (compactionIndex.get (actrName + "_" + Integer.toString (i)));
+			}
+			return result;
+		}
+		
 		/**
 		 * Get actors which can potentially execute in parallel with this actor.
 		 * 
@@ -2573,26 +3190,26 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 		{
 			List<String> result = new ArrayList<String>();
 			
-			int xActor = Integer.parseInt(model.get(SmtVariablePrefixes.startTimePrefix + actor));
+			int xActor = IntModel.getInt(model, SmtVariablePrefixes.startTimePrefix + actor);
 			int yActor;
 			
 			if(model.containsKey(SmtVariablePrefixes.endDotTimePrefix + actor))
-				yActor = Integer.parseInt(model.get(SmtVariablePrefixes.endDotTimePrefix + actor));
+				yActor = IntModel.getInt(model, SmtVariablePrefixes.endDotTimePrefix + actor);
 			else
-				yActor = Integer.parseInt(model.get(SmtVariablePrefixes.endTimePrefix + actor));
+				yActor = IntModel.getInt(model, SmtVariablePrefixes.endTimePrefix + actor);
 			
 			for(String otherActor : clusterHsdfActors)
 			{
 				if(actor.equals(otherActor)) 
 					continue;
 				
-				int xOtherActor = Integer.parseInt(model.get(SmtVariablePrefixes.startTimePrefix + otherActor));				
+				int xOtherActor = IntModel.getInt(model, SmtVariablePrefixes.startTimePrefix + otherActor);				
 				int yOtherActor;
 				
 				if(model.containsKey(SmtVariablePrefixes.endDotTimePrefix + otherActor))
-					yOtherActor = Integer.parseInt(model.get(SmtVariablePrefixes.endDotTimePrefix + otherActor));
+					yOtherActor = IntModel.getInt(model, SmtVariablePrefixes.endDotTimePrefix + otherActor);
 				else
-					yOtherActor = Integer.parseInt(model.get(SmtVariablePrefixes.endTimePrefix + otherActor));
+					yOtherActor = IntModel.getInt(model, SmtVariablePrefixes.endTimePrefix + otherActor);
 				
 				// Add to the result list, only if the overlap exists.
 				if(xActor < yOtherActor && xOtherActor < yActor)
@@ -2697,10 +3314,10 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 		private void setActorTimes (HashMap<String,String> model)
 		{
 			
-			for(String str : optiSolver.startTimeDecl.keySet())
+			for(String str : optiSolver.taskVariables.getVariableNames(SmtVariableRegistry.Kind.START_TIME))
 			{
-				IntExpr id = optiSolver.startTimeDecl.get(str);
-				int value = Integer.parseInt(model.get(str));
+				IntExpr id = optiSolver.taskVariables.getByVariableName(SmtVariableRegistry.Kind.START_TIME, str);
+				int value = IntModel.getInt(model, str);
 				try
 				{
 					optiSolver.generateAssertion(optiSolver.ctx.mkEq(id, optiSolver.ctx.mkInt(value)));
@@ -2763,7 +3380,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 				HashSet<IntExpr> predecessorList = new HashSet<IntExpr>();
 				String prevActorOnCpu = null;
 				
-				int cpuId = Integer.parseInt(model.get(SmtVariablePrefixes.cpuPrefix + actr.getName()));
+				int cpuId = IntModel.getInt(model, SmtVariablePrefixes.cpuPrefix + actr.getName());
 				List<String> actrList = null;
 				
 				if (actr.getActorType() == ActorType.DATAFLOW)
@@ -2854,10 +3471,10 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 			commCpuMap.clear();
 			
 			// First we seperate the dataflow and communication actors.						
-			for(String str : cpuDecl.keySet())
+			for(String str : taskVariables.getVariableNames(SmtVariableRegistry.Kind.CPU))
 			{
 				String actorName = str.substring(SmtVariablePrefixes.cpuPrefix.length(), str.indexOf("_")); 
-				int proc = Integer.parseInt(procAllocationModel.get(str));
+				int proc = IntModel.getInt(procAllocationModel, str);
 				
 				if(partitionAwareGraph.getActor(actorName).getActorType() == ActorType.DATAFLOW)
 				{
@@ -2887,7 +3504,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 					
 					for(int i=0;i<procList.size();i++)
 					{
-						startTime[i] = Integer.parseInt(startTimeModel.get(SmtVariablePrefixes.startTimePrefix + procList.get(i)));
+						startTime[i] = IntModel.getInt(startTimeModel, SmtVariablePrefixes.startTimePrefix + procList.get(i));
 						reverseMap.put(startTime[i], procList.get(i));
 					}
 					
@@ -2911,7 +3528,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 					
 					for(int i=0;i<procList.size();i++)
 					{
-						startTime[i] = Integer.parseInt(startTimeModel.get(SmtVariablePrefixes.startTimePrefix + procList.get(i)));
+						startTime[i] = IntModel.getInt(startTimeModel, SmtVariablePrefixes.startTimePrefix + procList.get(i));
 						reverseMap.put(startTime[i], procList.get(i));
 					}
 					
@@ -2944,7 +3561,7 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 				if(schedulingConstraints.getActorAllocatedCluster(srcActor.getName()) 
 						== schedulingConstraints.getActorAllocatedCluster(dstActor.getName()))
 				{
-					int bufferSize = Integer.parseInt(model.get(SmtVariablePrefixes.maxBufferPrefix + srcActor.getName() + dstActor.getName())) / chnnl.getTokenSize();
+					int bufferSize = IntModel.getInt(model, SmtVariablePrefixes.maxBufferPrefix + srcActor.getName() + dstActor.getName()) / chnnl.getTokenSize();
 					bufferConstraintSdf.insertNewChannelBetweenActors(bufferConstraintSdf.getActor(dstActor.getName()), 
 									bufferConstraintSdf.getActor(srcActor.getName()), 
 									chnnl.getTokenSize(), 
@@ -2955,8 +3572,8 @@ public class ClusterMutExclNonPipelined extends Z3Solver
 					Actor dmaTokenTask = partitionAwareGraph.getActor(SmtVariablePrefixes.dmaTokenTaskPrefix + chnnl.getName());
 					Actor dmaStatusTask = partitionAwareGraph.getActor(SmtVariablePrefixes.dmaStatusTaskPrefix + chnnl.getName()); 
 					
-					int bufferSize1 = Integer.parseInt(model.get(SmtVariablePrefixes.maxBufferPrefix + srcActor.getName () + dmaTokenTask.getName ())) / chnnl.getTokenSize();					
-					int bufferSize2 = Integer.parseInt(model.get(SmtVariablePrefixes.maxBufferPrefix + dmaTokenTask.getName () + dstActor.getName ())) / chnnl.getTokenSize();
+					int bufferSize1 = IntModel.getInt(model, SmtVariablePrefixes.maxBufferPrefix + srcActor.getName () + dmaTokenTask.getName ()) / chnnl.getTokenSize();					
+					int bufferSize2 = IntModel.getInt(model, SmtVariablePrefixes.maxBufferPrefix + dmaTokenTask.getName () + dstActor.getName ()) / chnnl.getTokenSize();
 					
 					bufferConstraintSdf.insertNewChannelBetweenActors(bufferConstraintSdf.getActor(chnnl.getName()), 
 							bufferConstraintSdf.getActor(srcActor.getName()), 1,
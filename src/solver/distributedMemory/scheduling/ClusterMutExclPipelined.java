@@ -15,7 +15,9 @@ import platform.model.*;
 
 import com.microsoft.z3.*;
 
+import solver.IntModel;
 import solver.SmtVariablePrefixes;
+import solver.SmtVariableRegistry;
 import solver.Z3Solver;
 import solver.distributedMemory.constraints.SchedulingConstraints;
 import spdfcore.*;
@@ -46,12 +48,9 @@ public class ClusterMutExclPipelined extends Z3Solver
 	public boolean bufferAnalysis = false;
 	public boolean useMaxBuffer = true;
 	
-	private Map<String, IntExpr> startTimeDecl;
-	private Map<String, IntExpr> endTimeDecl;
+	private SmtVariableRegistry taskVariables;
 	private Map<String, IntExpr> durationDecl;
-	private Map<String, IntExpr> cpuDecl;
 	private Map<String, IntExpr> bufferDecl;
-	private Map<String, IntExpr> symmetryDecl;
 
 	// Actor which have at least one actor connected in other cluster.
 	private HashSet<Actor> multiClusterActors;
@@ -69,11 +68,8 @@ public class ClusterMutExclPipelined extends Z3Solver
 		this.partitionGraphSolutions = partitionGraphSolutions;
 		this.partitionAwareHsdf = partitionAwareHsdf;
 
-		startTimeDecl 	= new TreeMap<String, IntExpr>();
-		endTimeDecl 	= new TreeMap<String, IntExpr>();		
+		taskVariables 	= new SmtVariableRegistry ();
 		durationDecl 	= new TreeMap<String, IntExpr>();
-		cpuDecl 		= new TreeMap<String, IntExpr>();
-		symmetryDecl    = new TreeMap<String, IntExpr>();
 
 		multiClusterActors = new HashSet<Actor>();
 		calculateMulticlusterActorChannels();
@@ -102,16 +98,16 @@ public class ClusterMutExclPipelined extends Z3Solver
 
 	public IntExpr getPeriodDeclId () { return periodDecl; }
 	public IntExpr getLatencyDeclId () { return latencyDecl; }	
-	private IntExpr xId (String name, int index) 		 { return startTimeDecl.get (SmtVariablePrefixes.startTimePrefix + name + "_" + Integer.toString (index)); }
+	private IntExpr xId (String name, int index) 		 { return taskVariables.get (SmtVariableRegistry.Kind.START_TIME, name, index); }
 	//private IntExpr xId (String name) 		 { return startTimeDecl.get (SolverPrefixs.startTimePrefix + name); }
-	private IntExpr yId (String name, int index) 		 { return endTimeDecl.get (SmtVariablePrefixes.endTimePrefix + name + "_" + Integer.toString (index)); }
-	private IntExpr yId (String name) 		 { return endTimeDecl.get (SmtVariablePrefixes.endTimePrefix + name); }
-	private IntExpr yDotId (String name) 		 { return endTimeDecl.get (SmtVariablePrefixes.endDotTimePrefix + name); }
-	private IntExpr yDotId (String name, int index) 		 { return endTimeDecl.get (SmtVariablePrefixes.endDotTimePrefix + name + "_" + Integer.toString (index)); }
+	private IntExpr yId (String name, int index) 		 { return taskVariables.get (SmtVariableRegistry.Kind.END_TIME, name, index); }
+	private IntExpr yId (String name) 		 { return taskVariables.get (SmtVariableRegistry.Kind.END_TIME, name); }
+	private IntExpr yDotId (String name) 		 { return taskVariables.get (SmtVariableRegistry.Kind.END_DOT_TIME, name); }
+	private IntExpr yDotId (String name, int index) 		 { return taskVariables.get (SmtVariableRegistry.Kind.END_DOT_TIME, name, index); }
 	private IntExpr durationId (String name)			 { return durationDecl.get (SmtVariablePrefixes.durationPrefix+ name); }
 	//private IntExpr cpuId (String name) 	 { return cpuDecl.get (SolverPrefixs.cpuPrefix + name); }
-	private IntExpr cpuId (String name, int index) 	 { return cpuDecl.get (SmtVariablePrefixes.cpuPrefix + name + "_" + Integer.toString (index)); }	
-	private IntExpr maxCpuId (String name, int index) 	 { return symmetryDecl.get (SmtVariablePrefixes.maxCpuPrefix+ name + Integer.toString (index)); }
+	private IntExpr cpuId (String name, int index) 	 { return taskVariables.get (SmtVariableRegistry.Kind.CPU, name, index); }	
+	private IntExpr maxCpuId (String name, int index) 	 { return taskVariables.get (SmtVariableRegistry.Kind.MAX_CPU, name, index); }
 
 	private void defineStartTimes ()
 	{
@@ -128,7 +124,7 @@ public class ClusterMutExclPipelined extends Z3Solver
 			for (int i=0;i<repCount;i++)
 			{
 				IntExpr id = (IntExpr) addVariableDeclaration (SmtVariablePrefixes.startTimePrefix + actr.getName () +"_"+ Integer.toString (i), "Int");
-				startTimeDecl.put (SmtVariablePrefixes.startTimePrefix + actr.getName () +"_"+ Integer.toString (i), id);
+				taskVariables.put (SmtVariableRegistry.Kind.START_TIME, actr.getName (), i, id);
 			}
 		}		
 	}
@@ -174,11 +170,11 @@ public class ClusterMutExclPipelined extends Z3Solver
 				// {
 					// IntExpr id = (IntExpr) ctx.mkAdd (xId (actr.getName (), i), durationId (actr.getName ()));
 				    IntExpr id = (IntExpr) addVariableDeclaration (SmtVariablePrefixes.endTimePrefix + actr.getName () +"_"+ Integer.toString (i), "Int");
-					endTimeDecl.put (SmtVariablePrefixes.endTimePrefix + actr.getName () +"_"+ Integer.toString (i), id);
+					taskVariables.put (SmtVariableRegistry.Kind.END_TIME, actr.getName (), i, id);
 					if(hasDmaOutput == true)
 					{
 						id = (IntExpr) addVariableDeclaration (SmtVariablePrefixes.endDotTimePrefix + actr.getName () +"_"+ Integer.toString (i), "Int");
-						endTimeDecl.put (SmtVariablePrefixes.endDotTimePrefix + actr.getName () +"_"+ Integer.toString (i), id);
+						taskVariables.put (SmtVariableRegistry.Kind.END_DOT_TIME, actr.getName (), i, id);
 					}
 				//} catch (Z3Exception e) { e.printStackTrace (); }
 			}
@@ -250,7 +246,7 @@ public class ClusterMutExclPipelined extends Z3Solver
 			for (int i=0;i<repCount;i++)
 			{
 				IntExpr id = (IntExpr) addVariableDeclaration (SmtVariablePrefixes.cpuPrefix + actr.getName () + "_" + Integer.toString (i), "Int");
-				cpuDecl.put (SmtVariablePrefixes.cpuPrefix + actr.getName () + "_" + Integer.toString (i), id);
+				taskVariables.put (SmtVariableRegistry.Kind.CPU, actr.getName (), i, id);
 			}
 		}		
 	}
@@ -965,8 +961,8 @@ public class ClusterMutExclPipelined extends Z3Solver
 			{
 				for(int i=0;i<partitionGraphSolutions.getSolution(actr).returnNumber();i++)
 				{
-					int cpuIndex = Integer.parseInt(model.get(SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (i)));
-					int startTime = Integer.parseInt(model.get(SmtVariablePrefixes.startTimePrefix + actr.getName() + "_" + Integer.toString (i)));
+					int cpuIndex = IntModel.getInt(model, SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (i));
+					int startTime = IntModel.getInt(model, SmtVariablePrefixes.startTimePrefix + actr.getName() + "_" + Integer.toString (i));
 					schedule.addActor (actr.getName(), i, platform.getDmaEngine(cpuIndex), startTime);
 				}
 			}
@@ -974,8 +970,8 @@ public class ClusterMutExclPipelined extends Z3Solver
 			{
 				for(int i=0;i<partitionGraphSolutions.getSolution(actr).returnNumber();i++)
 				{
-					int cpuIndex = Integer.parseInt(model.get(SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (i)));
-					int startTime = Integer.parseInt(model.get(SmtVariablePrefixes.startTimePrefix + actr.getName() + "_" + Integer.toString (i)));
+					int cpuIndex = IntModel.getInt(model, SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (i));
+					int startTime = IntModel.getInt(model, SmtVariablePrefixes.startTimePrefix + actr.getName() + "_" + Integer.toString (i));
 					schedule.addActor (actr.getName(), i, platform.getProcessor(cpuIndex), startTime);
 				}		
 			}
@@ -994,12 +990,12 @@ public class ClusterMutExclPipelined extends Z3Solver
 				int bufferSize = 0;
 				// Check if src and destination is in the same cluster.
 				if(schedulingConstraints.getActorAllocatedCluster(srcActor.getName()) == schedulingConstraints.getActorAllocatedCluster(dstActor.getName()))
-					bufferSize = Integer.parseInt(model.get(SmtVariablePrefixes.maxBufferPrefix + srcActor.getName() + dstActor.getName()));
+					bufferSize = IntModel.getInt(model, SmtVariablePrefixes.maxBufferPrefix + srcActor.getName() + dstActor.getName());
 				else
 				{
 					Actor dmaTokenTask = partitionAwareGraph.getActor(SmtVariablePrefixes.dmaTokenTaskPrefix + chnnl.getName());
-					bufferSize = Integer.parseInt(model.get(SmtVariablePrefixes.maxBufferPrefix + srcActor.getName() + dmaTokenTask.getName()));
-					bufferSize += Integer.parseInt(model.get(SmtVariablePrefixes.maxBufferPrefix + dmaTokenTask.getName() + dstActor.getName()));
+					bufferSize = IntModel.getInt(model, SmtVariablePrefixes.maxBufferPrefix + srcActor.getName() + dmaTokenTask.getName());
+					bufferSize += IntModel.getInt(model, SmtVariablePrefixes.maxBufferPrefix + dmaTokenTask.getName() + dstActor.getName());
 				}
 
 				bufferSize /= chnnl.getTokenSize();
@@ -1022,7 +1018,7 @@ public class ClusterMutExclPipelined extends Z3Solver
 			for (int i=0;i<repCount;i++)
 			{
 				IntExpr id = (IntExpr) addVariableDeclaration (SmtVariablePrefixes.maxCpuPrefix + actr.getName () + Integer.toString (i), "Int");
-				symmetryDecl.put (SmtVariablePrefixes.maxCpuPrefix+ actr.getName () +Integer.toString (i), id);
+				taskVariables.put (SmtVariableRegistry.Kind.MAX_CPU, actr.getName (), i, id);
 			}
 		}
 	}
@@ -1458,7 +1454,7 @@ public class ClusterMutExclPipelined extends Z3Solver
 			Actor actr = actrIter.next();
 			for(int instanceId=0;instanceId<partitionGraphSolutions.getSolution(actr).returnNumber();instanceId++)
 			{
-				int procIndex = Integer.parseInt(model.get(SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (instanceId)));
+				int procIndex = IntModel.getInt(model, SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (instanceId));
 				if(actr.getActorType() == ActorType.DATAFLOW)
 					procUsed[procIndex] = true;
 				else if(actr.getActorType() == ActorType.COMMUNICATION)					
@@ -1496,7 +1492,7 @@ public class ClusterMutExclPipelined extends Z3Solver
 
 			for(int instanceId=0;instanceId<partitionGraphSolutions.getSolution(actr).returnNumber();instanceId++)
 			{
-				long startTime = Integer.parseInt(model.get(SmtVariablePrefixes.startTimePrefix + actr.getName() + "_" + Integer.toString (instanceId)));
+				long startTime = IntModel.getInt(model, SmtVariablePrefixes.startTimePrefix + actr.getName() + "_" + Integer.toString (instanceId));
 				long endTime = actr.getExecTime() + startTime;
 				int procIndex = -1;
 				String procName;
@@ -1504,7 +1500,7 @@ public class ClusterMutExclPipelined extends Z3Solver
 
 				if(actr.getActorType() == ActorType.DATAFLOW)
 				{
-					procIndex = Integer.parseInt(model.get(SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (instanceId)));
+					procIndex = IntModel.getInt(model, SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (instanceId));
 					Processor proc = platform.getProcessor(procIndex);
 					procName = proc.getCluster().getName()+"--"+proc.getName();
 					procIndex = newProcIndex[procIndex];
@@ -1515,7 +1511,7 @@ public class ClusterMutExclPipelined extends Z3Solver
 				}
 				else
 				{
-					procIndex = Integer.parseInt(model.get(SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (instanceId)));
+					procIndex = IntModel.getInt(model, SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (instanceId));
 					DmaEngine dma = platform.getDmaEngine(procIndex);
 					procName = dma.getCluster().getName() + "--" + dma.getName();
 					procIndex = newDmaIndex[procIndex];
@@ -1541,7 +1537,7 @@ public class ClusterMutExclPipelined extends Z3Solver
 	@Override
 	public int getLatency(Map<String, String> model)
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.latencyPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.latencyPrefix);
 	}
 
 	@Override
@@ -1558,19 +1554,16 @@ public class ClusterMutExclPipelined extends Z3Solver
 	{
 		super.resetSolver();
 		latencyDecl = null;	
-		startTimeDecl.clear();
-		endTimeDecl.clear();
+		taskVariables.clear();
 		durationDecl.clear();
-		cpuDecl.clear();
 		bufferDecl.clear();
-		symmetryDecl.clear();
 		System.gc();
 	}
 
 	@Override
 	public int getPeriod (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.periodPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.periodPrefix);
 	}
 
 	@Override
@@ -0,0 +1,222 @@
+package solver.distributedMemory.scheduling;
+
+import java.util.*;
+
+/**
+ * ASAP compaction of a schedule and left-edge processor allocation on integer arrays.
+ *
+ * A schedule obtained from the solver is often lazy : tasks start later than their
+ * predecessors allow. Once the order of the tasks on every processor is fixed, all the
+ * constraints are of the form x_dst &gt;= x_src + weight, so the earliest start times are
+ * the longest paths in this constraint graph, computed in a topological order.
+ * The tasks are numbered from 0 to number of tasks - 1.
+ *
+ * @author Pranav Tendulkar
+ *
+ */
+public class ScheduleCompaction
+{
+	/**
+	 * Number of tasks.
+	 */
+	private final int numTasks;
+
+	/**
+	 * Source tasks of the fixed constraints of every task.
+	 */
+	private final int edgeSource[][];
+
+	/**
+	 * Weights of the fixed constraints of every task.
+	 */
+	private final int edgeWeight[][];
+
+	/**
+	 * Number of fixed constraints of every task.
+	 */
+	private final int numEdges[];
+
+	/**
+	 * Build a compaction engine.
+	 *
+	 * @param numTasks number of tasks
+	 */
+	public ScheduleCompaction (int numTasks)
+	{
+		this.numTasks = numTasks;
+		edgeSource = new int[numTasks][2];
+		edgeWeight = new int[numTasks][2];
+		numEdges = new int[numTasks];
+	}
+
+	/**
+	 * Get the number of tasks.
+	 *
+	 * @return number of tasks
+	 */
+	public int getNumTasks () { return numTasks; }
+
+	/**
+	 * Add a constraint x_dst &gt;= x_src + weight which does not depend on the schedule,
+	 * for example a precedence of the graph.
+	 *
+	 * @param src source task
+	 * @param dst destination task
+	 * @param weight minimum distance between the start times
+	 */
+	public void addConstraint (int src, int dst, int weight)
+	{
+		if (numEdges[dst] == edgeSource[dst].length)
+		{
+			edgeSource[dst] = Arrays.copyOf (edgeSource[dst], 2 * numEdges[dst]);
+			edgeWeight[dst] = Arrays.copyOf (edgeWeight[dst], 2 * numEdges[dst]);
+		}
+		edgeSource[dst][numEdges[dst]] = src;
+		edgeWeight[dst][numEdges[dst]++] = weight;
+	}
+
+	/**
+	 * Compute the earliest start times of all the tasks.
+	 *
+	 * @param orderSource source task of the constraints of this schedule, for example the previous task on the processor
+	 * @param orderDest destination task of the constraints of this schedule
+	 * @param orderWeight weight of the constraints of this schedule
+	 * @param numOrders number of constraints of this schedule
+	 * @return start time of every task, null if the constraints have a cycle
+	 */
+	public int[] getStartTimes (int orderSource[], int orderDest[], int orderWeight[], int numOrders)
+	{
+		int startTime[] = new int[numTasks];
+		if (longestPaths (orderSource, orderDest, orderWeight, numOrders, startTime, null) == false)
+			return null;
+		return startTime;
+	}
+
+	/**
+	 * Get the position of every task in a topological order of the fixed constraints.
+	 * It orders the tasks which start at the same time on a processor.
+	 *
+	 * @return rank of every task, null if the fixed constraints have a cycle
+	 */
+	public int[] getTopologicalRank ()
+	{
+		int rank[] = new int[numTasks];
+		if (longestPaths (new int[0], new int[0], new int[0], 0, new int[numTasks], rank) == false)
+			return null;
+		return rank;
+	}
+
+	/**
+	 * Compute the longest paths to all the tasks in a topological order.
+	 *
+	 * @param orderSource source task of the constraints of this schedule
+	 * @param orderDest destination task of the constraints of this schedule
+	 * @param orderWeight weight of the constraints of this schedule
+	 * @param numOrders number of constraints of this schedule
+	 * @param startTime start time of every task is written in this array
+	 * @param rank position of every task in the topological order is written in this array, can be null
+	 * @return false if the constraints have a cycle, true otherwise
+	 */
+	private boolean longestPaths (int orderSource[], int orderDest[], int orderWeight[], int numOrders, int startTime[], int rank[])
+	{
+		// Successors of every task in compressed form.
+		int numSucc[] = new int[numTasks+1];
+		for (int dst=0;dst<numTasks;dst++)
+			for (int e=0;e<numEdges[dst];e++)
+				numSucc[edgeSource[dst][e]+1]++;
+		for (int e=0;e<numOrders;e++)
+			numSucc[orderSource[e]+1]++;
+		for (int i=0;i<numTasks;i++)
+			numSucc[i+1] += numSucc[i];
+
+		int succ[] = new int[numSucc[numTasks]];
+		int succWeight[] = new int[numSucc[numTasks]];
+		int fill[] = Arrays.copyOf (numSucc, numTasks);
+		int inDegree[] = new int[numTasks];
+		for (int dst=0;dst<numTasks;dst++)
+		{
+			for (int e=0;e<numEdges[dst];e++)
+			{
+				int pos = fill[edgeSource[dst][e]]++;
+				succ[pos] = dst;
+				succWeight[pos] = edgeWeight[dst][e];
+				inDegree[dst]++;
+			}
+		}
+		for (int e=0;e<numOrders;e++)
+		{
+			int pos = fill[orderSource[e]]++;
+			succ[pos] = orderDest[e];
+			succWeight[pos] = orderWeight[e];
+			inDegree[orderDest[e]]++;
+		}
+
+		Arrays.fill (startTime, 0);
+		int queue[] = new int[numTasks];
+		int head = 0, tail = 0;
+		for (int i=0;i<numTasks;i++)
+			if (inDegree[i] == 0)
+				queue[tail++] = i;
+
+		while (head < tail)
+		{
+			int task = queue[head];
+			if (rank != null)
+				rank[task] = head;
+			head++;
+			for (int pos=numSucc[task];pos<numSucc[task+1];pos++)
+			{
+				int dst = succ[pos];
+				startTime[dst] = Math.max (startTime[dst], startTime[task] + succWeight[pos]);
+				if (--inDegree[dst] == 0)
+					queue[tail++] = dst;
+			}
+		}
+
+		return (tail == numTasks);
+	}
+
+	/**
+	 * Allocate the tasks to the least number of processors with the left-edge algorithm.
+	 * Tasks are taken in the order of their start times and put on the processor with
+	 * the lowest index which is free.
+	 *
+	 * @param tasks tasks to allocate
+	 * @param startTime start time of every task
+	 * @param endTime time at which every task frees its processor
+	 * @param firstProcessor index of the first processor
+	 * @param processor processor of every task of the list is written in this array
+	 * @return number of processors used
+	 */
+	public static int leftEdge (List<Integer> tasks, final int startTime[], final int endTime[], int firstProcessor, int processor[])
+	{
+		List<Integer> sortedTasks = new ArrayList<Integer>(tasks);
+		Collections.sort (sortedTasks, new Comparator<Integer>()
+		{
+			@Override
+			public int compare (Integer task1, Integer task2)
+			{
+				if (startTime[task1] != startTime[task2])
+					return Integer.compare (startTime[task1], startTime[task2]);
+				if (endTime[task1] != endTime[task2])
+					return Integer.compare (endTime[task1], endTime[task2]);
+				return Integer.compare (task1, task2);
+			}
+		});
+
+		// Time at which every processor is free.
+		List<Integer> freeTime = new ArrayList<Integer>();
+		for (int task : sortedTasks)
+		{
+			int proc = 0;
+			while (proc < freeTime.size () && freeTime.get (proc) > startTime[task])
+				proc++;
+			if (proc == freeTime.size ())
+				freeTime.add (endTime[task]);
+			else
+				freeTime.set (proc, endTime[task]);
+			processor[task] = firstProcessor + proc;
+		}
+		return freeTime.size ();
+	}
+}
@@ -9,10 +9,11 @@ import graphanalysis.properties.GraphAnalysisSdfAndHsdf;
 import java.util.*;
 import com.microsoft.z3.*;
 
+import solver.IntModel;
 import solver.SmtVariablePrefixes;
+import solver.SmtVariableRegistry;
 import solver.Z3Solver;
 import spdfcore.*;
-import spdfcore.Channel.Link;
 import spdfcore.stanalys.*;
 
 /**
@@ -61,6 +62,20 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	 * constraints for them.
 	 */
 	public boolean mutualExclusionGraphAnalysis = false;
+	/**
+	 * Generate mutual exclusion constraints with Boolean order
+	 * variables, only for the tasks which can execute in parallel.
+	 */
+	public boolean orderVariableMutualExclusion = false;
+	/**
+	 * Add transitivity constraints on the order variables.
+	 */
+	public boolean orderTransitivityCuts = true;
+	/**
+	 * Maximum number of task triples for which the transitivity 
+	 * constraints are added.
+	 */
+	public long maxTransitivityCuts = 100000;
 	
 	// This list contains the actors which are from HSDF graph.
 	/**
@@ -86,30 +101,19 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	protected Solutions solutions;
 	
 	/**
-	 * SMT variables for start times of the tasks
+	 * SMT variables for start times, end times, processor allocation
+	 * and processor symmetry of the tasks
 	 */
-	private Map<String, IntExpr> startTimeDecl;
-	/**
-	 * SMT variables for end times of the tasks
-	 */
-	private Map<String, IntExpr> endTimeDecl;
+	private SmtVariableRegistry taskVariables;
 	
 	/**
 	 * SMT variables for duration of the tasks
 	 */
 	private Map<String, IntExpr> durationDecl;
-	/**
-	 * SMT variables for processor allocation of the tasks
-	 */
-	private Map<String, IntExpr> cpuDecl;
 	/**
 	 * SMT variables for buffer calculation of the channels
 	 */
 	private Map<String, IntExpr> bufferDecl;
-	/**
-	 * SMT variable for processor symmetry
-	 */
-	private Map<String, IntExpr> symmetryDecl;
 	/**
 	 * SMT variables for Function declaration for buffer analysis
 	 */
@@ -174,61 +178,12 @@ public abstract class MutualExclusionSolver extends Z3Solver
 		startActorList = analysis.findHsdfStartActors ();
 		lastActorList = analysis.findHsdfEndActors ();		
 						
-		startTimeDecl 	= new TreeMap<String, IntExpr>();
-		endTimeDecl 	= new TreeMap<String, IntExpr>();		
+		taskVariables 	= new SmtVariableRegistry ();
 		durationDecl 	= new TreeMap<String, IntExpr>();
-		cpuDecl 		= new TreeMap<String, IntExpr>();
 		bufferDecl 		= new TreeMap<String, IntExpr>();
-		symmetryDecl 	= new TreeMap<String, IntExpr>();
 		bufferFuncDecl 	= new TreeMap<String, FuncDecl>();
 	}
 	
-	/**
-	 * Get all the successors which do not have any initial tokens
-	 * on the channels connecting to it. We go through entire chain
-	 * till the end of the graph. So this method won't support cyclic
-	 * graphs.
-	 * 
-	 * @param actr actor 
-	 * @return list of all the successors in the graph of this actor
-	 */
-	private List<Actor> getSuccessors (Actor actr) 
-	{
-		List<Actor> result = new ArrayList<Actor>();
-		for (Link lnk : actr.getLinks (Port.DIR.OUT))
-		{
-			if (lnk.getChannel ().getInitialTokens () != 0)
-				continue;
-			Actor successor = lnk.getOpposite ().getActor ();
-			result.add (successor);
-			result.addAll (getSuccessors (successor));
-		}
-		return result;
-	}
-	
-	/**
-	 * Get all the predecessors which do not have any initial tokens
-	 * on the channels connecting to it. We go through entire chain
-	 * till the end of the graph. So this method won't support cyclic
-	 * graphs.
-	 * 
-	 * @param actr actor 
-	 * @return list of all the predecessors in the graph of this actor
-	 */
-	private List<Actor> getPredecessors (Actor actr) 
-	{
-		List<Actor> result = new ArrayList<Actor>();
-		for (Link lnk : actr.getLinks (Port.DIR.IN))
-		{
-			if (lnk.getChannel ().getInitialTokens () != 0)
-				continue;
-			Actor predecessor = lnk.getOpposite ().getActor ();
-			result.add (predecessor);
-			result.addAll (getPredecessors (predecessor));
-		}		
-		return result;
-	}
-	
 //	private void printOverlapList ()
 //	{
 //		for (Map.Entry<Actor, HashSet<Actor>> mapEntry : overlappingActorList.entrySet ())
@@ -246,21 +201,31 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	
 	/**
 	 * Build a list of actors which can execute in parallel.
+	 * Two actors can execute in parallel if there is no path without initial 
+	 * tokens between them. The list is built only once.
 	 */
 	protected void buildOverlappingActorList ()
 	{		
+		if (overlappingActorList != null)
+			return;
+		
 		overlappingActorList = new HashMap<Actor, HashSet<Actor> >();
 		overlappingActorWithGraphSymList = new HashMap<Actor, List<HashSet<Actor>>>();
 		
-		Iterator<Actor> actrIter = hsdf.getActors ();
-		while (actrIter.hasNext ())
+		ReachabilityIndex reachability = ReachabilityIndex.getIndex (hsdf, true);
+		int numActors = reachability.size ();
+		int words = (numActors + 63) >>> 6;
+		
+		for (int a=0;a<numActors;a++)
 		{
-			Actor actr = actrIter.next ();
+			Actor actr = reachability.getActor (a);
 			HashSet<Actor> overlappingActors = new HashSet<Actor>();
 			
-			List<Actor> nonOverlapActors = new ArrayList<Actor>();
-			nonOverlapActors.addAll (getPredecessors (actr));
-			nonOverlapActors.addAll (getSuccessors (actr));
+			long nonOverlapActors[] = new long[words];
+			long ancestors[] = reachability.getAncestors (actr);
+			long descendants[] = reachability.getDescendants (actr);
+			for (int w=0;w<words;w++)
+				nonOverlapActors[w] = ancestors[w] | descendants[w];
 			
 			if (graphSymmetry == true)
 			{				
@@ -280,31 +245,33 @@ public abstract class MutualExclusionSolver extends Z3Solver
 					
 					for (int i=0;i<repCount;i++)
 					{
+						Actor instance = hsdf.getActor (actorName+"_"+Integer.toString (i));
+						long instanceSet[];
 						if (i < thisActorCount)
-							nonOverlapActors.addAll (getPredecessors (hsdf.getActor (actorName+"_"+Integer.toString (i))));
+							instanceSet = reachability.getAncestors (instance);
 						else if (i == thisActorCount)
 							continue;
 						else
 						{
-							nonOverlapActors.addAll (getSuccessors (hsdf.getActor (actorName+"_"+Integer.toString (i))));
-							startBeforeActors.add (hsdf.getActor (actorName+"_"+Integer.toString (i)));
-							endBeforeActors.add (hsdf.getActor (actorName+"_"+Integer.toString (i)));
+							instanceSet = reachability.getDescendants (instance);
+							startBeforeActors.add (instance);
+							endBeforeActors.add (instance);
 						}
+						
+						for (int w=0;w<words;w++)
+							nonOverlapActors[w] |= instanceSet[w];
 					}
 				}				
 			}
 			
 			// Form the result.
-			Iterator<Actor> actrIter2 = hsdf.getActors ();
-			while (actrIter2.hasNext ())
+			for (int b=0;b<numActors;b++)
 			{
-				Actor actr2 = actrIter2.next ();
-				if ((nonOverlapActors.contains (actr2) == false) && (actr.getName ().equals (actr2.getName ()) == false))
-					overlappingActors.add (actr2);
+				if (b != a && (nonOverlapActors[b >>> 6] & (1L << b)) == 0)
+					overlappingActors.add (reachability.getActor (b));
 			}
 			
-			overlappingActorList.put (actr, overlappingActors);			
-			// Search Overlapping actors for this actor.
+			overlappingActorList.put (actr, overlappingActors);
 		}
 	}
 	
@@ -359,7 +326,7 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	 * @param name name of the task
 	 * @return variable for start time of a task
 	 */
-	protected IntExpr xId (String name) 		 			 { return startTimeDecl.get (SmtVariablePrefixes.startTimePrefix + name); }
+	protected IntExpr xId (String name) 		 			 { return taskVariables.get (SmtVariableRegistry.Kind.START_TIME, name); }
 	
 	/**
 	 * Get SMT variable for start time of an actor instance.
@@ -368,7 +335,7 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	 * @param index instance id
 	 * @return variable for start time of an actor instance
 	 */
-	protected IntExpr xId (String name, int index) 		 { return startTimeDecl.get (SmtVariablePrefixes.startTimePrefix + name + "_" + Integer.toString (index)); }
+	protected IntExpr xId (String name, int index) 		 { return taskVariables.get (SmtVariableRegistry.Kind.START_TIME, name, index); }
 	
 	/**
 	 * Get SMT variable for end time of a task.
@@ -376,7 +343,7 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	 * @param name name of the task
 	 * @return variable for end time of a task
 	 */
-	protected IntExpr yId (String name) 		 			 { return endTimeDecl.get (SmtVariablePrefixes.endTimePrefix + name); }
+	protected IntExpr yId (String name) 		 			 { return taskVariables.get (SmtVariableRegistry.Kind.END_TIME, name); }
 	
 	/**
 	 * Get SMT variable for end time of an actor instance.
@@ -385,7 +352,7 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	 * @param index instance id
 	 * @return variable for end time of an actor instance
 	 */
-	protected IntExpr yId (String name, int index) 		 { return endTimeDecl.get (SmtVariablePrefixes.endTimePrefix + name + "_" + Integer.toString (index)); }
+	protected IntExpr yId (String name, int index) 		 { return taskVariables.get (SmtVariableRegistry.Kind.END_TIME, name, index); }
 	
 	/**
 	 * Get SMT variable for processor allocated to a task.
@@ -393,7 +360,7 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	 * @param name name of the task
 	 * @return variable for processor allocated to a task
 	 */
-	protected IntExpr cpuId (String name) 	 			 { return cpuDecl.get (SmtVariablePrefixes.cpuPrefix + name); }
+	protected IntExpr cpuId (String name) 	 			 { return taskVariables.get (SmtVariableRegistry.Kind.CPU, name); }
 	
 	/**
 	 * Get SMT variable for processor allocated to an actor instance
@@ -402,7 +369,7 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	 * @param index instance id
 	 * @return variable for processor allocated to an actor instance
 	 */
-	protected IntExpr cpuId (String name, int index) 	 { return cpuDecl.get (SmtVariablePrefixes.cpuPrefix + name + "_" + Integer.toString (index)); }	
+	protected IntExpr cpuId (String name, int index) 	 { return taskVariables.get (SmtVariableRegistry.Kind.CPU, name, index); }	
 	
 	/**
 	 * Get SMT variable for a production rate on a channel.
@@ -435,7 +402,7 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	 * @param index instance id
 	 * @return variable for maximum processor index on which a task can run
 	 */
-	protected IntExpr maxCpuId (String name, int index) 	 { return symmetryDecl.get (SmtVariablePrefixes.maxCpuPrefix+ name+Integer.toString (index)); }
+	protected IntExpr maxCpuId (String name, int index) 	 { return taskVariables.get (SmtVariableRegistry.Kind.MAX_CPU, name, index); }
 	
 	/**
 	 * Get SMT variable for maximum buffer size for a channel.
@@ -453,7 +420,7 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	 * @param instanceId instance id
 	 * @return variable to calculate tasks started before this task
 	 */
-	protected IntExpr tasksStartedBeforeId (String actorName, int instanceId) { return cpuDecl.get (SmtVariablePrefixes.tasksStartedBeforePrefix + actorName + "_" + Integer.toString (instanceId)); }
+	protected IntExpr tasksStartedBeforeId (String actorName, int instanceId) { return taskVariables.get (SmtVariableRegistry.Kind.TASKS_STARTED_BEFORE, actorName, instanceId); }
 	
 	/**
 	 * Get SMT variable to calculate tasks ended before this task. 
@@ -463,7 +430,7 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	 * @param instanceId instance id
 	 * @return variable to calculate tasks ended before this task
 	 */
-	protected IntExpr tasksEndedBeforeId (String actorName, int instanceId) { return cpuDecl.get (SmtVariablePrefixes.tasksEndedBeforePrefix + actorName + "_" + Integer.toString (instanceId)); }
+	protected IntExpr tasksEndedBeforeId (String actorName, int instanceId) { return taskVariables.get (SmtVariableRegistry.Kind.TASKS_ENDED_BEFORE, actorName, instanceId); }
 	
 	/**
 	 * Get SMT variable to calculate processor utilization at this actor instance
@@ -473,7 +440,7 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	 * @param instanceId instance id
 	 * @return variable to calculate processor utilization at this actor instance
 	 */
-	protected IntExpr procUtilId (String actorName, int instanceId) { return cpuDecl.get (SmtVariablePrefixes.procUtilPrefix + actorName + "_" + Integer.toString (instanceId)); }
+	protected IntExpr procUtilId (String actorName, int instanceId) { return taskVariables.get (SmtVariableRegistry.Kind.PROC_UTIL, actorName, instanceId); }
 	
 	/**
 	 * Get SMT variable for maximum index of processor on which a task can run.
@@ -482,7 +449,7 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	 * @param name name of the task
 	 * @return variable for maximum index of processor on which a task can run
 	 */
-	protected IntExpr maxCpuId (String name) 	 { return symmetryDecl.get (SmtVariablePrefixes.maxCpuPrefix+ name); }	
+	protected IntExpr maxCpuId (String name) 	 { return taskVariables.getByVariableName (SmtVariableRegistry.Kind.MAX_CPU, SmtVariablePrefixes.maxCpuPrefix + name); }	
 	
 	/**
 	 * Get SMT variable for buffer size at a producer of a channel connecting two actors
@@ -549,13 +516,6 @@ public abstract class MutualExclusionSolver extends Z3Solver
 		return result;
 	}
 	
-	/**
-	 * Set a random seed for Z3 solver.
-	 * 
-	 * @param seed integer value as a seed.
-	 */
-	public void setRandomSeed (int seed) { setRandomSeed (z3Solver, seed); }
-	
 
 	/**
 	 * Generate constraints to make sure at least one task is allocated to a processor.
@@ -681,7 +641,7 @@ public abstract class MutualExclusionSolver extends Z3Solver
 			for (int i=0;i<repCount;i++)
 			{
 				IntExpr id = (IntExpr) addVariableDeclaration (SmtVariablePrefixes.maxCpuPrefix + actr.getName () + Integer.toString (i), "Int");
-				symmetryDecl.put (SmtVariablePrefixes.maxCpuPrefix+ actr.getName () +Integer.toString (i), id);
+				taskVariables.put (SmtVariableRegistry.Kind.MAX_CPU, actr.getName (), i, id);
 			}
 		}
 	}
@@ -781,6 +741,108 @@ public abstract class MutualExclusionSolver extends Z3Solver
 		}
 	}
 
+	/**
+	 * Assert mutual exclusion constraints with Boolean order variables.
+	 * As with the graph analysis, only the tasks which can execute in parallel get 
+	 * the constraints. For every such pair A, B we declare order_A_B which decides
+	 * whether A runs before B or B before A when they are on the same processor.
+	 * The transitivity constraints between the order variables let the solver derive 
+	 * the order of a pair from the orders already decided. Their number grows with the 
+	 * cube of the tasks, so they are added only up to maxTransitivityCuts triples.
+	 */
+	private void assertMutualExclusionWithOrderVariables ()
+	{
+		buildOverlappingActorList ();
+		
+		ReachabilityIndex reachability = ReachabilityIndex.getIndex (hsdf, true);
+		int numActors = reachability.size ();
+		
+		// orderIds[a] has order_A_B for every overlapping task B with a higher index.
+		List<TreeMap<Integer, BoolExpr>> orderIds = new ArrayList<TreeMap<Integer, BoolExpr>>(numActors);
+		
+		for (int a=0;a<numActors;a++)
+		{
+			Actor actrA = reachability.getActor (a);
+			TreeMap<Integer, BoolExpr> actorOrderIds = new TreeMap<Integer, BoolExpr>();
+			orderIds.add (actorOrderIds);
+			
+			HashSet<Actor> overlapActors = overlappingActorList.get (actrA);
+			if (overlapActors == null)
+				continue;
+			
+			TreeSet<Integer> overlapIndexes = new TreeSet<Integer>();
+			for (Actor overlapActr : overlapActors)
+				overlapIndexes.add (reachability.getIndex (overlapActr));
+			
+			IntExpr idxCpuA = cpuId (actrA.getName ());
+			IntExpr idx_xA = xId (actrA.getName ()); 
+			IntExpr idx_yA = yId (actrA.getName ());
+			
+			for (int b : overlapIndexes.tailSet (a, false))
+			{
+				Actor actrB = reachability.getActor (b);
+				
+				IntExpr idxCpuB = cpuId (actrB.getName ());
+				IntExpr idx_xB = xId (actrB.getName ());				 
+				IntExpr idx_yB = yId (actrB.getName ());
+				
+				BoolExpr orderId = (BoolExpr) addVariableDeclaration (SmtVariablePrefixes.orderPrefix + actrA.getName () + "_" + actrB.getName (), "Bool");
+				actorOrderIds.put (b, orderId);
+				
+				try
+				{
+					BoolExpr sameCpu = ctx.mkEq (idxCpuA, idxCpuB);
+					// (assert (=> (and (= cpuA cpuB) order_A_B) (>= xB yA)))
+					generateAssertion (ctx.mkImplies (ctx.mkAnd (sameCpu, orderId), ctx.mkGe (idx_xB, idx_yA)));
+					// (assert (=> (and (= cpuA cpuB) (not order_A_B)) (>= xA yB)))
+					generateAssertion (ctx.mkImplies (ctx.mkAnd (sameCpu, ctx.mkNot (orderId)), ctx.mkGe (idx_xA, idx_yB)));
+				} catch (Z3Exception e) { e.printStackTrace (); }
+			}
+		}
+		
+		if (orderTransitivityCuts == false)
+			return;
+		
+		// Only the triples in which every pair can overlap need a constraint,
+		// the other orders are already fixed by the precedences.
+		long numTriples = 0;
+		for (int a=0;a<numActors;a++)
+			for (int b : orderIds.get (a).keySet ())
+				for (int c : orderIds.get (b).keySet ())
+					if (orderIds.get (a).containsKey (c))
+						numTriples++;
+		
+		if (numTriples > maxTransitivityCuts)
+		{
+			System.out.println ("Skipping transitivity of order variables, " + numTriples 
+					+ " triples are more than the limit of " + maxTransitivityCuts);
+			return;
+		}
+		
+		for (int a=0;a<numActors;a++)
+		{
+			for (Map.Entry<Integer, BoolExpr> entryAB : orderIds.get (a).entrySet ())
+			{
+				int b = entryAB.getKey ();
+				for (Map.Entry<Integer, BoolExpr> entryBC : orderIds.get (b).entrySet ())
+				{
+					BoolExpr orderAC = orderIds.get (a).get (entryBC.getKey ());
+					if (orderAC == null)
+						continue;
+					
+					try
+					{
+						// (assert (=> (and order_A_B order_B_C) order_A_C))
+						generateAssertion (ctx.mkImplies (ctx.mkAnd (entryAB.getValue (), entryBC.getValue ()), orderAC));
+						// (assert (=> (and (not order_A_B) (not order_B_C)) (not order_A_C)))
+						generateAssertion (ctx.mkImplies (ctx.mkAnd (ctx.mkNot (entryAB.getValue ()), ctx.mkNot (entryBC.getValue ())), 
+								ctx.mkNot (orderAC)));
+					} catch (Z3Exception e) { e.printStackTrace (); }
+				}
+			}
+		}
+	}
+
 	/**
 	 * Generate mutual exclusion constraints for all the tasks.
 	 */
@@ -1395,7 +1457,7 @@ public abstract class MutualExclusionSolver extends Z3Solver
 				{
 					IntExpr id = (IntExpr) ctx.mkAdd (xId (actr.getName (), i), durationId (actr.getName ()));
 					// (IntExpr) addVariableDeclaration (SolverPrefixs.endTimePrefix + actr.getName () +"_"+ Integer.toString (i), "Int");
-					endTimeDecl.put (SmtVariablePrefixes.endTimePrefix + actr.getName () +"_"+ Integer.toString (i), id);
+					taskVariables.put (SmtVariableRegistry.Kind.END_TIME, actr.getName (), i, id);
 				} catch (Z3Exception e) { e.printStackTrace (); }
 			}			
 		}		
@@ -1419,7 +1481,7 @@ public abstract class MutualExclusionSolver extends Z3Solver
 			for (int i=0;i<repCount;i++)
 			{
 				IntExpr id = (IntExpr) addVariableDeclaration (SmtVariablePrefixes.startTimePrefix + actr.getName () +"_"+ Integer.toString (i), "Int");
-				startTimeDecl.put (SmtVariablePrefixes.startTimePrefix + actr.getName () +"_"+ Integer.toString (i), id);
+				taskVariables.put (SmtVariableRegistry.Kind.START_TIME, actr.getName (), i, id);
 			}
 		}		
 	}
@@ -1559,12 +1621,30 @@ public abstract class MutualExclusionSolver extends Z3Solver
 			for (int i=0;i<repCount;i++)
 			{
 				IntExpr id = (IntExpr) addVariableDeclaration (SmtVariablePrefixes.cpuPrefix + actr.getName () + "_" + Integer.toString (i), "Int");
-				cpuDecl.put (SmtVariablePrefixes.cpuPrefix + actr.getName () + "_" + Integer.toString (i), id);
+				taskVariables.put (SmtVariableRegistry.Kind.CPU, actr.getName (), i, id);
 			}
 			
 		}		
 	}	
 	
+	/**
+	 * Define the number of tasks running at the start of every task.
+	 */
+	protected void generateCumulativeDefinitions ()
+	{
+		Iterator<Actor> actorIter = graph.getActors ();
+		while (actorIter.hasNext ())
+		{
+			Actor actr = actorIter.next ();
+			int repCount = solutions.getSolution (actr).returnNumber ();
+			for (int i=0;i<repCount;i++)
+			{
+				IntExpr id = (IntExpr) addVariableDeclaration (SmtVariablePrefixes.procUtilPrefix + actr.getName () + "_" + Integer.toString (i), "Int");
+				taskVariables.put (SmtVariableRegistry.Kind.PROC_UTIL, actr.getName (), i, id);
+			}
+		}
+	}
+	
 	/* (non-Javadoc)
 	 * @see exploration.interfaces.oneDim.ProcessorConstraints#generateProcessorConstraint(int)
 	 */
@@ -1614,13 +1694,11 @@ public abstract class MutualExclusionSolver extends Z3Solver
 		latencyDecl = null;		
 		totalBufDecl = null;
 		totalProcDecl = null;		
-		startTimeDecl.clear ();
-		endTimeDecl.clear ();
+		taskVariables.clear ();
 		durationDecl.clear ();
-		cpuDecl.clear ();
 		bufferDecl.clear ();
 		bufferFuncDecl.clear();
-		try { z3Solver.reset (); } catch (Z3Exception e) { e.printStackTrace (); }
+		super.resetSolver ();
 	}
 
 
@@ -1700,7 +1778,9 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	 */
 	public void generateMutualExclusion () 
 	{	
-		if (mutualExclusionGraphAnalysis == false)
+		if (orderVariableMutualExclusion == true)
+			assertMutualExclusionWithOrderVariables ();
+		else if (mutualExclusionGraphAnalysis == false)
 			assertMutualExclusion ();
 		else
 			assertMutualExclusionWithGraphAnalysis ();
@@ -1712,7 +1792,7 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	@Override
 	public int getLatency (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.latencyPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.latencyPrefix);
 	}
 	
 	/* (non-Javadoc)
@@ -1721,7 +1801,7 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	@Override
 	public int getProcessors (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.totalProcPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.totalProcPrefix);
 	}
 	
 	/* (non-Javadoc)
@@ -1730,7 +1810,7 @@ public abstract class MutualExclusionSolver extends Z3Solver
 	@Override
 	public int getTotalBufferSize (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.totalBufferPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.totalBufferPrefix);
 	}
 	
 	/**
@@ -1803,14 +1883,14 @@ public abstract class MutualExclusionSolver extends Z3Solver
 					if (((pipelined == false) && (repCount > 1)) || (pipelined == true))
 					{
 						IntExpr id = (IntExpr) addVariableDeclaration (SmtVariablePrefixes.tasksStartedBeforePrefix + actr.getName () + "_" + Integer.toString (i), "Int");
-						cpuDecl.put (SmtVariablePrefixes.tasksStartedBeforePrefix + actr.getName () + "_" + Integer.toString (i), id);
+						taskVariables.put (SmtVariableRegistry.Kind.TASKS_STARTED_BEFORE, actr.getName (), i, id);
 						
 						id = (IntExpr) addVariableDeclaration (SmtVariablePrefixes.tasksEndedBeforePrefix + actr.getName () + "_" + Integer.toString (i), "Int");
-						cpuDecl.put (SmtVariablePrefixes.tasksEndedBeforePrefix + actr.getName () + "_" + Integer.toString (i), id);
+						taskVariables.put (SmtVariableRegistry.Kind.TASKS_ENDED_BEFORE, actr.getName (), i, id);
 					}
 					
 					IntExpr id = (IntExpr) addVariableDeclaration (SmtVariablePrefixes.procUtilPrefix + actr.getName () + "_" + Integer.toString (i), "Int");
-					cpuDecl.put (SmtVariablePrefixes.procUtilPrefix + actr.getName () + "_" + Integer.toString (i), id);
+					taskVariables.put (SmtVariableRegistry.Kind.PROC_UTIL, actr.getName (), i, id);
 				}
 			}
 		}
@@ -0,0 +1,863 @@
+package solver.sharedMemory.combinedSolver.nonpipelined;
+
+import java.util.*;
+
+import graphanalysis.TransformSDFtoHSDF;
+import solver.SmtVariablePrefixes;
+import solver.Z3Solver.SatResult;
+import spdfcore.*;
+import spdfcore.Channel.Link;
+
+import exploration.interfaces.twoDim.LatProcConstraints;
+
+/**
+ * Exact non-pipelined scheduling on identical processors by branch and bound,
+ * without the SMT solver. It answers the same latency and processor queries as
+ * MutExNonPipelinedScheduling and returns a model with the same variable names.
+ *
+ * The search builds the schedule in the order of start times. At every node one
+ * of the ready actors is started at its earliest time on a free processor. Every
+ * active schedule is built by some order, so the search is complete. Since the
+ * start times never decrease, all the processors which are free at that time are
+ * equivalent, and the search never branches on the processor. The processors are
+ * used in order, which breaks the processor symmetry.
+ *
+ * A node is pruned when
+ * 1. an unscheduled actor cannot finish its longest path to an end actor within the latency,
+ *    with earliest start times propagated over the precedences,
+ * 2. the remaining work does not fit in the idle time of the processors before the latency,
+ *    or the part of it which must be done before (or after) some time does not fit before (or after) it,
+ * 3. an actor is started while another ready actor could be completed before it
+ *    (the other actor is shifted left in another branch),
+ * 4. two actors start at the same time in the decreasing order of their index,
+ * 5. an actor is scheduled before a symmetric actor with a lower index, or
+ * 6. the same state of the search was already explored without finding a schedule.
+ *
+ * As in the latency calculation, the channels with enough initial tokens for the
+ * consumer do not order the actors in one iteration. The solver does not use Z3,
+ * so the native library is not required to run it.
+ *
+ * @author Pranav Tendulkar
+ *
+ */
+public class BranchAndBoundScheduling implements LatProcConstraints
+{
+	/**
+	 * Type of a cost constraint.
+	 */
+	private enum CostType {LATENCY, PROCESSORS};
+
+	/**
+	 * Actors of the HSDF graph, indexed.
+	 */
+	private Actor[] actors;
+
+	/**
+	 * Execution time of every actor.
+	 */
+	private int[] execTime;
+
+	/**
+	 * Predecessors of actor v are predecessor[predecessorStart[v]] ... predecessor[predecessorStart[v+1]-1].
+	 */
+	private int[] predecessorStart;
+
+	/**
+	 * Predecessors of all the actors over channels without enough initial tokens.
+	 */
+	private int[] predecessor;
+
+	/**
+	 * Successors of actor v are successor[successorStart[v]] ... successor[successorStart[v+1]-1].
+	 */
+	private int[] successorStart;
+
+	/**
+	 * Successors of all the actors over channels without enough initial tokens.
+	 */
+	private int[] successor;
+
+	/**
+	 * Actors in a topological order.
+	 */
+	private int[] topologicalOrder;
+
+	/**
+	 * Length of the longest path starting at every actor, including its execution time.
+	 */
+	private int[] upwardRank;
+
+	/**
+	 * Previous actor in the index order which is symmetric to every actor, -1 if none.
+	 * Symmetric actors are scheduled in the index order.
+	 */
+	private int[] symmetricPredecessor;
+
+	/**
+	 * Length of the critical path, a lower bound on the latency.
+	 */
+	private int criticalPathLength;
+
+	/**
+	 * Sum of the execution times of all the actors.
+	 */
+	private long totalWork;
+
+	/**
+	 * Type of the cost constraints in the order they were generated.
+	 */
+	private List<CostType> costTypes = new ArrayList<CostType>();
+
+	/**
+	 * Value of the cost constraints in the order they were generated.
+	 */
+	private List<Integer> costValues = new ArrayList<Integer>();
+
+	/**
+	 * Number of cost constraints at every push.
+	 */
+	private Deque<Integer> contextLevels = new ArrayDeque<Integer>();
+
+	/**
+	 * Result of the last query.
+	 */
+	private SatResult lastResult = null;
+
+	/**
+	 * Model of the last SAT query.
+	 */
+	private Map<String, String> lastModel = null;
+
+	/**
+	 * Set when the query is interrupted from another thread.
+	 * It is cleared when the context of the next query is pushed.
+	 */
+	private volatile boolean interruptRequested = false;
+
+	/**
+	 * Unsat core of the last query, null if the last query was not UNSAT.
+	 */
+	private boolean[] lastUnsatCore = null;
+
+	/**
+	 * Number of nodes explored in the last query.
+	 */
+	private long numNodes;
+
+	/**
+	 * Time at which the query times out in nanoseconds, Long.MAX_VALUE for no time out.
+	 */
+	private long deadline;
+
+	/**
+	 * Set when the search stopped on time out or interrupt.
+	 */
+	private boolean stopped;
+
+	/**
+	 * Latency bound of the query.
+	 */
+	private int latencyBound;
+
+	/**
+	 * Number of processors of the query.
+	 */
+	private int numProcessors;
+
+	/**
+	 * Start time of every scheduled actor.
+	 */
+	private int[] startTime;
+
+	/**
+	 * Processor of every scheduled actor.
+	 */
+	private int[] processor;
+
+	/**
+	 * Set for every scheduled actor.
+	 */
+	private boolean[] scheduled;
+
+	/**
+	 * Number of unscheduled predecessors of every actor.
+	 */
+	private int[] remainingPredecessors;
+
+	/**
+	 * Earliest start time of every unscheduled actor, recalculated at every node.
+	 */
+	private int[] earliestStart;
+
+	/**
+	 * Time at which every processor is free.
+	 */
+	private int[] processorFree;
+
+	/**
+	 * Number of processors used so far, the processors are used in order.
+	 */
+	private int processorsUsed;
+
+	/**
+	 * States of the search from which no schedule was found in the current query.
+	 */
+	private Set<SearchState> failedStates = new HashSet<SearchState>();
+
+	/**
+	 * Maximum number of failed states to be remembered, the set is cleared when it is full.
+	 */
+	public int maxFailedStates = 1000000;
+
+	/**
+	 * State of the search. Two nodes with the same state have the same subtree.
+	 */
+	private static class SearchState
+	{
+		/**
+		 * Scheduled actors, start time and actor of the last decision, and the times
+		 * at which the processors are free and the scheduled predecessors end.
+		 */
+		private final int[] data;
+
+		/**
+		 * Hash code of the data.
+		 */
+		private final int hash;
+
+		/**
+		 * Build a search state.
+		 *
+		 * @param data contents of the state
+		 */
+		SearchState (int[] data)
+		{
+			this.data = data;
+			this.hash = Arrays.hashCode (data);
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode () { return hash; }
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals (Object other)
+		{
+			return (other instanceof SearchState) && Arrays.equals (data, ((SearchState) other).data);
+		}
+	}
+
+	/**
+	 * Build the branch and bound solver.
+	 *
+	 * @param inputGraph application graph SDF graph
+	 */
+	public BranchAndBoundScheduling (Graph inputGraph)
+	{
+		TransformSDFtoHSDF toHSDF = new TransformSDFtoHSDF ();
+		Graph hsdf = toHSDF.convertSDFtoHSDFWithUniqueChannels (inputGraph);
+
+		Map<Actor, Integer> actorIndex = new HashMap<Actor, Integer>();
+		actors = new Actor[hsdf.countActors ()];
+		execTime = new int[actors.length];
+
+		Iterator<Actor> actrIter = hsdf.getActors ();
+		while (actrIter.hasNext ())
+		{
+			Actor actr = actrIter.next ();
+			execTime[actorIndex.size ()] = actr.getExecTime ();
+			totalWork += actr.getExecTime ();
+			actors[actorIndex.size ()] = actr;
+			actorIndex.put (actr, actorIndex.size ());
+		}
+
+		// Form the adjacency of the channels which do not have initial tokens.
+		int n = actors.length;
+		predecessorStart = new int[n+1];
+		successorStart = new int[n+1];
+		List<Integer> edgeSrc = new ArrayList<Integer>();
+		List<Integer> edgeDst = new ArrayList<Integer>();
+		for (int v=0;v<n;v++)
+		{
+			for (Link lnk : actors[v].getLinks (Port.DIR.IN))
+			{
+				if (lnk.getChannel ().getInitialTokens () >= Integer.parseInt (lnk.getPort ().getRate ()))
+					continue;
+
+				int src = actorIndex.get (lnk.getOpposite ().getActor ());
+				edgeSrc.add (src);
+				edgeDst.add (v);
+				successorStart[src+1]++;
+				predecessorStart[v+1]++;
+			}
+		}
+
+		for (int v=0;v<n;v++)
+		{
+			successorStart[v+1] += successorStart[v];
+			predecessorStart[v+1] += predecessorStart[v];
+		}
+
+		int succFill[] = Arrays.copyOf (successorStart, n);
+		int predFill[] = Arrays.copyOf (predecessorStart, n);
+		successor = new int[edgeSrc.size ()];
+		predecessor = new int[edgeSrc.size ()];
+		for (int e=0;e<edgeSrc.size ();e++)
+		{
+			successor[succFill[edgeSrc.get (e)]++] = edgeDst.get (e);
+			predecessor[predFill[edgeDst.get (e)]++] = edgeSrc.get (e);
+		}
+
+		calculateRanks ();
+		calculateSymmetries ();
+
+		startTime = new int[n];
+		processor = new int[n];
+		scheduled = new boolean[n];
+		remainingPredecessors = new int[n];
+		earliestStart = new int[n];
+	}
+
+	/**
+	 * Calculate the topological order and the length of the longest path from every actor.
+	 */
+	private void calculateRanks ()
+	{
+		int n = actors.length;
+		int inDegree[] = new int[n];
+		for (int v=0;v<n;v++)
+			inDegree[v] = predecessorStart[v+1] - predecessorStart[v];
+
+		topologicalOrder = new int[n];
+		int head = 0, tail = 0;
+		for (int v=0;v<n;v++)
+			if (inDegree[v] == 0)
+				topologicalOrder[tail++] = v;
+
+		while (head < tail)
+		{
+			int v = topologicalOrder[head++];
+			for (int i=successorStart[v];i<successorStart[v+1];i++)
+				if (--inDegree[successor[i]] == 0)
+					topologicalOrder[tail++] = successor[i];
+		}
+
+		if (tail != n)
+			throw new RuntimeException ("The graph has a cycle without initial tokens. Cannot schedule the graph.");
+
+		upwardRank = new int[n];
+		criticalPathLength = 0;
+		for (int i=n-1;i>=0;i--)
+		{
+			int v = topologicalOrder[i];
+			int longestSuccessor = 0;
+			for (int j=successorStart[v];j<successorStart[v+1];j++)
+				longestSuccessor = Math.max (longestSuccessor, upwardRank[successor[j]]);
+			upwardRank[v] = execTime[v] + longestSuccessor;
+			criticalPathLength = Math.max (criticalPathLength, upwardRank[v]);
+		}
+	}
+
+	/**
+	 * Find the actors which can be swapped in any schedule. Two actors are symmetric if they
+	 * have the same execution time, the same predecessors, the same successors with more than
+	 * one predecessor, and their successors with only one predecessor are symmetric in the same
+	 * way. For example, all the instances of an actor which are fed by the same instance.
+	 */
+	private void calculateSymmetries ()
+	{
+		int n = actors.length;
+		Map<List<Integer>, Integer> subtreeIds = new HashMap<List<Integer>, Integer>();
+		int subtreeId[] = new int[n];
+
+		// Identify the actor with the private successors below it, but not its predecessors.
+		for (int i=n-1;i>=0;i--)
+		{
+			int v = topologicalOrder[i];
+			List<Integer> shared = new ArrayList<Integer>();
+			List<Integer> owned = new ArrayList<Integer>();
+			for (int j=successorStart[v];j<successorStart[v+1];j++)
+			{
+				int w = successor[j];
+				if (predecessorStart[w+1] - predecessorStart[w] == 1)
+					owned.add (subtreeId[w]);
+				else
+					shared.add (w);
+			}
+			Collections.sort (shared);
+			Collections.sort (owned);
+
+			List<Integer> key = new ArrayList<Integer>();
+			key.add (execTime[v]);
+			key.add (shared.size ());
+			key.addAll (shared);
+			key.addAll (owned);
+
+			Integer id = subtreeIds.get (key);
+			if (id == null)
+			{
+				id = subtreeIds.size ();
+				subtreeIds.put (key, id);
+			}
+			subtreeId[v] = id;
+		}
+
+		// Symmetric actors have the same subtree and the same predecessors.
+		Map<List<Integer>, Integer> lastOfClass = new HashMap<List<Integer>, Integer>();
+		symmetricPredecessor = new int[n];
+		for (int v=0;v<n;v++)
+		{
+			List<Integer> key = new ArrayList<Integer>();
+			key.add (subtreeId[v]);
+			for (int j=predecessorStart[v];j<predecessorStart[v+1];j++)
+				key.add (predecessor[j]);
+			Collections.sort (key.subList (1, key.size ()));
+
+			Integer previous = lastOfClass.put (key, v);
+			symmetricPredecessor[v] = (previous == null) ? -1 : previous;
+		}
+	}
+
+	/**
+	 * Get number of nodes explored in the last query.
+	 *
+	 * @return number of nodes
+	 */
+	public long getNumNodes () { return numNodes; }
+
+	/**
+	 * Get the tightest bound of a type from the cost constraints.
+	 *
+	 * @param type type of the cost constraint
+	 * @param defaultValue value if there is no constraint of this type
+	 * @return least value of the constraints of this type
+	 */
+	private int getBound (CostType type, int defaultValue)
+	{
+		int result = defaultValue;
+		for (int i=0;i<costTypes.size ();i++)
+			if (costTypes.get (i) == type)
+				result = Math.min (result, costValues.get (i));
+		return result;
+	}
+
+	/**
+	 * Calculate the unsat core of the last query. If the latency is less than
+	 * the critical path, the processor constraints are not required.
+	 */
+	private void calculateUnsatCore ()
+	{
+		int level = contextLevels.isEmpty () ? 0 : contextLevels.peek ();
+		lastUnsatCore = new boolean[costTypes.size () - level];
+		for (int i=level;i<costTypes.size ();i++)
+		{
+			if (latencyBound < criticalPathLength)
+				lastUnsatCore[i-level] = (costTypes.get (i) == CostType.LATENCY && costValues.get (i) < criticalPathLength);
+			else
+				lastUnsatCore[i-level] = true;
+		}
+	}
+
+	/**
+	 * Build the model of the schedule found.
+	 */
+	private void buildModel ()
+	{
+		int latency = 0;
+		lastModel = new HashMap<String, String>();
+		for (int v=0;v<actors.length;v++)
+		{
+			lastModel.put ("x"+actors[v].getName (), Integer.toString (startTime[v]));
+			lastModel.put ("cpu"+actors[v].getName (), Integer.toString (processor[v]));
+			latency = Math.max (latency, startTime[v] + execTime[v]);
+		}
+		lastModel.put (SmtVariablePrefixes.latencyPrefix, Integer.toString (latency));
+		lastModel.put (SmtVariablePrefixes.totalProcPrefix, Integer.toString (processorsUsed));
+	}
+
+	/**
+	 * Get the state of the current node. The times before the last start time
+	 * are not distinguished, since no actor starts before it anymore.
+	 *
+	 * @param lastStart start time of the last scheduled actor
+	 * @param lastActor last scheduled actor
+	 * @return state of the search
+	 */
+	private SearchState getSearchState (int lastStart, int lastActor)
+	{
+		int n = actors.length;
+		int words = (n + 31) / 32;
+		int data[] = new int[words + 2 + numProcessors + n];
+		int size = 0;
+
+		for (int v=0;v<n;v++)
+			if (scheduled[v] == true)
+				data[v / 32] |= (1 << (v % 32));
+		size = words;
+		data[size++] = lastStart;
+		data[size++] = lastActor;
+
+		int free[] = new int[numProcessors];
+		for (int p=0;p<numProcessors;p++)
+			free[p] = Math.max (processorFree[p], lastStart);
+		Arrays.sort (free);
+		for (int p=0;p<numProcessors;p++)
+			data[size++] = free[p];
+
+		// End times of the scheduled actors which still have an unscheduled successor.
+		for (int v=0;v<n;v++)
+		{
+			if (scheduled[v] == false)
+				continue;
+			for (int j=successorStart[v];j<successorStart[v+1];j++)
+			{
+				if (scheduled[successor[j]] == false)
+				{
+					data[size++] = Math.max (startTime[v] + execTime[v], lastStart);
+					break;
+				}
+			}
+		}
+
+		return new SearchState (Arrays.copyOf (data, size));
+	}
+
+	/**
+	 * Energetic reasoning on the unscheduled actors. Every actor must finish before the
+	 * latency minus its path to the end actors. For a time T, the part of an actor which cannot 
+	 * be moved after T must be executed before T, and must fit in the idle time of the processors 
+	 * before T. In the same way, the part which cannot be executed before T must fit after T.
+	 *
+	 * @param base earliest start time of any unscheduled actor
+	 * @return false if the work does not fit for some time T
+	 */
+	private boolean checkEnergy (int base)
+	{
+		int n = actors.length;
+		for (int u=0;u<n;u++)
+		{
+			if (scheduled[u] == true)
+				continue;
+
+			// Part of the actors which must be executed before the latest end of u.
+			int time = latencyBound - upwardRank[u] + execTime[u];
+			long required = 0;
+			for (int v=0;v<n;v++)
+				if (scheduled[v] == false)
+					required += Math.max (0, execTime[v] - Math.max (0, latencyBound - upwardRank[v] + execTime[v] - time));
+
+			long available = 0;
+			for (int p=0;p<numProcessors;p++)
+				available += Math.max (0, time - Math.max (processorFree[p], base));
+			if (required > available)
+				return false;
+
+			// Part of the actors which must be executed after the earliest start of u.
+			time = earliestStart[u];
+			required = 0;
+			for (int v=0;v<n;v++)
+				if (scheduled[v] == false)
+					required += Math.max (0, execTime[v] - Math.max (0, time - earliestStart[v]));
+
+			available = 0;
+			for (int p=0;p<numProcessors;p++)
+				available += Math.max (0, latencyBound - Math.max (processorFree[p], time));
+			if (required > available)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Search for a schedule of the remaining actors.
+	 *
+	 * @param numScheduled number of actors scheduled
+	 * @param lastStart start time of the last scheduled actor
+	 * @param lastActor last scheduled actor, -1 at the root
+	 * @return true if a schedule is found
+	 */
+	private boolean search (int numScheduled, int lastStart, int lastActor)
+	{
+		int n = actors.length;
+		if (numScheduled == n)
+			return true;
+
+		if ((++numNodes & 1023) == 0 && (interruptRequested == true || System.nanoTime () > deadline))
+			stopped = true;
+		if (stopped == true)
+			return false;
+
+		int minFree = Integer.MAX_VALUE;
+		for (int p=0;p<numProcessors;p++)
+			minFree = Math.min (minFree, processorFree[p]);
+		int base = Math.max (lastStart, minFree);
+
+		// Propagate the earliest start times and check the path to the end actors.
+		long remainingWork = 0;
+		for (int i=0;i<n;i++)
+		{
+			int v = topologicalOrder[i];
+			if (scheduled[v] == true)
+				continue;
+
+			int start = base;
+			for (int j=predecessorStart[v];j<predecessorStart[v+1];j++)
+			{
+				int u = predecessor[j];
+				start = Math.max (start, (scheduled[u] ? startTime[u] : earliestStart[u]) + execTime[u]);
+			}
+
+			if (start + upwardRank[v] > latencyBound)
+				return false;
+			earliestStart[v] = start;
+			remainingWork += execTime[v];
+		}
+
+		// The remaining work must fit in the idle time of the processors.
+		long idleTime = 0;
+		for (int p=0;p<numProcessors;p++)
+			idleTime += Math.max (0, latencyBound - Math.max (processorFree[p], base));
+		if (idleTime < remainingWork)
+			return false;
+
+		if (checkEnergy (base) == false)
+			return false;
+
+		SearchState state = getSearchState (lastStart, lastActor);
+		if (failedStates.contains (state))
+			return false;
+
+		// Ready actors with the longest path first.
+		List<Integer> ready = new ArrayList<Integer>();
+		for (int v=0;v<n;v++)
+			if (scheduled[v] == false && remainingPredecessors[v] == 0)
+				ready.add (v);
+		Collections.sort (ready, new Comparator<Integer>()
+		{
+			@Override
+			public int compare (Integer v, Integer w)
+			{
+				if (upwardRank[v] != upwardRank[w])
+					return upwardRank[w] - upwardRank[v];
+				return v - w;
+			}
+		});
+
+		int readyStart[] = new int[ready.size ()];
+		for (int i=0;i<ready.size ();i++)
+			readyStart[i] = earliestStart[ready.get (i)];
+
+		for (int i=0;i<ready.size ();i++)
+		{
+			int v = ready.get (i);
+			int start = readyStart[i];
+
+			// Symmetric actors are scheduled in the order of index.
+			if (symmetricPredecessor[v] != -1 && scheduled[symmetricPredecessor[v]] == false)
+				continue;
+
+			// Actors which start together are scheduled in the order of index.
+			if (start == lastStart && v < lastActor)
+				continue;
+
+			// Another ready actor could be completed before this one starts.
+			boolean dominated = false;
+			for (int k=0;k<ready.size () && dominated == false;k++)
+				if (readyStart[k] < start && readyStart[k] + execTime[ready.get (k)] <= start)
+					dominated = true;
+			if (dominated == true)
+				continue;
+
+			// Any used processor free at the start time is equivalent, otherwise the next unused one.
+			int proc = -1;
+			for (int p=0;p<processorsUsed;p++)
+				if (processorFree[p] <= start && (proc == -1 || processorFree[p] > processorFree[proc]))
+					proc = p;
+			boolean newProcessor = (proc == -1);
+			if (newProcessor == true)
+				proc = processorsUsed++;
+
+			int previousFree = processorFree[proc];
+			startTime[v] = start;
+			processor[v] = proc;
+			scheduled[v] = true;
+			processorFree[proc] = start + execTime[v];
+			for (int j=successorStart[v];j<successorStart[v+1];j++)
+				remainingPredecessors[successor[j]]--;
+
+			if (search (numScheduled+1, start, v) == true)
+				return true;
+
+			for (int j=successorStart[v];j<successorStart[v+1];j++)
+				remainingPredecessors[successor[j]]++;
+			processorFree[proc] = previousFree;
+			scheduled[v] = false;
+			if (newProcessor == true)
+				processorsUsed--;
+
+			if (stopped == true)
+				return false;
+		}
+
+		if (failedStates.size () >= maxFailedStates)
+			failedStates.clear ();
+		failedStates.add (state);
+		return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see exploration.interfaces.SolverFunctions#checkSat(int)
+	 */
+	@Override
+	public SatResult checkSat (int timeOutInSeconds)
+	{
+		int n = actors.length;
+		latencyBound = getBound (CostType.LATENCY, (int) Math.min (Integer.MAX_VALUE, totalWork));
+		numProcessors = Math.min (getBound (CostType.PROCESSORS, Math.max (1, n)), Math.max (1, n));
+
+		lastModel = null;
+		lastUnsatCore = null;
+		numNodes = 0;
+		stopped = false;
+		deadline = (timeOutInSeconds > 0) ? System.nanoTime () + timeOutInSeconds * 1000000000L : Long.MAX_VALUE;
+
+		if (numProcessors < 1 || latencyBound < criticalPathLength || (long) numProcessors * latencyBound < totalWork)
+		{
+			lastResult = SatResult.UNSAT;
+			calculateUnsatCore ();
+			return lastResult;
+		}
+
+		failedStates.clear ();
+		Arrays.fill (scheduled, false);
+		for (int v=0;v<n;v++)
+			remainingPredecessors[v] = predecessorStart[v+1] - predecessorStart[v];
+		processorFree = new int[numProcessors];
+		processorsUsed = 0;
+
+		if (search (0, 0, -1) == true)
+		{
+			lastResult = SatResult.SAT;
+			buildModel ();
+		}
+		else if (stopped == true)
+			lastResult = SatResult.TIMEOUT;
+		else
+		{
+			lastResult = SatResult.UNSAT;
+			calculateUnsatCore ();
+		}
+		return lastResult;
+	}
+
+	/* (non-Javadoc)
+	 * @see exploration.interfaces.SolverFunctions#getModel()
+	 */
+	@Override
+	public Map<String, String> getModel ()
+	{
+		return lastModel;
+	}
+
+	/* (non-Javadoc)
+	 * @see exploration.interfaces.SolverFunctions#pushContext()
+	 */
+	@Override
+	public void pushContext ()
+	{
+		// A new query is set up. An interrupt sent after this point, even 
+		// before the search starts, belongs to this query and must be kept.
+		interruptRequested = false;
+		contextLevels.push (costTypes.size ());
+	}
+
+	/* (non-Javadoc)
+	 * @see exploration.interfaces.SolverFunctions#popContext(int)
+	 */
+	@Override
+	public void popContext (int numContext)
+	{
+		int level = costTypes.size ();
+		for (int i=0;i<numContext;i++)
+			level = contextLevels.pop ();
+
+		while (costTypes.size () > level)
+		{
+			costTypes.remove (costTypes.size ()-1);
+			costValues.remove (costValues.size ()-1);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see exploration.interfaces.SolverFunctions#interruptQuery()
+	 */
+	@Override
+	public void interruptQuery ()
+	{
+		interruptRequested = true;
+	}
+
+	/* (non-Javadoc)
+	 * @see exploration.interfaces.SolverFunctions#getNumCostConstraints()
+	 */
+	@Override
+	public int getNumCostConstraints ()
+	{
+		int level = contextLevels.isEmpty () ? 0 : contextLevels.peek ();
+		return costTypes.size () - level;
+	}
+
+	/* (non-Javadoc)
+	 * @see exploration.interfaces.SolverFunctions#getUnsatCore()
+	 */
+	@Override
+	public boolean[] getUnsatCore ()
+	{
+		if (lastResult != SatResult.UNSAT)
+			return null;
+		return lastUnsatCore;
+	}
+
+	/* (non-Javadoc)
+	 * @see exploration.interfaces.oneDim.LatencyConstraints#getLatency(java.util.Map)
+	 */
+	@Override
+	public int getLatency (Map<String, String> model)
+	{
+		return Integer.parseInt (model.get (SmtVariablePrefixes.latencyPrefix));
+	}
+
+	/* (non-Javadoc)
+	 * @see exploration.interfaces.oneDim.LatencyConstraints#generateLatencyConstraint(int)
+	 */
+	@Override
+	public void generateLatencyConstraint (int latency)
+	{
+		costTypes.add (CostType.LATENCY);
+		costValues.add (latency);
+	}
+
+	/* (non-Javadoc)
+	 * @see exploration.interfaces.oneDim.ProcessorConstraints#getProcessors(java.util.Map)
+	 */
+	@Override
+	public int getProcessors (Map<String, String> model)
+	{
+		return Integer.parseInt (model.get (SmtVariablePrefixes.totalProcPrefix));
+	}
+
+	/* (non-Javadoc)
+	 * @see exploration.interfaces.oneDim.ProcessorConstraints#generateProcessorConstraint(int)
+	 */
+	@Override
+	public void generateProcessorConstraint (int processors)
+	{
+		costTypes.add (CostType.PROCESSORS);
+		costValues.add (processors);
+	}
+}
@@ -1448,7 +1448,7 @@ public class MatrixSolver extends Z3Solver
 	@Override
 	public int getLatency (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.latencyPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.latencyPrefix);
 	}
 	
 	/* (non-Javadoc)
@@ -1457,7 +1457,7 @@ public class MatrixSolver extends Z3Solver
 	@Override
 	public int getProcessors (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.totalProcPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.totalProcPrefix);
 	}
 }
 	
@@ -2,9 +2,12 @@ package solver.sharedMemory.combinedSolver.nonpipelined;
 
 import java.util.*;
 
+import graphanalysis.ReachabilityIndex;
+import graphanalysis.scheduling.LeftEdgeModelToSchedule;
 import output.GanttChart;
 import output.GanttChart.Record;
 
+import solver.IntModel;
 import solver.SmtVariablePrefixes;
 import solver.sharedMemory.combinedSolver.MutualExclusionSolver;
 import spdfcore.*;
@@ -23,6 +26,13 @@ import exploration.interfaces.twoDim.LatProcConstraints;
 public class MutExNonPipelinedScheduling extends MutualExclusionSolver 
 							implements LatProcConstraints, LatProcBuffConstraints 
 {
+	/**
+	 * Bound the number of tasks running at the same time by the processors,
+	 * without allocating the tasks to processors. The allocation is done
+	 * by left-edge algorithm on the model.
+	 */
+	public boolean cumulativeProcessorConstraint = false;
+	
 	/**
 	 * Build mutual exclusion solver object
 	 * 
@@ -410,7 +420,9 @@ public class MutExNonPipelinedScheduling extends MutualExclusionSolver
 
 		generateActorTimeDefinitions ();
 		
-		if (leftEdgeAlgorithm == true)
+		if (cumulativeProcessorConstraint == true)
+			generateCumulativeDefinitions ();
+		else if (leftEdgeAlgorithm == true)
 		{
 			leftEdge = new LeftEdgeNonPipelined ();
 			leftEdge.generateLeftEdgeDefinitions ();
@@ -418,7 +430,7 @@ public class MutExNonPipelinedScheduling extends MutualExclusionSolver
 		else
 			generateCpuDefinitions ();
 
-		if (processorSymmetry == true)
+		if (processorSymmetry == true && cumulativeProcessorConstraint == false)
 			generateProcessorSymmetryDefinitions ();
 
 		if (bufferAnalysis == true)
@@ -427,7 +439,9 @@ public class MutExNonPipelinedScheduling extends MutualExclusionSolver
 		// Generate All Constraints
 		assertStartTimeBounds ();
 
-		if (leftEdgeAlgorithm == true)
+		if (cumulativeProcessorConstraint == true)
+			assertCumulativeProcessors ();
+		else if (leftEdgeAlgorithm == true)
 			leftEdge.nonPipelinedConstraints ();
 		else
 		{
@@ -435,7 +449,7 @@ public class MutExNonPipelinedScheduling extends MutualExclusionSolver
 			generateMutualExclusion ();	
 		}
 
-		if (processorSymmetry == true && leftEdgeAlgorithm == false)
+		if (processorSymmetry == true && leftEdgeAlgorithm == false && cumulativeProcessorConstraint == false)
 			processorSymmetryConstraints ();
 		
 		if (graphSymmetry == true)
@@ -456,13 +470,93 @@ public class MutExNonPipelinedScheduling extends MutualExclusionSolver
 		// nonLazyConstraint();
 	}
 
+	/**
+	 * Cumulative processor constraints. The number of running tasks only increases
+	 * when a task starts, so it is enough to count the running tasks at the start
+	 * of every task. A task which precedes or follows another one in the HSDF graph
+	 * cannot run at its start, so only the tasks which can overlap are counted.
+	 * The total processors is the maximum of these counts.
+	 */
+	private void assertCumulativeProcessors ()
+	{
+		ReachabilityIndex reachability = ReachabilityIndex.getIndex (hsdf, true);
+		int numActors = reachability.size ();
+		
+		try
+		{
+			BoolExpr orArgs[] = new BoolExpr [numActors];
+			BoolExpr andArgs[] = new BoolExpr [numActors];
+			
+			for (int a=0;a<numActors;a++)
+			{
+				String actorName = reachability.getActor (a).getName ();
+				IntExpr startTimeId = xId (actorName);
+				IntExpr procUtilId = procUtilId (actorName.substring (0, actorName.lastIndexOf ('_')), 
+						Integer.parseInt (actorName.substring (actorName.lastIndexOf ('_')+1)));
+				
+				// (assert (= procUtil_A_0 (+ 1 (if (and (<= xB_0 xA_0) (< xA_0 yB_0)) 1 0) ...)))
+				List<ArithExpr> addArgs = new ArrayList<ArithExpr>();
+				addArgs.add (ctx.mkInt (1));
+				for (int b=0;b<numActors;b++)
+				{
+					if (b == a || reachability.mayOverlap (a, b) == false)
+						continue;
+					String otherName = reachability.getActor (b).getName ();
+					addArgs.add ((ArithExpr) ctx.mkITE (ctx.mkAnd (ctx.mkLe (xId (otherName), startTimeId), 
+							ctx.mkLt (startTimeId, yId (otherName))), 
+							ctx.mkInt (1), 
+							ctx.mkInt (0)));
+				}
+				
+				generateAssertion (ctx.mkEq (procUtilId, ctx.mkAdd (addArgs.toArray (new ArithExpr[addArgs.size ()]))));
+				
+				orArgs[a] = ctx.mkEq (getProcDeclId (), procUtilId);
+				andArgs[a] = ctx.mkGe (getProcDeclId (), procUtilId);
+			}
+			
+			generateAssertion (ctx.mkOr (orArgs));
+			generateAssertion (ctx.mkAnd (andArgs));
+		} catch (Z3Exception e) { e.printStackTrace (); }
+	}
+	
+	/* (non-Javadoc)
+	 * @see solver.Z3Solver#getModel()
+	 */
+	@Override
+	public Map<String, String> getModel ()
+	{
+		Map<String, String> model = super.getModel ();
+		if (cumulativeProcessorConstraint == false)
+			return model;
+		
+		// Allocate the processors with left-edge on the start times of the model.
+		Map<String, Integer> startTimes = new HashMap<String, Integer>();
+		Iterator<Actor> actorIter = hsdf.getActors ();
+		while (actorIter.hasNext ())
+		{
+			String name = SmtVariablePrefixes.startTimePrefix + actorIter.next ().getName ();
+			startTimes.put (name, IntModel.getInt (model, name));
+		}
+		startTimes.put (SmtVariablePrefixes.totalProcPrefix, IntModel.getInt (model, SmtVariablePrefixes.totalProcPrefix));
+		
+		Map<String, Integer> schedule = new LeftEdgeModelToSchedule ().nonPipelined (graph, hsdf, startTimes);
+		
+		Map<String, String> result = new HashMap<String, String>(model);
+		for (Map.Entry<String, Integer> entry : schedule.entrySet ())
+		{
+			if (entry.getKey ().startsWith (SmtVariablePrefixes.cpuPrefix))
+				result.put (entry.getKey (), Integer.toString (entry.getValue ()));
+		}
+		return result;
+	}
+
 	/* (non-Javadoc)
 	 * @see solver.sharedMemory.combinedSolver.MutualExclusionSolver#getLatency(java.util.Map)
 	 */
 	@Override
 	public int getLatency (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.latencyPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.latencyPrefix);
 	}
 	
 	/**
@@ -684,7 +778,7 @@ public class MutExNonPipelinedScheduling extends MutualExclusionSolver
 			Actor actr = actrIter.next();
 			for(int instanceId=0;instanceId<solutions.getSolution(actr).returnNumber();instanceId++)
 			{
-				int procIndex = Integer.parseInt(model.get(SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (instanceId)));				
+				int procIndex = IntModel.getInt(model, SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (instanceId));				
 				procUsed[procIndex] = true;
 			}			
 		}
@@ -707,13 +801,13 @@ public class MutExNonPipelinedScheduling extends MutualExclusionSolver
 
 			for(int instanceId=0;instanceId<solutions.getSolution(actr).returnNumber();instanceId++)
 			{
-				long startTime = Integer.parseInt(model.get(SmtVariablePrefixes.startTimePrefix + actr.getName() + "_" + Integer.toString (instanceId)));
+				long startTime = IntModel.getInt(model, SmtVariablePrefixes.startTimePrefix + actr.getName() + "_" + Integer.toString (instanceId));
 				long endTime = actr.getExecTime() + startTime;
 				int procIndex = -1;
 				String procName;
 				boolean printNameInGraph=true;
 
-				procIndex = Integer.parseInt(model.get(SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (instanceId)));				
+				procIndex = IntModel.getInt(model, SmtVariablePrefixes.cpuPrefix + actr.getName() + "_" + Integer.toString (instanceId));				
 				procIndex = newProcIndex[procIndex];
 				procName = "Proc"+Integer.toString(procIndex);
 				printNameInGraph = true;
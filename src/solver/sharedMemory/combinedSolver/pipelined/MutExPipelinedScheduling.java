@@ -7,6 +7,7 @@ import com.microsoft.z3.*;
 import exploration.interfaces.oneDim.PeriodConstraints;
 import exploration.interfaces.twoDim.PeriodProcConstraints;
 import graphanalysis.properties.GraphAnalysisSdfAndHsdf;
+import solver.IntModel;
 import solver.SmtVariablePrefixes;
 import solver.sharedMemory.combinedSolver.MutualExclusionSolver;
 import spdfcore.*;
@@ -499,7 +500,7 @@ public class MutExPipelinedScheduling extends MutualExclusionSolver
 	@Override
 	public int getPeriod (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.periodPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.periodPrefix);
 	}
 	
 	//
@@ -11,6 +11,7 @@ import java.util.*;
 
 import com.microsoft.z3.*;
 
+import solver.IntModel;
 import solver.SmtVariablePrefixes;
 import solver.Z3Solver;
 import spdfcore.*;
@@ -745,7 +746,7 @@ implements ProcessorConstraints, LatencyConstraints, PeriodConstraints, PeriodPr
 		pushedContext = false;
 		contextStatements.clear ();
 
-		try { z3Solver.reset (); } catch (Z3Exception e) { e.printStackTrace (); }		
+		super.resetSolver ();
 		// ctx.resetSolver (z3Solver);
 	}
 
@@ -1146,7 +1147,7 @@ implements ProcessorConstraints, LatencyConstraints, PeriodConstraints, PeriodPr
 	@Override
 	public int getPeriod (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.periodPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.periodPrefix);
 	}
 
 	/* (non-Javadoc)
@@ -1155,7 +1156,7 @@ implements ProcessorConstraints, LatencyConstraints, PeriodConstraints, PeriodPr
 	@Override
 	public int getLatency (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.latencyPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.latencyPrefix);
 	}
 
 	/* (non-Javadoc)
@@ -1164,7 +1165,7 @@ implements ProcessorConstraints, LatencyConstraints, PeriodConstraints, PeriodPr
 	@Override
 	public int getProcessors (Map<String, String> model) 
 	{
-		return Integer.parseInt (model.get (SmtVariablePrefixes.totalProcPrefix));
+		return IntModel.getInt (model, SmtVariablePrefixes.totalProcPrefix);
 	}
 
 	/* (non-Javadoc)
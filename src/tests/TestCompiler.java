@@ -50,6 +50,18 @@ public class TestCompiler
 		// Test Bellman Ford Algorithm
 		TryBellmanFord.main (null);
 		
+		// Test Minimum Latency Bound
+		TryLatencyBound.main (null);
+		
+		// Test Branch and Bound Scheduling
+		TryBranchAndBound.main (null);
+		
+		// Test Heuristic Scheduling
+		TryHeuristicScheduling.main (null);
+		
+		// Test Schedule Compaction
+		TryScheduleCompaction.main (null);
+		
 		// Test SDF to HSDF Tranformation
 		TryTransformSDFToHSDF.main(null);
 		
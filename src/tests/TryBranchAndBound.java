@@ -0,0 +1,56 @@
+package tests;
+import input.ParseApplicationGraph;
+import solver.Z3Solver.SatResult;
+import solver.sharedMemory.combinedSolver.nonpipelined.BranchAndBoundScheduling;
+import spdfcore.*;
+
+import java.util.*;
+
+/**
+ * Test the branch and bound scheduler on a small graph with known optimal latencies.
+ * 
+ * @author Pranav Tendulkar
+ *
+ */
+public class TryBranchAndBound 
+{
+	/**
+	 * Check that the optimal latency for every number of processors is SAT,
+	 * and one less than it is UNSAT.
+	 * 
+	 * @param args None Required
+	 */
+	public static void main (String[] args) 
+	{
+		final int optimalLatency[] = {2300, 1200, 800, 800, 800, 600};
+		
+		ParseApplicationGraph xmlParse = new ParseApplicationGraph ();
+		Graph g = xmlParse.parseSingleGraphXml ("inputFiles/test_graphs/hsdfTest.xml");
+		
+		BranchAndBoundScheduling solver = new BranchAndBoundScheduling (g);
+		for (int i=0;i<optimalLatency.length;i++)
+		{
+			int processors = i+1;
+			
+			solver.pushContext ();
+			solver.generateLatencyConstraint (optimalLatency[i]);
+			solver.generateProcessorConstraint (processors);
+			if (solver.checkSat (0) != SatResult.SAT)
+				throw new RuntimeException ("No schedule found with latency " + optimalLatency[i] + " on " + processors + " processors");
+			
+			Map<String, String> model = solver.getModel ();
+			if (solver.getLatency (model) > optimalLatency[i] || solver.getProcessors (model) > processors)
+				throw new RuntimeException ("The schedule does not satisfy the constraints : " + model.toString ());
+			solver.popContext (1);
+			
+			solver.pushContext ();
+			solver.generateLatencyConstraint (optimalLatency[i]-1);
+			solver.generateProcessorConstraint (processors);
+			if (solver.checkSat (0) != SatResult.UNSAT)
+				throw new RuntimeException ("Schedule found with latency " + (optimalLatency[i]-1) + " on " + processors + " processors");
+			solver.popContext (1);
+		}
+		
+		System.out.println ("TryBranchAndBound Passed the Test !");
+	}
+}
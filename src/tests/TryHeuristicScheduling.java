@@ -0,0 +1,57 @@
+package tests;
+import graphanalysis.scheduling.SchedulingPortfolio;
+import graphanalysis.scheduling.SchedulingPortfolio.Heuristic;
+import input.ParseApplicationGraph;
+import spdfcore.*;
+
+/**
+ * Test the HEFT and CPOP heuristics of the scheduling portfolio on a small graph 
+ * with known optimal latencies.
+ * 
+ * @author Pranav Tendulkar
+ *
+ */
+public class TryHeuristicScheduling 
+{
+	/**
+	 * Check the latencies of HEFT and CPOP for every number of processors,
+	 * that they are never below the optimal latency, and that the portfolio
+	 * keeps the best of them.
+	 * 
+	 * @param args None Required
+	 */
+	public static void main (String[] args) 
+	{
+		final int optimalLatency[] = {2300, 1200, 800, 800, 800, 600};
+		final int heftLatency[] = {2300, 1300, 800, 800, 800, 600};
+		final int cpopLatency[] = {2300, 1300, 800, 800, 800, 600};
+		
+		ParseApplicationGraph xmlParse = new ParseApplicationGraph ();
+		Graph g = xmlParse.parseSingleGraphXml ("inputFiles/test_graphs/hsdfTest.xml");
+		
+		SchedulingPortfolio portfolio = new SchedulingPortfolio (g);
+		portfolio.run (optimalLatency.length);
+		for (int i=0;i<optimalLatency.length;i++)
+		{
+			int processors = i+1;
+			int heft = portfolio.getLatency (Heuristic.HEFT, processors);
+			int cpop = portfolio.getLatency (Heuristic.CPOP, processors);
+			
+			if (heft != heftLatency[i])
+				throw new RuntimeException ("HEFT latency " + heft + " on " + processors + " processors, expected " + heftLatency[i]);
+			if (cpop != cpopLatency[i])
+				throw new RuntimeException ("CPOP latency " + cpop + " on " + processors + " processors, expected " + cpopLatency[i]);
+			if (portfolio.getBestLatency (processors) < optimalLatency[i])
+				throw new RuntimeException ("Portfolio latency " + portfolio.getBestLatency (processors) 
+						+ " is less than the optimal latency " + optimalLatency[i] + " on " + processors + " processors");
+			if (portfolio.getBestLatency (processors) > Math.min (heft, cpop))
+				throw new RuntimeException ("Portfolio latency " + portfolio.getBestLatency (processors) 
+						+ " is worse than HEFT and CPOP on " + processors + " processors");
+		}
+		
+		if (portfolio.getMinProcessors (800) != 3)
+			throw new RuntimeException ("Latency 800 should need 3 processors, found " + portfolio.getMinProcessors (800));
+		
+		System.out.println ("TryHeuristicScheduling Passed the Test !");
+	}
+}
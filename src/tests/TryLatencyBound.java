@@ -0,0 +1,57 @@
+package tests;
+import input.ParseApplicationGraph;
+import spdfcore.*;
+import spdfcore.stanalys.GraphExpressions;
+import spdfcore.stanalys.Solutions;
+import graphanalysis.*;
+
+import java.util.*;
+
+/**
+ * Test the minimum latency bound calculated from the longest path in the HSDF graph.
+ * 
+ * @author Pranav Tendulkar
+ *
+ */
+public class TryLatencyBound 
+{
+	/**
+	 * Calculate the minimum latency of an example graph and check that 
+	 * the HSDF graph is not modified by the calculation.
+	 * 
+	 * @param args None Required
+	 */
+	public static void main (String[] args) 
+	{
+		final int expectedLatency = 15;
+		
+		ParseApplicationGraph xmlParse = new ParseApplicationGraph ();
+		Graph g = xmlParse.parseSingleGraphXml ("inputFiles/test_graphs/ThroughputTest.xml");
+		
+		GraphExpressions expressions = new GraphExpressions ();
+		expressions.parse (g);
+		Solutions solutions = new Solutions ();
+		solutions.solve (g, expressions);
+		
+		TransformSDFtoHSDF toHSDF = new TransformSDFtoHSDF ();
+		Graph hsdf = toHSDF.convertSDFtoHSDFWithUniqueChannels (g);
+		int numChannels = hsdf.countChannels ();
+		
+		CalculateBounds bounds = new CalculateBounds (g, hsdf, solutions);
+		int latency = bounds.findGraphMinLatency ();
+		if (latency != expectedLatency)
+			throw new RuntimeException ("The expected minimum latency was : " + expectedLatency + " calculated : " + latency);
+		
+		if (hsdf.countChannels () != numChannels)
+			throw new RuntimeException ("The HSDF graph was modified while calculating the minimum latency");
+		
+		List<Actor> path = bounds.findGraphMinLatencyPath ();
+		int pathLatency = 0;
+		for (Actor actr : path)
+			pathLatency += actr.getExecTime ();
+		if (pathLatency != expectedLatency)
+			throw new RuntimeException ("The critical path " + path.toString () + " does not have the expected latency");
+		
+		System.out.println ("TryLatencyBound Passed the Test !");
+	}
+}
@@ -0,0 +1,87 @@
+package tests;
+import solver.distributedMemory.scheduling.ScheduleCompaction;
+
+import java.util.*;
+
+/**
+ * Test the ASAP compaction and the left-edge processor allocation
+ * on a small schedule with DMA transfers.
+ * 
+ * @author Pranav Tendulkar
+ *
+ */
+public class TryScheduleCompaction 
+{
+	/**
+	 * Check the earliest start times for fixed orders on the processors and the DMA engine,
+	 * including the DMA setup time after which the processor is free, and that the 
+	 * left-edge algorithm uses the least number of processors.
+	 * 
+	 * @param args None Required
+	 */
+	public static void main (String[] args) 
+	{
+		// Tasks A, B, C, D and Sink on processors, two DMA transfers from A to B and C.
+		final int A = 0, dma1 = 1, dma2 = 2, B = 3, C = 4, D = 5, sink = 6;
+		final int duration[] = {10, 5, 5, 20, 15, 8, 5};
+		final int dmaSetupTime = 2;
+		
+		ScheduleCompaction compaction = new ScheduleCompaction (duration.length);
+		compaction.addConstraint (A, dma1, duration[A]);
+		compaction.addConstraint (dma1, dma2, dmaSetupTime);
+		compaction.addConstraint (dma1, B, duration[dma1]);
+		compaction.addConstraint (dma2, C, duration[dma2]);
+		compaction.addConstraint (B, sink, duration[B]);
+		compaction.addConstraint (C, sink, duration[C]);
+		compaction.addConstraint (D, sink, duration[D]);
+		
+		// A then D on the first processor, which is free at the end of the setup of the last DMA of A.
+		// B then C on the second processor, and dma1 then dma2 on the DMA engine.
+		int orderSource[] = {dma2, B, dma1};
+		int orderDest[] = {D, C, dma2};
+		int orderWeight[] = {dmaSetupTime, duration[B], duration[dma1]};
+		
+		final int expectedStart[] = {0, 10, 15, 15, 35, 17, 50};
+		int startTime[] = compaction.getStartTimes (orderSource, orderDest, orderWeight, orderSource.length);
+		if (startTime == null || Arrays.equals (startTime, expectedStart) == false)
+			throw new RuntimeException ("Start times " + Arrays.toString (startTime) + ", expected " + Arrays.toString (expectedStart));
+		
+		// Sink before A on the first processor contradicts the precedences.
+		int cycleSource[] = {sink};
+		int cycleDest[] = {A};
+		int cycleWeight[] = {duration[sink]};
+		if (compaction.getStartTimes (cycleSource, cycleDest, cycleWeight, 1) != null)
+			throw new RuntimeException ("Start times found for cyclic constraints");
+		
+		// The processor of A is busy until the end of the setup of dma2.
+		int freeTime[] = new int[duration.length];
+		for (int i=0;i<duration.length;i++)
+			freeTime[i] = startTime[i] + duration[i];
+		freeTime[A] = startTime[dma2] + dmaSetupTime;
+		
+		// A and B overlap, then B and D, so two processors are needed.
+		final int firstProcessor = 4;
+		int processor[] = new int[duration.length];
+		List<Integer> procTasks = Arrays.asList (A, B, C, D, sink);
+		int numProcessors = ScheduleCompaction.leftEdge (procTasks, startTime, freeTime, firstProcessor, processor);
+		if (numProcessors != 2)
+			throw new RuntimeException ("Left-edge used " + numProcessors + " processors, expected 2");
+		
+		for (int task1 : procTasks)
+		{
+			if (processor[task1] < firstProcessor || processor[task1] >= firstProcessor + numProcessors)
+				throw new RuntimeException ("Task " + task1 + " allocated to processor " + processor[task1]);
+			
+			for (int task2 : procTasks)
+				if (task1 < task2 && processor[task1] == processor[task2] 
+						&& startTime[task1] < freeTime[task2] && startTime[task2] < freeTime[task1])
+					throw new RuntimeException ("Tasks " + task1 + " and " + task2 + " overlap on processor " + processor[task1]);
+		}
+		
+		// The two DMA transfers do not overlap and need one DMA engine.
+		if (ScheduleCompaction.leftEdge (Arrays.asList (dma1, dma2), startTime, freeTime, 0, processor) != 1)
+			throw new RuntimeException ("Left-edge used more than one DMA engine");
+		
+		System.out.println ("TryScheduleCompaction Passed the Test !");
+	}
+}
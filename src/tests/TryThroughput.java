@@ -1,7 +1,11 @@
 package tests;
 import output.DotGraph;
 import input.ParseApplicationGraph;
+import graphanalysis.TransformSDFtoHSDF;
+import graphanalysis.throughput.MaxCycleRatio;
 import graphanalysis.throughput.Throughput;
+import graphanalysis.throughput.ThroughputMaxPlus;
+import graphanalysis.throughput.ThroughputMcm;
 
 import spdfcore.Graph;
 
@@ -56,5 +60,19 @@ public class TryThroughput
 		double thr = thruPut.calculateThroughput (g);
 		
 		validateTestOutput (thr);
+		
+		// Symbolic execution of the SDF graph must give the same throughput.
+		ThroughputMaxPlus maxPlus = new ThroughputMaxPlus ();
+		validateTestOutput (maxPlus.calculateThroughput (g));
+		
+		// Maximum cycle ratio on the HSDF graph must give the same throughput.
+		TransformSDFtoHSDF toHSDF = new TransformSDFtoHSDF ();
+		Graph hsdf = toHSDF.convertSDFtoHSDF (g);
+		for (MaxCycleRatio.Algorithm algorithm : MaxCycleRatio.Algorithm.values ())
+		{
+			ThroughputMcm mcm = new ThroughputMcm (hsdf);
+			mcm.setAlgorithm (algorithm);
+			validateTestOutput (mcm.calculateThroughput ());
+		}
 	}
 }